@@ -50,6 +50,21 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
         this.leastSignificantBits = leastSignificantBits;
     }
 
+    /**
+     * Constructs a new {@link EUI48} using the given {@code bits}, which contains the bit
+     * representation in its 48 least significant bits.
+     * 
+     * @param bits The bit representation.
+     * @throws IllegalArgumentException If any of the 16 most significant bits of {@code bits} is
+     *             set.
+     * @see #getBits()
+     */
+    public EUI48(long bits) {
+        EUI48s.checkValid(bits);
+        this.mostSignificantBits = (int) (bits >> 16);
+        this.leastSignificantBits = (short) bits;
+    }
+
     /**
      * Constructs a new {@link EUI48} using the given {@code octets}.
      * 
@@ -59,14 +74,7 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
      * @see #getOctets()
      */
     public EUI48(byte[] octets) {
-        if (octets.length != 6) {
-            throw new IllegalArgumentException("octets is of illegal length " + octets.length);
-        }
-        this.mostSignificantBits = (octets[0] << 24)
-                                   | (octets[1] << 16)
-                                   | (octets[2] << 8)
-                                   | octets[3];
-        this.leastSignificantBits = (short) ((octets[4] << 8) | octets[5]);
+        this(EUI48s.fromOctets(octets));
     }
 
     /**
@@ -91,6 +99,17 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
         return this.leastSignificantBits;
     }
 
+    /**
+     * Returns the bit representation of this {@link EUI48} in the 48 least significant bits of a
+     * {@code long}. The 16 most significant bits are always zero.
+     * 
+     * @return The bit representation of this EUI-48.
+     * @see #EUI48(long)
+     */
+    public long getBits() {
+        return ((long) this.mostSignificantBits << 16 | ((long) this.leastSignificantBits & 0xffff)) & 0xffffffffffffL;
+    }
+
     /**
      * Returns the octet representation of this {@link EUI48} in transmission order.
      * 
@@ -98,19 +117,90 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
      * @see #EUI48(byte[])
      */
     public byte[] getOctets() {
-        return new byte[] {
-                (byte) ((this.mostSignificantBits >> 24) & 0xff),
-                (byte) ((this.mostSignificantBits >> 16) & 0xff),
-                (byte) ((this.mostSignificantBits >> 8) & 0xff),
-                (byte) (this.mostSignificantBits & 0xff),
-                (byte) ((this.leastSignificantBits >> 8) & 0xff),
-                (byte) (this.leastSignificantBits & 0xff)
-        };
+        return EUI48s.toOctets(getBits());
+    }
+
+    /**
+     * Returns the organizationally unique identifier (OUI) of this {@link EUI48}, which is the
+     * first three octets, including the multicast and locally administered bits.
+     * 
+     * @return The 24-bit OUI.
+     * @see #getNIC()
+     */
+    public int getOUI() {
+        return this.mostSignificantBits >>> 8;
+    }
+
+    /**
+     * Returns the network interface controller (NIC) specific part of this {@link EUI48}, which is
+     * the last three octets.
+     * 
+     * @return The 24-bit NIC specific part.
+     * @see #getOUI()
+     */
+    public int getNIC() {
+        return (this.mostSignificantBits & 0xff) << 16 | (this.leastSignificantBits & 0xffff);
+    }
+
+    /**
+     * Returns whether this {@link EUI48} is a group address, that is whether the least significant
+     * bit of the first octet (the I/G bit) is set.
+     * 
+     * @return {@code true} if this EUI-48 is a multicast address.
+     * @see #isUnicast()
+     * @see #isBroadcast()
+     */
+    public boolean isMulticast() {
+        return (this.mostSignificantBits & 0x01000000) != 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI48} is an individual address, that is whether the least
+     * significant bit of the first octet (the I/G bit) is clear.
+     * 
+     * @return {@code true} if this EUI-48 is a unicast address.
+     * @see #isMulticast()
+     */
+    public boolean isUnicast() {
+        return (this.mostSignificantBits & 0x01000000) == 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI48} is the broadcast address {@code ff:ff:ff:ff:ff:ff}.
+     * 
+     * @return {@code true} if this EUI-48 is the broadcast address.
+     */
+    public boolean isBroadcast() {
+        return this.mostSignificantBits == -1 && this.leastSignificantBits == -1;
+    }
+
+    /**
+     * Returns whether this {@link EUI48} is locally administered, that is whether the second least
+     * significant bit of the first octet (the U/L bit) is set.
+     * 
+     * @return {@code true} if this EUI-48 is locally administered.
+     * @see #isUniversal()
+     */
+    public boolean isLocallyAdministered() {
+        return (this.mostSignificantBits & 0x02000000) != 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI48} is universally administered, that is whether the second
+     * least significant bit of the first octet (the U/L bit) is clear.
+     * 
+     * @return {@code true} if this EUI-48 is universally administered.
+     * @see #isLocallyAdministered()
+     */
+    public boolean isUniversal() {
+        return (this.mostSignificantBits & 0x02000000) == 0;
     }
 
     /**
      * Compares this {@link EUI48} with the specified {@link EUI48} based on their bit
-     * representations.
+     * representations. Note that this order compares the bit representations as signed values,
+     * and thus differs from the lexicographic order of the octets, see
+     * {@link #compareToUnsigned(EUI48)}.
      * 
      * @param val {@code EUI48} to which this {@code EUI48} should be compared.
      * @return {@code -1}, {@code 0} or {@code 1} if this {@link EUI48} is less than, equal to or
@@ -149,43 +239,23 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
      * @see #toString()
      */
     public static EUI48 fromString(String name) {
-        long bits = 0;
-        char sep = 0;
-        for (int n = 0;; ++n) {
-            if (n == name.length()) {
-                if (n == 17) {
-                    return new EUI48((int) (bits >> 16), (short) bits);
-                }
-                else {
-                    break;
-                }
-            }
-            char c = name.charAt(n);
-            if (n == 2) {
-                if (c != ':' && c != '-') {
-                    break;
-                }
-                sep = c;
-            }
-            else if ((n - 2) % 3 == 0) {
-                if (c != sep) {
-                    break;
-                }
-            }
-            else if (c >= '0' && c <= '9') {
-                bits = (bits << 4) | (c - '0');
-            }
-            else if (c >= 'a' && c <= 'f') {
-                bits = (bits << 4) | (10 + c - 'a');
-            }
-            else if (c >= 'A' && c <= 'F') {
-                bits = (bits << 4) | (10 + c - 'A');
-            }
-            else {
-                break;
-            }
-        }
-        throw new IllegalArgumentException("Invalid EUI-48 string: " + name);
+        return new EUI48(EUI48s.parse(name));
+    }
+
+    /**
+     * Compares this {@link EUI48} with the specified {@link EUI48} in the lexicographic order of
+     * their octets, with the octets compared as unsigned values. This is the order of the
+     * {@link #getOctets() octets} stored in a {@code BINARY} column by a database, and of the
+     * {@link #toString() string representations}.
+     * 
+     * @param val {@code EUI48} to which this {@code EUI48} should be compared.
+     * @return A negative integer, zero or a positive integer if this {@link EUI48} is less than,
+     *         equal to or greater than {@code val}.
+     * @throws NullPointerException if {@code val} is {@code null}.
+     * @see EUIComparators
+     */
+    public int compareToUnsigned(EUI48 val) {
+        return Long.compare(getBits(), val.getBits());
     }
 
     /**
@@ -209,13 +279,28 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
     }
 
     /**
-     * Returns a hash code for this EUI-48.
+     * Returns a hash code for this EUI-48. The hash code is derived from {@link #hash64()}, so that
+     * sequential EUI-48s from the same organization spread evenly over hash table buckets.
      * 
      * @return A hash code value for this {@code EUI48}.
+     * @see #hash64()
      */
     @Override
     public int hashCode() {
-        return this.mostSignificantBits ^ this.leastSignificantBits;
+        long h = hash64();
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a well-mixed 64-bit hash value for this EUI-48, suitable for external hash-based
+     * structures such as bloom filters or hash-partitioned storage. Every bit of the EUI-48 affects
+     * every bit of the result.
+     * 
+     * @return A 64-bit hash value for this {@code EUI48}.
+     * @see #hashCode()
+     */
+    public long hash64() {
+        return EUI48s.hash64(getBits());
     }
 
     /**
@@ -227,18 +312,6 @@ public final class EUI48 implements Comparable<EUI48>, Serializable {
      */
     @Override
     public String toString() {
-        char[] value = new char[17];
-        long bits = ((long) this.mostSignificantBits << 16) | ((long) this.leastSignificantBits & 0xffff);
-        for (int n = value.length; --n >= 0;) {
-            if ((n - 2) % 3 == 0) {
-                value[n] = ':';
-            }
-            else {
-                int c = (int) bits & 0xf;
-                value[n] = (char) (c + (c < 10 ? '0' : ('a' - 10)));
-                bits >>= 4;
-            }
-        }
-        return new String(value);
+        return EUI48s.toString(getBits());
     }
 }
@@ -0,0 +1,81 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.bind.annotation.adapters.XmlAdapter;
+
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Adapts lists of {@link EUI48}s for custom marshalling using a single XML string, which holds
+ * the string representations of the list elements separated by whitespace, like the value of an
+ * {@code xs:list} type. This avoids an element and an adapter call per list element. The list is
+ * formatted into a single buffer and parsed in a single pass over the string.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48
+ * @see EUI48XmlAdapter
+ */
+public class EUI48ListXmlAdapter extends XmlAdapter<String, List<EUI48>> {
+    /**
+     * Converts the given list of {@link EUI48} values to the string representations of its
+     * elements, separated by single spaces. Returns {@code null} if {@code vals} is {@code null}.
+     * 
+     * @param vals The EUI-48 values.
+     * @return The string representation of {@code vals}.
+     * @throws NullPointerException if {@code vals} contains {@code null}.
+     * @see EUI48#toString()
+     */
+    @Override
+    public String marshal(List<EUI48> vals) throws Exception {
+        if (vals == null) {
+            return null;
+        }
+        long[] bits = new long[vals.size()];
+        int count = 0;
+        for (EUI48 val : vals) {
+            bits[count++] = val.getBits();
+        }
+        return XmlLists.format(bits, count, EUIType.EUI48);
+    }
+
+    /**
+     * Converts the whitespace separated EUI-48 string representations in {@code str} to a list of
+     * {@link EUI48}s. Returns {@code null} if {@code str} is {@code null}.
+     * 
+     * @param str The whitespace separated EUI-48 string representations.
+     * @return The mutable list of {@link EUI48}s represented by {@code str}.
+     * @throws IllegalArgumentException if any item of {@code str} is not a valid EUI-48 string
+     *             representation.
+     * @see EUI48#fromString(String)
+     */
+    @Override
+    public List<EUI48> unmarshal(String str) throws Exception {
+        if (str == null) {
+            return null;
+        }
+        long[] bits = XmlLists.parse(str, EUIType.EUI48);
+        List<EUI48> vals = new ArrayList<EUI48>(bits.length);
+        for (long b : bits) {
+            vals.add(new EUI48(b));
+        }
+        return vals;
+    }
+}
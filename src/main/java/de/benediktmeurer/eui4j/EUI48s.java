@@ -0,0 +1,518 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import java.nio.charset.StandardCharsets;
+
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+import de.benediktmeurer.eui4j.metrics.ParseFailure;
+
+/**
+ * Static utility methods for EUI-48s in their packed bit representation, i.e. in the 48 least
+ * significant bits of a {@code long}, as returned by {@link EUI48#getBits()}. These methods allow
+ * to parse, format, compare and inspect EUI-48s without creating {@link EUI48} objects, and behave
+ * exactly like the corresponding methods of {@link EUI48}, which are implemented on top of them.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48
+ * @see EUI64s
+ */
+public final class EUI48s {
+    /** The number of octets of an EUI-48. */
+    public static final int OCTETS = 6;
+
+    /** The length of the string representation of an EUI-48. */
+    public static final int STRING_LENGTH = 17;
+
+    /** The bit representation of the broadcast address {@code ff:ff:ff:ff:ff:ff}. */
+    public static final long BROADCAST = 0xffffffffffffL;
+
+    /**
+     * The bits to flip in a bit representation, such that the signed order of {@code long} is the
+     * order of {@link #compare(long, long)}.
+     */
+    public static final long ORDER_FLIP = 0x800000008000L;
+
+    /**
+     * Prevents instantiation.
+     */
+    private EUI48s() {
+    }
+
+    /**
+     * Returns whether {@code bits} is a valid bit representation of an EUI-48, i.e. whether none of
+     * its 16 most significant bits is set.
+     * 
+     * @param bits The bits.
+     * @return {@code true} if {@code bits} is a 48-bit value.
+     */
+    public static boolean isValid(long bits) {
+        return (bits >>> 48) == 0;
+    }
+
+    /**
+     * Checks that {@code bits} is a valid bit representation of an EUI-48.
+     * 
+     * @param bits The bits.
+     * @return {@code bits}.
+     * @throws IllegalArgumentException If any of the 16 most significant bits of {@code bits} is
+     *             set.
+     */
+    public static long checkValid(long bits) {
+        if ((bits >>> 48) != 0) {
+            throw new IllegalArgumentException("bits is out of range " + Long.toHexString(bits));
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the {@link EUI48} for the bit representation {@code bits}.
+     * 
+     * @param bits The bit representation.
+     * @return The EUI-48.
+     * @throws IllegalArgumentException If {@code bits} is not a valid bit representation.
+     * @see EUI48#EUI48(long)
+     */
+    public static EUI48 toEUI48(long bits) {
+        return new EUI48(bits);
+    }
+
+    /**
+     * Returns the bit representation of {@code val}.
+     * 
+     * @param val The EUI-48.
+     * @return The bit representation.
+     * @see EUI48#getBits()
+     */
+    public static long toBits(EUI48 val) {
+        return val.getBits();
+    }
+
+    /**
+     * Parses the EUI-48 string representation {@code name}, see {@link EUI48#fromString(String)}.
+     * 
+     * @param name The EUI-48 string representation.
+     * @return The bit representation.
+     * @throws IllegalArgumentException If {@code name} is not a valid EUI-48 string
+     *             representation.
+     * @throws NullPointerException If {@code name} is {@code null}.
+     */
+    public static long parse(CharSequence name) {
+        return parse(name, null, 0, name.length());
+    }
+
+    /**
+     * Parses the EUI-48 string representation from index {@code start} (inclusive) to {@code end}
+     * (exclusive) of {@code name}, see {@link EUI48#fromString(String)}.
+     * 
+     * @param name The characters.
+     * @param start The index of the first character.
+     * @param end The index behind the last character.
+     * @return The bit representation.
+     * @throws IllegalArgumentException If the range is not a valid EUI-48 string representation.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public static long parse(CharSequence name, int start, int end) {
+        if (start < 0 || start > end || end > name.length()) {
+            throw new IndexOutOfBoundsException("Range " + start + " to " + end + " is out of bounds for length " + name.length());
+        }
+        return parse(name, null, start, end);
+    }
+
+    /**
+     * Parses the EUI-48 string representation in the {@code length} ASCII bytes of {@code ascii}
+     * starting at {@code offset}, see {@link EUI48#fromString(String)}.
+     * 
+     * @param ascii The ASCII bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @return The bit representation.
+     * @throws IllegalArgumentException If the bytes are not a valid EUI-48 string representation.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public static long parse(byte[] ascii, int offset, int length) {
+        if (offset < 0 || length < 0 || length > ascii.length - offset) {
+            throw new IndexOutOfBoundsException("Range of length " + length + " at " + offset + " is out of bounds for length " + ascii.length);
+        }
+        return parse(null, ascii, offset, offset + length);
+    }
+
+    /**
+     * Returns the string representation of the EUI-48 {@code bits}, see {@link EUI48#toString()}.
+     * 
+     * @param bits The bit representation.
+     * @return The string representation.
+     */
+    public static String toString(long bits) {
+        char[] value = new char[STRING_LENGTH];
+        format(bits, value, 0);
+        return new String(value);
+    }
+
+    /**
+     * Formats the EUI-48 {@code bits} into {@code dest} starting at {@code offset}, see
+     * {@link EUI48#toString()}.
+     * 
+     * @param bits The bit representation.
+     * @param dest The destination.
+     * @param offset The offset of the first character.
+     * @return The offset behind the last character.
+     * @throws IndexOutOfBoundsException If {@code dest} is too small.
+     */
+    public static int format(long bits, char[] dest, int offset) {
+        for (int n = STRING_LENGTH; --n >= 0;) {
+            if ((n - 2) % 3 == 0) {
+                dest[offset + n] = ':';
+            }
+            else {
+                int c = (int) bits & 0xf;
+                dest[offset + n] = (char) (c + (c < 10 ? '0' : ('a' - 10)));
+                bits >>= 4;
+            }
+        }
+        if (EUIMetrics.isEnabled()) {
+            EUIMetrics.recordFormat(EUIType.EUI48, STRING_LENGTH);
+        }
+        return offset + STRING_LENGTH;
+    }
+
+    /**
+     * Formats the EUI-48 {@code bits} as ASCII bytes into {@code dest} starting at {@code offset},
+     * see {@link EUI48#toString()}.
+     * 
+     * @param bits The bit representation.
+     * @param dest The destination.
+     * @param offset The offset of the first byte.
+     * @return The offset behind the last byte.
+     * @throws IndexOutOfBoundsException If {@code dest} is too small.
+     */
+    public static int format(long bits, byte[] dest, int offset) {
+        for (int n = STRING_LENGTH; --n >= 0;) {
+            if ((n - 2) % 3 == 0) {
+                dest[offset + n] = ':';
+            }
+            else {
+                int c = (int) bits & 0xf;
+                dest[offset + n] = (byte) (c + (c < 10 ? '0' : ('a' - 10)));
+                bits >>= 4;
+            }
+        }
+        if (EUIMetrics.isEnabled()) {
+            EUIMetrics.recordFormat(EUIType.EUI48, STRING_LENGTH);
+        }
+        return offset + STRING_LENGTH;
+    }
+
+    /**
+     * Appends the string representation of the EUI-48 {@code bits} to {@code sb}, see
+     * {@link EUI48#toString()}.
+     * 
+     * @param bits The bit representation.
+     * @param sb The string builder.
+     * @return {@code sb}.
+     */
+    public static StringBuilder appendTo(long bits, StringBuilder sb) {
+        int offset = sb.length();
+        sb.setLength(offset + STRING_LENGTH);
+        for (int n = STRING_LENGTH; --n >= 0;) {
+            if ((n - 2) % 3 == 0) {
+                sb.setCharAt(offset + n, ':');
+            }
+            else {
+                int c = (int) bits & 0xf;
+                sb.setCharAt(offset + n, (char) (c + (c < 10 ? '0' : ('a' - 10))));
+                bits >>= 4;
+            }
+        }
+        if (EUIMetrics.isEnabled()) {
+            EUIMetrics.recordFormat(EUIType.EUI48, STRING_LENGTH);
+        }
+        return sb;
+    }
+
+    /**
+     * Returns the octet representation of the EUI-48 {@code bits} in transmission order, see
+     * {@link EUI48#getOctets()}.
+     * 
+     * @param bits The bit representation.
+     * @return The octets.
+     */
+    public static byte[] toOctets(long bits) {
+        byte[] octets = new byte[OCTETS];
+        putOctets(bits, octets, 0);
+        return octets;
+    }
+
+    /**
+     * Stores the octets of the EUI-48 {@code bits} in transmission order into {@code dest}
+     * starting at {@code offset}.
+     * 
+     * @param bits The bit representation.
+     * @param dest The destination.
+     * @param offset The offset of the first octet.
+     * @return The offset behind the last octet.
+     * @throws IndexOutOfBoundsException If {@code dest} is too small.
+     */
+    public static int putOctets(long bits, byte[] dest, int offset) {
+        for (int n = OCTETS; --n >= 0; bits >>>= 8) {
+            dest[offset + n] = (byte) bits;
+        }
+        return offset + OCTETS;
+    }
+
+    /**
+     * Returns the bit representation for the {@code octets} in transmission order, see
+     * {@link EUI48#EUI48(byte[])}.
+     * 
+     * @param octets The octets.
+     * @return The bit representation.
+     * @throws IllegalArgumentException If {@code octets} does not have exactly {@code 6} elements.
+     */
+    public static long fromOctets(byte[] octets) {
+        if (octets.length != OCTETS) {
+            throw new IllegalArgumentException("octets is of illegal length " + octets.length);
+        }
+        return fromOctets(octets, 0);
+    }
+
+    /**
+     * Returns the bit representation for the six octets in transmission order in {@code src}
+     * starting at {@code offset}.
+     * 
+     * @param src The source.
+     * @param offset The offset of the first octet.
+     * @return The bit representation.
+     * @throws IndexOutOfBoundsException If {@code src} is too small.
+     */
+    public static long fromOctets(byte[] src, int offset) {
+        long bits = 0;
+        for (int n = 0; n < OCTETS; ++n) {
+            bits = (bits << 8) | (src[offset + n] & 0xff);
+        }
+        return bits;
+    }
+
+    /**
+     * Returns the octet at {@code index} in transmission order of the EUI-48 {@code bits}.
+     * 
+     * @param bits The bit representation.
+     * @param index The index of the octet, from {@code 0} to {@code 5}.
+     * @return The unsigned octet.
+     * @throws IndexOutOfBoundsException If {@code index} is out of range.
+     */
+    public static int getOctet(long bits, int index) {
+        checkOctetIndex(index);
+        return (int) (bits >>> ((OCTETS - 1 - index) << 3)) & 0xff;
+    }
+
+    /**
+     * Returns the EUI-48 {@code bits} with the octet at {@code index} in transmission order
+     * replaced by {@code octet}.
+     * 
+     * @param bits The bit representation.
+     * @param index The index of the octet, from {@code 0} to {@code 5}.
+     * @param octet The new octet, of which only the 8 least significant bits are used.
+     * @return The new bit representation.
+     * @throws IndexOutOfBoundsException If {@code index} is out of range.
+     */
+    public static long setOctet(long bits, int index, int octet) {
+        checkOctetIndex(index);
+        int shift = (OCTETS - 1 - index) << 3;
+        return (bits & ~(0xffL << shift)) | ((long) (octet & 0xff) << shift);
+    }
+
+    /**
+     * Compares the EUI-48s {@code x} and {@code y} in the order of {@link EUI48#compareTo(EUI48)}.
+     * 
+     * @param x The first bit representation.
+     * @param y The second bit representation.
+     * @return {@code -1}, {@code 0} or {@code 1} if {@code x} is less than, equal to or greater than
+     *         {@code y}.
+     */
+    public static int compare(long x, long y) {
+        return Long.compare(x ^ ORDER_FLIP, y ^ ORDER_FLIP);
+    }
+
+    /**
+     * Compares the EUI-48s {@code x} and {@code y} in the order of their octets, see
+     * {@link EUI48#compareToUnsigned(EUI48)}.
+     * 
+     * @param x The first bit representation.
+     * @param y The second bit representation.
+     * @return A negative integer, zero or a positive integer if {@code x} is less than, equal to or
+     *         greater than {@code y}.
+     */
+    public static int compareUnsigned(long x, long y) {
+        return Long.compare(x, y);
+    }
+
+    /**
+     * Returns the 64-bit hash of the EUI-48 {@code bits}, see {@link EUI48#hash64()}. This applies
+     * the 64-bit finalizer of the SplitMix64 generator (variant 13 by David Stafford) to
+     * {@code bits}.
+     * 
+     * @param bits The bit representation.
+     * @return The 64-bit hash.
+     */
+    public static long hash64(long bits) {
+        long z = bits;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns the hash code of the EUI-48 {@code bits}, see {@link EUI48#hashCode()}.
+     * 
+     * @param bits The bit representation.
+     * @return The hash code.
+     */
+    public static int hashCode(long bits) {
+        long h = hash64(bits);
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns the OUI of the EUI-48 {@code bits}, see {@link EUI48#getOUI()}.
+     * 
+     * @param bits The bit representation.
+     * @return The 24-bit OUI.
+     */
+    public static int getOUI(long bits) {
+        return (int) (bits >>> 24) & 0xffffff;
+    }
+
+    /**
+     * Returns the NIC specific part of the EUI-48 {@code bits}, see {@link EUI48#getNIC()}.
+     * 
+     * @param bits The bit representation.
+     * @return The 24-bit NIC specific part.
+     */
+    public static int getNIC(long bits) {
+        return (int) bits & 0xffffff;
+    }
+
+    /**
+     * Returns whether the EUI-48 {@code bits} is a group address, see
+     * {@link EUI48#isMulticast()}.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if {@code bits} is a multicast address.
+     */
+    public static boolean isMulticast(long bits) {
+        return (bits & (1L << 40)) != 0;
+    }
+
+    /**
+     * Returns whether the EUI-48 {@code bits} is locally administered, see
+     * {@link EUI48#isLocallyAdministered()}.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if {@code bits} is locally administered.
+     */
+    public static boolean isLocallyAdministered(long bits) {
+        return (bits & (1L << 41)) != 0;
+    }
+
+    /**
+     * Returns whether the EUI-48 {@code bits} is the broadcast address, see
+     * {@link EUI48#isBroadcast()}.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if {@code bits} is the broadcast address.
+     */
+    public static boolean isBroadcast(long bits) {
+        return bits == BROADCAST;
+    }
+
+    /**
+     * Parses the characters from index {@code start} (inclusive) to {@code end} (exclusive) of
+     * either {@code chars} or {@code ascii}.
+     * 
+     * @param chars The characters, or {@code null} to parse {@code ascii}.
+     * @param ascii The ASCII bytes, if {@code chars} is {@code null}.
+     * @param start The index of the first character.
+     * @param end The index behind the last character.
+     * @return The bit representation.
+     * @throws IllegalArgumentException If the characters are not a valid EUI-48 string
+     *             representation.
+     */
+    private static long parse(CharSequence chars, byte[] ascii, int start, int end) {
+        long bits = 0;
+        char sep = 0;
+        ParseFailure reason;
+        for (int n = 0;; ++n) {
+            if (n == end - start) {
+                if (n == STRING_LENGTH) {
+                    if (EUIMetrics.isEnabled()) {
+                        EUIMetrics.recordParse(EUIType.EUI48);
+                    }
+                    return bits;
+                }
+                else {
+                    reason = ParseFailure.LENGTH;
+                    break;
+                }
+            }
+            char c = (chars != null) ? chars.charAt(start + n) : (char) (ascii[start + n] & 0xff);
+            if (n == 2) {
+                if (c != ':' && c != '-') {
+                    reason = ParseFailure.SEPARATOR;
+                    break;
+                }
+                sep = c;
+            }
+            else if ((n - 2) % 3 == 0) {
+                if (c != sep) {
+                    reason = ParseFailure.SEPARATOR;
+                    break;
+                }
+            }
+            else if (c >= '0' && c <= '9') {
+                bits = (bits << 4) | (c - '0');
+            }
+            else if (c >= 'a' && c <= 'f') {
+                bits = (bits << 4) | (10 + c - 'a');
+            }
+            else if (c >= 'A' && c <= 'F') {
+                bits = (bits << 4) | (10 + c - 'A');
+            }
+            else {
+                reason = ParseFailure.DIGIT;
+                break;
+            }
+        }
+        String name = (chars != null) ? chars.subSequence(start, end).toString() : new String(ascii, start, end - start, StandardCharsets.ISO_8859_1);
+        if (EUIMetrics.isEnabled()) {
+            EUIMetrics.recordParseFailure(EUIType.EUI48, reason, name);
+        }
+        throw new IllegalArgumentException("Invalid EUI-48 string: " + name);
+    }
+
+    /**
+     * Checks that {@code index} is a valid octet index.
+     * 
+     * @param index The octet index.
+     * @throws IndexOutOfBoundsException If {@code index} is out of range.
+     */
+    private static void checkOctetIndex(int index) {
+        if (index < 0 || index >= OCTETS) {
+            throw new IndexOutOfBoundsException("Octet index out of range: " + index);
+        }
+    }
+}
@@ -50,17 +50,7 @@ public final class EUI64 implements Comparable<EUI64>, Serializable {
      * @see #getOctets()
      */
     public EUI64(byte[] octets) {
-        if (octets.length != 8) {
-            throw new IllegalArgumentException("octets is of illegal length " + octets.length);
-        }
-        this.bits = ((long) octets[0] << 56)
-                    | ((long) octets[1] << 48)
-                    | ((long) octets[2] << 40)
-                    | ((long) octets[3] << 32)
-                    | ((long) octets[4] << 24)
-                    | ((long) octets[5] << 16)
-                    | ((long) octets[6] << 8)
-                    | octets[7];
+        this.bits = EUI64s.fromOctets(octets);
     }
 
     /**
@@ -80,17 +70,90 @@ public final class EUI64 implements Comparable<EUI64>, Serializable {
      * @see #EUI64(byte[])
      */
     public byte[] getOctets() {
-        byte[] octets = new byte[8];
-        long bits = this.bits;
-        for (int n = 8; --n >= 0; bits >>= 8) {
-            octets[n] = (byte) (bits & 0xff);
-        }
-        return octets;
+        return EUI64s.toOctets(getBits());
+    }
+
+    /**
+     * Returns the organizationally unique identifier (OUI) of this {@link EUI64}, which is the
+     * first three octets, including the multicast and locally administered bits.
+     * 
+     * @return The 24-bit OUI.
+     * @see #getNIC()
+     */
+    public int getOUI() {
+        return (int) (this.bits >>> 40);
+    }
+
+    /**
+     * Returns the extension identifier of this {@link EUI64}, which is the last five octets.
+     * 
+     * @return The 40-bit extension identifier.
+     * @see #getOUI()
+     */
+    public long getNIC() {
+        return this.bits & 0xffffffffffL;
+    }
+
+    /**
+     * Returns whether this {@link EUI64} is a group address, that is whether the least significant
+     * bit of the first octet (the I/G bit) is set.
+     * 
+     * @return {@code true} if this EUI-64 is a multicast address.
+     * @see #isUnicast()
+     * @see #isBroadcast()
+     */
+    public boolean isMulticast() {
+        return (this.bits & 0x0100000000000000L) != 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI64} is an individual address, that is whether the least
+     * significant bit of the first octet (the I/G bit) is clear.
+     * 
+     * @return {@code true} if this EUI-64 is a unicast address.
+     * @see #isMulticast()
+     */
+    public boolean isUnicast() {
+        return (this.bits & 0x0100000000000000L) == 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI64} is the broadcast address
+     * {@code ff:ff:ff:ff:ff:ff:ff:ff}.
+     * 
+     * @return {@code true} if this EUI-64 is the broadcast address.
+     */
+    public boolean isBroadcast() {
+        return this.bits == -1L;
+    }
+
+    /**
+     * Returns whether this {@link EUI64} is locally administered, that is whether the second least
+     * significant bit of the first octet (the U/L bit) is set.
+     * 
+     * @return {@code true} if this EUI-64 is locally administered.
+     * @see #isUniversal()
+     */
+    public boolean isLocallyAdministered() {
+        return (this.bits & 0x0200000000000000L) != 0;
+    }
+
+    /**
+     * Returns whether this {@link EUI64} is universally administered, that is whether the second
+     * least significant bit of the first octet (the U/L bit) is clear.
+     * 
+     * @return {@code true} if this EUI-64 is universally administered.
+     * @see #isLocallyAdministered()
+     */
+    public boolean isUniversal() {
+        return (this.bits & 0x0200000000000000L) == 0;
     }
 
     /**
      * Compares this {@link EUI64} with the specified {@link EUI64} based on their bit
-     * representations.
+     * representations. Note that this order compares the bit representations as signed values,
+     * and thus differs from the lexicographic order of the octets, see
+     * {@link #compareToUnsigned(EUI64)}.
      * 
      * @param val {@code EUI64} to which this {@code EUI64} should be compared.
      * @return {@code -1}, {@code 0} or {@code 1} if this {@link EUI64} is less than, equal to or
@@ -122,43 +185,23 @@ public final class EUI64 implements Comparable<EUI64>, Serializable {
      * @see #toString()
      */
     public static EUI64 fromString(String name) {
-        long bits = 0;
-        char sep = 0;
-        for (int n = 0;; ++n) {
-            if (n == name.length()) {
-                if (n == 23) {
-                    return new EUI64(bits);
-                }
-                else {
-                    break;
-                }
-            }
-            char c = name.charAt(n);
-            if (n == 2) {
-                if (c != ':' && c != '-') {
-                    break;
-                }
-                sep = c;
-            }
-            else if ((n - 2) % 3 == 0) {
-                if (c != sep) {
-                    break;
-                }
-            }
-            else if (c >= '0' && c <= '9') {
-                bits = (bits << 4) | (c - '0');
-            }
-            else if (c >= 'a' && c <= 'f') {
-                bits = (bits << 4) | (10 + c - 'a');
-            }
-            else if (c >= 'A' && c <= 'F') {
-                bits = (bits << 4) | (10 + c - 'A');
-            }
-            else {
-                break;
-            }
-        }
-        throw new IllegalArgumentException("Invalid EUI-64 string: " + name);
+        return new EUI64(EUI64s.parse(name));
+    }
+
+    /**
+     * Compares this {@link EUI64} with the specified {@link EUI64} in the lexicographic order of
+     * their octets, with the octets compared as unsigned values. This is the order of the
+     * {@link #getOctets() octets} stored in a {@code BINARY} column by a database, and of the
+     * {@link #toString() string representations}.
+     * 
+     * @param val {@code EUI64} to which this {@code EUI64} should be compared.
+     * @return A negative integer, zero or a positive integer if this {@link EUI64} is less than,
+     *         equal to or greater than {@code val}.
+     * @throws NullPointerException if {@code val} is {@code null}.
+     * @see EUIComparators
+     */
+    public int compareToUnsigned(EUI64 val) {
+        return Long.compareUnsigned(this.bits, val.bits);
     }
 
     /**
@@ -180,13 +223,28 @@ public final class EUI64 implements Comparable<EUI64>, Serializable {
     }
 
     /**
-     * Returns a hash code for this EUI-64.
+     * Returns a hash code for this EUI-64. The hash code is derived from {@link #hash64()}, so that
+     * sequential EUI-64s from the same organization spread evenly over hash table buckets.
      * 
      * @return A hash code value for this {@code EUI64}.
+     * @see #hash64()
      */
     @Override
     public int hashCode() {
-        return (int) (this.bits >> 32) ^ (int) this.bits;
+        long h = hash64();
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a well-mixed 64-bit hash value for this EUI-64, suitable for external hash-based
+     * structures such as bloom filters or hash-partitioned storage. Every bit of the EUI-64 affects
+     * every bit of the result.
+     * 
+     * @return A 64-bit hash value for this {@code EUI64}.
+     * @see #hashCode()
+     */
+    public long hash64() {
+        return EUI64s.hash64(getBits());
     }
 
     /**
@@ -199,18 +257,6 @@ public final class EUI64 implements Comparable<EUI64>, Serializable {
      */
     @Override
     public String toString() {
-        char[] value = new char[23];
-        long bits = this.bits;
-        for (int n = value.length; --n >= 0;) {
-            if ((n - 2) % 3 == 0) {
-                value[n] = ':';
-            }
-            else {
-                int c = (int) bits & 0xf;
-                value[n] = (char) (c + (c < 10 ? '0' : ('a' - 10)));
-                bits >>= 4;
-            }
-        }
-        return new String(value);
+        return EUI64s.toString(getBits());
     }
 }
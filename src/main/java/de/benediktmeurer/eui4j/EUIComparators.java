@@ -0,0 +1,154 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.Comparator;
+
+/**
+ * Comparators for the lexicographic order of the octets of EUIs, with the octets compared as
+ * unsigned values. This is the order in which a database returns {@code BINARY} columns written by
+ * the {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType} and
+ * {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI64BinaryType}, so sorted results of queries
+ * can be merged with {@link EUI48}s and {@link EUI64}s sorted with these comparators, and with each
+ * other, without sorting them again and without creating objects for the raw octets. The natural
+ * orders of {@link EUI48} and {@link EUI64} compare signed values and are therefore not suitable
+ * for this purpose.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48#compareToUnsigned(EUI48)
+ * @see EUI64#compareToUnsigned(EUI64)
+ */
+public final class EUIComparators {
+    /** Orders {@link EUI48}s by their octets, see {@link EUI48#compareToUnsigned(EUI48)}. */
+    public static final Comparator<EUI48> EUI48_OCTET_ORDER = (Comparator<EUI48> & Serializable) EUI48::compareToUnsigned;
+
+    /** Orders {@link EUI64}s by their octets, see {@link EUI64#compareToUnsigned(EUI64)}. */
+    public static final Comparator<EUI64> EUI64_OCTET_ORDER = (Comparator<EUI64> & Serializable) EUI64::compareToUnsigned;
+
+    /**
+     * Orders byte arrays lexicographically, with the bytes compared as unsigned values. An array
+     * that is a prefix of another array is ordered before it.
+     */
+    public static final Comparator<byte[]> OCTET_ARRAY_ORDER = (Comparator<byte[]> & Serializable) (byte[] a, byte[] b) -> {
+        int result = compareOctets(a, 0, b, 0, Math.min(a.length, b.length));
+        return (result != 0) ? result : Integer.compare(a.length, b.length);
+    };
+
+    /**
+     * Orders the remaining bytes of byte buffers lexicographically, with the bytes compared as
+     * unsigned values, unlike {@link ByteBuffer#compareTo(ByteBuffer)}. A buffer whose remaining
+     * bytes are a prefix of the remaining bytes of another buffer is ordered before it. The
+     * positions of the buffers are not changed.
+     */
+    public static final Comparator<ByteBuffer> OCTET_BUFFER_ORDER = (Comparator<ByteBuffer> & Serializable) (ByteBuffer a, ByteBuffer b) -> {
+        int result = compareOctets(a, a.position(), b, b.position(), Math.min(a.remaining(), b.remaining()));
+        return (result != 0) ? result : Integer.compare(a.remaining(), b.remaining());
+    };
+
+    /**
+     * Prevents instantiation.
+     */
+    private EUIComparators() {
+    }
+
+    /**
+     * Compares {@code length} bytes of {@code a} starting at {@code aOffset} with {@code length}
+     * bytes of {@code b} starting at {@code bOffset} lexicographically, with the bytes compared as
+     * unsigned values.
+     * 
+     * @param a The first array.
+     * @param aOffset The offset of the first byte in {@code a}.
+     * @param b The second array.
+     * @param bOffset The offset of the first byte in {@code b}.
+     * @param length The number of bytes.
+     * @return A negative integer, zero or a positive integer if the range of {@code a} is less
+     *         than, equal to or greater than the range of {@code b}.
+     * @throws ArrayIndexOutOfBoundsException If any of the ranges is out of bounds.
+     */
+    public static int compareOctets(byte[] a, int aOffset, byte[] b, int bOffset, int length) {
+        if (aOffset < 0 || bOffset < 0 || length < 0 || length > a.length - aOffset || length > b.length - bOffset) {
+            throw new ArrayIndexOutOfBoundsException("Range of length " + length + " is out of bounds");
+        }
+        for (int n = 0; n < length; ++n) {
+            int x = a[aOffset + n] & 0xff;
+            int y = b[bOffset + n] & 0xff;
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares {@code length} bytes of {@code a} starting at index {@code aIndex} with
+     * {@code length} bytes of {@code b} starting at index {@code bIndex} lexicographically, with
+     * the bytes compared as unsigned values. The positions of the buffers are not used or changed.
+     * 
+     * @param a The first buffer.
+     * @param aIndex The index of the first byte in {@code a}.
+     * @param b The second buffer.
+     * @param bIndex The index of the first byte in {@code b}.
+     * @param length The number of bytes.
+     * @return A negative integer, zero or a positive integer if the range of {@code a} is less
+     *         than, equal to or greater than the range of {@code b}.
+     * @throws IndexOutOfBoundsException If any of the ranges exceeds the limit of its buffer.
+     */
+    public static int compareOctets(ByteBuffer a, int aIndex, ByteBuffer b, int bIndex, int length) {
+        for (int n = 0; n < length; ++n) {
+            int x = a.get(aIndex + n) & 0xff;
+            int y = b.get(bIndex + n) & 0xff;
+            if (x != y) {
+                return x - y;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Compares the octets in {@code octets} with the octets of {@code val}, in the order of
+     * {@link #EUI48_OCTET_ORDER}.
+     * 
+     * @param octets The octets, for example as returned by {@link java.sql.ResultSet#getBytes(int)}
+     *            for a column written by the
+     *            {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType}.
+     * @param val The EUI-48.
+     * @return A negative integer, zero or a positive integer if {@code octets} are less than,
+     *         equal to or greater than the octets of {@code val}.
+     * @throws IllegalArgumentException If {@code octets} is not of length 6.
+     */
+    public static int compareOctets(byte[] octets, EUI48 val) {
+        return Long.compare(EUI48s.fromOctets(octets), val.getBits());
+    }
+
+    /**
+     * Compares the octets in {@code octets} with the octets of {@code val}, in the order of
+     * {@link #EUI64_OCTET_ORDER}.
+     * 
+     * @param octets The octets, for example as returned by {@link java.sql.ResultSet#getBytes(int)}
+     *            for a column written by the
+     *            {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI64BinaryType}.
+     * @param val The EUI-64.
+     * @return A negative integer, zero or a positive integer if {@code octets} are less than,
+     *         equal to or greater than the octets of {@code val}.
+     * @throws IllegalArgumentException If {@code octets} is not of length 8.
+     */
+    public static int compareOctets(byte[] octets, EUI64 val) {
+        return Long.compareUnsigned(EUI64s.fromOctets(octets), val.getBits());
+    }
+}
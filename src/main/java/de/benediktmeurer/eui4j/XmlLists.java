@@ -0,0 +1,114 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import java.util.Arrays;
+
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Formats and parses whitespace separated lists of EUIs, as used for the values of
+ * {@code xs:list} types, directly from and to their bit representations. Formatting writes all
+ * EUIs into a single character buffer, and parsing scans the text in a single pass, without
+ * creating substrings. The individual EUIs are formatted and parsed by {@link EUI48s} and
+ * {@link EUI64s}, which also record the metrics.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48ListXmlAdapter
+ * @see EUI64ListXmlAdapter
+ */
+final class XmlLists {
+    /**
+     * Prevents instantiation.
+     */
+    private XmlLists() {
+    }
+
+    /**
+     * Formats the first {@code count} bit representations in {@code bits} as a list separated by
+     * single spaces.
+     * 
+     * @param bits The bit representations.
+     * @param count The number of bit representations.
+     * @param type The EUI type.
+     * @return The list.
+     */
+    static String format(long[] bits, int count, EUIType type) {
+        if (count == 0) {
+            return "";
+        }
+        char[] value = new char[count * (length(type) + 1) - 1];
+        for (int i = 0, offset = 0; i < count; ++i) {
+            if (i > 0) {
+                value[offset++] = ' ';
+            }
+            offset = (type == EUIType.EUI48) ? EUI48s.format(bits[i], value, offset) : EUI64s.format(bits[i], value, offset);
+        }
+        return new String(value);
+    }
+
+    /**
+     * Parses a list of EUIs separated by XML whitespace.
+     * 
+     * @param list The list.
+     * @param type The EUI type.
+     * @return The bit representations of the EUIs, in the order of the list.
+     * @throws IllegalArgumentException If any of the list items is not a valid EUI string
+     *             representation.
+     */
+    static long[] parse(String list, EUIType type) {
+        int end = list.length();
+        // Every valid item but the last is followed by at least one whitespace character
+        long[] bits = new long[(end + 1) / (length(type) + 1)];
+        int count = 0;
+        for (int start = 0;;) {
+            while (start < end && isWhitespace(list.charAt(start))) {
+                ++start;
+            }
+            if (start == end) {
+                break;
+            }
+            int stop = start + 1;
+            while (stop < end && !isWhitespace(list.charAt(stop))) {
+                ++stop;
+            }
+            bits[count++] = (type == EUIType.EUI48) ? EUI48s.parse(list, start, stop) : EUI64s.parse(list, start, stop);
+            start = stop;
+        }
+        return (count == bits.length) ? bits : Arrays.copyOf(bits, count);
+    }
+
+    /**
+     * Returns the length of the string representation of an EUI of the specified {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The length of the string representation.
+     */
+    private static int length(EUIType type) {
+        return (type == EUIType.EUI48) ? EUI48s.STRING_LENGTH : EUI64s.STRING_LENGTH;
+    }
+
+    /**
+     * Returns whether {@code c} is XML whitespace.
+     * 
+     * @param c The character.
+     * @return {@code true} for space, tab, carriage return and line feed.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+}
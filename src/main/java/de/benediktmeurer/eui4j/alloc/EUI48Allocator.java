@@ -0,0 +1,431 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.alloc;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Allocates EUI-48s from one or more ranges, typically ranges of locally administered addresses.
+ * Every address of a range is either free or allocated; addresses are allocated one at a time with
+ * {@link #allocate()}, in contiguous blocks with {@link #allocate(int)}, or reserved individually
+ * with {@link #reserve(EUI48)}, and become free again with {@link #release(EUI48)}.
+ * 
+ * <p>
+ * Each range is backed by a bitmap of atomic words, so that allocation, reservation and release
+ * are lock-free and may be used concurrently from any number of threads. Adding ranges is rare and
+ * synchronizes only with other additions. The state of the allocator can be written to a file with
+ * {@link #snapshot(File)} and read back with {@link #restore(File)}.
+ * </p>
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUI48Allocator {
+    /** The magic number at the start of each snapshot file. */
+    private static final int MAGIC = 0x45344141;
+
+    /** The version of the snapshot file format. */
+    private static final int VERSION = 1;
+
+    /** The maximum number of addresses in a single range. */
+    private static final long MAX_RANGE_SIZE = 1L << 32;
+
+    /** The ranges, ordered by their first address. */
+    private volatile Pool[] pools = new Pool[0];
+
+    /**
+     * Constructs a new {@link EUI48Allocator} without any ranges.
+     * 
+     * @see #addRange(EUI48, EUI48)
+     */
+    public EUI48Allocator() {
+    }
+
+    /**
+     * Constructs a new {@link EUI48Allocator} for the single range {@code first} to {@code last}.
+     * 
+     * @param first The first address of the range.
+     * @param last The last address of the range.
+     * @throws IllegalArgumentException If {@code first} is greater than {@code last}, or the range
+     *             contains more than 2^32 addresses.
+     * @throws NullPointerException If {@code first} or {@code last} is {@code null}.
+     */
+    public EUI48Allocator(EUI48 first, EUI48 last) {
+        addRange(first, last);
+    }
+
+    /**
+     * Adds the range {@code first} to {@code last} (inclusive), all of whose addresses are free.
+     * 
+     * @param first The first address of the range.
+     * @param last The last address of the range.
+     * @throws IllegalArgumentException If {@code first} is greater than {@code last}, the range
+     *             contains more than 2^32 addresses or the range overlaps with another range.
+     * @throws NullPointerException If {@code first} or {@code last} is {@code null}.
+     */
+    public void addRange(EUI48 first, EUI48 last) {
+        addRange(first.getBits(), last.getBits());
+    }
+
+    /**
+     * Adds the range {@code first} to {@code last} (inclusive), given as bit representations, all
+     * of whose addresses are free.
+     * 
+     * @param first The bit representation of the first address of the range.
+     * @param last The bit representation of the last address of the range.
+     * @throws IllegalArgumentException If {@code first} or {@code last} is not a 48-bit value,
+     *             {@code first} is greater than {@code last}, the range contains more than 2^32
+     *             addresses or the range overlaps with another range.
+     * @see EUI48#getBits()
+     */
+    public void addRange(long first, long last) {
+        if ((first >>> 48) != 0 || (last >>> 48) != 0) {
+            throw new IllegalArgumentException("Range " + Long.toHexString(first) + " to " + Long.toHexString(last) + " is out of range");
+        }
+        if (first > last || last - first >= MAX_RANGE_SIZE) {
+            throw new IllegalArgumentException("Invalid range " + Long.toHexString(first) + " to " + Long.toHexString(last));
+        }
+        addPool(new Pool(first, last));
+    }
+
+    /**
+     * Allocates a single free address.
+     * 
+     * @return The allocated address, or {@code null} if all addresses are allocated.
+     */
+    public EUI48 allocate() {
+        long bits = allocateBits();
+        return (bits < 0) ? null : new EUI48(bits);
+    }
+
+    /**
+     * Allocates a single free address and returns its bit representation.
+     * 
+     * @return The bit representation of the allocated address, or {@code -1} if all addresses are
+     *         allocated.
+     * @see EUI48#getBits()
+     */
+    public long allocateBits() {
+        for (Pool pool : this.pools) {
+            long bits = pool.allocate();
+            if (bits >= 0) {
+                return bits;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates a block of {@code n} contiguous free addresses within a single range.
+     * 
+     * @param n The number of addresses.
+     * @return The first address of the allocated block, or {@code null} if there is no block of
+     *         {@code n} free addresses.
+     * @throws IllegalArgumentException If {@code n} is less than {@code 1}.
+     */
+    public EUI48 allocate(int n) {
+        long bits = allocateBits(n);
+        return (bits < 0) ? null : new EUI48(bits);
+    }
+
+    /**
+     * Allocates a block of {@code n} contiguous free addresses within a single range and returns
+     * the bit representation of its first address.
+     * 
+     * @param n The number of addresses.
+     * @return The bit representation of the first address of the allocated block, or {@code -1}
+     *         if there is no block of {@code n} free addresses.
+     * @throws IllegalArgumentException If {@code n} is less than {@code 1}.
+     */
+    public long allocateBits(int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Invalid block size " + n);
+        }
+        for (Pool pool : this.pools) {
+            if (n <= pool.size()) {
+                long bits = (n == 1) ? pool.allocate() : pool.allocate(n);
+                if (bits >= 0) {
+                    return bits;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Marks {@code val} as free.
+     * 
+     * @param val The address.
+     * @return {@code true} if {@code val} was allocated.
+     * @throws IllegalArgumentException If {@code val} is not in any range of this allocator.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public boolean release(EUI48 val) {
+        return release(val.getBits());
+    }
+
+    /**
+     * Marks the address with the bit representation {@code bits} as free.
+     * 
+     * @param bits The bit representation of the address.
+     * @return {@code true} if the address was allocated.
+     * @throws IllegalArgumentException If the address is not in any range of this allocator.
+     */
+    public boolean release(long bits) {
+        return poolOf(bits, 1).release(bits, 1) != 0;
+    }
+
+    /**
+     * Marks the block of {@code n} addresses starting at {@code first} as free.
+     * 
+     * @param first The first address of the block.
+     * @param n The number of addresses.
+     * @return The number of addresses of the block that were allocated.
+     * @throws IllegalArgumentException If {@code n} is less than {@code 1}, or the block is not
+     *             within a single range of this allocator.
+     * @throws NullPointerException If {@code first} is {@code null}.
+     */
+    public int release(EUI48 first, int n) {
+        return release(first.getBits(), n);
+    }
+
+    /**
+     * Marks the block of {@code n} addresses starting at the bit representation {@code first} as
+     * free.
+     * 
+     * @param first The bit representation of the first address of the block.
+     * @param n The number of addresses.
+     * @return The number of addresses of the block that were allocated.
+     * @throws IllegalArgumentException If {@code n} is less than {@code 1}, or the block is not
+     *             within a single range of this allocator.
+     */
+    public int release(long first, int n) {
+        if (n < 1) {
+            throw new IllegalArgumentException("Invalid block size " + n);
+        }
+        return poolOf(first, n).release(first, n);
+    }
+
+    /**
+     * Marks {@code val} as allocated, for example because it was assigned by other means.
+     * 
+     * @param val The address.
+     * @return {@code true} if {@code val} was free.
+     * @throws IllegalArgumentException If {@code val} is not in any range of this allocator.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public boolean reserve(EUI48 val) {
+        return reserve(val.getBits());
+    }
+
+    /**
+     * Marks the address with the bit representation {@code bits} as allocated.
+     * 
+     * @param bits The bit representation of the address.
+     * @return {@code true} if the address was free.
+     * @throws IllegalArgumentException If the address is not in any range of this allocator.
+     */
+    public boolean reserve(long bits) {
+        return poolOf(bits, 1).reserve(bits);
+    }
+
+    /**
+     * Returns whether {@code val} is allocated.
+     * 
+     * @param val The address.
+     * @return {@code true} if {@code val} is allocated.
+     * @throws IllegalArgumentException If {@code val} is not in any range of this allocator.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public boolean isAllocated(EUI48 val) {
+        return isAllocated(val.getBits());
+    }
+
+    /**
+     * Returns whether the address with the bit representation {@code bits} is allocated.
+     * 
+     * @param bits The bit representation of the address.
+     * @return {@code true} if the address is allocated.
+     * @throws IllegalArgumentException If the address is not in any range of this allocator.
+     */
+    public boolean isAllocated(long bits) {
+        return poolOf(bits, 1).isAllocated(bits);
+    }
+
+    /**
+     * Returns the total number of addresses in all ranges.
+     * 
+     * @return The number of addresses.
+     */
+    public long getCapacity() {
+        long capacity = 0;
+        for (Pool pool : this.pools) {
+            capacity += pool.size();
+        }
+        return capacity;
+    }
+
+    /**
+     * Returns the number of allocated addresses. The result is exact only while no other thread
+     * modifies this allocator.
+     * 
+     * @return The number of allocated addresses.
+     */
+    public long getAllocatedCount() {
+        long count = 0;
+        for (Pool pool : this.pools) {
+            count += pool.allocated();
+        }
+        return count;
+    }
+
+    /**
+     * Writes the ranges and allocated addresses of this allocator to {@code file}. The file is
+     * first written under a temporary name, synced to the storage device and then renamed, so that
+     * a crash never leaves a partial snapshot. Allocations and releases that happen concurrently
+     * with the snapshot may or may not be reflected in it.
+     * 
+     * @param file The snapshot file.
+     * @throws IOException If an I/O error occurs.
+     * @see #restore(File)
+     */
+    public void snapshot(File file) throws IOException {
+        Pool[] pools = this.pools;
+        File tmp = new File(file.getPath() + ".tmp");
+        FileOutputStream fos = new FileOutputStream(tmp);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(pools.length);
+            for (Pool pool : pools) {
+                out.writeLong(pool.getFirst());
+                out.writeLong(pool.getLast());
+                for (int n = 0; n < pool.wordCount(); ++n) {
+                    out.writeLong(pool.getWord(n));
+                }
+            }
+            out.flush();
+            fos.getFD().sync();
+        }
+        finally {
+            fos.close();
+        }
+        if (!tmp.renameTo(file) && !(file.delete() && tmp.renameTo(file))) {
+            throw new IOException("Failed to rename " + tmp + " to " + file);
+        }
+    }
+
+    /**
+     * Creates a new {@link EUI48Allocator} from a snapshot {@code file}.
+     * 
+     * @param file The snapshot file.
+     * @return The restored allocator.
+     * @throws IOException If the file cannot be read or is not a valid snapshot file.
+     * @see #snapshot(File)
+     */
+    public static EUI48Allocator restore(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Invalid snapshot file " + file);
+            }
+            int count = in.readInt();
+            if (count < 0) {
+                throw new IOException("Corrupt snapshot file " + file);
+            }
+            EUI48Allocator allocator = new EUI48Allocator();
+            for (int i = 0; i < count; ++i) {
+                long first = in.readLong(), last = in.readLong();
+                if ((first >>> 48) != 0 || (last >>> 48) != 0 || first > last || last - first >= MAX_RANGE_SIZE) {
+                    throw new IOException("Corrupt snapshot file " + file);
+                }
+                Pool pool = new Pool(first, last);
+                for (int n = 0; n < pool.wordCount(); ++n) {
+                    pool.setWord(n, in.readLong());
+                }
+                try {
+                    allocator.addPool(pool);
+                }
+                catch (IllegalArgumentException e) {
+                    throw new IOException("Corrupt snapshot file " + file, e);
+                }
+            }
+            if (in.read() >= 0) {
+                throw new IOException("Corrupt snapshot file " + file);
+            }
+            return allocator;
+        }
+        catch (EOFException e) {
+            throw new IOException("Truncated snapshot file " + file, e);
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Adds {@code pool} to the ranges of this allocator.
+     * 
+     * @param pool The new range.
+     * @throws IllegalArgumentException If {@code pool} overlaps with another range.
+     */
+    private synchronized void addPool(Pool pool) {
+        Pool[] pools = this.pools;
+        int index = 0;
+        while (index < pools.length && pools[index].getFirst() < pool.getFirst()) {
+            ++index;
+        }
+        if ((index > 0 && pools[index - 1].getLast() >= pool.getFirst()) || (index < pools.length && pool.getLast() >= pools[index].getFirst())) {
+            throw new IllegalArgumentException("Range " + Long.toHexString(pool.getFirst()) + " to " + Long.toHexString(pool.getLast()) + " overlaps with another range");
+        }
+        Pool[] newPools = Arrays.copyOf(pools, pools.length + 1);
+        System.arraycopy(pools, index, newPools, index + 1, pools.length - index);
+        newPools[index] = pool;
+        this.pools = newPools;
+    }
+
+    /**
+     * Returns the range that contains the block of {@code n} addresses starting at {@code bits}.
+     * 
+     * @param bits The bit representation of the first address.
+     * @param n The number of addresses.
+     * @return The range.
+     * @throws IllegalArgumentException If the block is not within a single range.
+     */
+    private Pool poolOf(long bits, int n) {
+        for (Pool pool : this.pools) {
+            if (pool.contains(bits)) {
+                if (!pool.contains(bits + n - 1)) {
+                    break;
+                }
+                return pool;
+            }
+        }
+        throw new IllegalArgumentException("Address " + Long.toHexString(bits) + " is not in a range of this allocator");
+    }
+}
@@ -0,0 +1,367 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.alloc;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A contiguous range of EUI-48s, managed by a concurrent bitmap with one bit per address. Bits are
+ * only ever changed by compare-and-set on the bitmap words, so none of the operations block. The
+ * padding bits behind the last address of the range are permanently set.
+ * 
+ * @author Benedikt Meurer
+ */
+final class Pool {
+    /** The bit representation of the first address. */
+    private final long first;
+
+    /** The number of addresses. */
+    private final long size;
+
+    /** The allocation bitmap. */
+    private final AtomicLongArray words;
+
+    /** The index of the word at which the next search starts. */
+    private final AtomicInteger hint = new AtomicInteger();
+
+    /**
+     * Constructs a new {@link Pool} for the addresses {@code first} to {@code last}, all of which
+     * are initially free.
+     * 
+     * @param first The bit representation of the first address.
+     * @param last The bit representation of the last address.
+     */
+    Pool(long first, long last) {
+        this.first = first;
+        this.size = last - first + 1;
+        this.words = new AtomicLongArray((int) ((this.size + 63) >>> 6));
+        int tail = (int) this.size & 63;
+        if (tail != 0) {
+            this.words.set(this.words.length() - 1, -1L << tail);
+        }
+    }
+
+    /**
+     * Returns the bit representation of the first address.
+     * 
+     * @return The first address.
+     */
+    long getFirst() {
+        return this.first;
+    }
+
+    /**
+     * Returns the bit representation of the last address.
+     * 
+     * @return The last address.
+     */
+    long getLast() {
+        return this.first + this.size - 1;
+    }
+
+    /**
+     * Returns the number of addresses.
+     * 
+     * @return The number of addresses.
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether {@code bits} lies in this pool.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if {@code bits} lies in this pool.
+     */
+    boolean contains(long bits) {
+        return bits >= this.first && bits - this.first < this.size;
+    }
+
+    /**
+     * Returns the number of allocated addresses. The count is computed word by word and is thus
+     * only approximate while other threads allocate or release addresses.
+     * 
+     * @return The number of allocated addresses.
+     */
+    long allocated() {
+        long count = 0;
+        for (int n = 0; n < this.words.length(); ++n) {
+            count += Long.bitCount(this.words.get(n));
+        }
+        return count - (((long) this.words.length() << 6) - this.size);
+    }
+
+    /**
+     * Returns the number of bitmap words.
+     * 
+     * @return The number of words.
+     */
+    int wordCount() {
+        return this.words.length();
+    }
+
+    /**
+     * Returns the bitmap word at {@code index}, with the padding bits cleared.
+     * 
+     * @param index The word index.
+     * @return The bitmap word.
+     */
+    long getWord(int index) {
+        long word = this.words.get(index);
+        if (index == this.words.length() - 1 && (this.size & 63) != 0) {
+            word &= ~(-1L << this.size);
+        }
+        return word;
+    }
+
+    /**
+     * Sets the bitmap word at {@code index}, keeping the padding bits set. Only used while the
+     * pool is not yet shared.
+     * 
+     * @param index The word index.
+     * @param word The bitmap word.
+     */
+    void setWord(int index, long word) {
+        if (index == this.words.length() - 1 && (this.size & 63) != 0) {
+            word |= -1L << this.size;
+        }
+        this.words.set(index, word);
+    }
+
+    /**
+     * Allocates a single free address.
+     * 
+     * @return The bit representation of the allocated address, or {@code -1} if all addresses are
+     *         allocated.
+     */
+    long allocate() {
+        int count = this.words.length();
+        int start = this.hint.get();
+        for (int n = 0; n < count; ++n) {
+            int index = (start + n < count) ? start + n : start + n - count;
+            long word;
+            while ((word = this.words.get(index)) != -1L) {
+                long bit = Long.lowestOneBit(~word);
+                if (this.words.compareAndSet(index, word, word | bit)) {
+                    if (index != start) {
+                        this.hint.lazySet(index);
+                    }
+                    return this.first + ((long) index << 6) + Long.numberOfTrailingZeros(bit);
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Allocates a block of {@code n} contiguous free addresses.
+     * 
+     * @param n The number of addresses.
+     * @return The bit representation of the first allocated address, or {@code -1} if there is no
+     *         block of {@code n} free addresses.
+     */
+    long allocate(int n) {
+        long start = (long) this.hint.get() << 6;
+        long offset = search(start, this.size, n);
+        if (offset < 0 && start > 0) {
+            offset = search(0, start, n);
+        }
+        return (offset < 0) ? -1 : this.first + offset;
+    }
+
+    /**
+     * Marks the {@code n} addresses starting at {@code bits} as free.
+     * 
+     * @param bits The bit representation of the first address.
+     * @param n The number of addresses.
+     * @return The number of addresses that were allocated before.
+     */
+    int release(long bits, int n) {
+        long offset = bits - this.first;
+        return clear(offset, offset + n);
+    }
+
+    /**
+     * Marks the address {@code bits} as allocated.
+     * 
+     * @param bits The bit representation of the address.
+     * @return {@code true} if the address was free before.
+     */
+    boolean reserve(long bits) {
+        long offset = bits - this.first;
+        int index = (int) (offset >>> 6);
+        long bit = 1L << offset;
+        for (;;) {
+            long word = this.words.get(index);
+            if ((word & bit) != 0) {
+                return false;
+            }
+            if (this.words.compareAndSet(index, word, word | bit)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns whether the address {@code bits} is allocated.
+     * 
+     * @param bits The bit representation of the address.
+     * @return {@code true} if the address is allocated.
+     */
+    boolean isAllocated(long bits) {
+        long offset = bits - this.first;
+        return (this.words.get((int) (offset >>> 6)) & (1L << offset)) != 0;
+    }
+
+    /**
+     * Searches for and claims a block of {@code n} free addresses, whose first offset is at least
+     * {@code from} and less than {@code to}.
+     * 
+     * @param from The lowest offset of the block.
+     * @param to The limit for the first offset of the block.
+     * @param n The number of addresses.
+     * @return The offset of the claimed block, or {@code -1}.
+     */
+    private long search(long from, long to, int n) {
+        long start = nextClear(from);
+        while (start < to && start + n <= this.size) {
+            long end = nextSet(start, start + n);
+            if (end == start + n) {
+                end = claim(start, end);
+                if (end < 0) {
+                    if (start >>> 6 != this.hint.get()) {
+                        this.hint.lazySet((int) (start >>> 6));
+                    }
+                    return start;
+                }
+            }
+            start = nextClear(end);
+        }
+        return -1;
+    }
+
+    /**
+     * Sets the bits {@code from} (inclusive) to {@code to} (exclusive), word by word. If another
+     * thread allocated any of these addresses in the meantime, the bits set so far are cleared
+     * again.
+     * 
+     * @param from The first offset.
+     * @param to The offset behind the last address.
+     * @return {@code -1} if all bits were set, otherwise the offset of a conflicting allocated
+     *         address.
+     */
+    private long claim(long from, long to) {
+        for (long offset = from; offset < to;) {
+            int index = (int) (offset >>> 6);
+            long limit = Math.min(to, (long) (index + 1) << 6);
+            long mask = mask(offset, limit);
+            for (;;) {
+                long word = this.words.get(index);
+                if ((word & mask) != 0) {
+                    clear(from, offset);
+                    return ((long) index << 6) + Long.numberOfTrailingZeros(word & mask);
+                }
+                if (this.words.compareAndSet(index, word, word | mask)) {
+                    break;
+                }
+            }
+            offset = limit;
+        }
+        return -1;
+    }
+
+    /**
+     * Clears the bits {@code from} (inclusive) to {@code to} (exclusive), word by word.
+     * 
+     * @param from The first offset.
+     * @param to The offset behind the last address.
+     * @return The number of bits that were set before.
+     */
+    private int clear(long from, long to) {
+        int count = 0;
+        for (long offset = from; offset < to;) {
+            int index = (int) (offset >>> 6);
+            long limit = Math.min(to, (long) (index + 1) << 6);
+            long mask = mask(offset, limit);
+            for (;;) {
+                long word = this.words.get(index);
+                if (this.words.compareAndSet(index, word, word & ~mask)) {
+                    count += Long.bitCount(word & mask);
+                    break;
+                }
+            }
+            offset = limit;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the offset of the first free address at or after {@code from}, or the pool size if
+     * there is none.
+     * 
+     * @param from The offset at which to start.
+     * @return The offset of the free address.
+     */
+    private long nextClear(long from) {
+        int index = (int) (from >>> 6);
+        if (index >= this.words.length()) {
+            return this.size;
+        }
+        long word = ~this.words.get(index) & (-1L << from);
+        while (word == 0) {
+            if (++index == this.words.length()) {
+                return this.size;
+            }
+            word = ~this.words.get(index);
+        }
+        return Math.min(this.size, ((long) index << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Returns the offset of the first allocated address at or after {@code from} and before
+     * {@code to}, or {@code to} if there is none.
+     * 
+     * @param from The offset at which to start.
+     * @param to The offset at which to stop.
+     * @return The offset of the allocated address.
+     */
+    private long nextSet(long from, long to) {
+        int index = (int) (from >>> 6);
+        long word = this.words.get(index) & (-1L << from);
+        while (word == 0) {
+            if (((long) ++index << 6) >= to) {
+                return to;
+            }
+            word = this.words.get(index);
+        }
+        return Math.min(to, ((long) index << 6) + Long.numberOfTrailingZeros(word));
+    }
+
+    /**
+     * Returns the mask for the bits {@code from} (inclusive) to {@code to} (exclusive) of a single
+     * bitmap word.
+     * 
+     * @param from The first offset.
+     * @param to The offset behind the last bit, at most at the end of the word of {@code from}.
+     * @return The bit mask.
+     */
+    private static long mask(long from, long to) {
+        return (-1L << from) & (-1L >>> -to);
+    }
+}
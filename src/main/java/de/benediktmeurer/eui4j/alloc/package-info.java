@@ -0,0 +1,23 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides allocation of EUIs from managed address ranges. The
+ * {@link de.benediktmeurer.eui4j.alloc.EUI48Allocator} hands out EUI-48s, individually or in
+ * contiguous blocks, from one or more ranges of (typically locally administered) addresses, and
+ * can be used concurrently without locking.
+ */
+package de.benediktmeurer.eui4j.alloc;
@@ -0,0 +1,491 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.BitSet;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+import de.benediktmeurer.eui4j.metrics.ParseFailure;
+
+/**
+ * Parses large batches of EUI string representations into packed bit representations, in parallel
+ * on a {@link ForkJoinPool}. The input is split into chunks of a configurable number of elements,
+ * which are parsed independently. Invalid inputs do not raise exceptions, but are reported in the
+ * {@link EUIParseResult#getErrors() error set} of the result. The accepted syntax is the same as
+ * for {@link EUI48#fromString(String)} and {@link EUI64#fromString(String)}, and parses are
+ * recorded by {@link EUIMetrics} in the same way.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIParseResult
+ */
+public final class EUIBatchParser {
+    /** The default number of elements per chunk. */
+    public static final int DEFAULT_CHUNK_SIZE = 4096;
+
+    /** The values of the hexadecimal digits by ASCII character, {@code -1} for other characters. */
+    private static final byte[] DIGITS = new byte[128];
+
+    static {
+        for (int c = 0; c < DIGITS.length; ++c) {
+            DIGITS[c] = (byte) Character.digit(c, 16);
+        }
+    }
+
+    /** The type of the parsed EUIs. */
+    private final EUIType type;
+
+    /** The number of elements per chunk. */
+    private final int chunkSize;
+
+    /** The pool on which the chunks are parsed. */
+    private final ForkJoinPool pool;
+
+    /** The length of a valid string representation. */
+    private final int length;
+
+    /**
+     * Constructs a new {@link EUIBatchParser} for EUIs of {@code type}, which uses the
+     * {@link #DEFAULT_CHUNK_SIZE default chunk size} and the common pool.
+     * 
+     * @param type The type of the parsed EUIs.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public EUIBatchParser(EUIType type) {
+        this(type, DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Constructs a new {@link EUIBatchParser} for EUIs of {@code type}, which uses the common
+     * pool.
+     * 
+     * @param type The type of the parsed EUIs.
+     * @param chunkSize The number of elements per chunk.
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public EUIBatchParser(EUIType type, int chunkSize) {
+        this(type, chunkSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a new {@link EUIBatchParser} for EUIs of {@code type}.
+     * 
+     * @param type The type of the parsed EUIs.
+     * @param chunkSize The number of elements per chunk.
+     * @param pool The pool on which the chunks are parsed.
+     * @throws IllegalArgumentException if {@code chunkSize} is not positive.
+     * @throws NullPointerException if {@code type} or {@code pool} is {@code null}.
+     */
+    public EUIBatchParser(EUIType type, int chunkSize, ForkJoinPool pool) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        if (pool == null) {
+            throw new NullPointerException("pool is null");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive");
+        }
+        this.type = type;
+        this.chunkSize = chunkSize;
+        this.pool = pool;
+        this.length = (type == EUIType.EUI48) ? EUI48s.STRING_LENGTH : EUI64s.STRING_LENGTH;
+    }
+
+    /**
+     * Returns the type of the parsed EUIs.
+     * 
+     * @return The type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the number of elements per chunk.
+     * 
+     * @return The chunk size.
+     */
+    public int getChunkSize() {
+        return this.chunkSize;
+    }
+
+    /**
+     * Parses the string representations {@code names}. {@code null} elements are invalid.
+     * 
+     * @param names The string representations.
+     * @return The result.
+     */
+    public EUIParseResult parse(final CharSequence[] names) {
+        final long[] bits = new long[names.length];
+        final BitSet[] errors = new BitSet[chunks(names.length, this.chunkSize)];
+        run(errors.length, chunk -> {
+            int from = chunk * this.chunkSize;
+            int to = Math.min(names.length, from + this.chunkSize);
+            boolean metrics = EUIMetrics.isEnabled();
+            for (int n = from; n < to; ++n) {
+                if (!parse(names[n], bits, n, metrics)) {
+                    if (errors[chunk] == null) {
+                        errors[chunk] = new BitSet();
+                    }
+                    errors[chunk].set(n - from);
+                }
+            }
+        });
+        return result(bits, errors);
+    }
+
+    /**
+     * Parses the string representations {@code names}. {@code null} elements are invalid.
+     * 
+     * @param names The string representations.
+     * @return The result.
+     */
+    public EUIParseResult parse(List<? extends CharSequence> names) {
+        if (!(names instanceof RandomAccess)) {
+            return parse(names.toArray(new CharSequence[names.size()]));
+        }
+        final List<? extends CharSequence> list = names;
+        final long[] bits = new long[list.size()];
+        final BitSet[] errors = new BitSet[chunks(bits.length, this.chunkSize)];
+        run(errors.length, chunk -> {
+            int from = chunk * this.chunkSize;
+            int to = Math.min(bits.length, from + this.chunkSize);
+            boolean metrics = EUIMetrics.isEnabled();
+            for (int n = from; n < to; ++n) {
+                if (!parse(list.get(n), bits, n, metrics)) {
+                    if (errors[chunk] == null) {
+                        errors[chunk] = new BitSet();
+                    }
+                    errors[chunk].set(n - from);
+                }
+            }
+        });
+        return result(bits, errors);
+    }
+
+    /**
+     * Parses the US-ASCII string representations from the position to the limit of
+     * {@code buffer}, which are separated by {@code delimiter}. A trailing delimiter is optional,
+     * and if {@code delimiter} is a line feed, a carriage return at the end of a record is
+     * ignored. Empty records between two delimiters are invalid. The position of {@code buffer} is
+     * not changed.
+     * 
+     * @param buffer The buffer.
+     * @param delimiter The delimiter.
+     * @return The result.
+     */
+    public EUIParseResult parse(final ByteBuffer buffer, final byte delimiter) {
+        final int start = buffer.position();
+        final int limit = buffer.limit();
+        final int chunkBytes = (int) Math.min(Integer.MAX_VALUE - this.length, (long) this.chunkSize * (this.length + 1));
+        final int chunks = chunks(limit - start, chunkBytes);
+
+        // Count the records that start in each chunk, i.e. at its first byte or behind a delimiter
+        final int[] offsets = new int[chunks + 1];
+        run(chunks, chunk -> {
+            int from = start + chunk * chunkBytes;
+            int to = (int) Math.min(limit, (long) from + chunkBytes);
+            byte[] bytes = copy(buffer, Math.max(start, from - 1), to - 1);
+            int count = (chunk == 0) ? 1 : 0;
+            for (byte b : bytes) {
+                if (b == delimiter) {
+                    ++count;
+                }
+            }
+            offsets[chunk + 1] = count;
+        });
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            offsets[chunk + 1] += offsets[chunk];
+        }
+
+        // Parse the records that start in each chunk, where a record that extends more than one
+        // string representation beyond the end of the chunk is invalid anyway
+        final long[] bits = new long[offsets[chunks]];
+        final BitSet[] errors = new BitSet[chunks];
+        run(chunks, chunk -> {
+            int from = start + chunk * chunkBytes;
+            int to = (int) Math.min(limit, (long) from + chunkBytes);
+            int first = Math.max(start, from - 1);
+            byte[] bytes = copy(buffer, first, Math.min(limit, to + this.length + 2));
+            boolean metrics = EUIMetrics.isEnabled();
+            int p = from - first;
+            if (chunk > 0) {
+                while (p < to - first && bytes[p - 1] != delimiter) {
+                    ++p;
+                }
+            }
+            for (int n = offsets[chunk]; p < to - first; ++n) {
+                int end = p;
+                while (end < bytes.length && bytes[end] != delimiter) {
+                    ++end;
+                }
+                int last = (delimiter == '\n' && end > p && bytes[end - 1] == '\r') ? end - 1 : end;
+                if (end == bytes.length && first + end < limit) {
+                    // Record too long
+                    last = p + this.length + 1;
+                }
+                if (!parse(bytes, p, last, bits, n, metrics)) {
+                    if (errors[chunk] == null) {
+                        errors[chunk] = new BitSet();
+                    }
+                    errors[chunk].set(n - offsets[chunk]);
+                }
+                p = end + 1;
+            }
+        });
+        BitSet all = new BitSet(bits.length);
+        for (int chunk = 0; chunk < chunks; ++chunk) {
+            if (errors[chunk] != null) {
+                for (int i = errors[chunk].nextSetBit(0); i >= 0; i = errors[chunk].nextSetBit(i + 1)) {
+                    all.set(offsets[chunk] + i);
+                }
+            }
+        }
+        return new EUIParseResult(bits, all);
+    }
+
+    /**
+     * Parses {@code chars} into {@code dest[index]}.
+     * 
+     * @param chars The characters, or {@code null}.
+     * @param dest The destination array.
+     * @param index The index in {@code dest}.
+     * @param metrics Whether to record the parse with {@link EUIMetrics}.
+     * @return {@code true} if {@code chars} was valid.
+     */
+    private boolean parse(CharSequence chars, long[] dest, int index, boolean metrics) {
+        int invalid = 1;
+        if (chars != null && chars.length() == this.length) {
+            char sep = chars.charAt(2);
+            invalid = (sep == ':' || sep == '-') ? 0 : 1;
+            long bits = 0;
+            for (int n = 0; n < this.length; n += 3) {
+                int hi = digit(chars.charAt(n));
+                int lo = digit(chars.charAt(n + 1));
+                bits = (bits << 8) | (hi << 4) | lo;
+                invalid |= (hi | lo) >>> 31;
+                if (n + 2 < this.length) {
+                    invalid |= chars.charAt(n + 2) ^ sep;
+                }
+            }
+            if (invalid == 0) {
+                dest[index] = bits;
+            }
+        }
+        if (metrics) {
+            record(invalid == 0, chars);
+        }
+        return invalid == 0;
+    }
+
+    /**
+     * Parses the bytes from {@code start} (inclusive) to {@code end} (exclusive) of {@code ascii}
+     * into {@code dest[index]}.
+     * 
+     * @param ascii The ASCII bytes.
+     * @param start The index of the first byte.
+     * @param end The index behind the last byte.
+     * @param dest The destination array.
+     * @param index The index in {@code dest}.
+     * @param metrics Whether to record the parse with {@link EUIMetrics}.
+     * @return {@code true} if the bytes were valid.
+     */
+    private boolean parse(byte[] ascii, int start, int end, long[] dest, int index, boolean metrics) {
+        int invalid = 1;
+        if (end - start == this.length) {
+            int sep = ascii[start + 2];
+            invalid = (sep == ':' || sep == '-') ? 0 : 1;
+            long bits = 0;
+            for (int n = start; n < end; n += 3) {
+                int hi = digit(ascii[n] & 0xff);
+                int lo = digit(ascii[n + 1] & 0xff);
+                bits = (bits << 8) | (hi << 4) | lo;
+                invalid |= (hi | lo) >>> 31;
+                if (n + 2 < end) {
+                    invalid |= ascii[n + 2] ^ sep;
+                }
+            }
+            if (invalid == 0) {
+                dest[index] = bits;
+            }
+        }
+        if (metrics) {
+            record(invalid == 0, (invalid == 0) ? null : new String(ascii, start, end - start, StandardCharsets.ISO_8859_1));
+        }
+        return invalid == 0;
+    }
+
+    /**
+     * Records a parse with {@link EUIMetrics}.
+     * 
+     * @param valid Whether the input was valid.
+     * @param chars The input, if it was invalid.
+     */
+    private void record(boolean valid, CharSequence chars) {
+        if (valid) {
+            EUIMetrics.recordParse(this.type);
+            return;
+        }
+        // Classify the failure like the sequential parser, which checks the characters in order
+        String name = String.valueOf(chars);
+        ParseFailure reason = ParseFailure.LENGTH;
+        for (int n = 0; chars != null && n < name.length(); ++n) {
+            char c = name.charAt(n);
+            if (n % 3 == 2) {
+                if (c != name.charAt(2) || (c != ':' && c != '-')) {
+                    reason = ParseFailure.SEPARATOR;
+                    break;
+                }
+            }
+            else if (digit(c) < 0) {
+                reason = ParseFailure.DIGIT;
+                break;
+            }
+        }
+        EUIMetrics.recordParseFailure(this.type, reason, name);
+    }
+
+    /**
+     * Runs {@code action} for the chunks {@code 0} to {@code chunks - 1}, in parallel on the pool
+     * if there is more than one chunk.
+     * 
+     * @param chunks The number of chunks.
+     * @param action The action.
+     */
+    private void run(int chunks, IntConsumer action) {
+        if (chunks == 1) {
+            action.accept(0);
+        }
+        else if (chunks > 1) {
+            this.pool.invoke(new ChunkTask(action, 0, chunks));
+        }
+    }
+
+    /**
+     * Returns the result for {@code bits} and the per-chunk {@code errors}.
+     * 
+     * @param bits The bit representations.
+     * @param errors The positions of the invalid inputs relative to their chunk, or {@code null}
+     *            for chunks without invalid inputs.
+     * @return The result.
+     */
+    private EUIParseResult result(long[] bits, BitSet[] errors) {
+        BitSet all = new BitSet(bits.length);
+        for (int chunk = 0; chunk < errors.length; ++chunk) {
+            if (errors[chunk] != null) {
+                int from = chunk * this.chunkSize;
+                for (int i = errors[chunk].nextSetBit(0); i >= 0; i = errors[chunk].nextSetBit(i + 1)) {
+                    all.set(from + i);
+                }
+            }
+        }
+        return new EUIParseResult(bits, all);
+    }
+
+    /**
+     * Copies the bytes from index {@code from} (inclusive) to {@code to} (exclusive) of
+     * {@code buffer}, without changing its position.
+     * 
+     * @param buffer The buffer.
+     * @param from The index of the first byte.
+     * @param to The index behind the last byte.
+     * @return The bytes.
+     */
+    private static byte[] copy(ByteBuffer buffer, int from, int to) {
+        byte[] bytes = new byte[Math.max(0, to - from)];
+        ByteBuffer view = buffer.duplicate();
+        view.limit(from + bytes.length).position(from);
+        view.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Returns the value of the hexadecimal digit {@code c}.
+     * 
+     * @param c The character.
+     * @return The value, or {@code -1} if {@code c} is not a hexadecimal digit.
+     */
+    private static int digit(int c) {
+        return (c < DIGITS.length) ? DIGITS[c] : -1;
+    }
+
+    /**
+     * Returns the number of chunks of {@code chunkSize} for {@code size} elements.
+     * 
+     * @param size The number of elements.
+     * @param chunkSize The number of elements per chunk.
+     * @return The number of chunks.
+     */
+    private static int chunks(int size, int chunkSize) {
+        return (int) (((long) size + chunkSize - 1) / chunkSize);
+    }
+
+    /**
+     * Runs an action for a range of chunks, splitting the range in halves until it contains a
+     * single chunk.
+     */
+    private static final class ChunkTask extends RecursiveAction {
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        /** The action. */
+        private final IntConsumer action;
+
+        /** The first chunk. */
+        private final int from;
+
+        /** The chunk behind the last chunk. */
+        private final int to;
+
+        /**
+         * Constructs a new {@link ChunkTask}.
+         * 
+         * @param action The action.
+         * @param from The first chunk.
+         * @param to The chunk behind the last chunk.
+         */
+        ChunkTask(IntConsumer action, int from, int to) {
+            this.action = action;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                this.action.accept(this.from);
+            }
+            else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new ChunkTask(this.action, this.from, middle), new ChunkTask(this.action, middle, this.to));
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import java.util.Arrays;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * A predicate on packed bit representations of {@link EUI48}s or {@link EUI64}s, which matches if
+ * the bits selected by a mask equal a given value, or, for a negated filter, if they do not. The
+ * bulk operations over {@code long[]} are free of allocations and data dependent branches, so that
+ * their loops can be unrolled and vectorized by the JIT compiler, and their performance does not
+ * depend on the distribution of the input.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48#getBits()
+ * @see EUI64#getBits()
+ */
+public final class EUIFilter {
+    /** Matches EUI-48 group addresses, see {@link EUI48#isMulticast()}. */
+    public static final EUIFilter EUI48_MULTICAST = new EUIFilter(1L << 40, 1L << 40, 1);
+
+    /** Matches EUI-48 individual addresses, see {@link EUI48#isUnicast()}. */
+    public static final EUIFilter EUI48_UNICAST = new EUIFilter(1L << 40, 0, 1);
+
+    /** Matches the EUI-48 broadcast address, see {@link EUI48#isBroadcast()}. */
+    public static final EUIFilter EUI48_BROADCAST = new EUIFilter(0xffffffffffffL, 0xffffffffffffL, 1);
+
+    /** Matches locally administered EUI-48s, see {@link EUI48#isLocallyAdministered()}. */
+    public static final EUIFilter EUI48_LOCAL = new EUIFilter(1L << 41, 1L << 41, 1);
+
+    /** Matches universally administered EUI-48s, see {@link EUI48#isUniversal()}. */
+    public static final EUIFilter EUI48_UNIVERSAL = new EUIFilter(1L << 41, 0, 1);
+
+    /** Matches EUI-64 group addresses, see {@link EUI64#isMulticast()}. */
+    public static final EUIFilter EUI64_MULTICAST = new EUIFilter(1L << 56, 1L << 56, 1);
+
+    /** Matches EUI-64 individual addresses, see {@link EUI64#isUnicast()}. */
+    public static final EUIFilter EUI64_UNICAST = new EUIFilter(1L << 56, 0, 1);
+
+    /** Matches the EUI-64 broadcast address, see {@link EUI64#isBroadcast()}. */
+    public static final EUIFilter EUI64_BROADCAST = new EUIFilter(-1L, -1L, 1);
+
+    /** Matches locally administered EUI-64s, see {@link EUI64#isLocallyAdministered()}. */
+    public static final EUIFilter EUI64_LOCAL = new EUIFilter(1L << 57, 1L << 57, 1);
+
+    /** Matches universally administered EUI-64s, see {@link EUI64#isUniversal()}. */
+    public static final EUIFilter EUI64_UNIVERSAL = new EUIFilter(1L << 57, 0, 1);
+
+    /** The bits to compare. */
+    private final long mask;
+
+    /** The expected value of the bits selected by {@link #mask}. */
+    private final long value;
+
+    /** {@code 1} if the filter matches equal bits, {@code 0} if it is negated. */
+    private final int expected;
+
+    /**
+     * Constructs a new {@link EUIFilter}.
+     * 
+     * @param mask The bits to compare.
+     * @param value The expected value of the bits selected by {@code mask}.
+     * @param expected {@code 1} to match equal bits, {@code 0} to match different bits.
+     */
+    private EUIFilter(long mask, long value, int expected) {
+        this.mask = mask;
+        this.value = value & mask;
+        this.expected = expected;
+    }
+
+    /**
+     * Returns a filter that matches bit representations whose bits selected by {@code mask} equal
+     * the corresponding bits of {@code value}.
+     * 
+     * @param mask The bits to compare.
+     * @param value The expected value, bits outside of {@code mask} are ignored.
+     * @return The filter.
+     */
+    public static EUIFilter of(long mask, long value) {
+        return new EUIFilter(mask, value, 1);
+    }
+
+    /**
+     * Returns a filter that matches the EUI-48s with the organizationally unique identifier
+     * {@code oui}.
+     * 
+     * @param oui The 24-bit OUI.
+     * @return The filter.
+     * @throws IllegalArgumentException If {@code oui} is not a 24-bit value.
+     * @see EUI48#getOUI()
+     */
+    public static EUIFilter eui48OUI(int oui) {
+        checkOUI(oui);
+        return new EUIFilter(0xffffff000000L, (long) oui << 24, 1);
+    }
+
+    /**
+     * Returns a filter that matches the EUI-64s with the organizationally unique identifier
+     * {@code oui}.
+     * 
+     * @param oui The 24-bit OUI.
+     * @return The filter.
+     * @throws IllegalArgumentException If {@code oui} is not a 24-bit value.
+     * @see EUI64#getOUI()
+     */
+    public static EUIFilter eui64OUI(int oui) {
+        checkOUI(oui);
+        return new EUIFilter(0xffffff0000000000L, (long) oui << 40, 1);
+    }
+
+    /**
+     * Returns a filter that matches exactly the bit representations that this filter does not
+     * match.
+     * 
+     * @return The negated filter.
+     */
+    public EUIFilter negate() {
+        return new EUIFilter(this.mask, this.value, this.expected ^ 1);
+    }
+
+    /**
+     * Tests a single bit representation.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if this filter matches {@code bits}.
+     */
+    public boolean test(long bits) {
+        return match(bits, this.mask, this.value, this.expected) != 0;
+    }
+
+    /**
+     * Counts the bit representations in {@code bits} that match this filter.
+     * 
+     * @param bits The bit representations.
+     * @return The number of matching bit representations.
+     */
+    public int count(long[] bits) {
+        return count(bits, 0, bits.length);
+    }
+
+    /**
+     * Counts the bit representations in {@code bits} from index {@code from} (inclusive) to
+     * {@code to} (exclusive) that match this filter.
+     * 
+     * @param bits The bit representations.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @return The number of matching bit representations.
+     * @throws ArrayIndexOutOfBoundsException If the range is out of bounds.
+     */
+    public int count(long[] bits, int from, int to) {
+        checkRange(bits.length, from, to);
+        long mask = this.mask;
+        long value = this.value;
+        int expected = this.expected;
+        int count = 0;
+        for (int n = from; n < to; ++n) {
+            count += match(bits[n], mask, value, expected);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the bit representations in {@code bits} that match this filter, in their original
+     * order.
+     * 
+     * @param bits The bit representations.
+     * @return A new array with the matching bit representations.
+     */
+    public long[] filter(long[] bits) {
+        long[] out = new long[bits.length];
+        int count = filter(bits, 0, bits.length, out, 0);
+        return (count == out.length) ? out : Arrays.copyOf(out, count);
+    }
+
+    /**
+     * Copies the bit representations in {@code bits} from index {@code from} (inclusive) to
+     * {@code to} (exclusive) that match this filter to {@code out}, starting at {@code offset} and
+     * preserving their order. Every bit representation is written to {@code out}, but the position
+     * only advances for matching ones, so {@code out} must have room for {@code to - from} values
+     * behind {@code offset}, and the values behind the returned count are unspecified afterwards.
+     * The input may be compacted in place by passing {@code bits} as {@code out} and {@code from}
+     * as {@code offset}.
+     * 
+     * @param bits The bit representations.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @param out The output array.
+     * @param offset The index in {@code out} at which to write the first matching value.
+     * @return The number of matching bit representations.
+     * @throws ArrayIndexOutOfBoundsException If any of the ranges is out of bounds.
+     */
+    public int filter(long[] bits, int from, int to, long[] out, int offset) {
+        checkRange(bits.length, from, to);
+        checkRange(out.length, offset, offset + (to - from));
+        long mask = this.mask;
+        long value = this.value;
+        int expected = this.expected;
+        int index = offset;
+        for (int n = from; n < to; ++n) {
+            long b = bits[n];
+            out[index] = b;
+            index += match(b, mask, value, expected);
+        }
+        return index - offset;
+    }
+
+    /**
+     * Partitions the bit representations in {@code bits} from index {@code from} (inclusive) to
+     * {@code to} (exclusive) into {@code out}, starting at {@code offset}. The matching bit
+     * representations are written first, followed by the remaining ones, both in their original
+     * order.
+     * 
+     * @param bits The bit representations.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @param out The output array, which must not overlap with the input range.
+     * @param offset The index in {@code out} at which to write the first value.
+     * @return The number of matching bit representations, which is the length of the first
+     *         partition.
+     * @throws ArrayIndexOutOfBoundsException If any of the ranges is out of bounds.
+     */
+    public int partition(long[] bits, int from, int to, long[] out, int offset) {
+        checkRange(bits.length, from, to);
+        checkRange(out.length, offset, offset + (to - from));
+        long mask = this.mask;
+        long value = this.value;
+        int expected = this.expected;
+        int count = count(bits, from, to);
+        int matching = offset;
+        int other = offset + count;
+        for (int n = from; n < to; ++n) {
+            long b = bits[n];
+            int m = match(b, mask, value, expected);
+            out[other + ((matching - other) & -m)] = b;
+            matching += m;
+            other += m ^ 1;
+        }
+        return count;
+    }
+
+    /**
+     * Returns a hash code value for this filter.
+     * 
+     * @return A hash code value for this filter.
+     */
+    @Override
+    public int hashCode() {
+        return (int) (this.mask ^ (this.mask >>> 32) ^ this.value ^ (this.value >>> 32)) * 31 + this.expected;
+    }
+
+    /**
+     * Indicates whether some other object is "equal to" this filter.
+     * 
+     * @param obj The reference object with which to compare.
+     * @return {@code true} if this filter is the same as the {@code obj} argument; {@code false}
+     *         otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || obj.getClass() != getClass()) {
+            return false;
+        }
+        EUIFilter other = (EUIFilter) obj;
+        return this.mask == other.mask && this.value == other.value && this.expected == other.expected;
+    }
+
+    /**
+     * Returns a string representation of this filter.
+     * 
+     * @return A string representation of this filter.
+     */
+    @Override
+    public String toString() {
+        return "EUIFilter[mask=" + Long.toHexString(this.mask) + ", value=" + Long.toHexString(this.value) + ((this.expected == 0) ? ", negated]" : "]");
+    }
+
+    /**
+     * Returns {@code expected} if the bits of {@code bits} selected by {@code mask} equal
+     * {@code value}, and {@code expected ^ 1} otherwise, without branching.
+     * 
+     * @param bits The bit representation.
+     * @param mask The bits to compare.
+     * @param value The expected value of the selected bits.
+     * @param expected {@code 1} or {@code 0}.
+     * @return {@code 1} for a match, {@code 0} otherwise.
+     */
+    private static int match(long bits, long mask, long value, int expected) {
+        long diff = (bits & mask) ^ value;
+        return (int) ((diff | -diff) >>> 63) ^ expected;
+    }
+
+    /**
+     * Checks that {@code from} to {@code to} is a valid range of an array of length
+     * {@code length}.
+     * 
+     * @param length The array length.
+     * @param from The first index.
+     * @param to The index behind the last element.
+     * @throws ArrayIndexOutOfBoundsException If the range is out of bounds.
+     */
+    private static void checkRange(int length, int from, int to) {
+        if (from < 0 || from > to || to > length) {
+            throw new ArrayIndexOutOfBoundsException("Range " + from + " to " + to + " is out of bounds for length " + length);
+        }
+    }
+
+    /**
+     * Checks that {@code oui} is a 24-bit value.
+     * 
+     * @param oui The OUI.
+     * @throws IllegalArgumentException If {@code oui} is not a 24-bit value.
+     */
+    private static void checkOUI(int oui) {
+        if ((oui & 0xff000000) != 0) {
+            throw new IllegalArgumentException("oui is out of range " + Integer.toHexString(oui));
+        }
+    }
+}
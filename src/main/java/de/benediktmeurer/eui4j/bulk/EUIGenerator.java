@@ -0,0 +1,637 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * A deterministic generator for large data sets of realistic EUIs, to be used for load tests and
+ * benchmarks. The generated sequence is a pure function of the seed, the configuration and the
+ * position in the sequence, so any part of it can be generated independently, and a data set that
+ * is generated in parallel is identical to one that is generated sequentially.
+ * <p>
+ * The sequence consists of blocks of {@link #setBlockLength(int) consecutive NICs} under the same
+ * OUI, where the OUI of each block is chosen according to the {@link #addVendor(int, double) vendor
+ * weights}, and the first NIC of each block is random. A {@link #setDuplicateRate(double) share}
+ * of the elements repeats an earlier element instead, and a {@link #setMalformedRate(double)
+ * share} of the elements is rendered as a malformed string by the formatting operations.
+ * <p>
+ * The configuration methods must not be called while other threads use the generator; once
+ * configured, all generation methods are thread-safe.
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUIGenerator {
+    /** The increment of the SplitMix64 generator. */
+    private static final long GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** The number of elements generated at once into scratch buffers. */
+    private static final int CHUNK = 512;
+
+    /** The number of elements generated per task by {@link #parallelFill(long[], long)}. */
+    private static final int PARALLEL_CHUNK = 1 << 16;
+
+    /** The default maximum distance of a duplicate to the element that it repeats. */
+    private static final int DEFAULT_DUPLICATE_WINDOW = 1 << 16;
+
+    /** The type of the generated EUIs. */
+    private final EUIType type;
+
+    /** The seed. */
+    private final long seed;
+
+    /** The seed of the per-block hashes. */
+    private final long blockSeed;
+
+    /** The seed of the duplicate decisions. */
+    private final long duplicateSeed;
+
+    /** The seed of the malformation decisions. */
+    private final long malformedSeed;
+
+    /** The mask of the NIC bits. */
+    private final long nicMask;
+
+    /** The number of bits of the NIC. */
+    private final int nicBits;
+
+    /** The OUIs of the vendors. */
+    private int[] ouis = new int[0];
+
+    /** The weights of the vendors. */
+    private double[] weights = new double[0];
+
+    /** The alias table entries for the vendors, see {@link #chooseOUI(long)}. */
+    private int[] aliases = new int[0];
+
+    /** The alias table probabilities for the vendors, scaled to 32 bits. */
+    private long[] thresholds = new long[0];
+
+    /** The number of consecutive NICs per block. */
+    private int blockLength = 1;
+
+    /** The probability that an element repeats an earlier element, scaled to 53 bits. */
+    private long duplicateThreshold;
+
+    /** The maximum distance of a duplicate to the element that it repeats. */
+    private int duplicateWindow = DEFAULT_DUPLICATE_WINDOW;
+
+    /** The probability that an element is rendered as a malformed string, scaled to 53 bits. */
+    private long malformedThreshold;
+
+    /**
+     * Constructs a new {@link EUIGenerator}, which produces EUIs of {@code type} with random
+     * universally administered unicast OUIs, no duplicates and no malformed strings.
+     * 
+     * @param type The type of the generated EUIs.
+     * @param seed The seed.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public EUIGenerator(EUIType type, long seed) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        this.type = type;
+        this.seed = seed;
+        this.blockSeed = EUI48s.hash64(seed);
+        this.duplicateSeed = EUI48s.hash64(seed + GAMMA);
+        this.malformedSeed = EUI48s.hash64(seed + 2 * GAMMA);
+        this.nicBits = (type == EUIType.EUI48) ? 24 : 40;
+        this.nicMask = (1L << this.nicBits) - 1;
+    }
+
+    /**
+     * Returns the type of the generated EUIs.
+     * 
+     * @return The type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the seed.
+     * 
+     * @return The seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    /**
+     * Adds a vendor, whose OUI is chosen for a share of the blocks proportional to
+     * {@code weight}. Once a vendor was added, only the OUIs of the added vendors are generated.
+     * 
+     * @param oui The OUI of the vendor.
+     * @param weight The positive weight of the vendor.
+     * @return This generator.
+     * @throws IllegalArgumentException if {@code oui} is out of range, or {@code weight} is not a
+     *         positive number.
+     */
+    public EUIGenerator addVendor(int oui, double weight) {
+        if (oui < 0 || oui > 0xffffff) {
+            throw new IllegalArgumentException("oui is out of range");
+        }
+        if (!(weight > 0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("weight must be positive");
+        }
+        int n = this.ouis.length;
+        this.ouis = Arrays.copyOf(this.ouis, n + 1);
+        this.weights = Arrays.copyOf(this.weights, n + 1);
+        this.ouis[n] = oui;
+        this.weights[n] = weight;
+        buildAliasTable();
+        return this;
+    }
+
+    /**
+     * Sets the number of consecutive NICs generated under the same OUI.
+     * 
+     * @param blockLength The block length, at least {@code 1}.
+     * @return This generator.
+     * @throws IllegalArgumentException if {@code blockLength} is less than {@code 1}.
+     */
+    public EUIGenerator setBlockLength(int blockLength) {
+        if (blockLength < 1) {
+            throw new IllegalArgumentException("blockLength must be positive");
+        }
+        this.blockLength = blockLength;
+        return this;
+    }
+
+    /**
+     * Sets the probability that an element repeats one of the {@code window} elements before it.
+     * 
+     * @param rate The probability, at least {@code 0} and less than {@code 1}.
+     * @param window The maximum distance to the repeated element, at least {@code 1}.
+     * @return This generator.
+     * @throws IllegalArgumentException if {@code rate} or {@code window} is out of range.
+     */
+    public EUIGenerator setDuplicateRate(double rate, int window) {
+        if (!(rate >= 0 && rate < 1)) {
+            throw new IllegalArgumentException("rate is out of range");
+        }
+        if (window < 1) {
+            throw new IllegalArgumentException("window must be positive");
+        }
+        this.duplicateThreshold = (long) (rate * (1L << 53));
+        this.duplicateWindow = window;
+        return this;
+    }
+
+    /**
+     * Sets the probability that an element repeats one of the 65536 elements before it.
+     * 
+     * @param rate The probability, at least {@code 0} and less than {@code 1}.
+     * @return This generator.
+     * @throws IllegalArgumentException if {@code rate} is out of range.
+     */
+    public EUIGenerator setDuplicateRate(double rate) {
+        return setDuplicateRate(rate, DEFAULT_DUPLICATE_WINDOW);
+    }
+
+    /**
+     * Sets the probability that an element is rendered as a malformed string by
+     * {@link #toString(long)} and {@link #format(ByteBuffer, long)}. A malformed string contains
+     * an invalid hex digit or separator, or lacks or has an additional hex digit.
+     * 
+     * @param rate The probability, at least {@code 0} and at most {@code 1}.
+     * @return This generator.
+     * @throws IllegalArgumentException if {@code rate} is out of range.
+     */
+    public EUIGenerator setMalformedRate(double rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("rate is out of range");
+        }
+        this.malformedThreshold = (rate == 1) ? Long.MAX_VALUE : (long) (rate * (1L << 53));
+        return this;
+    }
+
+    /**
+     * Returns a generator with the same configuration, whose sequence is independent of the
+     * sequence of this generator and of the generators for other {@code stream} numbers. This can
+     * be used to give each thread of a load test its own reproducible sequence.
+     * 
+     * @param stream The stream number.
+     * @return The new generator.
+     */
+    public EUIGenerator split(long stream) {
+        EUIGenerator generator = new EUIGenerator(this.type, EUI48s.hash64(this.blockSeed + (stream + 1) * GAMMA));
+        generator.ouis = this.ouis;
+        generator.weights = this.weights;
+        generator.aliases = this.aliases;
+        generator.thresholds = this.thresholds;
+        generator.blockLength = this.blockLength;
+        generator.duplicateThreshold = this.duplicateThreshold;
+        generator.duplicateWindow = this.duplicateWindow;
+        generator.malformedThreshold = this.malformedThreshold;
+        return generator;
+    }
+
+    /**
+     * Returns the bit representation of the element at {@code index}.
+     * 
+     * @param index The position in the sequence.
+     * @return The bit representation.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public long getBits(long index) {
+        checkIndex(index);
+        while (index > 0 && isDuplicate(index)) {
+            index = repeatedIndex(index);
+        }
+        return generate(index);
+    }
+
+    /**
+     * Returns the element at {@code index} as {@link EUI48}.
+     * 
+     * @param index The position in the sequence.
+     * @return The EUI-48.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     * @throws IllegalStateException if this generator produces EUI-64s.
+     */
+    public EUI48 getEUI48(long index) {
+        if (this.type != EUIType.EUI48) {
+            throw new IllegalStateException("generator produces EUI-64s");
+        }
+        return new EUI48(getBits(index));
+    }
+
+    /**
+     * Returns the element at {@code index} as {@link EUI64}.
+     * 
+     * @param index The position in the sequence.
+     * @return The EUI-64.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     * @throws IllegalStateException if this generator produces EUI-48s.
+     */
+    public EUI64 getEUI64(long index) {
+        if (this.type != EUIType.EUI64) {
+            throw new IllegalStateException("generator produces EUI-48s");
+        }
+        return new EUI64(getBits(index));
+    }
+
+    /**
+     * Returns whether the element at {@code index} is rendered as a malformed string.
+     * 
+     * @param index The position in the sequence.
+     * @return {@code true} if the element is malformed.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public boolean isMalformed(long index) {
+        checkIndex(index);
+        return (mix(this.malformedSeed, index) >>> 11) < this.malformedThreshold;
+    }
+
+    /**
+     * Returns the string representation of the element at {@code index}, which is malformed if
+     * {@link #isMalformed(long)} is {@code true}.
+     * 
+     * @param index The position in the sequence.
+     * @return The string representation.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public String toString(long index) {
+        byte[] ascii = new byte[EUI64s.STRING_LENGTH + 1];
+        int length = format(getBits(index), index, ascii, 0);
+        return new String(ascii, 0, length, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Returns the bit representations of the elements from {@code from} (inclusive) to {@code to}
+     * (exclusive) as stream, which may be processed in parallel.
+     * 
+     * @param from The position of the first element.
+     * @param to The position behind the last element.
+     * @return The stream.
+     * @throws IllegalArgumentException if {@code from} is negative or greater than {@code to}.
+     */
+    public LongStream longs(long from, long to) {
+        checkIndex(from);
+        if (from > to) {
+            throw new IllegalArgumentException("from is greater than to");
+        }
+        return LongStream.range(from, to).map(this::getBits);
+    }
+
+    /**
+     * Fills {@code dest} with the bit representations of the elements starting at {@code index}.
+     * 
+     * @param dest The destination array.
+     * @param index The position of the first element.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public void fill(long[] dest, long index) {
+        fill(dest, 0, dest.length, index);
+    }
+
+    /**
+     * Fills {@code dest} from {@code from} (inclusive) to {@code to} (exclusive) with the bit
+     * representations of the elements starting at {@code index}.
+     * 
+     * @param dest The destination array.
+     * @param from The first index in {@code dest}.
+     * @param to The index behind the last element in {@code dest}.
+     * @param index The position of the first element.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     * @throws IndexOutOfBoundsException if {@code from} or {@code to} are out of bounds.
+     */
+    public void fill(long[] dest, int from, int to, long index) {
+        checkIndex(index);
+        if (from < 0 || from > to || to > dest.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        long block = index / this.blockLength;
+        int offset = (int) (index - block * this.blockLength);
+        for (int n = from; n < to; ++block, offset = 0) {
+            long h = mix(this.blockSeed, block);
+            long prefix = (long) chooseOUI(h) << this.nicBits;
+            long nic = EUI48s.hash64(h) + offset;
+            int end = (int) Math.min(to, (long) n + this.blockLength - offset);
+            for (; n < end; ++n, ++nic) {
+                dest[n] = prefix | (nic & this.nicMask);
+            }
+        }
+        if (this.duplicateThreshold != 0) {
+            for (int n = from; n < to; ++n) {
+                long i = index + (n - from);
+                if (i > 0 && isDuplicate(i)) {
+                    long j = repeatedIndex(i);
+                    dest[n] = (j >= index) ? dest[from + (int) (j - index)] : getBits(j);
+                }
+            }
+        }
+    }
+
+    /**
+     * Fills {@code dest} with the bit representations of the elements starting at {@code index},
+     * using the common fork-join pool. The result is identical to {@link #fill(long[], long)}.
+     * 
+     * @param dest The destination array.
+     * @param index The position of the first element.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public void parallelFill(final long[] dest, final long index) {
+        checkIndex(index);
+        int chunks = (dest.length + PARALLEL_CHUNK - 1) / PARALLEL_CHUNK;
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int from = chunk * PARALLEL_CHUNK;
+            fill(dest, from, Math.min(dest.length, from + PARALLEL_CHUNK), index + from);
+        });
+    }
+
+    /**
+     * Writes the octets of the elements starting at {@code index} to {@code dest}, for as many
+     * elements as fit into the remaining space of {@code dest}. The octets are written in
+     * transmission order, regardless of the byte order of {@code dest}.
+     * 
+     * @param dest The destination buffer.
+     * @param index The position of the first element.
+     * @return The number of elements written.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public int fill(ByteBuffer dest, long index) {
+        int octets = (this.type == EUIType.EUI48) ? EUI48s.OCTETS : EUI64s.OCTETS;
+        int count = dest.remaining() / octets;
+        long[] scratch = new long[Math.min(count, CHUNK)];
+        ByteBuffer buffer = (dest.order() == ByteOrder.BIG_ENDIAN) ? dest : dest.duplicate().order(ByteOrder.BIG_ENDIAN);
+        for (int n = 0; n < count; n += scratch.length) {
+            int length = Math.min(scratch.length, count - n);
+            fill(scratch, 0, length, index + n);
+            if (this.type == EUIType.EUI48) {
+                for (int i = 0; i < length; ++i) {
+                    buffer.putShort((short) (scratch[i] >>> 32));
+                    buffer.putInt((int) scratch[i]);
+                }
+            }
+            else {
+                for (int i = 0; i < length; ++i) {
+                    buffer.putLong(scratch[i]);
+                }
+            }
+        }
+        dest.position(buffer.position());
+        return count;
+    }
+
+    /**
+     * Writes the string representations of the elements starting at {@code index} to
+     * {@code dest} as lines of US-ASCII characters, each terminated by a line feed, for as many
+     * elements as fit completely into the remaining space of {@code dest}. The lines of the
+     * elements for which {@link #isMalformed(long)} is {@code true} are malformed.
+     * 
+     * @param dest The destination buffer.
+     * @param index The position of the first element.
+     * @return The number of elements written.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    public int format(ByteBuffer dest, long index) {
+        long[] bits = new long[CHUNK];
+        byte[] ascii = new byte[CHUNK * (EUI64s.STRING_LENGTH + 2)];
+        int count = 0;
+        for (;;) {
+            fill(bits, index + count);
+            int length = 0;
+            for (int n = 0; n < bits.length; ++n) {
+                int end = format(bits[n], index + count + n, ascii, length);
+                if (end >= dest.remaining()) {
+                    dest.put(ascii, 0, length);
+                    return count + n;
+                }
+                ascii[end] = '\n';
+                length = end + 1;
+            }
+            dest.put(ascii, 0, length);
+            count += bits.length;
+        }
+    }
+
+    /**
+     * Formats the element {@code bits} at {@code index} into {@code dest}, and malforms the result
+     * if {@link #isMalformed(long)} is {@code true}.
+     * 
+     * @param bits The bit representation.
+     * @param index The position in the sequence.
+     * @param dest The destination array.
+     * @param offset The offset in {@code dest}.
+     * @return The offset behind the last character.
+     */
+    private int format(long bits, long index, byte[] dest, int offset) {
+        int end = (this.type == EUIType.EUI48) ? EUI48s.format(bits, dest, offset) : EUI64s.format(bits, dest, offset);
+        long h = mix(this.malformedSeed, index);
+        if ((h >>> 11) < this.malformedThreshold) {
+            int octets = (end - offset + 1) / 3;
+            long r = EUI48s.hash64(h) & 0xffffffffL;
+            switch ((int) h & 3) {
+            case 0:
+                // Invalid hex digit
+                int digit = (int) ((r * (2 * octets)) >>> 32);
+                dest[offset + digit / 2 * 3 + digit % 2] = 'g';
+                break;
+            case 1:
+                // Invalid separator
+                dest[offset + 3 * (int) ((r * (octets - 1)) >>> 32) + 2] = '.';
+                break;
+            case 2:
+                // Missing hex digit
+                --end;
+                break;
+            default:
+                // Additional hex digit
+                dest[end] = dest[end - 1];
+                ++end;
+                break;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Returns whether the element at {@code index} repeats an earlier element.
+     * 
+     * @param index The position in the sequence.
+     * @return {@code true} if the element is a duplicate.
+     */
+    private boolean isDuplicate(long index) {
+        return (mix(this.duplicateSeed, index) >>> 11) < this.duplicateThreshold;
+    }
+
+    /**
+     * Returns the position of the element that the duplicate at {@code index} repeats.
+     * 
+     * @param index The positive position in the sequence.
+     * @return The position of the repeated element.
+     */
+    private long repeatedIndex(long index) {
+        long h = EUI48s.hash64(mix(this.duplicateSeed, index));
+        long window = Math.min(index, this.duplicateWindow);
+        return index - 1 - (((h >>> 32) * window) >>> 32);
+    }
+
+    /**
+     * Generates the element at {@code index}, ignoring the duplicate configuration.
+     * 
+     * @param index The position in the sequence.
+     * @return The bit representation.
+     */
+    private long generate(long index) {
+        long block = index / this.blockLength;
+        long h = mix(this.blockSeed, block);
+        long nic = EUI48s.hash64(h) + (index - block * this.blockLength);
+        return ((long) chooseOUI(h) << this.nicBits) | (nic & this.nicMask);
+    }
+
+    /**
+     * Chooses an OUI according to the vendor weights, using the alias method (Vose). Without
+     * vendors, a random universally administered unicast OUI is chosen.
+     * 
+     * @param h The random bits to use.
+     * @return The OUI.
+     */
+    private int chooseOUI(long h) {
+        int n = this.ouis.length;
+        if (n == 0) {
+            return (int) (h >>> 40) & 0xfcffff;
+        }
+        int column = (int) (((h >>> 32) * n) >>> 32);
+        return this.ouis[((h & 0xffffffffL) < this.thresholds[column]) ? column : this.aliases[column]];
+    }
+
+    /**
+     * Builds the alias table for the current vendor weights.
+     */
+    private void buildAliasTable() {
+        int n = this.weights.length;
+        double sum = 0;
+        for (double weight : this.weights) {
+            sum += weight;
+        }
+        double[] probabilities = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; ++i) {
+            probabilities[i] = this.weights[i] * n / sum;
+            if (probabilities[i] < 1) {
+                small[smallCount++] = i;
+            }
+            else {
+                large[largeCount++] = i;
+            }
+        }
+        int[] aliases = new int[n];
+        long[] thresholds = new long[n];
+        while (smallCount > 0 && largeCount > 0) {
+            int s = small[--smallCount];
+            int l = large[--largeCount];
+            thresholds[s] = (long) (probabilities[s] * (1L << 32));
+            aliases[s] = l;
+            probabilities[l] += probabilities[s] - 1;
+            if (probabilities[l] < 1) {
+                small[smallCount++] = l;
+            }
+            else {
+                large[largeCount++] = l;
+            }
+        }
+        while (largeCount > 0) {
+            thresholds[large[--largeCount]] = 1L << 32;
+        }
+        while (smallCount > 0) {
+            thresholds[small[--smallCount]] = 1L << 32;
+        }
+        this.aliases = aliases;
+        this.thresholds = thresholds;
+    }
+
+    /**
+     * Returns the SplitMix64 output for {@code index} in the sequence seeded with {@code seed}.
+     * 
+     * @param seed The seed.
+     * @param index The position in the sequence.
+     * @return The random bits.
+     */
+    private static long mix(long seed, long index) {
+        return EUI48s.hash64(seed + index * GAMMA);
+    }
+
+    /**
+     * Checks that {@code index} is not negative.
+     * 
+     * @param index The position in the sequence.
+     * @throws IllegalArgumentException if {@code index} is negative.
+     */
+    private static void checkIndex(long index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index is negative");
+        }
+    }
+}
@@ -0,0 +1,260 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Converts between runs of EUIs in wire format, i.e. their octets in transmission order, and
+ * arrays of packed bit representations. The octet groups of consecutive EUIs are {@code stride}
+ * bytes apart, so the codec can read and write both tightly packed arrays of octets and fields of
+ * fixed-size records, such as the destination addresses of Ethernet headers. Unlike
+ * {@link EUI48#EUI48(byte[])}, {@link EUI64#EUI64(byte[])} and their {@code getOctets()} methods,
+ * the codec allocates nothing per EUI, and it reads and writes the octets with wide accesses of a
+ * big-endian {@link ByteBuffer} rather than byte by byte. The bytes between the octet groups are
+ * never written.
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUIOctetCodec {
+    /** The type of the EUIs. */
+    private final EUIType type;
+
+    /** The number of octets of an EUI. */
+    private final int octets;
+
+    /**
+     * Constructs a new {@link EUIOctetCodec} for EUIs of {@code type}.
+     * 
+     * @param type The type of the EUIs.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public EUIOctetCodec(EUIType type) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        this.type = type;
+        this.octets = (type == EUIType.EUI48) ? EUI48s.OCTETS : EUI64s.OCTETS;
+    }
+
+    /**
+     * Returns the type of the EUIs.
+     * 
+     * @return The type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the number of octets of an EUI, i.e. the minimum stride.
+     * 
+     * @return The number of octets.
+     */
+    public int getOctets() {
+        return this.octets;
+    }
+
+    /**
+     * Decodes {@code count} EUIs from {@code src}, the first of which starts at {@code offset}.
+     * 
+     * @param src The octets.
+     * @param offset The offset of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param count The number of EUIs.
+     * @return The bit representations.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets.
+     * @throws IndexOutOfBoundsException if {@code src} is too small.
+     */
+    public long[] decode(byte[] src, int offset, int stride, int count) {
+        long[] dest = new long[Math.max(0, count)];
+        decode(src, offset, stride, dest, 0, count);
+        return dest;
+    }
+
+    /**
+     * Decodes {@code count} EUIs from {@code src}, the first of which starts at {@code offset},
+     * into {@code dest} starting at {@code destOffset}.
+     * 
+     * @param src The octets.
+     * @param offset The offset of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param dest The destination.
+     * @param destOffset The index of the first bit representation in {@code dest}.
+     * @param count The number of EUIs.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets.
+     * @throws IndexOutOfBoundsException if {@code src} or {@code dest} is too small.
+     */
+    public void decode(byte[] src, int offset, int stride, long[] dest, int destOffset, int count) {
+        decode(ByteBuffer.wrap(src), offset, stride, dest, destOffset, count);
+    }
+
+    /**
+     * Decodes {@code count} EUIs from {@code src}, the first of which starts at index
+     * {@code index}, into {@code dest} starting at {@code destOffset}. The octets are read in
+     * transmission order regardless of the byte order of {@code src}, and the position of
+     * {@code src} is not changed.
+     * 
+     * @param src The buffer.
+     * @param index The index of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param dest The destination.
+     * @param destOffset The index of the first bit representation in {@code dest}.
+     * @param count The number of EUIs.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets.
+     * @throws IndexOutOfBoundsException if the limit of {@code src} or {@code dest} is too small.
+     */
+    public void decode(ByteBuffer src, int index, int stride, long[] dest, int destOffset, int count) {
+        checkRange(src.limit(), index, stride, count);
+        checkArray(dest.length, destOffset, count);
+        ByteBuffer buffer = bigEndian(src);
+        if (this.type == EUIType.EUI48) {
+            // Read eight bytes as long as they are within the limit, and drop the trailing two
+            int wide = (src.limit() - index < 8) ? 0 : (int) Math.min(count, (src.limit() - index - 8L) / stride + 1);
+            int n = 0;
+            for (int p = index; n < wide; ++n, p += stride) {
+                dest[destOffset + n] = buffer.getLong(p) >>> 16;
+            }
+            for (int p = index + n * stride; n < count; ++n, p += stride) {
+                dest[destOffset + n] = ((long) (buffer.getShort(p) & 0xffff) << 32) | (buffer.getInt(p + 2) & 0xffffffffL);
+            }
+        }
+        else {
+            for (int n = 0, p = index; n < count; ++n, p += stride) {
+                dest[destOffset + n] = buffer.getLong(p);
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code count} EUIs from {@code src} starting at {@code srcOffset} into
+     * {@code dest}, the first of which starts at {@code offset}.
+     * 
+     * @param src The bit representations.
+     * @param srcOffset The index of the first bit representation in {@code src}.
+     * @param dest The destination.
+     * @param offset The offset of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param count The number of EUIs.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets, or a
+     *             bit representation is not valid. Nothing is written in this case.
+     * @throws IndexOutOfBoundsException if {@code src} or {@code dest} is too small.
+     */
+    public void encode(long[] src, int srcOffset, byte[] dest, int offset, int stride, int count) {
+        encode(src, srcOffset, ByteBuffer.wrap(dest), offset, stride, count);
+    }
+
+    /**
+     * Encodes {@code count} EUIs from {@code src} starting at {@code srcOffset} into
+     * {@code dest}, the first of which starts at index {@code index}. The octets are written in
+     * transmission order regardless of the byte order of {@code dest}, and the position of
+     * {@code dest} is not changed.
+     * 
+     * @param src The bit representations.
+     * @param srcOffset The index of the first bit representation in {@code src}.
+     * @param dest The buffer.
+     * @param index The index of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param count The number of EUIs.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets, or a
+     *             bit representation is not valid. Nothing is written in this case.
+     * @throws IndexOutOfBoundsException if {@code src} or the limit of {@code dest} is too small.
+     */
+    public void encode(long[] src, int srcOffset, ByteBuffer dest, int index, int stride, int count) {
+        checkRange(dest.limit(), index, stride, count);
+        checkArray(src.length, srcOffset, count);
+        ByteBuffer buffer = bigEndian(dest);
+        if (this.type == EUIType.EUI48) {
+            long invalid = 0;
+            for (int n = 0; n < count; ++n) {
+                invalid |= src[srcOffset + n];
+            }
+            if ((invalid >>> 48) != 0) {
+                throw new IllegalArgumentException("src contains an invalid EUI-48 bit representation");
+            }
+            int n = 0;
+            if (stride == EUI48s.OCTETS) {
+                // The two trailing bytes of each long are overwritten by the next EUI
+                for (int p = index; n < count - 1; ++n, p += stride) {
+                    buffer.putLong(p, src[srcOffset + n] << 16);
+                }
+            }
+            for (int p = index + n * stride; n < count; ++n, p += stride) {
+                long bits = src[srcOffset + n];
+                buffer.putShort(p, (short) (bits >>> 32));
+                buffer.putInt(p + 2, (int) bits);
+            }
+        }
+        else {
+            for (int n = 0, p = index; n < count; ++n, p += stride) {
+                buffer.putLong(p, src[srcOffset + n]);
+            }
+        }
+    }
+
+    /**
+     * Checks that {@code count} EUIs at the given {@code stride} starting at {@code offset} fit
+     * into {@code length} bytes.
+     * 
+     * @param length The number of bytes.
+     * @param offset The offset of the first octet of the first EUI.
+     * @param stride The distance between the first octets of consecutive EUIs.
+     * @param count The number of EUIs.
+     * @throws IllegalArgumentException if {@code stride} is less than the number of octets.
+     * @throws IndexOutOfBoundsException if the EUIs do not fit.
+     */
+    private void checkRange(int length, int offset, int stride, int count) {
+        if (stride < this.octets) {
+            throw new IllegalArgumentException("stride must be at least " + this.octets);
+        }
+        if (offset < 0 || count < 0 || (count > 0 && offset + (count - 1L) * stride + this.octets > length)) {
+            throw new IndexOutOfBoundsException(count + " EUIs at " + offset + " with stride " + stride + " are out of bounds for length " + length);
+        }
+    }
+
+    /**
+     * Checks that {@code count} elements starting at {@code offset} fit into an array of
+     * {@code length} elements.
+     * 
+     * @param length The length of the array.
+     * @param offset The index of the first element.
+     * @param count The number of elements.
+     * @throws IndexOutOfBoundsException if the elements do not fit.
+     */
+    private static void checkArray(int length, int offset, int count) {
+        if (offset < 0 || count < 0 || count > length - offset) {
+            throw new IndexOutOfBoundsException("Range of length " + count + " at " + offset + " is out of bounds for length " + length);
+        }
+    }
+
+    /**
+     * Returns {@code buffer}, or a big-endian view of it.
+     * 
+     * @param buffer The buffer.
+     * @return The big-endian buffer.
+     */
+    private static ByteBuffer bigEndian(ByteBuffer buffer) {
+        return (buffer.order() == ByteOrder.BIG_ENDIAN) ? buffer : buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    }
+}
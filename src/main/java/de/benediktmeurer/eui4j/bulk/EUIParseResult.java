@@ -0,0 +1,118 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import java.util.BitSet;
+
+/**
+ * The result of a batch parse with the {@link EUIBatchParser}, which consists of the bit
+ * representations of the parsed EUIs in input order, and the positions of the invalid inputs. The
+ * bit representation at an invalid position is {@code 0}.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIBatchParser
+ */
+public final class EUIParseResult {
+    /** The bit representations. */
+    private final long[] bits;
+
+    /** The positions of the invalid inputs. */
+    private final BitSet errors;
+
+    /**
+     * Constructs a new {@link EUIParseResult}.
+     * 
+     * @param bits The bit representations.
+     * @param errors The positions of the invalid inputs.
+     */
+    EUIParseResult(long[] bits, BitSet errors) {
+        this.bits = bits;
+        this.errors = errors;
+    }
+
+    /**
+     * Returns the number of inputs.
+     * 
+     * @return The number of inputs.
+     */
+    public int size() {
+        return this.bits.length;
+    }
+
+    /**
+     * Returns the bit representations of the parsed EUIs, with {@code 0} at the invalid positions.
+     * The array is not copied, so changes to it are visible in this result.
+     * 
+     * @return The bit representations.
+     */
+    public long[] getBits() {
+        return this.bits;
+    }
+
+    /**
+     * Returns the positions of the invalid inputs. The set is not copied, so changes to it are
+     * visible in this result.
+     * 
+     * @return The positions of the invalid inputs.
+     */
+    public BitSet getErrors() {
+        return this.errors;
+    }
+
+    /**
+     * Returns the number of invalid inputs.
+     * 
+     * @return The number of invalid inputs.
+     */
+    public int getErrorCount() {
+        return this.errors.cardinality();
+    }
+
+    /**
+     * Returns whether the input at {@code index} was valid.
+     * 
+     * @param index The position of the input.
+     * @return {@code true} if the input was valid.
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public boolean isValid(int index) {
+        if (index < 0 || index >= this.bits.length) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + this.bits.length);
+        }
+        return !this.errors.get(index);
+    }
+
+    /**
+     * Returns the bit representations of the valid inputs only, in input order.
+     * 
+     * @return The bit representations of the valid inputs.
+     */
+    public long[] getValidBits() {
+        long[] valid = new long[this.bits.length - this.errors.cardinality()];
+        int count = 0;
+        for (int from = 0; from < this.bits.length;) {
+            int to = this.errors.nextSetBit(from);
+            if (to < 0) {
+                to = this.bits.length;
+            }
+            System.arraycopy(this.bits, from, valid, count, to - from);
+            count += to - from;
+            from = to + 1;
+        }
+        return valid;
+    }
+}
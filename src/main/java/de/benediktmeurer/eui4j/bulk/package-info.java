@@ -0,0 +1,30 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides bulk operations over arrays of packed bit representations of EUIs.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.bulk.EUIFilter} class provides branch-free counting,
+ * filtering and partitioning by address type or OUI.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.bulk.EUIGenerator} class generates large, reproducible
+ * data sets of realistic EUIs for load tests and benchmarks.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.bulk.EUIBatchParser} class parses large batches of
+ * string representations in parallel, reporting invalid inputs in an error set.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.bulk.EUIOctetCodec} class converts runs of EUIs in wire
+ * format in byte arrays and buffers to and from arrays of bit representations.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.bulk;
@@ -0,0 +1,150 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link Container} that stores its values in a sorted array.
+ * 
+ * @author Benedikt Meurer
+ */
+final class ArrayContainer extends Container {
+    /** The values in ascending order; only the first {@link #size} elements are valid. */
+    private int[] values;
+
+    /** The number of values. */
+    private int size;
+
+    /**
+     * Constructs a new {@link ArrayContainer} with the first {@code size} elements of
+     * {@code values}, which must be sorted and distinct.
+     * 
+     * @param values The values in ascending order.
+     * @param size The number of values.
+     */
+    ArrayContainer(int[] values, int size) {
+        this.values = values;
+        this.size = size;
+    }
+
+    @Override
+    int cardinality() {
+        return this.size;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return Arrays.binarySearch(this.values, 0, this.size, value) >= 0;
+    }
+
+    @Override
+    Container add(int value) {
+        int index = (this.size > 0 && this.values[this.size - 1] < value) ? -this.size - 1 : Arrays.binarySearch(this.values, 0, this.size, value);
+        if (index >= 0) {
+            return this;
+        }
+        if (this.size == ARRAY_MAX) {
+            long[] words = new long[BITMAP_WORDS];
+            for (int n = 0; n < this.size; ++n) {
+                words[this.values[n] >>> 6] |= 1L << this.values[n];
+            }
+            return new BitmapContainer(words, this.size).add(value);
+        }
+        index = -index - 1;
+        if (this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, Math.min(ARRAY_MAX, Math.max(4, 2 * this.size)));
+        }
+        System.arraycopy(this.values, index, this.values, index + 1, this.size - index);
+        this.values[index] = value;
+        ++this.size;
+
+        // Switch to runs once enough sequential values have been added.
+        if (this.size >= 64 && (this.size & (this.size - 1)) == 0 && 2 * runCount() <= this.size) {
+            return optimize(this);
+        }
+        return this;
+    }
+
+    @Override
+    Container remove(int value) {
+        int index = Arrays.binarySearch(this.values, 0, this.size, value);
+        if (index >= 0) {
+            System.arraycopy(this.values, index + 1, this.values, index, this.size - index - 1);
+            --this.size;
+        }
+        return this;
+    }
+
+    @Override
+    IntervalCursor intervals(int from) {
+        int found = Arrays.binarySearch(this.values, 0, this.size, from);
+        final int first = (found < 0) ? -found - 1 : found;
+        return new IntervalCursor() {
+            private int index = first;
+
+            @Override
+            boolean next() {
+                if (this.index == ArrayContainer.this.size) {
+                    return false;
+                }
+                int[] values = ArrayContainer.this.values;
+                this.start = this.last = values[this.index++];
+                while (this.index < ArrayContainer.this.size && values[this.index] == this.last + 1) {
+                    this.last = values[this.index++];
+                }
+                return true;
+            }
+        };
+    }
+
+    @Override
+    Container copy() {
+        return new ArrayContainer(Arrays.copyOf(this.values, this.size), this.size);
+    }
+
+    @Override
+    int serializedSize() {
+        return 5 + 3 * this.size;
+    }
+
+    @Override
+    void writeTo(DataOutput out) throws IOException {
+        writeType(out, this);
+        out.writeInt(this.size);
+        for (int n = 0; n < this.size; ++n) {
+            writeValue(out, this.values[n]);
+        }
+    }
+
+    /**
+     * Returns the number of runs of consecutive values in this container.
+     * 
+     * @return The number of runs.
+     */
+    private int runCount() {
+        int runs = (this.size > 0) ? 1 : 0;
+        for (int n = 1; n < this.size; ++n) {
+            if (this.values[n] != this.values[n - 1] + 1) {
+                ++runs;
+            }
+        }
+        return runs;
+    }
+}
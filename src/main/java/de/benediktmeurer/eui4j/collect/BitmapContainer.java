@@ -0,0 +1,233 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * A {@link Container} that stores its values in a bitmap of 2<sup>24</sup> bits.
+ * 
+ * @author Benedikt Meurer
+ */
+final class BitmapContainer extends Container {
+    /** The bitmap words. */
+    private final long[] words;
+
+    /** The number of set bits. */
+    private int cardinality;
+
+    /**
+     * Constructs a new {@link BitmapContainer} with the given {@code words}.
+     * 
+     * @param words The {@link #BITMAP_WORDS} bitmap words.
+     * @param cardinality The number of set bits in {@code words}.
+     */
+    BitmapContainer(long[] words, int cardinality) {
+        this.words = words;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+        return this.cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+        return (this.words[value >>> 6] & (1L << value)) != 0;
+    }
+
+    @Override
+    Container add(int value) {
+        long word = this.words[value >>> 6];
+        if ((word & (1L << value)) == 0) {
+            this.words[value >>> 6] = word | (1L << value);
+            ++this.cardinality;
+        }
+        return this;
+    }
+
+    @Override
+    Container remove(int value) {
+        long word = this.words[value >>> 6];
+        if ((word & (1L << value)) != 0) {
+            this.words[value >>> 6] = word & ~(1L << value);
+            if (--this.cardinality <= ARRAY_MAX / 2) {
+                return optimize(this);
+            }
+        }
+        return this;
+    }
+
+    @Override
+    IntervalCursor intervals(final int from) {
+        return new IntervalCursor() {
+            private int index = from;
+
+            @Override
+            boolean next() {
+                int start = nextSetBit(this.index);
+                if (start < 0) {
+                    return false;
+                }
+                int end = nextClearBit(start);
+                this.start = start;
+                this.last = end - 1;
+                this.index = end;
+                return true;
+            }
+        };
+    }
+
+    @Override
+    Container copy() {
+        return new BitmapContainer(this.words.clone(), this.cardinality);
+    }
+
+    @Override
+    int serializedSize() {
+        return 1 + BITMAP_BYTES;
+    }
+
+    @Override
+    void writeTo(DataOutput out) throws IOException {
+        writeType(out, this);
+        for (long word : this.words) {
+            out.writeLong(word);
+        }
+    }
+
+    @Override
+    Container flip() {
+        // Flipping bit 15 of the values swaps blocks of 512 words.
+        long[] words = new long[BITMAP_WORDS];
+        for (int n = 0; n < words.length; ++n) {
+            words[n ^ 512] = this.words[n];
+        }
+        return new BitmapContainer(words, this.cardinality);
+    }
+
+    /**
+     * Returns the index of the first set bit at or after {@code from}, or {@code -1}.
+     * 
+     * @param from The index to start at.
+     * @return The index of the next set bit, or {@code -1}.
+     */
+    private int nextSetBit(int from) {
+        if (from >= UNIVERSE) {
+            return -1;
+        }
+        int index = from >>> 6;
+        long word = this.words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == BITMAP_WORDS) {
+                return -1;
+            }
+            word = this.words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Returns the index of the first clear bit at or after {@code from}, or {@link #UNIVERSE}.
+     * 
+     * @param from The index to start at.
+     * @return The index of the next clear bit.
+     */
+    private int nextClearBit(int from) {
+        int index = from >>> 6;
+        long word = ~this.words[index] & (-1L << from);
+        while (word == 0) {
+            if (++index == BITMAP_WORDS) {
+                return UNIVERSE;
+            }
+            word = ~this.words[index];
+        }
+        return (index << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Sets the bits from {@code start} to {@code last} (both inclusive) in {@code words}.
+     * 
+     * @param words The bitmap words.
+     * @param start The first bit.
+     * @param last The last bit.
+     */
+    static void setRange(long[] words, int start, int last) {
+        int first = start >>> 6, end = last >>> 6;
+        if (first == end) {
+            words[first] |= (-1L << start) & (-1L >>> (63 - (last & 63)));
+            return;
+        }
+        words[first] |= -1L << start;
+        for (int n = first + 1; n < end; ++n) {
+            words[n] = -1L;
+        }
+        words[end] |= -1L >>> (63 - (last & 63));
+    }
+
+    /**
+     * Returns the union of two bitmaps.
+     * 
+     * @param x The first bitmap.
+     * @param y The second bitmap.
+     * @return The union.
+     */
+    static Container union(BitmapContainer x, BitmapContainer y) {
+        long[] words = new long[BITMAP_WORDS];
+        int cardinality = 0;
+        for (int n = 0; n < words.length; ++n) {
+            cardinality += Long.bitCount(words[n] = x.words[n] | y.words[n]);
+        }
+        return new BitmapContainer(words, cardinality);
+    }
+
+    /**
+     * Returns the intersection of two bitmaps.
+     * 
+     * @param x The first bitmap.
+     * @param y The second bitmap.
+     * @return The intersection.
+     */
+    static Container intersection(BitmapContainer x, BitmapContainer y) {
+        long[] words = new long[BITMAP_WORDS];
+        int cardinality = 0;
+        for (int n = 0; n < words.length; ++n) {
+            cardinality += Long.bitCount(words[n] = x.words[n] & y.words[n]);
+        }
+        BitmapContainer result = new BitmapContainer(words, cardinality);
+        return (cardinality <= ARRAY_MAX) ? optimize(result) : result;
+    }
+
+    /**
+     * Returns the difference of two bitmaps.
+     * 
+     * @param x The first bitmap.
+     * @param y The second bitmap.
+     * @return The difference.
+     */
+    static Container difference(BitmapContainer x, BitmapContainer y) {
+        long[] words = new long[BITMAP_WORDS];
+        int cardinality = 0;
+        for (int n = 0; n < words.length; ++n) {
+            cardinality += Long.bitCount(words[n] = x.words[n] & ~y.words[n]);
+        }
+        BitmapContainer result = new BitmapContainer(words, cardinality);
+        return (cardinality <= ARRAY_MAX) ? optimize(result) : result;
+    }
+}
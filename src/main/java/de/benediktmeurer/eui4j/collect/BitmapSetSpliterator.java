@@ -0,0 +1,154 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.util.ConcurrentModificationException;
+import java.util.Spliterator;
+import java.util.function.LongConsumer;
+
+/**
+ * A {@link Spliterator.OfLong} over the bit representations in a range of containers of an
+ * {@link EUI48BitmapSet}, in the order of {@link de.benediktmeurer.eui4j.EUI48#compareTo}. The
+ * spliterator splits at container boundaries, that is by OUI, and knows the exact size of each
+ * split.
+ * 
+ * @author Benedikt Meurer
+ */
+final class BitmapSetSpliterator implements Spliterator.OfLong {
+    /** The set. */
+    private final EUI48BitmapSet set;
+
+    /** The expected modification count of the set. */
+    private final int expectedModCount;
+
+    /** The index of the current container. */
+    private int index;
+
+    /** The index behind the last container. */
+    private final int fence;
+
+    /** The number of remaining values. */
+    private long remaining;
+
+    /** The cursor over the intervals of the current container, or {@code null}. */
+    private Container.IntervalCursor cursor;
+
+    /** The next value of the current interval. */
+    private int value;
+
+    /** The last value of the current interval. */
+    private int last = -1;
+
+    /**
+     * Constructs a new {@link BitmapSetSpliterator} over the containers {@code index} (inclusive) to
+     * {@code fence} (exclusive) of {@code set}.
+     * 
+     * @param set The set.
+     * @param expectedModCount The expected modification count of the set.
+     * @param index The index of the first container.
+     * @param fence The index behind the last container.
+     * @param size The number of values in the containers.
+     */
+    BitmapSetSpliterator(EUI48BitmapSet set, int expectedModCount, int index, int fence, long size) {
+        this.set = set;
+        this.expectedModCount = expectedModCount;
+        this.index = index;
+        this.fence = fence;
+        this.remaining = size;
+    }
+
+    @Override
+    public boolean tryAdvance(LongConsumer action) {
+        if (this.value > this.last && !nextInterval()) {
+            return false;
+        }
+        --this.remaining;
+        action.accept(this.set.toBits(this.index, this.value++));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(LongConsumer action) {
+        while (this.value <= this.last || nextInterval()) {
+            long high = this.set.toBits(this.index, 0);
+            for (int value = this.value, last = this.last; value <= last; ++value) {
+                action.accept(high ^ value);
+            }
+            this.remaining -= this.last - this.value + 1;
+            this.value = this.last + 1;
+        }
+        checkForComodification();
+    }
+
+    @Override
+    public Spliterator.OfLong trySplit() {
+        if (this.cursor != null || this.fence - this.index < 2) {
+            return null;
+        }
+        int mid = (this.index + this.fence) >>> 1;
+        long size = this.set.cardinality(this.index, mid);
+        BitmapSetSpliterator prefix = new BitmapSetSpliterator(this.set, this.expectedModCount, this.index, mid, size);
+        this.index = mid;
+        this.remaining -= size;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.remaining;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL | ORDERED | SIZED | SUBSIZED;
+    }
+
+    /**
+     * Advances to the next interval, moving on to the next container if necessary.
+     * 
+     * @return {@code false} if there are no more values.
+     */
+    private boolean nextInterval() {
+        checkForComodification();
+        for (;;) {
+            if (this.cursor != null) {
+                if (this.cursor.next()) {
+                    this.value = this.cursor.start;
+                    this.last = this.cursor.last;
+                    return true;
+                }
+                ++this.index;
+            }
+            if (this.index >= this.fence) {
+                this.cursor = null;
+                return false;
+            }
+            this.cursor = this.set.intervals(this.index);
+        }
+    }
+
+    /**
+     * Checks that the set was not modified since this spliterator was created.
+     * 
+     * @throws ConcurrentModificationException If the set was modified.
+     */
+    private void checkForComodification() {
+        if (this.set.modCount() != this.expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+    }
+}
@@ -0,0 +1,486 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A container for a set of 24-bit values, used by {@link EUI48BitmapSet} to store the lower 24
+ * bits of the EUI-48s with the same upper 24 bits. Containers are either sorted arrays, bitmaps or
+ * sorted runs of consecutive values, whichever is smallest. Mutating operations may return a
+ * different container, which replaces the receiver.
+ * 
+ * @author Benedikt Meurer
+ */
+abstract class Container {
+    /** The number of distinct values in a container. */
+    static final int UNIVERSE = 1 << 24;
+
+    /** The number of {@code long} words in a bitmap. */
+    static final int BITMAP_WORDS = UNIVERSE / 64;
+
+    /** The size of a bitmap in bytes. */
+    static final int BITMAP_BYTES = BITMAP_WORDS * 8;
+
+    /**
+     * The maximum cardinality of an array. Arrays are smaller than bitmaps up to
+     * {@code BITMAP_BYTES / 4} values, but inserting into and removing from large arrays is
+     * expensive, so that bitmaps are used from a lower cardinality on.
+     */
+    static final int ARRAY_MAX = 1 << 16;
+
+    /** The type tag of serialized array containers. */
+    private static final int TYPE_ARRAY = 0;
+
+    /** The type tag of serialized bitmap containers. */
+    private static final int TYPE_BITMAP = 1;
+
+    /** The type tag of serialized run containers. */
+    private static final int TYPE_RUN = 2;
+
+    /**
+     * A cursor over the maximal intervals of consecutive values in a container, in ascending
+     * order.
+     */
+    abstract static class IntervalCursor {
+        /** The first value of the current interval. */
+        int start;
+
+        /** The last value of the current interval. */
+        int last;
+
+        /**
+         * Advances this cursor to the next interval.
+         * 
+         * @return {@code true} if there is a next interval.
+         */
+        abstract boolean next();
+    }
+
+    /**
+     * Builds a container from ascending intervals and chooses the smallest representation.
+     */
+    static final class Builder {
+        /** The intervals as pairs of first and last value. */
+        private int[] runs = new int[16];
+
+        /** The number of intervals. */
+        private int runCount;
+
+        /** The number of values. */
+        private int cardinality;
+
+        /**
+         * Appends the interval from {@code start} to {@code last}, which must not be less than
+         * the last value appended before.
+         * 
+         * @param start The first value of the interval.
+         * @param last The last value of the interval.
+         */
+        void append(int start, int last) {
+            if (this.runCount > 0 && start <= this.runs[2 * this.runCount - 1] + 1) {
+                int previous = this.runs[2 * this.runCount - 1];
+                if (last > previous) {
+                    this.cardinality += last - previous;
+                    this.runs[2 * this.runCount - 1] = last;
+                }
+                return;
+            }
+            if (2 * this.runCount == this.runs.length) {
+                this.runs = Arrays.copyOf(this.runs, 2 * this.runs.length);
+            }
+            this.runs[2 * this.runCount] = start;
+            this.runs[2 * this.runCount + 1] = last;
+            this.cardinality += last - start + 1;
+            ++this.runCount;
+        }
+
+        /**
+         * Appends all intervals of {@code cursor}.
+         * 
+         * @param cursor The intervals to append.
+         */
+        void appendAll(IntervalCursor cursor) {
+            while (cursor.next()) {
+                append(cursor.start, cursor.last);
+            }
+        }
+
+        /**
+         * Returns the number of values appended so far.
+         * 
+         * @return The cardinality.
+         */
+        int cardinality() {
+            return this.cardinality;
+        }
+
+        /**
+         * Returns a container with the appended values in its smallest representation.
+         * 
+         * @return The container.
+         */
+        Container build() {
+            long runBytes = 8L * this.runCount;
+            long arrayBytes = 4L * this.cardinality;
+            if (runBytes <= arrayBytes && runBytes <= BITMAP_BYTES) {
+                return new RunContainer(Arrays.copyOf(this.runs, 2 * this.runCount), this.runCount, this.cardinality);
+            }
+            else if (this.cardinality <= ARRAY_MAX) {
+                int[] values = new int[this.cardinality];
+                int size = 0;
+                for (int n = 0; n < this.runCount; ++n) {
+                    for (int value = this.runs[2 * n]; value <= this.runs[2 * n + 1]; ++value) {
+                        values[size++] = value;
+                    }
+                }
+                return new ArrayContainer(values, size);
+            }
+            else {
+                long[] words = new long[BITMAP_WORDS];
+                for (int n = 0; n < this.runCount; ++n) {
+                    BitmapContainer.setRange(words, this.runs[2 * n], this.runs[2 * n + 1]);
+                }
+                return new BitmapContainer(words, this.cardinality);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of values in this container.
+     * 
+     * @return The cardinality.
+     */
+    abstract int cardinality();
+
+    /**
+     * Returns whether this container contains {@code value}.
+     * 
+     * @param value The 24-bit value.
+     * @return {@code true} if {@code value} is in this container.
+     */
+    abstract boolean contains(int value);
+
+    /**
+     * Adds {@code value} to this container.
+     * 
+     * @param value The 24-bit value.
+     * @return The container that replaces this container.
+     */
+    abstract Container add(int value);
+
+    /**
+     * Removes {@code value} from this container.
+     * 
+     * @param value The 24-bit value.
+     * @return The container that replaces this container.
+     */
+    abstract Container remove(int value);
+
+    /**
+     * Returns a cursor over the intervals of consecutive values in this container.
+     * 
+     * @return A new cursor.
+     */
+    IntervalCursor intervals() {
+        return intervals(0);
+    }
+
+    /**
+     * Returns a cursor over the intervals of consecutive values in this container that are
+     * greater than or equal to {@code from}.
+     * 
+     * @param from The smallest value.
+     * @return A new cursor.
+     */
+    abstract IntervalCursor intervals(int from);
+
+    /**
+     * Returns a copy of this container.
+     * 
+     * @return The copy.
+     */
+    abstract Container copy();
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(DataOutput)}.
+     * 
+     * @return The serialized size in bytes.
+     */
+    abstract int serializedSize();
+
+    /**
+     * Writes this container to {@code out}.
+     * 
+     * @param out The output.
+     * @throws IOException If an I/O error occurs.
+     */
+    abstract void writeTo(DataOutput out) throws IOException;
+
+    /**
+     * Returns a container with the smallest representation of the values in {@code container}.
+     * 
+     * @param container The container.
+     * @return The optimized container.
+     */
+    static Container optimize(Container container) {
+        Builder builder = new Builder();
+        builder.appendAll(container.intervals());
+        return builder.build();
+    }
+
+    /**
+     * Returns the container with every value {@code v} of this container replaced by
+     * {@code v ^ 0x8000}, which swaps the lower and upper halves of each 64 KiB block of values.
+     * 
+     * @return The container with flipped values.
+     */
+    Container flip() {
+        long[] pieces = new long[16];
+        int count = 0;
+        IntervalCursor cursor = intervals();
+        while (cursor.next()) {
+            for (int start = cursor.start; start <= cursor.last;) {
+                int last = Math.min(cursor.last, start | 0x7fff);
+                if (count == pieces.length) {
+                    pieces = Arrays.copyOf(pieces, 2 * count);
+                }
+                pieces[count++] = ((long) (start ^ 0x8000) << 32) | (last ^ 0x8000);
+                start = last + 1;
+            }
+        }
+        Arrays.sort(pieces, 0, count);
+        Builder builder = new Builder();
+        for (int n = 0; n < count; ++n) {
+            builder.append((int) (pieces[n] >>> 32), (int) pieces[n]);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a container with the values in {@code x} or {@code y}.
+     * 
+     * @param x The first container.
+     * @param y The second container.
+     * @return The union.
+     */
+    static Container union(Container x, Container y) {
+        if (x instanceof BitmapContainer && y instanceof BitmapContainer) {
+            return BitmapContainer.union((BitmapContainer) x, (BitmapContainer) y);
+        }
+        IntervalCursor a = x.intervals(), b = y.intervals();
+        boolean hasA = a.next(), hasB = b.next();
+        Builder builder = new Builder();
+        while (hasA || hasB) {
+            if (hasA && (!hasB || a.start <= b.start)) {
+                builder.append(a.start, a.last);
+                hasA = a.next();
+            }
+            else {
+                builder.append(b.start, b.last);
+                hasB = b.next();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a container with the values in both {@code x} and {@code y}.
+     * 
+     * @param x The first container.
+     * @param y The second container.
+     * @return The intersection.
+     */
+    static Container intersection(Container x, Container y) {
+        if (x instanceof BitmapContainer && y instanceof BitmapContainer) {
+            return BitmapContainer.intersection((BitmapContainer) x, (BitmapContainer) y);
+        }
+        IntervalCursor a = x.intervals(), b = y.intervals();
+        boolean hasA = a.next(), hasB = b.next();
+        Builder builder = new Builder();
+        while (hasA && hasB) {
+            int start = Math.max(a.start, b.start);
+            int last = Math.min(a.last, b.last);
+            if (start <= last) {
+                builder.append(start, last);
+            }
+            if (a.last < b.last) {
+                hasA = a.next();
+            }
+            else {
+                hasB = b.next();
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns a container with the values in {@code x} but not in {@code y}.
+     * 
+     * @param x The first container.
+     * @param y The second container.
+     * @return The difference.
+     */
+    static Container difference(Container x, Container y) {
+        if (x instanceof BitmapContainer && y instanceof BitmapContainer) {
+            return BitmapContainer.difference((BitmapContainer) x, (BitmapContainer) y);
+        }
+        IntervalCursor a = x.intervals(), b = y.intervals();
+        boolean hasB = b.next();
+        Builder builder = new Builder();
+        while (a.next()) {
+            int start = a.start;
+            while (hasB && b.last < start) {
+                hasB = b.next();
+            }
+            while (hasB && b.start <= a.last) {
+                if (b.start > start) {
+                    builder.append(start, b.start - 1);
+                }
+                if (b.last >= a.last) {
+                    start = a.last + 1;
+                    break;
+                }
+                start = b.last + 1;
+                hasB = b.next();
+            }
+            if (start <= a.last) {
+                builder.append(start, a.last);
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Returns whether {@code x} and {@code y} contain the same values.
+     * 
+     * @param x The first container.
+     * @param y The second container.
+     * @return {@code true} if the containers are equal.
+     */
+    static boolean equals(Container x, Container y) {
+        if (x.cardinality() != y.cardinality()) {
+            return false;
+        }
+        IntervalCursor a = x.intervals(), b = y.intervals();
+        for (;;) {
+            boolean hasA = a.next(), hasB = b.next();
+            if (hasA != hasB) {
+                return false;
+            }
+            else if (!hasA) {
+                return true;
+            }
+            else if (a.start != b.start || a.last != b.last) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Reads a container written by {@link #writeTo(DataOutput)} from {@code in}.
+     * 
+     * @param in The input.
+     * @return The container.
+     * @throws IOException If an I/O error occurs or the input is malformed.
+     */
+    static Container readFrom(DataInput in) throws IOException {
+        int type = in.readUnsignedByte();
+        if (type == TYPE_ARRAY) {
+            int size = in.readInt();
+            if (size <= 0 || size > UNIVERSE) {
+                throw new IOException("Invalid array container size " + size);
+            }
+            int[] values = new int[size];
+            for (int n = 0; n < size; ++n) {
+                values[n] = readValue(in);
+                if (n > 0 && values[n] <= values[n - 1]) {
+                    throw new IOException("Unsorted array container");
+                }
+            }
+            ArrayContainer container = new ArrayContainer(values, size);
+            return (size > ARRAY_MAX) ? optimize(container) : container;
+        }
+        else if (type == TYPE_BITMAP) {
+            long[] words = new long[BITMAP_WORDS];
+            int cardinality = 0;
+            for (int n = 0; n < words.length; ++n) {
+                cardinality += Long.bitCount(words[n] = in.readLong());
+            }
+            if (cardinality == 0) {
+                throw new IOException("Empty bitmap container");
+            }
+            return new BitmapContainer(words, cardinality);
+        }
+        else if (type == TYPE_RUN) {
+            int runCount = in.readInt();
+            if (runCount <= 0 || runCount > UNIVERSE / 2) {
+                throw new IOException("Invalid run container size " + runCount);
+            }
+            int[] runs = new int[2 * runCount];
+            int cardinality = 0;
+            for (int n = 0; n < runCount; ++n) {
+                int start = readValue(in), last = readValue(in);
+                if (last < start || (n > 0 && start <= runs[2 * n - 1] + 1)) {
+                    throw new IOException("Unsorted run container");
+                }
+                runs[2 * n] = start;
+                runs[2 * n + 1] = last;
+                cardinality += last - start + 1;
+            }
+            return new RunContainer(runs, runCount, cardinality);
+        }
+        throw new IOException("Invalid container type " + type);
+    }
+
+    /**
+     * Writes the type tag of {@code container} to {@code out}.
+     * 
+     * @param out The output.
+     * @param container The container.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeType(DataOutput out, Container container) throws IOException {
+        out.writeByte(container instanceof ArrayContainer ? TYPE_ARRAY : (container instanceof BitmapContainer ? TYPE_BITMAP : TYPE_RUN));
+    }
+
+    /**
+     * Reads a 24-bit big-endian value from {@code in}.
+     * 
+     * @param in The input.
+     * @return The value.
+     * @throws IOException If an I/O error occurs.
+     */
+    static int readValue(DataInput in) throws IOException {
+        return (in.readUnsignedShort() << 8) | in.readUnsignedByte();
+    }
+
+    /**
+     * Writes {@code value} as 24-bit big-endian value to {@code out}.
+     * 
+     * @param out The output.
+     * @param value The value.
+     * @throws IOException If an I/O error occurs.
+     */
+    static void writeValue(DataOutput out, int value) throws IOException {
+        out.writeShort(value >>> 8);
+        out.writeByte(value);
+    }
+}
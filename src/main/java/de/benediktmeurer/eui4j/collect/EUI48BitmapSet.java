@@ -0,0 +1,750 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * A compressed set of {@link EUI48}s, partitioned by the upper 24 bits (the OUI). The lower 24
+ * bits of the EUI-48s of each OUI are stored in a container, which is either a sorted array, a
+ * bitmap or a list of runs of consecutive values, whichever is smallest. This makes the set
+ * compact for both sparse sets and sets that are dense within a few OUIs, and allows for fast
+ * {@link #union(EUI48BitmapSet, EUI48BitmapSet) union},
+ * {@link #intersection(EUI48BitmapSet, EUI48BitmapSet) intersection} and
+ * {@link #difference(EUI48BitmapSet, EUI48BitmapSet) difference} operations.
+ * <p>
+ * Iteration order is consistent with {@link EUI48#compareTo(EUI48)}. The set can be written to
+ * and read from a portable binary form using {@link #writeTo(DataOutput)} and
+ * {@link #readFrom(DataInput)}. The binary form consists of a 32-bit magic number
+ * {@code 0x45343853}, a 32-bit container count, and for each container in ascending order of the
+ * OUI, the 24-bit OUI followed by a container: either {@code 0}, a 32-bit count and the sorted
+ * 24-bit values; or {@code 1} and a bitmap of 2<sup>18</sup> 64-bit words, where bit {@code i}
+ * of word {@code w} represents the value {@code 64 * w + i}; or {@code 2}, a 32-bit count and the
+ * sorted runs as pairs of first and last 24-bit value. All values are big-endian.
+ * <p>
+ * An {@link EUI48BitmapSet} is not thread-safe, and its iterators are fail-fast and support
+ * removal.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48
+ */
+public class EUI48BitmapSet extends AbstractSet<EUI48> {
+    /** The magic number of the binary form. */
+    private static final int MAGIC = 0x45343853;
+
+    /** The container keys (the flipped OUIs) in ascending order. */
+    private int[] keys;
+
+    /** The containers, indexed like {@link #keys}. */
+    private Container[] containers;
+
+    /** The number of containers. */
+    private int count;
+
+    /** The number of structural modifications. */
+    private int modCount;
+
+    /**
+     * Constructs a new, empty {@link EUI48BitmapSet}.
+     */
+    public EUI48BitmapSet() {
+        this.keys = new int[4];
+        this.containers = new Container[4];
+    }
+
+    /**
+     * Constructs a new {@link EUI48BitmapSet} containing the EUI-48s in {@code c}.
+     * 
+     * @param c The collection of EUI-48s.
+     * @throws NullPointerException If {@code c} is or contains {@code null}.
+     */
+    public EUI48BitmapSet(Collection<? extends EUI48> c) {
+        this();
+        addAll(c);
+    }
+
+    /**
+     * Constructs a new {@link EUI48BitmapSet} containing the EUI-48s with the given bit
+     * representations.
+     * 
+     * @param bits The bit representations.
+     * @throws IllegalArgumentException If a value in {@code bits} is not a 48-bit value.
+     * @throws NullPointerException If {@code bits} is {@code null}.
+     * @see EUI48#getBits()
+     */
+    public EUI48BitmapSet(long... bits) {
+        this();
+        // Adding in ascending order appends to the containers.
+        long[] vals = new long[bits.length];
+        for (int n = 0; n < bits.length; ++n) {
+            vals[n] = toInternal(bits[n]);
+        }
+        Arrays.sort(vals);
+        for (long val : vals) {
+            add(val ^ EUI48s.ORDER_FLIP);
+        }
+    }
+
+    /**
+     * Adds the EUI-48 with the bit representation {@code bits} to this set.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if this set did not already contain the EUI-48.
+     * @throws IllegalArgumentException If {@code bits} is not a 48-bit value.
+     * @see EUI48#getBits()
+     */
+    public boolean add(long bits) {
+        long val = toInternal(bits);
+        int key = (int) (val >>> 24);
+        int index = indexOf(key);
+        if (index < 0) {
+            index = -index - 1;
+            insertContainer(index, key, new ArrayContainer(new int[4], 0));
+        }
+        Container container = this.containers[index];
+        int cardinality = container.cardinality();
+        this.containers[index] = container = container.add((int) val & 0xffffff);
+        if (container.cardinality() == cardinality) {
+            return false;
+        }
+        ++this.modCount;
+        return true;
+    }
+
+    /**
+     * Returns whether this set contains the EUI-48 with the bit representation {@code bits}.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if this set contains the EUI-48.
+     */
+    public boolean contains(long bits) {
+        if ((bits >>> 48) != 0) {
+            return false;
+        }
+        long val = bits ^ EUI48s.ORDER_FLIP;
+        int index = indexOf((int) (val >>> 24));
+        return index >= 0 && this.containers[index].contains((int) val & 0xffffff);
+    }
+
+    /**
+     * Removes the EUI-48 with the bit representation {@code bits} from this set.
+     * 
+     * @param bits The bit representation.
+     * @return {@code true} if this set contained the EUI-48.
+     */
+    public boolean remove(long bits) {
+        if ((bits >>> 48) != 0) {
+            return false;
+        }
+        long val = bits ^ EUI48s.ORDER_FLIP;
+        int index = indexOf((int) (val >>> 24));
+        if (index < 0) {
+            return false;
+        }
+        Container container = this.containers[index];
+        int cardinality = container.cardinality();
+        this.containers[index] = container = container.remove((int) val & 0xffffff);
+        if (container.cardinality() == cardinality) {
+            return false;
+        }
+        if (container.cardinality() == 0) {
+            removeContainer(index);
+        }
+        ++this.modCount;
+        return true;
+    }
+
+    /**
+     * Adds {@code val} to this set.
+     * 
+     * @param val The EUI-48.
+     * @return {@code true} if this set did not already contain {@code val}.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    @Override
+    public boolean add(EUI48 val) {
+        return add(val.getBits());
+    }
+
+    /**
+     * Returns whether this set contains {@code obj}.
+     * 
+     * @param obj The object.
+     * @return {@code true} if {@code obj} is an {@link EUI48} in this set.
+     */
+    @Override
+    public boolean contains(Object obj) {
+        return (obj instanceof EUI48) && contains(((EUI48) obj).getBits());
+    }
+
+    /**
+     * Removes {@code obj} from this set.
+     * 
+     * @param obj The object.
+     * @return {@code true} if {@code obj} was an {@link EUI48} in this set.
+     */
+    @Override
+    public boolean remove(Object obj) {
+        return (obj instanceof EUI48) && remove(((EUI48) obj).getBits());
+    }
+
+    /**
+     * Returns the number of EUI-48s in this set, or {@link Integer#MAX_VALUE} if there are more.
+     * 
+     * @return The number of EUI-48s, at most {@link Integer#MAX_VALUE}.
+     * @see #cardinality()
+     */
+    @Override
+    public int size() {
+        return (int) Math.min(Integer.MAX_VALUE, cardinality());
+    }
+
+    /**
+     * Returns the number of EUI-48s in this set.
+     * 
+     * @return The number of EUI-48s.
+     */
+    public long cardinality() {
+        return cardinality(0, this.count);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.count == 0;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.containers, 0, this.count, null);
+        this.count = 0;
+        ++this.modCount;
+    }
+
+    /**
+     * Returns an iterator over the EUI-48s in this set, in the order of
+     * {@link EUI48#compareTo(EUI48)}.
+     * 
+     * @return An iterator over the EUI-48s in this set.
+     */
+    @Override
+    public Iterator<EUI48> iterator() {
+        return new Iterator<EUI48>() {
+            private int expectedModCount = EUI48BitmapSet.this.modCount;
+
+            private int index = -1;
+
+            private Container.IntervalCursor cursor;
+
+            private int value;
+
+            private int last = -1;
+
+            private long lastReturned = -1;
+
+            @Override
+            public boolean hasNext() {
+                if (EUI48BitmapSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                if (this.value <= this.last) {
+                    return true;
+                }
+                for (;;) {
+                    if (this.cursor != null && this.cursor.next()) {
+                        this.value = this.cursor.start;
+                        this.last = this.cursor.last;
+                        return true;
+                    }
+                    if (++this.index >= EUI48BitmapSet.this.count) {
+                        return false;
+                    }
+                    this.cursor = EUI48BitmapSet.this.containers[this.index].intervals();
+                }
+            }
+
+            @Override
+            public EUI48 next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                long high = (long) EUI48BitmapSet.this.keys[this.index] << 24;
+                this.lastReturned = (high | this.value++) ^ EUI48s.ORDER_FLIP;
+                return new EUI48(this.lastReturned);
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastReturned < 0) {
+                    throw new IllegalStateException();
+                }
+                if (EUI48BitmapSet.this.modCount != this.expectedModCount) {
+                    throw new ConcurrentModificationException();
+                }
+                int key = EUI48BitmapSet.this.keys[this.index];
+                EUI48BitmapSet.this.remove(this.lastReturned);
+                this.lastReturned = -1;
+                this.expectedModCount = EUI48BitmapSet.this.modCount;
+                // The container may have been replaced or removed, so resume behind the current
+                // interval, which is not affected by the removal.
+                int found = indexOf(key);
+                if (found >= 0) {
+                    this.index = found;
+                    this.cursor = EUI48BitmapSet.this.containers[found].intervals(this.last + 1);
+                }
+                else {
+                    this.index = -found - 2;
+                    this.cursor = null;
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the bit representations of the EUI-48s in this set, in the order of
+     * {@link EUI48#compareTo(EUI48)}.
+     * 
+     * @return The bit representations.
+     * @throws IllegalStateException If this set has more than {@link Integer#MAX_VALUE} elements.
+     */
+    public long[] toLongArray() {
+        long cardinality = cardinality();
+        if (cardinality > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Too many elements for an array: " + cardinality);
+        }
+        long[] bits = new long[(int) cardinality];
+        int size = 0;
+        for (int n = 0; n < this.count; ++n) {
+            long high = (long) this.keys[n] << 24;
+            Container.IntervalCursor cursor = this.containers[n].intervals();
+            while (cursor.next()) {
+                for (int value = cursor.start; value <= cursor.last; ++value) {
+                    bits[size++] = (high | value) ^ EUI48s.ORDER_FLIP;
+                }
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Returns a spliterator over the EUI-48s in this set, in the order of
+     * {@link EUI48#compareTo(EUI48)}. The spliterator is {@link Spliterator#SORTED sorted},
+     * {@link Spliterator#DISTINCT distinct} and {@link Spliterator#SUBSIZED subsized}, and splits
+     * at OUI boundaries, so that parallel streams over sets spanning many OUIs scale well. It is
+     * fail-fast like the iterator.
+     * 
+     * @return A spliterator over the EUI-48s in this set.
+     */
+    @Override
+    public Spliterator<EUI48> spliterator() {
+        return new EUI48Spliterator(bitsSpliterator());
+    }
+
+    /**
+     * Returns a spliterator over the bit representations of the EUI-48s in this set, in the order
+     * of {@link EUI48#compareTo(EUI48)}. Unlike {@link #spliterator()}, the spliterator does not
+     * report {@link Spliterator#SORTED}, since this order differs from the natural order of
+     * {@code long} values.
+     * 
+     * @return A spliterator over the bit representations.
+     * @see EUI48#getBits()
+     */
+    public Spliterator.OfLong bitsSpliterator() {
+        return new BitmapSetSpliterator(this, this.modCount, 0, this.count, cardinality());
+    }
+
+    /**
+     * Adds all EUI-48s in {@code c} to this set. If {@code c} is an {@link EUI48BitmapSet}, the
+     * containers are merged directly.
+     * 
+     * @param c The collection of EUI-48s.
+     * @return {@code true} if this set changed.
+     * @throws NullPointerException If {@code c} is or contains {@code null}.
+     */
+    @Override
+    public boolean addAll(Collection<? extends EUI48> c) {
+        if (c instanceof EUI48BitmapSet) {
+            return assign(union(this, (EUI48BitmapSet) c));
+        }
+        return super.addAll(c);
+    }
+
+    /**
+     * Retains only the EUI-48s in this set that are also in {@code c}.
+     * 
+     * @param c The collection of EUI-48s to retain.
+     * @return {@code true} if this set changed.
+     * @throws NullPointerException If {@code c} is {@code null}.
+     */
+    @Override
+    public boolean retainAll(Collection<?> c) {
+        return assign(intersection(this, toBitmapSet(c)));
+    }
+
+    /**
+     * Removes all EUI-48s in {@code c} from this set.
+     * 
+     * @param c The collection of EUI-48s to remove.
+     * @return {@code true} if this set changed.
+     * @throws NullPointerException If {@code c} is {@code null}.
+     */
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        return assign(difference(this, toBitmapSet(c)));
+    }
+
+    /**
+     * Compares this set to the specified object. If {@code obj} is an {@link EUI48BitmapSet}, the
+     * containers are compared directly.
+     * 
+     * @param obj The object to be compared.
+     * @return {@code true} if the objects are equal sets; {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj instanceof EUI48BitmapSet) {
+            EUI48BitmapSet set = (EUI48BitmapSet) obj;
+            if (set.count != this.count) {
+                return false;
+            }
+            for (int n = 0; n < this.count; ++n) {
+                if (set.keys[n] != this.keys[n] || !Container.equals(set.containers[n], this.containers[n])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return super.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        return super.hashCode();
+    }
+
+    /**
+     * Returns a new set with the EUI-48s that are in {@code x} or {@code y}.
+     * 
+     * @param x The first set.
+     * @param y The second set.
+     * @return The union of {@code x} and {@code y}.
+     * @throws NullPointerException If {@code x} or {@code y} is {@code null}.
+     */
+    public static EUI48BitmapSet union(EUI48BitmapSet x, EUI48BitmapSet y) {
+        EUI48BitmapSet result = new EUI48BitmapSet();
+        int i = 0, j = 0;
+        while (i < x.count || j < y.count) {
+            if (j == y.count || (i < x.count && x.keys[i] < y.keys[j])) {
+                result.appendContainer(x.keys[i], x.containers[i++].copy());
+            }
+            else if (i == x.count || y.keys[j] < x.keys[i]) {
+                result.appendContainer(y.keys[j], y.containers[j++].copy());
+            }
+            else {
+                result.appendContainer(x.keys[i], Container.union(x.containers[i++], y.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set with the EUI-48s that are in both {@code x} and {@code y}.
+     * 
+     * @param x The first set.
+     * @param y The second set.
+     * @return The intersection of {@code x} and {@code y}.
+     * @throws NullPointerException If {@code x} or {@code y} is {@code null}.
+     */
+    public static EUI48BitmapSet intersection(EUI48BitmapSet x, EUI48BitmapSet y) {
+        EUI48BitmapSet result = new EUI48BitmapSet();
+        int i = 0, j = 0;
+        while (i < x.count && j < y.count) {
+            if (x.keys[i] < y.keys[j]) {
+                ++i;
+            }
+            else if (y.keys[j] < x.keys[i]) {
+                ++j;
+            }
+            else {
+                result.appendContainer(x.keys[i], Container.intersection(x.containers[i++], y.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set with the EUI-48s that are in {@code x} but not in {@code y}.
+     * 
+     * @param x The first set.
+     * @param y The second set.
+     * @return The difference of {@code x} and {@code y}.
+     * @throws NullPointerException If {@code x} or {@code y} is {@code null}.
+     */
+    public static EUI48BitmapSet difference(EUI48BitmapSet x, EUI48BitmapSet y) {
+        EUI48BitmapSet result = new EUI48BitmapSet();
+        int j = 0;
+        for (int i = 0; i < x.count; ++i) {
+            while (j < y.count && y.keys[j] < x.keys[i]) {
+                ++j;
+            }
+            if (j < y.count && y.keys[j] == x.keys[i]) {
+                result.appendContainer(x.keys[i], Container.difference(x.containers[i], y.containers[j]));
+            }
+            else {
+                result.appendContainer(x.keys[i], x.containers[i].copy());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of bytes written by {@link #writeTo(DataOutput)}.
+     * 
+     * @return The size of the binary form in bytes.
+     */
+    public long getSerializedSize() {
+        long size = 8;
+        for (int n = 0; n < this.count; ++n) {
+            size += 3 + this.containers[n].flip().serializedSize();
+        }
+        return size;
+    }
+
+    /**
+     * Writes the binary form of this set to {@code out}.
+     * 
+     * @param out The output.
+     * @throws IOException If an I/O error occurs.
+     * @see #readFrom(DataInput)
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(this.count);
+        // The binary form is in OUI order, which starts with the second half of the flipped keys.
+        int split = indexOf(0x800000);
+        if (split < 0) {
+            split = -split - 1;
+        }
+        for (int i = 0; i < this.count; ++i) {
+            int n = (split + i) % this.count;
+            Container.writeValue(out, this.keys[n] ^ 0x800000);
+            this.containers[n].flip().writeTo(out);
+        }
+    }
+
+    /**
+     * Reads a set from the binary form in {@code in}.
+     * 
+     * @param in The input.
+     * @return The set.
+     * @throws IOException If an I/O error occurs or the binary form is malformed.
+     * @see #writeTo(DataOutput)
+     */
+    public static EUI48BitmapSet readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Invalid magic number");
+        }
+        int count = in.readInt();
+        if (count < 0 || count > Container.UNIVERSE) {
+            throw new IOException("Invalid container count " + count);
+        }
+        int[] keys = new int[Math.max(4, count)];
+        Container[] containers = new Container[keys.length];
+        int split = count;
+        for (int n = 0; n < count; ++n) {
+            int oui = Container.readValue(in);
+            if (n > 0 && oui <= (keys[n - 1] ^ 0x800000)) {
+                throw new IOException("Unsorted containers");
+            }
+            if (oui >= 0x800000 && split == count) {
+                split = n;
+            }
+            keys[n] = oui ^ 0x800000;
+            containers[n] = Container.readFrom(in).flip();
+        }
+        EUI48BitmapSet set = new EUI48BitmapSet();
+        set.keys = new int[keys.length];
+        set.containers = new Container[keys.length];
+        for (int n = 0; n < count; ++n) {
+            int i = (split + n) % count;
+            set.keys[n] = keys[i];
+            set.containers[n] = containers[i];
+        }
+        set.count = count;
+        return set;
+    }
+
+    /**
+     * Replaces the contents of this set with the contents of {@code set}.
+     * 
+     * @param set The new contents.
+     * @return {@code true} if this set changed.
+     */
+    private boolean assign(EUI48BitmapSet set) {
+        if (equals(set)) {
+            return false;
+        }
+        this.keys = set.keys;
+        this.containers = set.containers;
+        this.count = set.count;
+        ++this.modCount;
+        return true;
+    }
+
+    /**
+     * Appends a container with a key greater than all existing keys, unless it is empty.
+     * 
+     * @param key The container key.
+     * @param container The container.
+     */
+    private void appendContainer(int key, Container container) {
+        if (container.cardinality() > 0) {
+            insertContainer(this.count, key, container);
+        }
+    }
+
+    /**
+     * Returns the bit representation of the EUI-48 with the lower 24 bits {@code value} in the
+     * container at {@code index}.
+     * 
+     * @param index The container index.
+     * @param value The 24-bit value in the container.
+     * @return The bit representation.
+     */
+    long toBits(int index, int value) {
+        return (((long) this.keys[index] << 24) | value) ^ EUI48s.ORDER_FLIP;
+    }
+
+    /**
+     * Returns the number of EUI-48s in the containers {@code from} (inclusive) to {@code to}
+     * (exclusive).
+     * 
+     * @param from The index of the first container.
+     * @param to The index behind the last container.
+     * @return The number of EUI-48s.
+     */
+    long cardinality(int from, int to) {
+        long cardinality = 0;
+        for (int n = from; n < to; ++n) {
+            cardinality += this.containers[n].cardinality();
+        }
+        return cardinality;
+    }
+
+    /**
+     * Returns a cursor over the intervals of values in the container at {@code index}.
+     * 
+     * @param index The container index.
+     * @return The interval cursor.
+     */
+    Container.IntervalCursor intervals(int index) {
+        return this.containers[index].intervals();
+    }
+
+    /**
+     * Returns the number of structural modifications of this set.
+     * 
+     * @return The modification count.
+     */
+    int modCount() {
+        return this.modCount;
+    }
+
+    /**
+     * Inserts a container at {@code index}.
+     * 
+     * @param index The index.
+     * @param key The container key.
+     * @param container The container.
+     */
+    private void insertContainer(int index, int key, Container container) {
+        if (this.count == this.keys.length) {
+            this.keys = Arrays.copyOf(this.keys, 2 * this.count);
+            this.containers = Arrays.copyOf(this.containers, 2 * this.count);
+        }
+        System.arraycopy(this.keys, index, this.keys, index + 1, this.count - index);
+        System.arraycopy(this.containers, index, this.containers, index + 1, this.count - index);
+        this.keys[index] = key;
+        this.containers[index] = container;
+        ++this.count;
+    }
+
+    /**
+     * Removes the container at {@code index}.
+     * 
+     * @param index The index.
+     */
+    private void removeContainer(int index) {
+        System.arraycopy(this.keys, index + 1, this.keys, index, this.count - index - 1);
+        System.arraycopy(this.containers, index + 1, this.containers, index, this.count - index - 1);
+        this.containers[--this.count] = null;
+    }
+
+    /**
+     * Returns the index of the container with {@code key}, or {@code -(insertion point) - 1}.
+     * 
+     * @param key The container key.
+     * @return The index, or a negative value if there is no such container.
+     */
+    private int indexOf(int key) {
+        return Arrays.binarySearch(this.keys, 0, this.count, key);
+    }
+
+    /**
+     * Returns the EUI-48s in {@code c} as {@link EUI48BitmapSet}, ignoring other elements.
+     * 
+     * @param c The collection.
+     * @return The set.
+     */
+    private static EUI48BitmapSet toBitmapSet(Collection<?> c) {
+        if (c instanceof EUI48BitmapSet) {
+            return (EUI48BitmapSet) c;
+        }
+        EUI48BitmapSet set = new EUI48BitmapSet();
+        for (Object obj : c) {
+            if (obj instanceof EUI48) {
+                set.add((EUI48) obj);
+            }
+        }
+        return set;
+    }
+
+    /**
+     * Returns the internal representation of {@code bits}.
+     * 
+     * @param bits The bit representation.
+     * @return The internal representation.
+     * @throws IllegalArgumentException If {@code bits} is not a 48-bit value.
+     */
+    private static long toInternal(long bits) {
+        if ((bits >>> 48) != 0) {
+            throw new IllegalArgumentException("bits is out of range " + Long.toHexString(bits));
+        }
+        return bits ^ EUI48s.ORDER_FLIP;
+    }
+}
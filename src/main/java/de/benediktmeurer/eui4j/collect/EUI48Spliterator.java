@@ -0,0 +1,75 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * A {@link Spliterator} over {@link EUI48}s in the order of {@link EUI48#compareTo(EUI48)}, backed
+ * by a spliterator over their bit representations.
+ * 
+ * @author Benedikt Meurer
+ */
+final class EUI48Spliterator implements Spliterator<EUI48> {
+    /** The spliterator over the bit representations. */
+    private final Spliterator.OfLong bits;
+
+    /**
+     * Constructs a new {@link EUI48Spliterator} backed by {@code bits}.
+     * 
+     * @param bits The spliterator over the bit representations, in the order of
+     *            {@link EUI48#compareTo(EUI48)}.
+     */
+    EUI48Spliterator(Spliterator.OfLong bits) {
+        this.bits = bits;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super EUI48> action) {
+        return this.bits.tryAdvance((long bits) -> action.accept(new EUI48(bits)));
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super EUI48> action) {
+        this.bits.forEachRemaining((long bits) -> action.accept(new EUI48(bits)));
+    }
+
+    @Override
+    public Spliterator<EUI48> trySplit() {
+        Spliterator.OfLong prefix = this.bits.trySplit();
+        return (prefix == null) ? null : new EUI48Spliterator(prefix);
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.bits.estimateSize();
+    }
+
+    @Override
+    public int characteristics() {
+        return this.bits.characteristics() | SORTED;
+    }
+
+    @Override
+    public Comparator<? super EUI48> getComparator() {
+        return null;
+    }
+}
@@ -0,0 +1,189 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * A {@link Container} that stores its values as sorted runs of consecutive values.
+ * 
+ * @author Benedikt Meurer
+ */
+final class RunContainer extends Container {
+    /** The runs as pairs of first and last value, in ascending order and not adjacent. */
+    private int[] runs;
+
+    /** The number of runs. */
+    private int runCount;
+
+    /** The number of values. */
+    private int cardinality;
+
+    /**
+     * Constructs a new {@link RunContainer} with the first {@code runCount} runs in {@code runs}.
+     * 
+     * @param runs The runs as pairs of first and last value.
+     * @param runCount The number of runs.
+     * @param cardinality The number of values in the runs.
+     */
+    RunContainer(int[] runs, int runCount, int cardinality) {
+        this.runs = runs;
+        this.runCount = runCount;
+        this.cardinality = cardinality;
+    }
+
+    @Override
+    int cardinality() {
+        return this.cardinality;
+    }
+
+    @Override
+    boolean contains(int value) {
+        int index = find(value);
+        return index >= 0 && value <= this.runs[2 * index + 1];
+    }
+
+    @Override
+    Container add(int value) {
+        int index = find(value);
+        if (index >= 0 && value <= this.runs[2 * index + 1]) {
+            return this;
+        }
+        boolean joinsPrevious = index >= 0 && this.runs[2 * index + 1] == value - 1;
+        boolean joinsNext = index + 1 < this.runCount && this.runs[2 * index + 2] == value + 1;
+        if (joinsPrevious && joinsNext) {
+            this.runs[2 * index + 1] = this.runs[2 * index + 3];
+            System.arraycopy(this.runs, 2 * index + 4, this.runs, 2 * index + 2, 2 * (this.runCount - index - 2));
+            --this.runCount;
+        }
+        else if (joinsPrevious) {
+            this.runs[2 * index + 1] = value;
+        }
+        else if (joinsNext) {
+            this.runs[2 * index + 2] = value;
+        }
+        else {
+            insertRun(index + 1, value, value);
+        }
+        ++this.cardinality;
+        return (2 * this.runCount > this.cardinality) ? optimize(this) : this;
+    }
+
+    @Override
+    Container remove(int value) {
+        int index = find(value);
+        if (index < 0 || value > this.runs[2 * index + 1]) {
+            return this;
+        }
+        int start = this.runs[2 * index], last = this.runs[2 * index + 1];
+        if (start == last) {
+            System.arraycopy(this.runs, 2 * index + 2, this.runs, 2 * index, 2 * (this.runCount - index - 1));
+            --this.runCount;
+        }
+        else if (value == start) {
+            this.runs[2 * index] = value + 1;
+        }
+        else if (value == last) {
+            this.runs[2 * index + 1] = value - 1;
+        }
+        else {
+            this.runs[2 * index + 1] = value - 1;
+            insertRun(index + 1, value + 1, last);
+        }
+        --this.cardinality;
+        return (2 * this.runCount > this.cardinality) ? optimize(this) : this;
+    }
+
+    @Override
+    IntervalCursor intervals(final int from) {
+        int found = find(from);
+        final int first = (found >= 0 && this.runs[2 * found + 1] >= from) ? found : found + 1;
+        return new IntervalCursor() {
+            private int index = first;
+
+            @Override
+            boolean next() {
+                if (this.index == RunContainer.this.runCount) {
+                    return false;
+                }
+                this.start = Math.max(from, RunContainer.this.runs[2 * this.index]);
+                this.last = RunContainer.this.runs[2 * this.index + 1];
+                ++this.index;
+                return true;
+            }
+        };
+    }
+
+    @Override
+    Container copy() {
+        return new RunContainer(Arrays.copyOf(this.runs, 2 * this.runCount), this.runCount, this.cardinality);
+    }
+
+    @Override
+    int serializedSize() {
+        return 5 + 6 * this.runCount;
+    }
+
+    @Override
+    void writeTo(DataOutput out) throws IOException {
+        writeType(out, this);
+        out.writeInt(this.runCount);
+        for (int n = 0; n < 2 * this.runCount; ++n) {
+            writeValue(out, this.runs[n]);
+        }
+    }
+
+    /**
+     * Returns the index of the last run that starts at or before {@code value}, or {@code -1} if
+     * all runs start after {@code value}.
+     * 
+     * @param value The value.
+     * @return The run index, or {@code -1}.
+     */
+    private int find(int value) {
+        int lo = 0, hi = this.runCount - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.runs[2 * mid] <= value) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid - 1;
+            }
+        }
+        return hi;
+    }
+
+    /**
+     * Inserts a new run at {@code index}.
+     * 
+     * @param index The run index.
+     * @param start The first value of the run.
+     * @param last The last value of the run.
+     */
+    private void insertRun(int index, int start, int last) {
+        if (2 * this.runCount == this.runs.length) {
+            this.runs = Arrays.copyOf(this.runs, Math.max(4, 2 * this.runs.length));
+        }
+        System.arraycopy(this.runs, 2 * index, this.runs, 2 * index + 2, 2 * (this.runCount - index));
+        this.runs[2 * index] = start;
+        this.runs[2 * index + 1] = last;
+        ++this.runCount;
+    }
+}
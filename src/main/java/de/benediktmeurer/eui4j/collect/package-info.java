@@ -0,0 +1,24 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides compact collections of EUIs.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.collect.EUI48BitmapSet} class implements a compressed set
+ * of EUI-48s, partitioned by OUI.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.collect;
@@ -0,0 +1,50 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+/**
+ * Receives the result of an {@link EUIDiff}, in the order of the compared sources. All methods do
+ * nothing by default.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIDiff
+ */
+public interface DiffListener {
+    /**
+     * Called for a bit representation that is only contained in the new source.
+     * 
+     * @param bits The bit representation.
+     */
+    default void added(long bits) {
+    }
+
+    /**
+     * Called for a bit representation that is only contained in the old source.
+     * 
+     * @param bits The bit representation.
+     */
+    default void removed(long bits) {
+    }
+
+    /**
+     * Called for a bit representation that is contained in both sources.
+     * 
+     * @param bits The bit representation.
+     */
+    default void unchanged(long bits) {
+    }
+}
@@ -0,0 +1,133 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+/**
+ * The numbers of added, removed and unchanged bit representations found by an {@link EUIDiff}.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIDiff
+ */
+public final class DiffSummary {
+    /** The number of added bit representations. */
+    private final long added;
+
+    /** The number of removed bit representations. */
+    private final long removed;
+
+    /** The number of unchanged bit representations. */
+    private final long unchanged;
+
+    /**
+     * Constructs a new {@link DiffSummary}.
+     * 
+     * @param added The number of added bit representations.
+     * @param removed The number of removed bit representations.
+     * @param unchanged The number of unchanged bit representations.
+     */
+    DiffSummary(long added, long removed, long unchanged) {
+        this.added = added;
+        this.removed = removed;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * Returns the number of bit representations that are only contained in the new source.
+     * 
+     * @return The number of added bit representations.
+     */
+    public long getAdded() {
+        return this.added;
+    }
+
+    /**
+     * Returns the number of bit representations that are only contained in the old source.
+     * 
+     * @return The number of removed bit representations.
+     */
+    public long getRemoved() {
+        return this.removed;
+    }
+
+    /**
+     * Returns the number of bit representations that are contained in both sources.
+     * 
+     * @return The number of unchanged bit representations.
+     */
+    public long getUnchanged() {
+        return this.unchanged;
+    }
+
+    /**
+     * Returns whether the sources are equal.
+     * 
+     * @return {@code true} if nothing was added or removed.
+     */
+    public boolean isEmpty() {
+        return this.added == 0 && this.removed == 0;
+    }
+
+    /**
+     * Returns the sum of this summary and {@code other}.
+     * 
+     * @param other The other summary.
+     * @return The combined summary.
+     */
+    DiffSummary plus(DiffSummary other) {
+        return new DiffSummary(this.added + other.added, this.removed + other.removed, this.unchanged + other.unchanged);
+    }
+
+    /**
+     * Compares this {@link DiffSummary} to the specified object. The result is {@code true} if and
+     * only if {@code obj} is a {@link DiffSummary} with the same numbers.
+     * 
+     * @param obj The object to be compared.
+     * @return {@code true} if the objects are equal; {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        else if (obj instanceof DiffSummary) {
+            DiffSummary val = (DiffSummary) obj;
+            return this.added == val.added && this.removed == val.removed && this.unchanged == val.unchanged;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this {@link DiffSummary}.
+     * 
+     * @return A hash code value for this {@code DiffSummary}.
+     */
+    @Override
+    public int hashCode() {
+        long h = (this.added * 31 + this.removed) * 31 + this.unchanged;
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a string representation of this {@link DiffSummary}.
+     * 
+     * @return The string representation.
+     */
+    @Override
+    public String toString() {
+        return "DiffSummary[added=" + this.added + ", removed=" + this.removed + ", unchanged=" + this.unchanged + "]";
+    }
+}
@@ -0,0 +1,373 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+import java.util.Arrays;
+import java.util.PrimitiveIterator;
+import java.util.function.IntFunction;
+import java.util.function.LongUnaryOperator;
+import java.util.stream.IntStream;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Compares two sorted sources of bit representations, for example yesterday's and today's
+ * inventory of EUIs, in a single merge pass. Each bit representation is reported as added, removed
+ * or unchanged to a {@link DiffListener}, in the order of the sources, while the memory use is
+ * independent of the size of the sources. Both sources must be sorted in the order of the diff,
+ * and repeated bit representations within a source are reported only once.
+ * <p>
+ * The parallel variants split the sources into partitions of whole OUIs with about the same number
+ * of bit representations, which are compared independently, each reporting to its own listener.
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUIDiff {
+    /** The diff for EUI-48s sorted by {@link EUI48#compareTo(EUI48)}. */
+    private static final EUIDiff EUI48_DIFF = new EUIDiff(EUIType.EUI48, EUI48s.ORDER_FLIP);
+
+    /** The diff for EUI-48s sorted by {@link EUI48#compareToUnsigned(EUI48)}. */
+    private static final EUIDiff EUI48_UNSIGNED_DIFF = new EUIDiff(EUIType.EUI48, Long.MIN_VALUE);
+
+    /** The diff for EUI-64s sorted by {@link EUI64#compareTo(EUI64)}. */
+    private static final EUIDiff EUI64_DIFF = new EUIDiff(EUIType.EUI64, 0);
+
+    /** The diff for EUI-64s sorted by {@link EUI64#compareToUnsigned(EUI64)}. */
+    private static final EUIDiff EUI64_UNSIGNED_DIFF = new EUIDiff(EUIType.EUI64, Long.MIN_VALUE);
+
+    /** The type of the compared EUIs. */
+    private final EUIType type;
+
+    /** The bits flipped to map the order of the diff to the signed order of {@code long}. */
+    private final long flip;
+
+    /** The mask of the NIC bits. */
+    private final long nicMask;
+
+    /**
+     * Constructs a new {@link EUIDiff}.
+     * 
+     * @param type The type of the compared EUIs.
+     * @param flip The bits flipped to map the order of the diff to the signed order.
+     */
+    private EUIDiff(EUIType type, long flip) {
+        this.type = type;
+        this.flip = flip;
+        this.nicMask = (type == EUIType.EUI48) ? 0xffffffL : 0xffffffffffL;
+    }
+
+    /**
+     * Returns the diff for EUI-48 bit representations sorted by {@link EUI48#compareTo(EUI48)},
+     * as produced by {@link de.benediktmeurer.eui4j.stream.EUICollectors#toSortedEUI48Bits()}.
+     * 
+     * @return The diff.
+     */
+    public static EUIDiff eui48() {
+        return EUI48_DIFF;
+    }
+
+    /**
+     * Returns the diff for EUI-64 bit representations sorted by {@link EUI64#compareTo(EUI64)},
+     * as produced by {@link de.benediktmeurer.eui4j.stream.EUICollectors#toSortedEUI64Bits()} or
+     * {@link Arrays#sort(long[])}.
+     * 
+     * @return The diff.
+     */
+    public static EUIDiff eui64() {
+        return EUI64_DIFF;
+    }
+
+    /**
+     * Returns the diff for bit representations of {@code type} sorted by their octets, i.e. by
+     * {@link EUI48#compareToUnsigned(EUI48)} or {@link EUI64#compareToUnsigned(EUI64)}. For
+     * EUI-48s, this is also the order produced by {@link Arrays#sort(long[])}.
+     * 
+     * @param type The type of the compared EUIs.
+     * @return The diff.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public static EUIDiff unsigned(EUIType type) {
+        switch (type) {
+        case EUI48:
+            return EUI48_UNSIGNED_DIFF;
+        default:
+            return EUI64_UNSIGNED_DIFF;
+        }
+    }
+
+    /**
+     * Returns the type of the compared EUIs.
+     * 
+     * @return The type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Compares the sorted sources {@code before} and {@code after}.
+     * 
+     * @param before The old source.
+     * @param after The new source.
+     * @param listener The listener.
+     * @return The summary.
+     * @throws IllegalArgumentException if a source is not sorted.
+     */
+    public DiffSummary diff(PrimitiveIterator.OfLong before, PrimitiveIterator.OfLong after, DiffListener listener) {
+        return merge(new Cursor(before, this.flip, "before"), new Cursor(after, this.flip, "after"), listener);
+    }
+
+    /**
+     * Compares the sorted arrays {@code before} and {@code after}.
+     * 
+     * @param before The old source.
+     * @param after The new source.
+     * @param listener The listener.
+     * @return The summary.
+     * @throws IllegalArgumentException if a source is not sorted.
+     */
+    public DiffSummary diff(long[] before, long[] after, DiffListener listener) {
+        return diff(Arrays.stream(before).iterator(), Arrays.stream(after).iterator(), listener);
+    }
+
+    /**
+     * Compares the sorted files {@code before} and {@code after}.
+     * 
+     * @param before The old source.
+     * @param after The new source.
+     * @param listener The listener.
+     * @return The summary.
+     * @throws IllegalArgumentException if a source is not sorted.
+     */
+    public DiffSummary diff(SortedBitsFile before, SortedBitsFile after, DiffListener listener) {
+        return diff(before.iterator(), after.iterator(), listener);
+    }
+
+    /**
+     * Compares the sorted arrays {@code before} and {@code after} in up to {@code partitions}
+     * partitions of whole OUIs on the common fork-join pool. The partition with index {@code i}
+     * reports to the listener returned by {@code listeners} for {@code i}, and covers only
+     * bit representations that are less than those of the partitions with higher indices.
+     * 
+     * @param before The old source.
+     * @param after The new source.
+     * @param partitions The maximum number of partitions.
+     * @param listeners The factory for the listeners of the partitions.
+     * @return The summary.
+     * @throws IllegalArgumentException if {@code partitions} is not positive, or a source is not
+     *             sorted.
+     */
+    public DiffSummary parallelDiff(final long[] before, final long[] after, int partitions, final IntFunction<? extends DiffListener> listeners) {
+        final long[] bounds = partition(before.length, after.length, partitions, index -> before[(int) index], index -> after[(int) index]);
+        return IntStream.range(0, bounds.length / 2 - 1).parallel().mapToObj(i -> {
+            PrimitiveIterator.OfLong b = Arrays.stream(before, (int) bounds[2 * i], (int) bounds[2 * i + 2]).iterator();
+            PrimitiveIterator.OfLong a = Arrays.stream(after, (int) bounds[2 * i + 1], (int) bounds[2 * i + 3]).iterator();
+            return diff(b, a, listeners.apply(i));
+        }).reduce(new DiffSummary(0, 0, 0), DiffSummary::plus);
+    }
+
+    /**
+     * Compares the sorted files {@code before} and {@code after} in up to {@code partitions}
+     * partitions of whole OUIs on the common fork-join pool. The partition with index {@code i}
+     * reports to the listener returned by {@code listeners} for {@code i}, and covers only
+     * bit representations that are less than those of the partitions with higher indices.
+     * 
+     * @param before The old source.
+     * @param after The new source.
+     * @param partitions The maximum number of partitions.
+     * @param listeners The factory for the listeners of the partitions.
+     * @return The summary.
+     * @throws IllegalArgumentException if {@code partitions} is not positive, or a source is not
+     *             sorted.
+     */
+    public DiffSummary parallelDiff(final SortedBitsFile before, final SortedBitsFile after, int partitions, final IntFunction<? extends DiffListener> listeners) {
+        final long[] bounds = partition(before.size(), after.size(), partitions, before::get, after::get);
+        return IntStream.range(0, bounds.length / 2 - 1).parallel().mapToObj(i -> {
+            PrimitiveIterator.OfLong b = before.iterator(bounds[2 * i], bounds[2 * i + 2]);
+            PrimitiveIterator.OfLong a = after.iterator(bounds[2 * i + 1], bounds[2 * i + 3]);
+            return diff(b, a, listeners.apply(i));
+        }).reduce(new DiffSummary(0, 0, 0), DiffSummary::plus);
+    }
+
+    /**
+     * Splits two sorted sources into up to {@code partitions} partitions of whole OUIs. The
+     * splitters are the OUIs of evenly spaced elements of the larger source.
+     * 
+     * @param beforeSize The size of the old source.
+     * @param afterSize The size of the new source.
+     * @param partitions The maximum number of partitions.
+     * @param before The accessor for the old source.
+     * @param after The accessor for the new source.
+     * @return The start indices of the partitions in both sources, alternating between the old and
+     *         the new source, followed by the sizes of the sources.
+     */
+    private long[] partition(long beforeSize, long afterSize, int partitions, LongUnaryOperator before, LongUnaryOperator after) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        long size = Math.max(beforeSize, afterSize);
+        LongUnaryOperator larger = (beforeSize >= afterSize) ? before : after;
+        long[] bounds = new long[2 * partitions + 2];
+        int count = 1;
+        long previous = Long.MIN_VALUE;
+        for (int i = 1; i < partitions && size > 0; ++i) {
+            long key = (larger.applyAsLong(i * size / partitions) ^ this.flip) & ~this.nicMask;
+            if (key > previous) {
+                bounds[2 * count] = lowerBound(before, beforeSize, key);
+                bounds[2 * count + 1] = lowerBound(after, afterSize, key);
+                previous = key;
+                ++count;
+            }
+        }
+        bounds[2 * count] = beforeSize;
+        bounds[2 * count + 1] = afterSize;
+        return Arrays.copyOf(bounds, 2 * count + 2);
+    }
+
+    /**
+     * Returns the index of the first element of a sorted source whose key is not less than
+     * {@code key}.
+     * 
+     * @param source The accessor for the source.
+     * @param size The size of the source.
+     * @param key The key, i.e. a bit representation with the bits {@link #flip} flipped.
+     * @return The index.
+     */
+    private long lowerBound(LongUnaryOperator source, long size, long key) {
+        long low = 0;
+        long high = size;
+        while (low < high) {
+            long middle = (low + high) >>> 1;
+            if ((source.applyAsLong(middle) ^ this.flip) < key) {
+                low = middle + 1;
+            }
+            else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Merges the sources of {@code before} and {@code after}.
+     * 
+     * @param before The cursor over the old source.
+     * @param after The cursor over the new source.
+     * @param listener The listener.
+     * @return The summary.
+     */
+    private static DiffSummary merge(Cursor before, Cursor after, DiffListener listener) {
+        long added = 0;
+        long removed = 0;
+        long unchanged = 0;
+        before.advance();
+        after.advance();
+        while (before.valid && after.valid) {
+            if (before.key < after.key) {
+                listener.removed(before.bits());
+                ++removed;
+                before.advance();
+            }
+            else if (before.key > after.key) {
+                listener.added(after.bits());
+                ++added;
+                after.advance();
+            }
+            else {
+                listener.unchanged(before.bits());
+                ++unchanged;
+                before.advance();
+                after.advance();
+            }
+        }
+        for (; before.valid; before.advance()) {
+            listener.removed(before.bits());
+            ++removed;
+        }
+        for (; after.valid; after.advance()) {
+            listener.added(after.bits());
+            ++added;
+        }
+        return new DiffSummary(added, removed, unchanged);
+    }
+
+    /**
+     * A position in a sorted source, which skips repeated bit representations and checks the
+     * order.
+     */
+    private static final class Cursor {
+        /** The source. */
+        private final PrimitiveIterator.OfLong source;
+
+        /** The bits flipped to map the order of the diff to the signed order. */
+        private final long flip;
+
+        /** The name of the source for error messages. */
+        private final String name;
+
+        /** Whether the cursor points to a bit representation. */
+        boolean valid;
+
+        /** The current bit representation with the bits {@link #flip} flipped. */
+        long key;
+
+        /**
+         * Constructs a new {@link Cursor}, which points before the first bit representation.
+         * 
+         * @param source The source.
+         * @param flip The bits flipped to map the order of the diff to the signed order.
+         * @param name The name of the source for error messages.
+         */
+        Cursor(PrimitiveIterator.OfLong source, long flip, String name) {
+            this.source = source;
+            this.flip = flip;
+            this.name = name;
+        }
+
+        /**
+         * Moves to the next distinct bit representation.
+         * 
+         * @throws IllegalArgumentException if the source is not sorted.
+         */
+        void advance() {
+            while (this.source.hasNext()) {
+                long next = this.source.nextLong() ^ this.flip;
+                if (!this.valid || next > this.key) {
+                    this.valid = true;
+                    this.key = next;
+                    return;
+                }
+                else if (next < this.key) {
+                    throw new IllegalArgumentException(this.name + " is not sorted");
+                }
+            }
+            this.valid = false;
+        }
+
+        /**
+         * Returns the current bit representation.
+         * 
+         * @return The bit representation.
+         */
+        long bits() {
+            return this.key ^ this.flip;
+        }
+    }
+}
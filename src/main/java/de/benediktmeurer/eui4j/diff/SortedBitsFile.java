@@ -0,0 +1,220 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An immutable file of bit representations, memory-mapped for sequential and random access. The
+ * file consists of a header followed by the bit representations as big-endian 64-bit values, in
+ * the order in which they were written. Reading the file does not need heap memory proportional to
+ * its size, so files of several hundred million EUIs can be compared with {@link EUIDiff}.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIDiff
+ */
+public final class SortedBitsFile {
+    /** The magic number at the start of each file. */
+    private static final int MAGIC = 0x45554942;
+
+    /** The version of the file format. */
+    private static final int VERSION = 1;
+
+    /** The size of the header in bytes. */
+    private static final int HEADER_SIZE = 16;
+
+    /** The log2 of the number of values per mapped chunk, which keeps chunks below 2 GiB. */
+    private static final int CHUNK_SHIFT = 27;
+
+    /** The file. */
+    private final File file;
+
+    /** The number of values. */
+    private final long count;
+
+    /** The mapped chunks of values. */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Opens and maps the existing {@code file}.
+     * 
+     * @param file The file.
+     * @throws IOException If the file cannot be read or is not a valid file of bit
+     *             representations.
+     */
+    public SortedBitsFile(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Truncated bits file " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid bits file " + file);
+            }
+            this.file = file;
+            this.count = header.getLong();
+            if (this.count < 0 || channel.size() != HEADER_SIZE + this.count * 8) {
+                throw new IOException("Corrupt bits file " + file);
+            }
+            long chunkValues = 1L << CHUNK_SHIFT;
+            this.chunks = new MappedByteBuffer[(int) ((this.count + chunkValues - 1) >>> CHUNK_SHIFT)];
+            for (int n = 0; n < this.chunks.length; ++n) {
+                long first = n * chunkValues;
+                long values = Math.min(chunkValues, this.count - first);
+                this.chunks[n] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * 8, values * 8);
+            }
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes the bit representations {@code bits} to {@code file}, replacing its contents.
+     * 
+     * @param file The file.
+     * @param bits The bit representations.
+     * @return The written file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static SortedBitsFile write(File file, long... bits) throws IOException {
+        return write(file, Arrays.stream(bits).iterator());
+    }
+
+    /**
+     * Writes the bit representations returned by {@code bits} to {@code file}, replacing its
+     * contents.
+     * 
+     * @param file The file.
+     * @param bits The bit representations.
+     * @return The written file.
+     * @throws IOException If an I/O error occurs.
+     */
+    public static SortedBitsFile write(File file, PrimitiveIterator.OfLong bits) throws IOException {
+        FileOutputStream fos = new FileOutputStream(file);
+        try {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 65536));
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(0);
+            long count = 0;
+            while (bits.hasNext()) {
+                out.writeLong(bits.nextLong());
+                ++count;
+            }
+            out.flush();
+            ByteBuffer header = ByteBuffer.allocate(8);
+            header.putLong(0, count);
+            while (header.hasRemaining()) {
+                fos.getChannel().write(header, 8 + header.position());
+            }
+        }
+        finally {
+            fos.close();
+        }
+        return new SortedBitsFile(file);
+    }
+
+    /**
+     * Returns the file.
+     * 
+     * @return The file.
+     */
+    public File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the number of bit representations.
+     * 
+     * @return The number of bit representations.
+     */
+    public long size() {
+        return this.count;
+    }
+
+    /**
+     * Returns the bit representation at {@code index}.
+     * 
+     * @param index The index.
+     * @return The bit representation.
+     * @throws IndexOutOfBoundsException If {@code index} is out of bounds.
+     */
+    public long get(long index) {
+        if (index < 0 || index >= this.count) {
+            throw new IndexOutOfBoundsException("Index " + index + " is out of bounds for size " + this.count);
+        }
+        return this.chunks[(int) (index >>> CHUNK_SHIFT)].getLong((int) (index & ((1L << CHUNK_SHIFT) - 1)) << 3);
+    }
+
+    /**
+     * Returns an iterator over all bit representations.
+     * 
+     * @return The iterator.
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        return iterator(0, this.count);
+    }
+
+    /**
+     * Returns an iterator over the bit representations from {@code from} (inclusive) to {@code to}
+     * (exclusive). Iterators can be used concurrently by different threads.
+     * 
+     * @param from The index of the first bit representation.
+     * @param to The index behind the last bit representation.
+     * @return The iterator.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public PrimitiveIterator.OfLong iterator(final long from, final long to) {
+        if (from < 0 || from > to || to > this.count) {
+            throw new IndexOutOfBoundsException("Range " + from + " to " + to + " is out of bounds for size " + this.count);
+        }
+        return new PrimitiveIterator.OfLong() {
+            /** The index of the next bit representation. */
+            private long index = from;
+
+            @Override
+            public boolean hasNext() {
+                return this.index < to;
+            }
+
+            @Override
+            public long nextLong() {
+                if (this.index >= to) {
+                    throw new NoSuchElementException();
+                }
+                return get(this.index++);
+            }
+        };
+    }
+}
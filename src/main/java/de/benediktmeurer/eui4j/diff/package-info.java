@@ -0,0 +1,27 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides streaming comparison of large sorted inventories of EUIs.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.diff.EUIDiff} class compares two sorted sources of packed
+ * bit representations in a single merge pass with constant memory, optionally in parallel by OUI
+ * ranges, and reports the differences to a {@link de.benediktmeurer.eui4j.diff.DiffListener}.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.diff.SortedBitsFile} class reads and writes sorted
+ * sources as files of fixed-width bit representations.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.diff;
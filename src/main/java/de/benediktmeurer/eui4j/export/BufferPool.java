@@ -0,0 +1,94 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.export;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A pool of direct {@link ByteBuffer}s of equal capacity. Buffers are allocated lazily and at
+ * most {@code maxBuffers} released buffers are retained for reuse, so that repeated exports do not
+ * pay for the allocation and zeroing of direct memory.
+ * 
+ * @author Benedikt Meurer
+ */
+final class BufferPool {
+    /** The capacity of the buffers. */
+    private final int bufferSize;
+
+    /** The maximum number of retained buffers. */
+    private final int maxBuffers;
+
+    /** The released buffers. */
+    private final ConcurrentLinkedQueue<ByteBuffer> buffers = new ConcurrentLinkedQueue<ByteBuffer>();
+
+    /** The number of buffers in {@link #buffers}. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /**
+     * Constructs a new, empty {@link BufferPool}.
+     * 
+     * @param bufferSize The capacity of the buffers.
+     * @param maxBuffers The maximum number of retained buffers.
+     */
+    BufferPool(int bufferSize, int maxBuffers) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+    }
+
+    /**
+     * Returns the capacity of the buffers.
+     * 
+     * @return The buffer capacity.
+     */
+    int getBufferSize() {
+        return this.bufferSize;
+    }
+
+    /**
+     * Takes a cleared, big endian buffer from the pool, or allocates a new one if the pool is
+     * empty.
+     * 
+     * @return The buffer.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = this.buffers.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(this.bufferSize).order(ByteOrder.BIG_ENDIAN);
+        }
+        this.size.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns {@code buffer} to the pool, unless the pool already retains the maximum number of
+     * buffers.
+     * 
+     * @param buffer The buffer, which must not be used by the caller afterwards.
+     */
+    void release(ByteBuffer buffer) {
+        if (this.size.incrementAndGet() <= this.maxBuffers) {
+            this.buffers.offer(buffer);
+        }
+        else {
+            this.size.decrementAndGet();
+        }
+    }
+}
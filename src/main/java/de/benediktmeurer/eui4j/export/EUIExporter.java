@@ -0,0 +1,613 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.export;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.function.ToLongFunction;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Exports large numbers of {@link EUI48}s and {@link EUI64}s in one of the textual
+ * {@link ExportFormat}s to a {@link WritableByteChannel}. The EUIs are formatted from their packed
+ * bit representations directly into pooled direct {@link ByteBuffer}s, without creating any
+ * intermediate strings and without a character encoder, and each full buffer is handed to the
+ * channel in a single write, which for a {@link java.nio.channels.FileChannel} avoids another copy
+ * of the data.
+ * <p>
+ * The exports optionally take an {@link Executor}, in which case the input is split into chunks of
+ * one buffer each, which are formatted by the executor, while the calling thread writes the
+ * formatted buffers to the channel in the original order. At most {@code maxBuffers} chunks are in
+ * flight at any time, which bounds the memory used by an export.
+ * <p>
+ * Instances of this class are thread-safe and should be reused, so that the buffers are reused.
+ * 
+ * @author Benedikt Meurer
+ * @see ExportFormat
+ */
+public final class EUIExporter {
+    /** The default name of the CSV column and of the JSON member. */
+    public static final String DEFAULT_FIELD = "mac";
+
+    /** The default capacity of the buffers. */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 18;
+
+    /** The default maximum number of buffers. */
+    public static final int DEFAULT_MAX_BUFFERS = 8;
+
+    /** The length of a formatted {@link EUI48}. */
+    private static final int EUI48_LENGTH = 17;
+
+    /** The length of a formatted {@link EUI64}. */
+    private static final int EUI64_LENGTH = 23;
+
+    /** The two lower case hexadecimal ASCII digits of every octet, as big endian shorts. */
+    private static final short[] HEX_PAIRS = new short[256];
+
+    static {
+        for (int n = 0; n < HEX_PAIRS.length; ++n) {
+            HEX_PAIRS[n] = (short) ((hexDigit(n >>> 4) << 8) | hexDigit(n & 0xf));
+        }
+    }
+
+    /** The format. */
+    private final ExportFormat format;
+
+    /** The name of the CSV column or JSON member. */
+    private final String field;
+
+    /** The bytes written before the first EUI. */
+    private final byte[] header;
+
+    /** The bytes written before every EUI. */
+    private final byte[] prefix;
+
+    /** The bytes written after every EUI. */
+    private final byte[] suffix;
+
+    /** The maximum number of chunks in flight during a parallel export. */
+    private final int maxBuffers;
+
+    /** The buffer pool. */
+    private final BufferPool pool;
+
+    /**
+     * Constructs a new {@link EUIExporter} for the specified {@code format}, with the default field
+     * name, buffer size and maximum number of buffers.
+     * 
+     * @param format The format.
+     */
+    public EUIExporter(ExportFormat format) {
+        this(format, DEFAULT_FIELD, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS);
+    }
+
+    /**
+     * Constructs a new {@link EUIExporter} for the specified {@code format} and {@code field}, with
+     * the default buffer size and maximum number of buffers.
+     * 
+     * @param format The format.
+     * @param field The name of the CSV column or JSON member.
+     * @throws IllegalArgumentException If {@code field} is invalid.
+     */
+    public EUIExporter(ExportFormat format, String field) {
+        this(format, field, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_BUFFERS);
+    }
+
+    /**
+     * Constructs a new {@link EUIExporter}.
+     * 
+     * @param format The format.
+     * @param field The name of the CSV column or JSON member, which must consist of ASCII letters,
+     *            digits, {@code '_'}, {@code '-'} and {@code '.'} only, so that it needs no quoting
+     *            or escaping.
+     * @param bufferSize The capacity of the buffers in bytes.
+     * @param maxBuffers The maximum number of buffers retained for reuse, which is also the maximum
+     *            number of chunks in flight during a parallel export.
+     * @throws IllegalArgumentException If {@code field} is invalid, {@code bufferSize} is too small
+     *             for a single line or {@code maxBuffers} is not positive.
+     */
+    public EUIExporter(ExportFormat format, String field, int bufferSize, int maxBuffers) {
+        if (format == null) {
+            throw new NullPointerException("format");
+        }
+        checkField(field);
+        this.format = format;
+        this.field = field;
+        switch (format) {
+        case CSV:
+            this.header = ascii(field + "\n");
+            this.prefix = new byte[0];
+            this.suffix = ascii("\n");
+            break;
+        case NDJSON:
+            this.header = new byte[0];
+            this.prefix = ascii("{\"" + field + "\":\"");
+            this.suffix = ascii("\"}\n");
+            break;
+        default:
+            this.header = new byte[0];
+            this.prefix = new byte[0];
+            this.suffix = ascii("\n");
+            break;
+        }
+        if (bufferSize < this.prefix.length + EUI64_LENGTH + this.suffix.length) {
+            throw new IllegalArgumentException("bufferSize is too small " + bufferSize);
+        }
+        if (maxBuffers <= 0) {
+            throw new IllegalArgumentException("maxBuffers must be positive");
+        }
+        this.maxBuffers = maxBuffers;
+        this.pool = new BufferPool(bufferSize, maxBuffers);
+    }
+
+    /**
+     * Returns the format of this exporter.
+     * 
+     * @return The format.
+     */
+    public ExportFormat getFormat() {
+        return this.format;
+    }
+
+    /**
+     * Returns the name of the CSV column or JSON member.
+     * 
+     * @return The field name.
+     */
+    public String getField() {
+        return this.field;
+    }
+
+    /**
+     * Writes the {@link EUI48}s with the bit representations {@code bits} to {@code channel}.
+     * 
+     * @param bits The bit representations.
+     * @param channel The channel, which is not closed.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @throws IllegalArgumentException If any of the bit representations is not a 48-bit value.
+     * @see EUI48#getBits()
+     */
+    public long writeEUI48s(long[] bits, WritableByteChannel channel) throws IOException {
+        return writeEUI48s(bits, 0, bits.length, channel, null);
+    }
+
+    /**
+     * Writes the {@link EUI48}s with the bit representations {@code bits} from index {@code from}
+     * (inclusive) to {@code to} (exclusive) to {@code channel}, formatting them with
+     * {@code executor} if it is not {@code null}.
+     * 
+     * @param bits The bit representations, which must not be modified during the export.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @param channel The channel, which is not closed.
+     * @param executor The executor for a parallel export, or {@code null} to format the EUIs in the
+     *            calling thread.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @throws IllegalArgumentException If any of the bit representations is not a 48-bit value.
+     * @throws ArrayIndexOutOfBoundsException If the range is out of bounds.
+     * @see EUI48#getBits()
+     */
+    public long writeEUI48s(long[] bits, int from, int to, WritableByteChannel channel, Executor executor) throws IOException {
+        return write(new ArraySource(bits, from, to), false, channel, executor);
+    }
+
+    /**
+     * Writes the {@code values} to {@code channel}.
+     * 
+     * @param values The EUI-48s.
+     * @param channel The channel, which is not closed.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long writeEUI48s(Iterable<EUI48> values, WritableByteChannel channel) throws IOException {
+        return writeEUI48s(values, channel, null);
+    }
+
+    /**
+     * Writes the {@code values} to {@code channel}, formatting them with {@code executor} if it is
+     * not {@code null}. The values are read by the calling thread.
+     * 
+     * @param values The EUI-48s.
+     * @param channel The channel, which is not closed.
+     * @param executor The executor for a parallel export, or {@code null} to format the EUIs in the
+     *            calling thread.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long writeEUI48s(Iterable<EUI48> values, WritableByteChannel channel, Executor executor) throws IOException {
+        return write(new IterableSource<EUI48>(values.iterator(), EUI48::getBits, executor == null), false, channel, executor);
+    }
+
+    /**
+     * Writes the {@link EUI64}s with the bit representations {@code bits} to {@code channel}.
+     * 
+     * @param bits The bit representations.
+     * @param channel The channel, which is not closed.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @see EUI64#getBits()
+     */
+    public long writeEUI64s(long[] bits, WritableByteChannel channel) throws IOException {
+        return writeEUI64s(bits, 0, bits.length, channel, null);
+    }
+
+    /**
+     * Writes the {@link EUI64}s with the bit representations {@code bits} from index {@code from}
+     * (inclusive) to {@code to} (exclusive) to {@code channel}, formatting them with
+     * {@code executor} if it is not {@code null}.
+     * 
+     * @param bits The bit representations, which must not be modified during the export.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @param channel The channel, which is not closed.
+     * @param executor The executor for a parallel export, or {@code null} to format the EUIs in the
+     *            calling thread.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     * @throws ArrayIndexOutOfBoundsException If the range is out of bounds.
+     * @see EUI64#getBits()
+     */
+    public long writeEUI64s(long[] bits, int from, int to, WritableByteChannel channel, Executor executor) throws IOException {
+        return write(new ArraySource(bits, from, to), true, channel, executor);
+    }
+
+    /**
+     * Writes the {@code values} to {@code channel}.
+     * 
+     * @param values The EUI-64s.
+     * @param channel The channel, which is not closed.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long writeEUI64s(Iterable<EUI64> values, WritableByteChannel channel) throws IOException {
+        return writeEUI64s(values, channel, null);
+    }
+
+    /**
+     * Writes the {@code values} to {@code channel}, formatting them with {@code executor} if it is
+     * not {@code null}. The values are read by the calling thread.
+     * 
+     * @param values The EUI-64s.
+     * @param channel The channel, which is not closed.
+     * @param executor The executor for a parallel export, or {@code null} to format the EUIs in the
+     *            calling thread.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    public long writeEUI64s(Iterable<EUI64> values, WritableByteChannel channel, Executor executor) throws IOException {
+        return write(new IterableSource<EUI64>(values.iterator(), EUI64::getBits, executor == null), true, channel, executor);
+    }
+
+    /**
+     * Writes the header and the chunks of {@code source} to {@code channel}.
+     * 
+     * @param source The chunks of bit representations.
+     * @param eui64 {@code true} for EUI-64s, {@code false} for EUI-48s.
+     * @param channel The channel.
+     * @param executor The executor, or {@code null}.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    private long write(Source source, final boolean eui64, WritableByteChannel channel, Executor executor) throws IOException {
+        long written = writeFully(channel, ByteBuffer.wrap(this.header));
+        int rows = this.pool.getBufferSize() / (this.prefix.length + (eui64 ? EUI64_LENGTH : EUI48_LENGTH) + this.suffix.length);
+        if (executor == null) {
+            ByteBuffer buffer = this.pool.acquire();
+            try {
+                while (source.next(rows)) {
+                    buffer.clear();
+                    written += writeFully(channel, format(source.bits, source.from, source.to, eui64, buffer));
+                }
+            }
+            finally {
+                this.pool.release(buffer);
+            }
+            return written;
+        }
+        ArrayDeque<Future<ByteBuffer>> pending = new ArrayDeque<Future<ByteBuffer>>(this.maxBuffers);
+        try {
+            while (source.next(rows)) {
+                if (pending.size() == this.maxBuffers) {
+                    written += writeAndRelease(channel, pending.poll());
+                }
+                final long[] bits = source.bits;
+                final int from = source.from;
+                final int to = source.to;
+                FutureTask<ByteBuffer> task = new FutureTask<ByteBuffer>(() -> {
+                    ByteBuffer buffer = this.pool.acquire();
+                    try {
+                        return format(bits, from, to, eui64, buffer);
+                    }
+                    catch (RuntimeException e) {
+                        this.pool.release(buffer);
+                        throw e;
+                    }
+                });
+                executor.execute(task);
+                pending.add(task);
+            }
+            while (!pending.isEmpty()) {
+                written += writeAndRelease(channel, pending.poll());
+            }
+            return written;
+        }
+        finally {
+            for (Future<ByteBuffer> future : pending) {
+                future.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Waits for a formatted buffer, writes it to {@code channel} and returns it to the pool.
+     * 
+     * @param channel The channel.
+     * @param future The future of the formatted buffer.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs, or the calling thread is interrupted.
+     */
+    private long writeAndRelease(WritableByteChannel channel, Future<ByteBuffer> future) throws IOException {
+        ByteBuffer buffer;
+        try {
+            buffer = future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a chunk");
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+        try {
+            return writeFully(channel, buffer);
+        }
+        finally {
+            this.pool.release(buffer);
+        }
+    }
+
+    /**
+     * Formats the bit representations {@code bits} from index {@code from} (inclusive) to
+     * {@code to} (exclusive) into {@code buffer}, which must have room for all of them.
+     * 
+     * @param bits The bit representations.
+     * @param from The first index.
+     * @param to The index behind the last bit representation.
+     * @param eui64 {@code true} for EUI-64s, {@code false} for EUI-48s.
+     * @param buffer The cleared buffer.
+     * @return The flipped {@code buffer}.
+     * @throws IllegalArgumentException If {@code eui64} is {@code false} and any of the bit
+     *             representations is not a 48-bit value.
+     */
+    private ByteBuffer format(long[] bits, int from, int to, boolean eui64, ByteBuffer buffer) {
+        byte[] prefix = this.prefix;
+        byte[] suffix = this.suffix;
+        for (int n = from; n < to; ++n) {
+            long b = bits[n];
+            if (prefix.length != 0) {
+                buffer.put(prefix);
+            }
+            if (eui64) {
+                putOctets(buffer, b, 56);
+            }
+            else {
+                if ((b >>> 48) != 0) {
+                    throw new IllegalArgumentException("bits is out of range " + Long.toHexString(b));
+                }
+                putOctets(buffer, b, 40);
+            }
+            if (suffix.length == 1) {
+                buffer.put(suffix[0]);
+            }
+            else {
+                buffer.put(suffix);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Puts the octets of {@code bits}, from the octet at {@code shift} down to the least
+     * significant octet, separated by colons, into {@code buffer}.
+     * 
+     * @param buffer The buffer.
+     * @param bits The bit representation.
+     * @param shift The shift of the most significant octet.
+     */
+    private static void putOctets(ByteBuffer buffer, long bits, int shift) {
+        for (; shift > 0; shift -= 8) {
+            buffer.putShort(HEX_PAIRS[(int) (bits >>> shift) & 0xff]);
+            buffer.put((byte) ':');
+        }
+        buffer.putShort(HEX_PAIRS[(int) bits & 0xff]);
+    }
+
+    /**
+     * Writes all remaining bytes of {@code buffer} to {@code channel}.
+     * 
+     * @param channel The channel.
+     * @param buffer The buffer.
+     * @return The number of bytes written.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static int writeFully(WritableByteChannel channel, ByteBuffer buffer) throws IOException {
+        int count = buffer.remaining();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return count;
+    }
+
+    /**
+     * Checks that {@code field} needs no quoting or escaping in any of the formats.
+     * 
+     * @param field The field name.
+     * @throws IllegalArgumentException If {@code field} is invalid.
+     */
+    private static void checkField(String field) {
+        if (field.isEmpty()) {
+            throw new IllegalArgumentException("field must not be empty");
+        }
+        for (int n = 0; n < field.length(); ++n) {
+            char c = field.charAt(n);
+            if (!((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_' || c == '-' || c == '.')) {
+                throw new IllegalArgumentException("Invalid field name: " + field);
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code s}, which consists of ASCII characters only.
+     * 
+     * @param s The string.
+     * @return The ASCII bytes.
+     */
+    private static byte[] ascii(String s) {
+        byte[] bytes = new byte[s.length()];
+        for (int n = 0; n < bytes.length; ++n) {
+            bytes[n] = (byte) s.charAt(n);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the lower case hexadecimal ASCII digit for {@code c}.
+     * 
+     * @param c The value of the digit, from {@code 0} to {@code 15}.
+     * @return The ASCII digit.
+     */
+    private static int hexDigit(int c) {
+        return c + (c < 10 ? '0' : ('a' - 10));
+    }
+
+    /**
+     * A sequence of chunks of bit representations.
+     */
+    private abstract static class Source {
+        /** The bit representations of the current chunk. */
+        long[] bits;
+
+        /** The first index of the current chunk. */
+        int from;
+
+        /** The index behind the last bit representation of the current chunk. */
+        int to;
+
+        /**
+         * Advances to the next chunk of at most {@code rows} bit representations.
+         * 
+         * @param rows The maximum size of the chunk.
+         * @return {@code false} if there are no more bit representations.
+         */
+        abstract boolean next(int rows);
+    }
+
+    /**
+     * The chunks of a range of an array of bit representations.
+     */
+    private static final class ArraySource extends Source {
+        /** The index behind the last bit representation of the range. */
+        private final int end;
+
+        /**
+         * Constructs a new {@link ArraySource}.
+         * 
+         * @param bits The bit representations.
+         * @param from The first index.
+         * @param to The index behind the last bit representation.
+         * @throws ArrayIndexOutOfBoundsException If the range is out of bounds.
+         */
+        ArraySource(long[] bits, int from, int to) {
+            if (from < 0 || from > to || to > bits.length) {
+                throw new ArrayIndexOutOfBoundsException("Range " + from + " to " + to + " is out of bounds for length " + bits.length);
+            }
+            this.bits = bits;
+            this.to = from;
+            this.end = to;
+        }
+
+        @Override
+        boolean next(int rows) {
+            this.from = this.to;
+            this.to = this.from + Math.min(rows, this.end - this.from);
+            return this.from < this.to;
+        }
+    }
+
+    /**
+     * The chunks of the bit representations of the elements of an iterator.
+     */
+    private static final class IterableSource<T> extends Source {
+        /** The elements. */
+        private final Iterator<T> iterator;
+
+        /** The function that returns the bit representation of an element. */
+        private final ToLongFunction<T> function;
+
+        /** Whether the chunk array may be reused for the next chunk. */
+        private final boolean reuse;
+
+        /**
+         * Constructs a new {@link IterableSource}.
+         * 
+         * @param iterator The elements.
+         * @param function The function that returns the bit representation of an element.
+         * @param reuse Whether the chunk array may be reused for the next chunk.
+         */
+        IterableSource(Iterator<T> iterator, ToLongFunction<T> function, boolean reuse) {
+            this.iterator = iterator;
+            this.function = function;
+            this.reuse = reuse;
+        }
+
+        @Override
+        boolean next(int rows) {
+            if (!this.iterator.hasNext()) {
+                return false;
+            }
+            if (!this.reuse || this.bits == null) {
+                this.bits = new long[rows];
+            }
+            int count = 0;
+            while (count < rows && this.iterator.hasNext()) {
+                this.bits[count++] = this.function.applyAsLong(this.iterator.next());
+            }
+            this.to = count;
+            return true;
+        }
+    }
+}
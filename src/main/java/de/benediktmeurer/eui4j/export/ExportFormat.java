@@ -0,0 +1,35 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.export;
+
+/**
+ * The textual formats supported by the {@link EUIExporter}. All formats are encoded in US-ASCII
+ * and terminate every line with a single {@code '\n'}.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIExporter
+ */
+public enum ExportFormat {
+    /** One EUI per line, without a header, e.g. {@code 00:1b:21:3a:4b:5c}. */
+    LINES,
+
+    /** A single column CSV file with a header line naming the column, and one EUI per line. */
+    CSV,
+
+    /** Newline delimited JSON with one object per line, e.g. {@code {"mac":"00:1b:21:3a:4b:5c"}}. */
+    NDJSON
+}
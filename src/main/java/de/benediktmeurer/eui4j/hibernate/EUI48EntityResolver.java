@@ -0,0 +1,479 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.metadata.ClassMetadata;
+import org.hibernate.type.Type;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * Resolves EUI-48s to the entities that hold them in a property, typically mapped with the
+ * {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType}, asynchronously and in
+ * batches. Lookups that arrive within a short window after the first pending lookup, up to a batch
+ * size, are coalesced into a single {@code IN (...)} query, which binds the EUI-48s with the
+ * property's own type and runs on the configured {@link Executor}. Concurrent lookups for the same
+ * EUI-48 share a single future. Resolved entities are kept in a bounded cache, from which the
+ * least recently used entities are evicted.
+ * <p>
+ * The executor may be a thread pool, or on Java 21 and later an executor that starts a virtual
+ * thread per task; the window is timed by a single daemon thread of the resolver. Each batch is
+ * loaded read-only in a new session, so the entities are detached, and they are shared between all
+ * callers and the cache, so callers must not modify them. The resolver does not notice changes of
+ * the entities in the database; callers that change them should {@link #invalidate(long)
+ * invalidate} the cached entries. If the property is not unique, one of the entities with the
+ * EUI-48 is returned.
+ * 
+ * <pre>
+ * EUI48EntityResolver&lt;Device&gt; resolver = new EUI48EntityResolver&lt;Device&gt;(sessionFactory,
+ *         Device.class, &quot;mac&quot;, executor);
+ * resolver.resolve(mac).thenAccept(device -&gt; handle(request, device));
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ * @param <T> The entity type.
+ */
+public final class EUI48EntityResolver<T> implements Closeable {
+    /** The default maximum number of EUI-48s per query. */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** The default time in microseconds that a lookup waits for others to join its query. */
+    public static final long DEFAULT_WINDOW = 2000;
+
+    /** The default maximum number of cached entities. */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
+    /** The number of cache segments. */
+    private static final int SEGMENTS = 16;
+
+    /** The session factory. */
+    private final SessionFactory sessionFactory;
+
+    /** The entity class. */
+    private final Class<T> entityClass;
+
+    /** The Hibernate type of the property. */
+    private final Type propertyType;
+
+    /** The query that selects the EUI-48s and entities. */
+    private final String query;
+
+    /** The executor for the queries. */
+    private final Executor executor;
+
+    /** The maximum number of EUI-48s per query. */
+    private final int batchSize;
+
+    /** The time in nanoseconds that a lookup waits for others to join its query. */
+    private final long window;
+
+    /** The maximum number of cached entities. */
+    private final int cacheSize;
+
+    /** The cache segments, each ordered from least to most recently used; guarded by themselves. */
+    private final LinkedHashMap<Long, T>[] segments;
+
+    /** The invalidation epoch, advanced by every invalidation. */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /** The timer for the windows. */
+    private final ScheduledThreadPoolExecutor timer;
+
+    /** The futures of the pending lookups by EUI-48; guarded by {@code this}. */
+    private Map<Long, CompletableFuture<T>> pending = new HashMap<Long, CompletableFuture<T>>();
+
+    /** The timer task for the pending lookups, or {@code null}; guarded by {@code this}. */
+    private ScheduledFuture<?> flush;
+
+    /** Whether this resolver is closed; guarded by {@code this}. */
+    private boolean closed;
+
+    /**
+     * Constructs a new {@link EUI48EntityResolver} with the default batch size, window and cache
+     * size.
+     * 
+     * @param sessionFactory The session factory.
+     * @param entityClass The entity class.
+     * @param property The name of the EUI-48 property.
+     * @param executor The executor for the queries.
+     * @throws IllegalArgumentException If {@code entityClass} is not an entity, or
+     *             {@code property} is not one of its EUI-48 properties.
+     */
+    public EUI48EntityResolver(SessionFactory sessionFactory, Class<T> entityClass, String property, Executor executor) {
+        this(sessionFactory, entityClass, property, executor, DEFAULT_BATCH_SIZE, DEFAULT_WINDOW, TimeUnit.MICROSECONDS, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * Constructs a new {@link EUI48EntityResolver}.
+     * 
+     * @param sessionFactory The session factory.
+     * @param entityClass The entity class.
+     * @param property The name of the EUI-48 property.
+     * @param executor The executor for the queries.
+     * @param batchSize The maximum number of EUI-48s per query.
+     * @param window The time that a lookup waits for others to join its query.
+     * @param unit The unit of {@code window}.
+     * @param cacheSize The maximum number of cached entities, or {@code 0} to disable the cache.
+     * @throws IllegalArgumentException If {@code entityClass} is not an entity, {@code property}
+     *             is not one of its EUI-48 properties, {@code batchSize} is not positive, or
+     *             {@code window} or {@code cacheSize} is negative.
+     * @throws NullPointerException If any argument is {@code null}.
+     */
+    public EUI48EntityResolver(SessionFactory sessionFactory, Class<T> entityClass, String property, Executor executor, int batchSize, long window, TimeUnit unit,
+            int cacheSize) {
+        if (executor == null) {
+            throw new NullPointerException("executor is null");
+        }
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive");
+        }
+        if (window < 0) {
+            throw new IllegalArgumentException("window must not be negative");
+        }
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("cacheSize must not be negative");
+        }
+        ClassMetadata metadata = sessionFactory.getClassMetadata(entityClass);
+        if (metadata == null) {
+            throw new IllegalArgumentException("Not an entity: " + entityClass.getName());
+        }
+        Type type = null;
+        if (property.equals(metadata.getIdentifierPropertyName())) {
+            type = metadata.getIdentifierType();
+        }
+        for (String name : metadata.getPropertyNames()) {
+            if (name.equals(property)) {
+                type = metadata.getPropertyType(property);
+            }
+        }
+        if (type == null || type.getReturnedClass() != EUI48.class) {
+            throw new IllegalArgumentException("Not an EUI-48 property of " + entityClass.getName() + ": " + property);
+        }
+        this.sessionFactory = sessionFactory;
+        this.entityClass = entityClass;
+        this.propertyType = type;
+        this.query = "select e." + property + ", e from " + entityClass.getName() + " e where e." + property + " in (:keys)";
+        this.executor = executor;
+        this.batchSize = batchSize;
+        this.window = unit.toNanos(window);
+        this.cacheSize = cacheSize;
+        @SuppressWarnings({ "unchecked", "rawtypes" })
+        LinkedHashMap<Long, T>[] segments = new LinkedHashMap[SEGMENTS];
+        this.segments = segments;
+        for (int n = 0; n < SEGMENTS; ++n) {
+            final int capacity = cacheSize / SEGMENTS + ((n < cacheSize % SEGMENTS) ? 1 : 0);
+            this.segments[n] = new LinkedHashMap<Long, T>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, T> eldest) {
+                    return size() > capacity;
+                }
+            };
+        }
+        final String threadName = "EUI48EntityResolver-" + entityClass.getSimpleName();
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * Returns the entity class.
+     * 
+     * @return The entity class.
+     */
+    public Class<T> getEntityClass() {
+        return this.entityClass;
+    }
+
+    /**
+     * Returns the maximum number of EUI-48s per query.
+     * 
+     * @return The batch size.
+     */
+    public int getBatchSize() {
+        return this.batchSize;
+    }
+
+    /**
+     * Returns the maximum number of cached entities.
+     * 
+     * @return The cache size.
+     */
+    public int getCacheSize() {
+        return this.cacheSize;
+    }
+
+    /**
+     * Returns the number of currently cached entities.
+     * 
+     * @return The number of cached entities.
+     */
+    public int getCachedCount() {
+        int count = 0;
+        for (LinkedHashMap<Long, T> segment : this.segments) {
+            synchronized (segment) {
+                count += segment.size();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Resolves {@code val} to the entity that holds it.
+     * 
+     * @param val The EUI-48.
+     * @return The future entity, which completes with {@code null} if there is no such entity, or
+     *         exceptionally if the query fails.
+     * @throws IllegalStateException If this resolver is closed.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public CompletableFuture<T> resolve(EUI48 val) {
+        return resolve(val.getBits());
+    }
+
+    /**
+     * Resolves the EUI-48 {@code bits} to the entity that holds it.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     * @return The future entity, which completes with {@code null} if there is no such entity, or
+     *         exceptionally if the query fails.
+     * @throws IllegalArgumentException If {@code bits} is not a valid bit representation.
+     * @throws IllegalStateException If this resolver is closed.
+     */
+    public CompletableFuture<T> resolve(long bits) {
+        EUI48s.checkValid(bits);
+        T entity = cached(bits);
+        if (entity != null) {
+            return CompletableFuture.completedFuture(entity);
+        }
+        CompletableFuture<T> future;
+        Map<Long, CompletableFuture<T>> batch = null;
+        synchronized (this) {
+            if (this.closed) {
+                throw new IllegalStateException("Resolver is closed");
+            }
+            future = this.pending.get(bits);
+            if (future == null) {
+                future = new CompletableFuture<T>();
+                this.pending.put(bits, future);
+                if (this.pending.size() >= this.batchSize) {
+                    batch = takePending();
+                }
+                else if (this.flush == null) {
+                    this.flush = this.timer.schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            flush();
+                        }
+                    }, this.window, TimeUnit.NANOSECONDS);
+                }
+            }
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+        return future;
+    }
+
+    /**
+     * Removes the entity with the EUI-48 {@code bits} from the cache.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     */
+    public void invalidate(long bits) {
+        this.epoch.incrementAndGet();
+        LinkedHashMap<Long, T> segment = segment(bits);
+        synchronized (segment) {
+            segment.remove(bits);
+        }
+    }
+
+    /**
+     * Removes all entities from the cache.
+     */
+    public void invalidateAll() {
+        this.epoch.incrementAndGet();
+        for (LinkedHashMap<Long, T> segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Submits the pending lookups immediately, instead of at the end of their window.
+     */
+    public void flush() {
+        Map<Long, CompletableFuture<T>> batch;
+        synchronized (this) {
+            batch = takePending();
+        }
+        if (batch != null) {
+            submit(batch);
+        }
+    }
+
+    /**
+     * Closes this resolver. The pending lookups are submitted, but further lookups are rejected.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            this.closed = true;
+        }
+        flush();
+        this.timer.shutdown();
+    }
+
+    /**
+     * Takes the pending lookups, and cancels their timer task.
+     * 
+     * @return The pending lookups, or {@code null} if there are none.
+     */
+    private Map<Long, CompletableFuture<T>> takePending() {
+        if (this.flush != null) {
+            this.flush.cancel(false);
+            this.flush = null;
+        }
+        if (this.pending.isEmpty()) {
+            return null;
+        }
+        Map<Long, CompletableFuture<T>> batch = this.pending;
+        this.pending = new HashMap<Long, CompletableFuture<T>>();
+        return batch;
+    }
+
+    /**
+     * Submits a query for {@code batch} to the executor.
+     * 
+     * @param batch The lookups.
+     */
+    private void submit(final Map<Long, CompletableFuture<T>> batch) {
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    load(batch);
+                }
+            });
+        }
+        catch (RuntimeException e) {
+            for (CompletableFuture<T> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Loads the entities for {@code batch} with a single query, caches them, and completes the
+     * futures. The entities are not cached if the cache was invalidated since the query started,
+     * since they may be stale.
+     * 
+     * @param batch The lookups.
+     */
+    private void load(Map<Long, CompletableFuture<T>> batch) {
+        long epoch = this.epoch.get();
+        Map<Long, T> entities = new HashMap<Long, T>(batch.size() * 2);
+        try {
+            List<EUI48> keys = new ArrayList<EUI48>(batch.size());
+            for (Long bits : batch.keySet()) {
+                keys.add(new EUI48(bits));
+            }
+            Session session = this.sessionFactory.openSession();
+            try {
+                List<?> rows = session.createQuery(this.query).setParameterList("keys", keys, this.propertyType).setReadOnly(true).list();
+                for (Object row : rows) {
+                    Object[] columns = (Object[]) row;
+                    entities.put(((EUI48) columns[0]).getBits(), this.entityClass.cast(columns[1]));
+                }
+            }
+            finally {
+                session.close();
+            }
+        }
+        catch (RuntimeException e) {
+            for (CompletableFuture<T> future : batch.values()) {
+                future.completeExceptionally(e);
+            }
+            return;
+        }
+        if (this.cacheSize > 0) {
+            for (Map.Entry<Long, T> entry : entities.entrySet()) {
+                LinkedHashMap<Long, T> segment = segment(entry.getKey());
+                synchronized (segment) {
+                    if (this.epoch.get() != epoch) {
+                        break;
+                    }
+                    segment.put(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+        for (Map.Entry<Long, CompletableFuture<T>> entry : batch.entrySet()) {
+            entry.getValue().complete(entities.get(entry.getKey()));
+        }
+    }
+
+    /**
+     * Returns the cached entity with the EUI-48 {@code bits}, marking it as recently used.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     * @return The entity, or {@code null} if it is not cached.
+     */
+    private T cached(long bits) {
+        if (this.cacheSize == 0) {
+            return null;
+        }
+        LinkedHashMap<Long, T> segment = segment(bits);
+        synchronized (segment) {
+            return segment.get(bits);
+        }
+    }
+
+    /**
+     * Returns the cache segment for the EUI-48 {@code bits}.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     * @return The cache segment.
+     */
+    private LinkedHashMap<Long, T> segment(long bits) {
+        return this.segments[EUI48s.hashCode(bits) & (SEGMENTS - 1)];
+    }
+}
@@ -0,0 +1,316 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * A bounded, concurrent map from EUI-48 bit representations to entity identifiers. The map is
+ * split into segments, each of which is an open-addressing table with linear probing, guarded by
+ * its own lock. When a segment is full, an entry is evicted with the CLOCK algorithm, which spares
+ * entries that were read since the hand last passed them.
+ * <p>
+ * Every invalidation advances an epoch, and {@link #put(long, Serializable, long)} only stores an
+ * identifier if the epoch has not advanced since the identifier was looked up, so that a lookup
+ * which races with an invalidation cannot store a stale identifier.
+ * 
+ * @author Benedikt Meurer
+ */
+final class EUI48IdTable {
+    /** The maximum number of identifiers. */
+    static final int MAX_CAPACITY = 1 << 24;
+
+    /** The maximum number of segments. */
+    private static final int MAX_SEGMENTS = 16;
+
+    /** The segments. */
+    private final Segment[] segments;
+
+    /** The invalidation epoch. */
+    private final AtomicLong epoch = new AtomicLong();
+
+    /**
+     * Constructs a new {@link EUI48IdTable}.
+     * 
+     * @param capacity The maximum number of identifiers.
+     * @throws IllegalArgumentException If {@code capacity} is out of range.
+     */
+    EUI48IdTable(int capacity) {
+        if (capacity <= 0 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        int count = Integer.highestOneBit(Math.min(MAX_SEGMENTS, Math.max(1, capacity >>> 6)));
+        this.segments = new Segment[count];
+        for (int n = 0; n < count; ++n) {
+            this.segments[n] = new Segment(capacity / count + ((n < capacity % count) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Returns the current invalidation epoch, to be passed to
+     * {@link #put(long, Serializable, long)}.
+     * 
+     * @return The epoch.
+     */
+    long epoch() {
+        return this.epoch.get();
+    }
+
+    /**
+     * Returns the identifier for {@code bits}.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     * @return The identifier, or {@code null} if there is none.
+     */
+    Serializable get(long bits) {
+        int hash = EUI48s.hashCode(bits);
+        return segment(hash).get(bits, hash);
+    }
+
+    /**
+     * Stores the identifier for {@code bits}, unless the table was invalidated since {@code epoch}.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     * @param id The identifier.
+     * @param epoch The epoch at which {@code id} was looked up.
+     * @return {@code true} if another identifier was evicted.
+     */
+    boolean put(long bits, Serializable id, long epoch) {
+        int hash = EUI48s.hashCode(bits);
+        return segment(hash).put(bits, hash, id, epoch);
+    }
+
+    /**
+     * Removes the identifier for {@code bits}.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     */
+    void invalidate(long bits) {
+        this.epoch.incrementAndGet();
+        int hash = EUI48s.hashCode(bits);
+        segment(hash).remove(bits, hash);
+    }
+
+    /**
+     * Removes all identifiers.
+     */
+    void invalidateAll() {
+        this.epoch.incrementAndGet();
+        for (Segment segment : this.segments) {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Returns the number of identifiers.
+     * 
+     * @return The number of identifiers.
+     */
+    int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    /**
+     * Returns the segment for {@code hash}.
+     * 
+     * @param hash The hash code of the bit representation.
+     * @return The segment.
+     */
+    private Segment segment(int hash) {
+        return this.segments[(hash >>> 24) & (this.segments.length - 1)];
+    }
+
+    /**
+     * A segment of an {@link EUI48IdTable}.
+     */
+    private final class Segment {
+        /** The bit representations. */
+        private final long[] keys;
+
+        /** The identifiers, where {@code null} marks an empty slot. */
+        private final Serializable[] ids;
+
+        /** Whether the identifiers were read since the hand last passed them. */
+        private final boolean[] referenced;
+
+        /** The maximum number of identifiers. */
+        private final int capacity;
+
+        /** The number of identifiers. */
+        private int size;
+
+        /** The slot at which the next eviction starts. */
+        private int hand;
+
+        /**
+         * Constructs a new {@link Segment}, whose table is at most half full.
+         * 
+         * @param capacity The maximum number of identifiers.
+         */
+        Segment(int capacity) {
+            int length = Integer.highestOneBit(2 * capacity - 1) << 1;
+            this.keys = new long[length];
+            this.ids = new Serializable[length];
+            this.referenced = new boolean[length];
+            this.capacity = capacity;
+        }
+
+        /**
+         * Returns the identifier for {@code bits}, marking it as referenced.
+         * 
+         * @param bits The bit representation.
+         * @param hash The hash code of {@code bits}.
+         * @return The identifier, or {@code null} if there is none.
+         */
+        synchronized Serializable get(long bits, int hash) {
+            int mask = this.keys.length - 1;
+            for (int n = hash & mask; this.ids[n] != null; n = (n + 1) & mask) {
+                if (this.keys[n] == bits) {
+                    this.referenced[n] = true;
+                    return this.ids[n];
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Stores the identifier for {@code bits}, unless the table was invalidated since
+         * {@code epoch}, evicting another identifier if the segment is full.
+         * 
+         * @param bits The bit representation.
+         * @param hash The hash code of {@code bits}.
+         * @param id The identifier.
+         * @param epoch The epoch at which {@code id} was looked up.
+         * @return {@code true} if another identifier was evicted.
+         */
+        synchronized boolean put(long bits, int hash, Serializable id, long epoch) {
+            if (EUI48IdTable.this.epoch.get() != epoch) {
+                return false;
+            }
+            int mask = this.keys.length - 1;
+            int n = hash & mask;
+            for (; this.ids[n] != null; n = (n + 1) & mask) {
+                if (this.keys[n] == bits) {
+                    this.ids[n] = id;
+                    return false;
+                }
+            }
+            boolean evicted = false;
+            if (this.size == this.capacity) {
+                evict();
+                evicted = true;
+                n = hash & mask;
+                while (this.ids[n] != null) {
+                    n = (n + 1) & mask;
+                }
+            }
+            this.keys[n] = bits;
+            this.ids[n] = id;
+            ++this.size;
+            return evicted;
+        }
+
+        /**
+         * Removes the identifier for {@code bits}.
+         * 
+         * @param bits The bit representation.
+         * @param hash The hash code of {@code bits}.
+         */
+        synchronized void remove(long bits, int hash) {
+            int mask = this.keys.length - 1;
+            for (int n = hash & mask; this.ids[n] != null; n = (n + 1) & mask) {
+                if (this.keys[n] == bits) {
+                    delete(n);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Removes all identifiers.
+         */
+        synchronized void clear() {
+            Arrays.fill(this.ids, null);
+            Arrays.fill(this.referenced, false);
+            this.size = 0;
+        }
+
+        /**
+         * Returns the number of identifiers.
+         * 
+         * @return The number of identifiers.
+         */
+        synchronized int size() {
+            return this.size;
+        }
+
+        /**
+         * Evicts the first identifier at or after the hand that is not referenced, clearing the
+         * references that the hand passes.
+         */
+        private void evict() {
+            int mask = this.keys.length - 1;
+            for (;;) {
+                int n = this.hand;
+                this.hand = (n + 1) & mask;
+                if (this.ids[n] != null) {
+                    if (!this.referenced[n]) {
+                        delete(n);
+                        return;
+                    }
+                    this.referenced[n] = false;
+                }
+            }
+        }
+
+        /**
+         * Empties the slot {@code n}, moving back the following identifiers of its cluster that
+         * would otherwise no longer be found.
+         * 
+         * @param n The slot index.
+         */
+        private void delete(int n) {
+            int mask = this.keys.length - 1;
+            --this.size;
+            for (int i = n, j = n;;) {
+                this.ids[i] = null;
+                this.referenced[i] = false;
+                int k;
+                do {
+                    j = (j + 1) & mask;
+                    if (this.ids[j] == null) {
+                        return;
+                    }
+                    k = EUI48s.hashCode(this.keys[j]) & mask;
+                }
+                while ((i <= j) ? (i < k && k <= j) : (i < k || k <= j));
+                this.keys[i] = this.keys[j];
+                this.ids[i] = this.ids[j];
+                this.referenced[i] = this.referenced[j];
+                i = j;
+            }
+        }
+    }
+}
@@ -0,0 +1,366 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import java.io.Serializable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.internal.DefaultResolveNaturalIdEventListener;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.event.spi.ResolveNaturalIdEvent;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.metamodel.source.MetadataImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.service.spi.ServiceRegistryImplementor;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * A session factory wide cache for the natural id resolution of entities whose natural id is a
+ * single EUI-48 property, typically mapped with the
+ * {@link de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType}. For each such entity, the
+ * cache keeps a bounded, concurrent map from the bit representations of the EUI-48s to the entity
+ * identifiers, so that neither boxed EUI-48s nor cache keys are created to look them up. When a
+ * session cannot resolve a natural id from its persistence context, the cache is consulted before
+ * the database, and the natural id query is skipped on a hit; the entity itself is then loaded by
+ * its identifier as usual.
+ * <p>
+ * Only identifiers that were resolved from the database are cached. When an entity is deleted, or
+ * its natural id is changed, its EUI-48s are invalidated both during the flush and after the
+ * commit, since other sessions may still resolve and cache the committed state in between. Bulk
+ * deletes and updates by query, and changes made outside of the session factory, are not noticed;
+ * callers that use them must {@link #invalidate(EUI48) invalidate} the affected EUI-48s.
+ * <p>
+ * The cache is an {@link Integrator}, which is registered with the bootstrap service registry.
+ * Alternatively, it can be {@link #install(SessionFactory) installed} into a session factory that
+ * was already built.
+ * 
+ * <pre>
+ * EUI48NaturalIdCache cache = new EUI48NaturalIdCache();
+ * ServiceRegistry registry = new ServiceRegistryBuilder(
+ *         new BootstrapServiceRegistryBuilder().with(cache).build())
+ *         .applySettings(configuration.getProperties()).buildServiceRegistry();
+ * SessionFactory sessionFactory = configuration.buildSessionFactory(registry);
+ * Device device = (Device) session.bySimpleNaturalId(Device.class).load(mac);
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUI48NaturalIdCache implements Integrator {
+    /** The default maximum number of cached identifiers per entity. */
+    public static final int DEFAULT_CAPACITY = 100000;
+
+    /** The maximum number of cached identifiers per entity. */
+    private final int capacity;
+
+    /** The identifier tables by entity name. */
+    private final ConcurrentHashMap<String, EUI48IdTable> tables = new ConcurrentHashMap<String, EUI48IdTable>();
+
+    /** The number of natural id resolutions served by this cache. */
+    private final LongAdder hits = new LongAdder();
+
+    /** The number of natural id resolutions that went to the database. */
+    private final LongAdder misses = new LongAdder();
+
+    /** The number of identifiers evicted to make room for others. */
+    private final LongAdder evictions = new LongAdder();
+
+    /** Whether this cache is installed into a session factory; guarded by {@code this}. */
+    private boolean installed;
+
+    /**
+     * Constructs a new {@link EUI48NaturalIdCache} with the default capacity.
+     */
+    public EUI48NaturalIdCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructs a new {@link EUI48NaturalIdCache}.
+     * 
+     * @param capacity The maximum number of cached identifiers per entity.
+     * @throws IllegalArgumentException If {@code capacity} is not positive or too large.
+     */
+    public EUI48NaturalIdCache(int capacity) {
+        if (capacity <= 0 || capacity > EUI48IdTable.MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Installs this cache into {@code sessionFactory}, which was built without it.
+     * 
+     * @param sessionFactory The session factory.
+     * @throws IllegalStateException If this cache is already installed.
+     * @throws NullPointerException If {@code sessionFactory} is {@code null}.
+     */
+    public void install(SessionFactory sessionFactory) {
+        register(((SessionFactoryImplementor) sessionFactory).getServiceRegistry());
+    }
+
+    @Override
+    public void integrate(Configuration configuration, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        register(serviceRegistry);
+    }
+
+    @Override
+    public void integrate(MetadataImplementor metadata, SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        register(serviceRegistry);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+        this.tables.clear();
+    }
+
+    /**
+     * Returns the maximum number of cached identifiers per entity.
+     * 
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Returns the number of currently cached identifiers of all entities.
+     * 
+     * @return The number of cached identifiers.
+     */
+    public int getCachedCount() {
+        int count = 0;
+        for (EUI48IdTable table : this.tables.values()) {
+            count += table.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of natural id resolutions served by this cache.
+     * 
+     * @return The number of hits.
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * Returns the number of natural id resolutions of EUI-48 natural ids that went to the
+     * database.
+     * 
+     * @return The number of misses.
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * Returns the fraction of natural id resolutions served by this cache.
+     * 
+     * @return The hit rate between {@code 0} and {@code 1}, or {@code 0} if there were no
+     *         resolutions yet.
+     */
+    public double getHitRate() {
+        long hits = this.hits.sum(), total = hits + this.misses.sum();
+        return (total == 0) ? 0 : (double) hits / total;
+    }
+
+    /**
+     * Returns the number of identifiers evicted to make room for others.
+     * 
+     * @return The number of evictions.
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Resets the hit, miss and eviction counts.
+     */
+    public void clearStatistics() {
+        this.hits.reset();
+        this.misses.reset();
+        this.evictions.reset();
+    }
+
+    /**
+     * Removes the identifiers of the entities with the natural id {@code val} from the cache.
+     * 
+     * @param val The EUI-48.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public void invalidate(EUI48 val) {
+        invalidate(val.getBits());
+    }
+
+    /**
+     * Removes the identifiers of the entities with the natural id {@code bits} from the cache.
+     * 
+     * @param bits The bit representation of the EUI-48.
+     */
+    public void invalidate(long bits) {
+        for (EUI48IdTable table : this.tables.values()) {
+            table.invalidate(bits);
+        }
+    }
+
+    /**
+     * Removes all identifiers from the cache.
+     */
+    public void invalidateAll() {
+        for (EUI48IdTable table : this.tables.values()) {
+            table.invalidateAll();
+        }
+    }
+
+    /**
+     * Registers the event listeners of this cache.
+     * 
+     * @param serviceRegistry The service registry of the session factory.
+     * @throws IllegalStateException If this cache is already installed.
+     */
+    private synchronized void register(ServiceRegistryImplementor serviceRegistry) {
+        if (this.installed) {
+            throw new IllegalStateException("Cache is already installed");
+        }
+        EventListenerRegistry registry = serviceRegistry.getService(EventListenerRegistry.class);
+        registry.setListeners(EventType.RESOLVE_NATURAL_ID, new ResolveListener());
+        UpdateListener updateListener = new UpdateListener();
+        DeleteListener deleteListener = new DeleteListener();
+        registry.appendListeners(EventType.POST_UPDATE, updateListener);
+        registry.appendListeners(EventType.POST_DELETE, deleteListener);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, updateListener);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, deleteListener);
+        this.installed = true;
+    }
+
+    /**
+     * Returns the identifier table for {@code persister}.
+     * 
+     * @param persister The entity persister.
+     * @return The table, or {@code null} if the natural id of the entity is not a single EUI-48.
+     */
+    private EUI48IdTable table(EntityPersister persister) {
+        EUI48IdTable table = this.tables.get(persister.getEntityName());
+        if (table == null && naturalIdIndex(persister) >= 0) {
+            table = this.tables.computeIfAbsent(persister.getEntityName(), name -> new EUI48IdTable(this.capacity));
+        }
+        return table;
+    }
+
+    /**
+     * Returns the property index of the natural id of {@code persister}.
+     * 
+     * @param persister The entity persister.
+     * @return The property index, or {@code -1} if the natural id of the entity is not a single
+     *         EUI-48.
+     */
+    private static int naturalIdIndex(EntityPersister persister) {
+        if (persister.hasNaturalIdentifier()) {
+            int[] properties = persister.getNaturalIdentifierProperties();
+            if (properties.length == 1 && persister.getPropertyTypes()[properties[0]].getReturnedClass() == EUI48.class) {
+                return properties[0];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves EUI-48 natural ids from the cache before the database.
+     */
+    private final class ResolveListener extends DefaultResolveNaturalIdEventListener {
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected Serializable loadFromDatasource(ResolveNaturalIdEvent event) {
+            EntityPersister persister = event.getEntityPersister();
+            Object[] values = event.getOrderedNaturalIdValues();
+            EUI48IdTable table = table(persister);
+            if (table == null || !(values[0] instanceof EUI48)) {
+                return super.loadFromDatasource(event);
+            }
+            long bits = ((EUI48) values[0]).getBits();
+            Serializable id = table.get(bits);
+            if (id != null) {
+                EUI48NaturalIdCache.this.hits.increment();
+                event.getSession().getPersistenceContext().getNaturalIdHelper().cacheNaturalIdCrossReferenceFromLoad(persister, id, values);
+                return id;
+            }
+            EUI48NaturalIdCache.this.misses.increment();
+            long epoch = table.epoch();
+            id = super.loadFromDatasource(event);
+            if (id != null && table.put(bits, id, epoch)) {
+                EUI48NaturalIdCache.this.evictions.increment();
+            }
+            return id;
+        }
+    }
+
+    /**
+     * Invalidates the previous EUI-48 natural id of updated entities, on flush and after commit.
+     */
+    private final class UpdateListener implements PostUpdateEventListener {
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            EntityPersister persister = event.getPersister();
+            int index = naturalIdIndex(persister);
+            if (index < 0 || persister.getEntityMetamodel().hasImmutableNaturalId()) {
+                return;
+            }
+            Object[] oldState = event.getOldState();
+            if (oldState == null) {
+                // The previous natural id of a reattached entity is unknown.
+                invalidateAll();
+            }
+            else if (oldState[index] instanceof EUI48 && !oldState[index].equals(event.getState()[index])) {
+                invalidate((EUI48) oldState[index]);
+            }
+        }
+    }
+
+    /**
+     * Invalidates the EUI-48 natural id of deleted entities, on flush and after commit.
+     */
+    private final class DeleteListener implements PostDeleteEventListener {
+        /** The serial version UID. */
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            int index = naturalIdIndex(event.getPersister());
+            Object[] state = event.getDeletedState();
+            if (index >= 0 && state != null && state[index] instanceof EUI48) {
+                invalidate((EUI48) state[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Properties;
+import java.util.Set;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.usertype.ParameterizedType;
+import org.hibernate.usertype.UserType;
+
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Base class for the mappings of sets of EUIs to a single JDBC BLOB. The set is read and written
+ * in one operation and decoded lazily, see {@link PackedEUISet}. Dirty checking treats a set that
+ * still shares its loaded encoding with the snapshot as unchanged, so that an unmodified set is
+ * never decoded or encoded during a flush. Otherwise it compares the sizes and the order
+ * independent 64-bit content hashes of the sets first, and the elements only if both match.
+ * <p>
+ * The elements are delta encoded by default, which can be disabled with the {@code compressed}
+ * parameter of the type definition.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48SetType
+ * @see EUI64SetType
+ */
+abstract class AbstractPackedSetType implements UserType, ParameterizedType {
+    /** The name of the parameter that enables delta encoding. */
+    public static final String COMPRESSED = "compressed";
+
+    /** Whether the elements are {@link de.benediktmeurer.eui4j.EUI64}s. */
+    private final boolean eui64;
+
+    /** Whether the elements are delta encoded. */
+    private boolean compressed = true;
+
+    /**
+     * Constructs a new {@link AbstractPackedSetType}.
+     * 
+     * @param eui64 {@code true} for sets of {@link de.benediktmeurer.eui4j.EUI64}s, {@code false}
+     *            for sets of {@link de.benediktmeurer.eui4j.EUI48}s.
+     */
+    AbstractPackedSetType(boolean eui64) {
+        this.eui64 = eui64;
+    }
+
+    /**
+     * @see ParameterizedType#setParameterValues(Properties)
+     */
+    @Override
+    public void setParameterValues(Properties parameters) {
+        if (parameters != null && parameters.getProperty(COMPRESSED) != null) {
+            this.compressed = Boolean.parseBoolean(parameters.getProperty(COMPRESSED));
+        }
+    }
+
+    /**
+     * @see UserType#sqlTypes()
+     */
+    @Override
+    public int[] sqlTypes() {
+        return new int[] { Types.BLOB };
+    }
+
+    /**
+     * @see UserType#returnedClass()
+     */
+    @Override
+    public Class<?> returnedClass() {
+        return Set.class;
+    }
+
+    /**
+     * @see UserType#equals(Object, Object)
+     */
+    @Override
+    public boolean equals(Object x, Object y) throws HibernateException {
+        if (x == y) {
+            return true;
+        }
+        if (x == null || y == null) {
+            return false;
+        }
+        if (x instanceof PackedEUISet && y instanceof PackedEUISet) {
+            byte[] encoded = ((PackedEUISet<?>) x).getEncoded();
+            if (encoded != null && encoded == ((PackedEUISet<?>) y).getEncoded()) {
+                return true;
+            }
+        }
+        Set<?> xs = (Set<?>) x;
+        Set<?> ys = (Set<?>) y;
+        // Different content hashes prove the sets differ, equal ones have to be confirmed
+        return xs.size() == ys.size() && contentHash(xs) == contentHash(ys) && xs.equals(ys);
+    }
+
+    /**
+     * @see UserType#hashCode(Object)
+     */
+    @Override
+    public int hashCode(Object x) throws HibernateException {
+        if (x == null) {
+            return 0;
+        }
+        long hash = contentHash((Set<?>) x);
+        return (int) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * @see UserType#nullSafeGet(ResultSet, String[], SessionImplementor, Object)
+     */
+    @Override
+    public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner) throws HibernateException, SQLException {
+        boolean metrics = EUIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        try {
+            byte[] encoded = rs.getBytes(names[0]);
+            return (rs.wasNull() ? null : load(encoded));
+        }
+        finally {
+            if (metrics) {
+                EUIMetrics.recordGet(type(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * @see UserType#nullSafeSet(PreparedStatement, Object, int, SessionImplementor)
+     */
+    @Override
+    public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session) throws HibernateException, SQLException {
+        boolean metrics = EUIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        try {
+            if (value != null) {
+                st.setBytes(index, encode((Set<?>) value));
+            }
+            else {
+                st.setNull(index, sqlTypes()[0]);
+            }
+        }
+        finally {
+            if (metrics) {
+                EUIMetrics.recordSet(type(), System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Returns an unmodified {@link PackedEUISet} with the elements of {@code value}, which shares
+     * the encoding with {@code value} if that is an unmodified {@link PackedEUISet}.
+     * 
+     * @see UserType#deepCopy(Object)
+     */
+    @Override
+    public Object deepCopy(Object value) throws HibernateException {
+        return (value == null) ? null : new PackedEUISet<Object>(encode((Set<?>) value));
+    }
+
+    /**
+     * @see UserType#isMutable()
+     */
+    @Override
+    public boolean isMutable() {
+        return true;
+    }
+
+    /**
+     * @see UserType#disassemble(Object)
+     */
+    @Override
+    public Serializable disassemble(Object value) throws HibernateException {
+        return (value == null) ? null : encode((Set<?>) value);
+    }
+
+    /**
+     * @see UserType#assemble(Serializable, Object)
+     */
+    @Override
+    public Object assemble(Serializable cached, Object owner) throws HibernateException {
+        return (cached == null) ? null : load((byte[]) cached);
+    }
+
+    /**
+     * @see UserType#replace(Object, Object, Object)
+     */
+    @Override
+    public Object replace(Object original, Object target, Object owner) throws HibernateException {
+        return deepCopy(original);
+    }
+
+    /**
+     * Returns the EUI type of the elements, for the metrics.
+     * 
+     * @return The EUI type.
+     */
+    private EUIType type() {
+        return this.eui64 ? EUIType.EUI64 : EUIType.EUI48;
+    }
+
+    /**
+     * Returns the encoding of {@code set}, reusing the stored encoding of an unmodified
+     * {@link PackedEUISet}.
+     * 
+     * @param set The set.
+     * @return The encoding.
+     * @throws HibernateException If the set contains elements of the wrong type or {@code null}.
+     */
+    private byte[] encode(Set<?> set) throws HibernateException {
+        if (set instanceof PackedEUISet) {
+            byte[] encoded = ((PackedEUISet<?>) set).getEncoded();
+            if (encoded != null && ((PackedEUISet<?>) set).isEUI64() == this.eui64) {
+                return encoded;
+            }
+        }
+        try {
+            return PackedSetCodec.encode(set, this.eui64, this.compressed);
+        }
+        catch (ClassCastException e) {
+            throw new HibernateException("Invalid element in set of " + type(), e);
+        }
+        catch (NullPointerException e) {
+            throw new HibernateException("null element in set of " + type(), e);
+        }
+    }
+
+    /**
+     * Returns the content hash of {@code set}.
+     * 
+     * @param set The set.
+     * @return The content hash.
+     * @throws HibernateException If the set contains elements of the wrong type or {@code null}.
+     */
+    private long contentHash(Set<?> set) throws HibernateException {
+        if (set instanceof PackedEUISet) {
+            return ((PackedEUISet<?>) set).contentHash();
+        }
+        try {
+            return PackedSetCodec.contentHash(set, this.eui64);
+        }
+        catch (ClassCastException e) {
+            throw new HibernateException("Invalid element in set of " + type(), e);
+        }
+        catch (NullPointerException e) {
+            throw new HibernateException("null element in set of " + type(), e);
+        }
+    }
+
+    /**
+     * Returns a lazily decoded set for {@code encoded}.
+     * 
+     * @param encoded The encoding.
+     * @return The set.
+     * @throws HibernateException If {@code encoded} is not a valid encoding of the right type.
+     */
+    private Set<?> load(byte[] encoded) throws HibernateException {
+        try {
+            PackedEUISet<Object> set = new PackedEUISet<Object>(encoded);
+            if (set.isEUI64() != this.eui64) {
+                throw new HibernateException("Packed set is not a set of " + type());
+            }
+            return set;
+        }
+        catch (IllegalArgumentException e) {
+            throw new HibernateException(e.getMessage(), e);
+        }
+    }
+}
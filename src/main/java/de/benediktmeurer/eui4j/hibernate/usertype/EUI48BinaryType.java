@@ -11,6 +11,8 @@ import org.hibernate.engine.spi.SessionImplementor;
 import org.hibernate.usertype.UserType;
 
 import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+import de.benediktmeurer.eui4j.metrics.EUIType;
 
 /**
  * Maps an {@link EUI48} to a JDBC BINARY.
@@ -56,8 +58,17 @@ public class EUI48BinaryType implements UserType {
      */
     @Override
     public Object nullSafeGet(ResultSet rs, String[] names, SessionImplementor session, Object owner) throws HibernateException, SQLException {
-        byte[] octets = rs.getBytes(names[0]);
-        return (rs.wasNull() ? null : new EUI48(octets));
+        boolean metrics = EUIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        try {
+            byte[] octets = rs.getBytes(names[0]);
+            return (rs.wasNull() ? null : new EUI48(octets));
+        }
+        finally {
+            if (metrics) {
+                EUIMetrics.recordGet(EUIType.EUI48, System.nanoTime() - start);
+            }
+        }
     }
 
     /**
@@ -65,11 +76,20 @@ public class EUI48BinaryType implements UserType {
      */
     @Override
     public void nullSafeSet(PreparedStatement st, Object value, int index, SessionImplementor session) throws HibernateException, SQLException {
-        if (value != null) {
-            st.setBytes(index, ((EUI48) value).getOctets());
+        boolean metrics = EUIMetrics.isEnabled();
+        long start = metrics ? System.nanoTime() : 0;
+        try {
+            if (value != null) {
+                st.setBytes(index, ((EUI48) value).getOctets());
+            }
+            else {
+                st.setNull(index, sqlTypes()[0]);
+            }
         }
-        else {
-            st.setNull(index, sqlTypes()[0]);
+        finally {
+            if (metrics) {
+                EUIMetrics.recordSet(EUIType.EUI48, System.nanoTime() - start);
+            }
         }
     }
 
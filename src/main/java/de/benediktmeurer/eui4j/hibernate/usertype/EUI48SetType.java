@@ -0,0 +1,21 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Maps a {@code Set<EUI48>} to a single JDBC BLOB, which holds the sorted elements, delta encoded
+ * unless the {@code compressed} parameter is {@code false}. Loaded sets are mutable and decoded on
+ * first access to their elements.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48
+ * @see EUI48BinaryType
+ */
+public class EUI48SetType extends AbstractPackedSetType {
+    /**
+     * Constructs a new {@link EUI48SetType}.
+     */
+    public EUI48SetType() {
+        super(false);
+    }
+}
@@ -0,0 +1,21 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Maps a {@code Set<EUI64>} to a single JDBC BLOB, which holds the sorted elements, delta encoded
+ * unless the {@code compressed} parameter is {@code false}. Loaded sets are mutable and decoded on
+ * first access to their elements.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI64
+ * @see EUI64BinaryType
+ */
+public class EUI64SetType extends AbstractPackedSetType {
+    /**
+     * Constructs a new {@link EUI64SetType}.
+     */
+    public EUI64SetType() {
+        super(true);
+    }
+}
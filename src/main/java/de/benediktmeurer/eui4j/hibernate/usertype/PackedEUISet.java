@@ -0,0 +1,180 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import java.io.ObjectStreamException;
+import java.io.Serializable;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.collect.EUI48BitmapSet;
+
+/**
+ * A mutable set of {@link EUI48}s or {@link EUI64}s loaded from a packed encoding, which is only
+ * decoded on first access to the elements. Until then, the size and the content hash are read from
+ * the header of the encoding, and an unmodified set is written back by reusing its encoding.
+ * 
+ * @author Benedikt Meurer
+ * @param <E> The element type, either {@link EUI48} or {@link EUI64}.
+ * @see PackedSetCodec
+ */
+final class PackedEUISet<E> extends AbstractSet<E> implements Serializable {
+    /** The serial version UID. */
+    private static final long serialVersionUID = 1L;
+
+    /** The encoding of the elements at load time. */
+    private final byte[] encoded;
+
+    /** Whether the elements are {@link EUI64}s. */
+    private final boolean eui64;
+
+    /** The decoded elements, or {@code null} if not yet decoded. */
+    private transient Set<E> delegate;
+
+    /** Whether the elements may have been changed since the set was loaded. */
+    private transient boolean modified;
+
+    /**
+     * Constructs a new {@link PackedEUISet} for the specified {@code encoded} elements.
+     * 
+     * @param encoded The encoding, which must not be modified afterwards.
+     * @throws IllegalArgumentException If the header of {@code encoded} is invalid.
+     */
+    PackedEUISet(byte[] encoded) {
+        this.eui64 = PackedSetCodec.isEUI64(encoded);
+        this.encoded = encoded;
+    }
+
+    /**
+     * Returns the encoding of the elements at load time, if the set is unmodified.
+     * 
+     * @return The encoding, or {@code null} if the set may have been modified.
+     */
+    byte[] getEncoded() {
+        return this.modified ? null : this.encoded;
+    }
+
+    /**
+     * Returns whether the elements are {@link EUI64}s.
+     * 
+     * @return {@code true} for {@link EUI64}s, {@code false} for {@link EUI48}s.
+     */
+    boolean isEUI64() {
+        return this.eui64;
+    }
+
+    /**
+     * Returns whether the elements have been decoded.
+     * 
+     * @return {@code true} if the elements have been decoded.
+     */
+    boolean isDecoded() {
+        return this.delegate != null;
+    }
+
+    /**
+     * Returns the content hash of the elements, which for an unmodified set is read from the
+     * header of the encoding.
+     * 
+     * @return The content hash.
+     * @see PackedSetCodec#contentHash(Set, boolean)
+     */
+    long contentHash() {
+        return this.modified ? PackedSetCodec.contentHash(this.delegate, this.eui64) : PackedSetCodec.contentHash(this.encoded);
+    }
+
+    @Override
+    public int size() {
+        return (this.delegate == null) ? PackedSetCodec.size(this.encoded) : this.delegate.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return decoded(false).contains(o);
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        final Iterator<E> iterator = decoded(false).iterator();
+        return new Iterator<E>() {
+            @Override
+            public boolean hasNext() {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public E next() {
+                return iterator.next();
+            }
+
+            @Override
+            public void remove() {
+                iterator.remove();
+                PackedEUISet.this.modified = true;
+            }
+        };
+    }
+
+    @Override
+    public boolean add(E e) {
+        return decoded(true).add(e);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        return decoded(true).remove(o);
+    }
+
+    @Override
+    public void clear() {
+        decoded(true).clear();
+    }
+
+    /**
+     * Returns the decoded elements, decoding them on first access.
+     * 
+     * @param modify {@code true} if the caller may modify the elements.
+     * @return The decoded elements.
+     */
+    @SuppressWarnings("unchecked")
+    private Set<E> decoded(boolean modify) {
+        Set<E> delegate = this.delegate;
+        if (delegate == null) {
+            long[] bits = PackedSetCodec.decode(this.encoded);
+            if (this.eui64) {
+                TreeSet<EUI64> set = new TreeSet<EUI64>();
+                for (long b : bits) {
+                    set.add(new EUI64(b));
+                }
+                delegate = (Set<E>) set;
+            }
+            else {
+                EUI48BitmapSet set = new EUI48BitmapSet();
+                for (long b : bits) {
+                    set.add(b);
+                }
+                delegate = (Set<E>) set;
+            }
+            this.delegate = delegate;
+        }
+        this.modified |= modify;
+        return delegate;
+    }
+
+    /**
+     * Replaces this set by an unmodified set with the current elements in the serialized form.
+     * 
+     * @return The replacement.
+     * @throws ObjectStreamException Never.
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return this.modified ? new PackedEUISet<E>(PackedSetCodec.encode(this.delegate, this.eui64, true)) : this;
+    }
+}
@@ -0,0 +1,255 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import java.util.Arrays;
+import java.util.Set;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Encodes sets of {@link EUI48}s or {@link EUI64}s as a single byte array. The encoding starts
+ * with a header, which holds the number of elements and an order independent 64-bit content hash,
+ * so that both are available without decoding the elements. The header is followed by the bit
+ * representations in ascending unsigned order, either with a fixed width of six or eight octets,
+ * or as the variable length differences between successive elements, which is much more compact
+ * for sets with many addresses from the same OUI.
+ * 
+ * @author Benedikt Meurer
+ */
+final class PackedSetCodec {
+    /** The format version. */
+    static final int VERSION = 1;
+
+    /** The flag for sets of {@link EUI64}s. */
+    static final int FLAG_EUI64 = 0x01;
+
+    /** The flag for delta encoded elements. */
+    static final int FLAG_DELTA = 0x02;
+
+    /** The length of the header. */
+    static final int HEADER_LENGTH = 14;
+
+    /**
+     * Prevents instantiation.
+     */
+    private PackedSetCodec() {
+    }
+
+    /**
+     * Encodes the {@code set}.
+     * 
+     * @param set The set of {@link EUI48}s or {@link EUI64}s.
+     * @param eui64 {@code true} for {@link EUI64}s, {@code false} for {@link EUI48}s.
+     * @param delta {@code true} to delta encode the elements.
+     * @return The encoding.
+     * @throws ClassCastException If any element is of the wrong type.
+     * @throws NullPointerException If any element is {@code null}.
+     */
+    static byte[] encode(Set<?> set, boolean eui64, boolean delta) {
+        long[] bits = new long[set.size()];
+        long hash = 0;
+        int count = 0;
+        for (Object element : set) {
+            if (count == bits.length) {
+                bits = Arrays.copyOf(bits, count + (count >> 1) + 1);
+            }
+            if (eui64) {
+                EUI64 val = (EUI64) element;
+                bits[count++] = val.getBits() ^ Long.MIN_VALUE;
+                hash += val.hash64();
+            }
+            else {
+                EUI48 val = (EUI48) element;
+                bits[count++] = val.getBits();
+                hash += val.hash64();
+            }
+        }
+        Arrays.sort(bits, 0, count);
+        int width = eui64 ? 8 : 6;
+        byte[] encoded = new byte[HEADER_LENGTH + (delta ? count * (width + 2) : count * width)];
+        encoded[0] = VERSION;
+        encoded[1] = (byte) ((eui64 ? FLAG_EUI64 : 0) | (delta ? FLAG_DELTA : 0));
+        putLong(encoded, 2, count, 4);
+        putLong(encoded, 6, hash, 8);
+        int offset = HEADER_LENGTH;
+        long previous = 0;
+        for (int n = 0; n < count; ++n) {
+            long b = eui64 ? bits[n] ^ Long.MIN_VALUE : bits[n];
+            if (delta) {
+                offset = putVarLong(encoded, offset, b - previous);
+                previous = b;
+            }
+            else {
+                putLong(encoded, offset, b, width);
+                offset += width;
+            }
+        }
+        return (offset == encoded.length) ? encoded : Arrays.copyOf(encoded, offset);
+    }
+
+    /**
+     * Decodes the bit representations of the elements of {@code encoded}.
+     * 
+     * @param encoded The encoding.
+     * @return The bit representations in ascending unsigned order.
+     * @throws IllegalArgumentException If {@code encoded} is not a valid encoding.
+     */
+    static long[] decode(byte[] encoded) {
+        int count = size(encoded);
+        int flags = encoded[1];
+        long[] bits = new long[count];
+        int width = ((flags & FLAG_EUI64) != 0) ? 8 : 6;
+        int offset = HEADER_LENGTH;
+        try {
+            if ((flags & FLAG_DELTA) != 0) {
+                long previous = 0;
+                for (int n = 0; n < count; ++n) {
+                    long delta = 0;
+                    for (int shift = 0;; shift += 7) {
+                        int b = encoded[offset++];
+                        delta |= (long) (b & 0x7f) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    previous += delta;
+                    bits[n] = previous;
+                }
+            }
+            else {
+                for (int n = 0; n < count; ++n, offset += width) {
+                    bits[n] = getLong(encoded, offset, width);
+                }
+            }
+        }
+        catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated packed set", e);
+        }
+        if (offset != encoded.length) {
+            throw new IllegalArgumentException("Trailing bytes in packed set");
+        }
+        return bits;
+    }
+
+    /**
+     * Returns whether {@code encoded} holds {@link EUI64}s.
+     * 
+     * @param encoded The encoding.
+     * @return {@code true} for {@link EUI64}s, {@code false} for {@link EUI48}s.
+     * @throws IllegalArgumentException If {@code encoded} is not a valid encoding.
+     */
+    static boolean isEUI64(byte[] encoded) {
+        checkHeader(encoded);
+        return (encoded[1] & FLAG_EUI64) != 0;
+    }
+
+    /**
+     * Returns the number of elements of {@code encoded}, without decoding them.
+     * 
+     * @param encoded The encoding.
+     * @return The number of elements.
+     * @throws IllegalArgumentException If {@code encoded} is not a valid encoding.
+     */
+    static int size(byte[] encoded) {
+        checkHeader(encoded);
+        int count = (int) getLong(encoded, 2, 4);
+        // Each element takes at least one octet when delta encoded, and exactly width octets
+        // otherwise, so larger counts cannot be valid
+        int length = encoded.length - HEADER_LENGTH;
+        if ((encoded[1] & FLAG_DELTA) != 0 ? count > length : count > length / (((encoded[1] & FLAG_EUI64) != 0) ? 8 : 6)) {
+            throw new IllegalArgumentException("Truncated packed set");
+        }
+        return count;
+    }
+
+    /**
+     * Returns the content hash of {@code encoded}, without decoding the elements.
+     * 
+     * @param encoded The encoding.
+     * @return The content hash.
+     * @throws IllegalArgumentException If {@code encoded} is not a valid encoding.
+     * @see #contentHash(Set, boolean)
+     */
+    static long contentHash(byte[] encoded) {
+        checkHeader(encoded);
+        return getLong(encoded, 6, 8);
+    }
+
+    /**
+     * Returns the content hash of {@code set}, which is the sum of the
+     * {@link EUI48#hash64() 64-bit hashes} of its elements and therefore independent of their
+     * order.
+     * 
+     * @param set The set.
+     * @param eui64 {@code true} for {@link EUI64}s, {@code false} for {@link EUI48}s.
+     * @return The content hash.
+     * @throws ClassCastException If any element is of the wrong type.
+     */
+    static long contentHash(Set<?> set, boolean eui64) {
+        long hash = 0;
+        for (Object element : set) {
+            hash += eui64 ? ((EUI64) element).hash64() : ((EUI48) element).hash64();
+        }
+        return hash;
+    }
+
+    /**
+     * Checks the header of {@code encoded}.
+     * 
+     * @param encoded The encoding.
+     * @throws IllegalArgumentException If the header is invalid.
+     */
+    private static void checkHeader(byte[] encoded) {
+        if (encoded.length < HEADER_LENGTH || encoded[0] != VERSION || (encoded[1] & ~(FLAG_EUI64 | FLAG_DELTA)) != 0 || encoded[2] < 0) {
+            throw new IllegalArgumentException("Invalid packed set header");
+        }
+    }
+
+    /**
+     * Stores the {@code width} least significant octets of {@code value} in big endian order.
+     * 
+     * @param bytes The array.
+     * @param offset The offset of the first octet.
+     * @param value The value.
+     * @param width The number of octets.
+     */
+    private static void putLong(byte[] bytes, int offset, long value, int width) {
+        for (int n = width; --n >= 0; value >>>= 8) {
+            bytes[offset + n] = (byte) value;
+        }
+    }
+
+    /**
+     * Loads {@code width} octets in big endian order.
+     * 
+     * @param bytes The array.
+     * @param offset The offset of the first octet.
+     * @param width The number of octets.
+     * @return The value.
+     */
+    private static long getLong(byte[] bytes, int offset, int width) {
+        long value = 0;
+        for (int n = 0; n < width; ++n) {
+            value = (value << 8) | (bytes[offset + n] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * Stores {@code value} as unsigned variable length quantity, seven bits per octet, least
+     * significant group first.
+     * 
+     * @param bytes The array.
+     * @param offset The offset of the first octet.
+     * @param value The value.
+     * @return The offset behind the last octet.
+     */
+    private static int putVarLong(byte[] bytes, int offset, long value) {
+        while ((value & ~0x7fL) != 0) {
+            bytes[offset++] = (byte) (value | 0x80);
+            value >>>= 7;
+        }
+        bytes[offset++] = (byte) value;
+        return offset;
+    }
+}
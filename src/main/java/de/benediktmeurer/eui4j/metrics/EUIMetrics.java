@@ -0,0 +1,259 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+/**
+ * Optional instrumentation of the parsing, formatting and persistence hot paths of eui4j. The
+ * instrumentation is disabled by default and can be switched on and off at runtime with
+ * {@link #setEnabled(boolean)}. While disabled, each instrumented call costs a single read of a
+ * volatile flag; while enabled, the following counters are maintained per {@link EUIType}:
+ * <ul>
+ * <li>successful parses with {@code fromString()}, and failed parses by {@link ParseFailure},</li>
+ * <li>calls to {@code toString()} and the number of characters produced,</li>
+ * <li>calls to {@code nullSafeGet()} and {@code nullSafeSet()} of the Hibernate user types, and the
+ * total time spent in them.</li>
+ * </ul>
+ * The counters are striped to keep contention between threads low, and can be read with
+ * {@link #snapshot()}.
+ * 
+ * <p>
+ * In addition, custom JDK Flight Recorder events can be emitted while the instrumentation is
+ * enabled, see {@link #setFlightRecorderEnabled(boolean)}: an event for each parse failure, an
+ * event for each user type call with its latency, and a periodic event with the current counter
+ * values. The Flight Recorder classes are only loaded when these events are enabled, so eui4j
+ * continues to work on Java runtimes without Flight Recorder.
+ * </p>
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUIMetrics {
+    /** The number of counters per {@link EUIType}. */
+    static final int COUNTERS_PER_TYPE = 16;
+
+    /** The counter index of successful parses. */
+    static final int PARSE = 0;
+
+    /** The counter index of the first {@link ParseFailure}. */
+    static final int PARSE_FAILURE = 1;
+
+    /** The counter index of format calls. */
+    static final int FORMAT = 4;
+
+    /** The counter index of formatted characters. */
+    static final int FORMAT_CHARS = 5;
+
+    /** The counter index of user type get calls. */
+    static final int GET = 6;
+
+    /** The counter index of the time spent in user type get calls. */
+    static final int GET_NANOS = 7;
+
+    /** The counter index of user type set calls. */
+    static final int SET = 8;
+
+    /** The counter index of the time spent in user type set calls. */
+    static final int SET_NANOS = 9;
+
+    /** The counters. */
+    private static final StripedCounters COUNTERS = new StripedCounters(2 * COUNTERS_PER_TYPE);
+
+    /** Whether the instrumentation is enabled. */
+    private static volatile boolean enabled;
+
+    /** Whether Flight Recorder events are emitted. */
+    private static volatile boolean flightRecorderEnabled;
+
+    /**
+     * Prevents instantiation.
+     */
+    private EUIMetrics() {
+    }
+
+    /**
+     * Returns whether the instrumentation is enabled.
+     * 
+     * @return {@code true} if the instrumentation is enabled.
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables the instrumentation. Counter values are retained while the
+     * instrumentation is disabled.
+     * 
+     * @param enabled {@code true} to enable the instrumentation.
+     */
+    public static void setEnabled(boolean enabled) {
+        EUIMetrics.enabled = enabled;
+    }
+
+    /**
+     * Returns whether the Java runtime supports JDK Flight Recorder events.
+     * 
+     * @return {@code true} if Flight Recorder events are supported.
+     */
+    public static boolean isFlightRecorderAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, EUIMetrics.class.getClassLoader());
+            return FlightRecorderSupport.isAvailable();
+        }
+        catch (ClassNotFoundException e) {
+            return false;
+        }
+        catch (LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns whether Flight Recorder events are emitted while the instrumentation is enabled.
+     * 
+     * @return {@code true} if Flight Recorder events are enabled.
+     */
+    public static boolean isFlightRecorderEnabled() {
+        return flightRecorderEnabled;
+    }
+
+    /**
+     * Enables or disables the emission of Flight Recorder events while the instrumentation is
+     * enabled. Enabling registers the eui4j event types with the Flight Recorder, disabling
+     * unregisters them again.
+     * 
+     * @param enabled {@code true} to enable Flight Recorder events.
+     * @throws UnsupportedOperationException If {@code enabled} is {@code true} and the Java runtime
+     *             does not support Flight Recorder events.
+     * @see #isFlightRecorderAvailable()
+     */
+    public static synchronized void setFlightRecorderEnabled(boolean enabled) {
+        if (enabled == flightRecorderEnabled) {
+            return;
+        }
+        if (enabled) {
+            if (!isFlightRecorderAvailable()) {
+                throw new UnsupportedOperationException("Flight Recorder is not available");
+            }
+            FlightRecorderSupport.register();
+        }
+        else {
+            FlightRecorderSupport.unregister();
+        }
+        flightRecorderEnabled = enabled;
+    }
+
+    /**
+     * Returns the current values of all counters. The values are read counter by counter while
+     * other threads may update them.
+     * 
+     * @return The counter values.
+     */
+    public static EUIMetricsSnapshot snapshot() {
+        long[] values = new long[2 * COUNTERS_PER_TYPE];
+        for (int n = 0; n < values.length; ++n) {
+            values[n] = COUNTERS.get(n);
+        }
+        return new EUIMetricsSnapshot(values);
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    public static void reset() {
+        COUNTERS.reset();
+    }
+
+    /**
+     * Records a successful parse. Called by the instrumented classes while the instrumentation is
+     * enabled.
+     * 
+     * @param type The EUI type.
+     */
+    public static void recordParse(EUIType type) {
+        COUNTERS.add(index(type, PARSE), 1);
+    }
+
+    /**
+     * Records a failed parse. Called by the instrumented classes while the instrumentation is
+     * enabled.
+     * 
+     * @param type The EUI type.
+     * @param reason The reason for the failure.
+     * @param name The rejected string.
+     */
+    public static void recordParseFailure(EUIType type, ParseFailure reason, String name) {
+        COUNTERS.add(index(type, PARSE_FAILURE + reason.ordinal()), 1);
+        if (flightRecorderEnabled) {
+            FlightRecorderSupport.parseFailure(type, reason, name);
+        }
+    }
+
+    /**
+     * Records a format call. Called by the instrumented classes while the instrumentation is
+     * enabled.
+     * 
+     * @param type The EUI type.
+     * @param chars The number of characters produced.
+     */
+    public static void recordFormat(EUIType type, int chars) {
+        int index = index(type, FORMAT);
+        COUNTERS.add(index, 1);
+        COUNTERS.add(index + (FORMAT_CHARS - FORMAT), chars);
+    }
+
+    /**
+     * Records a user type get call. Called by the instrumented classes while the instrumentation is
+     * enabled.
+     * 
+     * @param type The EUI type.
+     * @param nanos The duration of the call in nanoseconds.
+     */
+    public static void recordGet(EUIType type, long nanos) {
+        int index = index(type, GET);
+        COUNTERS.add(index, 1);
+        COUNTERS.add(index + (GET_NANOS - GET), nanos);
+        if (flightRecorderEnabled) {
+            FlightRecorderSupport.userType(type, "get", nanos);
+        }
+    }
+
+    /**
+     * Records a user type set call. Called by the instrumented classes while the instrumentation is
+     * enabled.
+     * 
+     * @param type The EUI type.
+     * @param nanos The duration of the call in nanoseconds.
+     */
+    public static void recordSet(EUIType type, long nanos) {
+        int index = index(type, SET);
+        COUNTERS.add(index, 1);
+        COUNTERS.add(index + (SET_NANOS - SET), nanos);
+        if (flightRecorderEnabled) {
+            FlightRecorderSupport.userType(type, "set", nanos);
+        }
+    }
+
+    /**
+     * Returns the index of the counter {@code counter} of {@code type} in a snapshot.
+     * 
+     * @param type The EUI type.
+     * @param counter The counter index within the type.
+     * @return The counter index.
+     */
+    static int index(EUIType type, int counter) {
+        return type.ordinal() * COUNTERS_PER_TYPE + counter;
+    }
+}
@@ -0,0 +1,170 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.FORMAT;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.FORMAT_CHARS;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.GET;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.GET_NANOS;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.PARSE;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.PARSE_FAILURE;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.SET;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.SET_NANOS;
+import static de.benediktmeurer.eui4j.metrics.EUIMetrics.index;
+
+/**
+ * The values of the {@link EUIMetrics} counters at a point in time.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIMetrics#snapshot()
+ */
+public final class EUIMetricsSnapshot {
+    /** The counter values. */
+    private final long[] values;
+
+    /**
+     * Constructs a new {@link EUIMetricsSnapshot} with the given counter {@code values}.
+     * 
+     * @param values The counter values.
+     */
+    EUIMetricsSnapshot(long[] values) {
+        this.values = values;
+    }
+
+    /**
+     * Returns the number of successful parses of {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The number of successful parses.
+     */
+    public long getParseCount(EUIType type) {
+        return this.values[index(type, PARSE)];
+    }
+
+    /**
+     * Returns the number of failed parses of {@code type} for all reasons.
+     * 
+     * @param type The EUI type.
+     * @return The number of failed parses.
+     */
+    public long getParseFailureCount(EUIType type) {
+        long count = 0;
+        for (ParseFailure reason : ParseFailure.values()) {
+            count += getParseFailureCount(type, reason);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the number of failed parses of {@code type} for {@code reason}.
+     * 
+     * @param type The EUI type.
+     * @param reason The reason for the failure.
+     * @return The number of failed parses.
+     */
+    public long getParseFailureCount(EUIType type, ParseFailure reason) {
+        return this.values[index(type, PARSE_FAILURE + reason.ordinal())];
+    }
+
+    /**
+     * Returns the number of {@code toString()} calls of {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The number of format calls.
+     */
+    public long getFormatCount(EUIType type) {
+        return this.values[index(type, FORMAT)];
+    }
+
+    /**
+     * Returns the number of characters produced by {@code toString()} calls of {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The number of characters.
+     */
+    public long getFormatChars(EUIType type) {
+        return this.values[index(type, FORMAT_CHARS)];
+    }
+
+    /**
+     * Returns the number of {@code nullSafeGet()} calls of the user type for {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The number of get calls.
+     */
+    public long getUserTypeGetCount(EUIType type) {
+        return this.values[index(type, GET)];
+    }
+
+    /**
+     * Returns the total time spent in {@code nullSafeGet()} calls of the user type for
+     * {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The time in nanoseconds.
+     */
+    public long getUserTypeGetNanos(EUIType type) {
+        return this.values[index(type, GET_NANOS)];
+    }
+
+    /**
+     * Returns the number of {@code nullSafeSet()} calls of the user type for {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The number of set calls.
+     */
+    public long getUserTypeSetCount(EUIType type) {
+        return this.values[index(type, SET)];
+    }
+
+    /**
+     * Returns the total time spent in {@code nullSafeSet()} calls of the user type for
+     * {@code type}.
+     * 
+     * @param type The EUI type.
+     * @return The time in nanoseconds.
+     */
+    public long getUserTypeSetNanos(EUIType type) {
+        return this.values[index(type, SET_NANOS)];
+    }
+
+    /**
+     * Returns a string representation of this snapshot, listing the counters of each type.
+     * 
+     * @return The string representation of this snapshot.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("EUIMetricsSnapshot[");
+        for (EUIType type : EUIType.values()) {
+            if (type.ordinal() > 0) {
+                sb.append(", ");
+            }
+            sb.append(type).append("[parses=").append(getParseCount(type));
+            for (ParseFailure reason : ParseFailure.values()) {
+                sb.append(", failures.").append(reason).append('=').append(getParseFailureCount(type, reason));
+            }
+            sb.append(", formats=").append(getFormatCount(type));
+            sb.append(", formatChars=").append(getFormatChars(type));
+            sb.append(", gets=").append(getUserTypeGetCount(type));
+            sb.append(", getNanos=").append(getUserTypeGetNanos(type));
+            sb.append(", sets=").append(getUserTypeSetCount(type));
+            sb.append(", setNanos=").append(getUserTypeSetNanos(type)).append(']');
+        }
+        return sb.append(']').toString();
+    }
+}
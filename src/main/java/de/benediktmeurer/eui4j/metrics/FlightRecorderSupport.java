@@ -0,0 +1,210 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The JDK Flight Recorder events of {@link EUIMetrics}. This class is only loaded once Flight
+ * Recorder events are enabled, so that eui4j does not depend on the {@code jdk.jfr} API otherwise.
+ * 
+ * @author Benedikt Meurer
+ */
+final class FlightRecorderSupport {
+    /** The maximum number of characters of rejected input recorded in an event. */
+    private static final int MAX_INPUT_LENGTH = 64;
+
+    /** Emits the periodic {@link StatisticsEvent}. */
+    private static final Runnable STATISTICS_HOOK = new Runnable() {
+        @Override
+        public void run() {
+            StatisticsEvent event = new StatisticsEvent();
+            EUIMetricsSnapshot snapshot = EUIMetrics.snapshot();
+            event.eui48Parses = snapshot.getParseCount(EUIType.EUI48);
+            event.eui48ParseFailures = snapshot.getParseFailureCount(EUIType.EUI48);
+            event.eui48Formats = snapshot.getFormatCount(EUIType.EUI48);
+            event.eui48UserTypeGets = snapshot.getUserTypeGetCount(EUIType.EUI48);
+            event.eui48UserTypeSets = snapshot.getUserTypeSetCount(EUIType.EUI48);
+            event.eui64Parses = snapshot.getParseCount(EUIType.EUI64);
+            event.eui64ParseFailures = snapshot.getParseFailureCount(EUIType.EUI64);
+            event.eui64Formats = snapshot.getFormatCount(EUIType.EUI64);
+            event.eui64UserTypeGets = snapshot.getUserTypeGetCount(EUIType.EUI64);
+            event.eui64UserTypeSets = snapshot.getUserTypeSetCount(EUIType.EUI64);
+            event.formatChars = snapshot.getFormatChars(EUIType.EUI48) + snapshot.getFormatChars(EUIType.EUI64);
+            event.commit();
+        }
+    };
+
+    /**
+     * Prevents instantiation.
+     */
+    private FlightRecorderSupport() {
+    }
+
+    /**
+     * Returns whether the Flight Recorder is available in this Java runtime.
+     * 
+     * @return {@code true} if the Flight Recorder is available.
+     */
+    static boolean isAvailable() {
+        return FlightRecorder.isAvailable();
+    }
+
+    /**
+     * Registers the event types and the periodic statistics event.
+     */
+    static void register() {
+        FlightRecorder.register(ParseFailureEvent.class);
+        FlightRecorder.register(UserTypeEvent.class);
+        FlightRecorder.register(StatisticsEvent.class);
+        FlightRecorder.addPeriodicEvent(StatisticsEvent.class, STATISTICS_HOOK);
+    }
+
+    /**
+     * Unregisters the event types and the periodic statistics event.
+     */
+    static void unregister() {
+        FlightRecorder.removePeriodicEvent(STATISTICS_HOOK);
+        FlightRecorder.unregister(StatisticsEvent.class);
+        FlightRecorder.unregister(UserTypeEvent.class);
+        FlightRecorder.unregister(ParseFailureEvent.class);
+    }
+
+    /**
+     * Emits a {@link ParseFailureEvent}.
+     * 
+     * @param type The EUI type.
+     * @param reason The reason for the failure.
+     * @param name The rejected string.
+     */
+    static void parseFailure(EUIType type, ParseFailure reason, String name) {
+        ParseFailureEvent event = new ParseFailureEvent();
+        if (event.isEnabled()) {
+            event.type = type.name();
+            event.reason = reason.name();
+            event.input = (name.length() > MAX_INPUT_LENGTH) ? name.substring(0, MAX_INPUT_LENGTH) : name;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emits a {@link UserTypeEvent}.
+     * 
+     * @param type The EUI type.
+     * @param operation The operation, {@code get} or {@code set}.
+     * @param nanos The duration of the call in nanoseconds.
+     */
+    static void userType(EUIType type, String operation, long nanos) {
+        UserTypeEvent event = new UserTypeEvent();
+        if (event.isEnabled()) {
+            event.type = type.name();
+            event.operation = operation;
+            event.latency = nanos;
+            event.commit();
+        }
+    }
+
+    /**
+     * Emitted for every string that is rejected by {@code fromString()}.
+     */
+    @Name("de.benediktmeurer.eui4j.ParseFailure")
+    @Label("EUI Parse Failure")
+    @Category("eui4j")
+    @Description("A string was rejected as the representation of an EUI")
+    static final class ParseFailureEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Reason")
+        String reason;
+
+        @Label("Input")
+        @Description("The rejected string, truncated to 64 characters")
+        String input;
+    }
+
+    /**
+     * Emitted for every {@code nullSafeGet()} and {@code nullSafeSet()} call of the Hibernate user
+     * types.
+     */
+    @Name("de.benediktmeurer.eui4j.UserType")
+    @Label("EUI User Type Call")
+    @Category("eui4j")
+    @StackTrace(false)
+    static final class UserTypeEvent extends Event {
+        @Label("Type")
+        String type;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Latency")
+        @Timespan(Timespan.NANOSECONDS)
+        long latency;
+    }
+
+    /**
+     * Emitted periodically with the current counter values of {@link EUIMetrics}.
+     */
+    @Name("de.benediktmeurer.eui4j.Statistics")
+    @Label("EUI Statistics")
+    @Category("eui4j")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class StatisticsEvent extends Event {
+        @Label("EUI-48 Parses")
+        long eui48Parses;
+
+        @Label("EUI-48 Parse Failures")
+        long eui48ParseFailures;
+
+        @Label("EUI-48 Formats")
+        long eui48Formats;
+
+        @Label("EUI-48 User Type Gets")
+        long eui48UserTypeGets;
+
+        @Label("EUI-48 User Type Sets")
+        long eui48UserTypeSets;
+
+        @Label("EUI-64 Parses")
+        long eui64Parses;
+
+        @Label("EUI-64 Parse Failures")
+        long eui64ParseFailures;
+
+        @Label("EUI-64 Formats")
+        long eui64Formats;
+
+        @Label("EUI-64 User Type Gets")
+        long eui64UserTypeGets;
+
+        @Label("EUI-64 User Type Sets")
+        long eui64UserTypeSets;
+
+        @Label("Formatted Characters")
+        long formatChars;
+    }
+}
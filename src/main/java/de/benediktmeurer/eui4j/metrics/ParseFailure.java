@@ -0,0 +1,33 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+/**
+ * The reasons for which the string representation of an EUI is rejected.
+ * 
+ * @author Benedikt Meurer
+ */
+public enum ParseFailure {
+    /** The string has the wrong length. */
+    LENGTH,
+
+    /** The string contains an invalid or inconsistent separator. */
+    SEPARATOR,
+
+    /** The string contains a character that is not a hexadecimal digit. */
+    DIGIT
+}
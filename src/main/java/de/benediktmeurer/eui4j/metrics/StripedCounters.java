@@ -0,0 +1,85 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A fixed number of counters, striped over several cache lines so that threads updating the same
+ * counter rarely contend. Each thread updates the stripe selected by its thread id; the value of a
+ * counter is the sum over all stripes.
+ * 
+ * @author Benedikt Meurer
+ */
+final class StripedCounters {
+    /** The number of array elements per stripe, which keeps stripes 256 bytes apart. */
+    private static final int STRIDE = 32;
+
+    /** The number of stripes minus one. */
+    private final int mask;
+
+    /** The counter cells, {@link #STRIDE} per stripe. */
+    private final AtomicLongArray cells;
+
+    /**
+     * Constructs a new {@link StripedCounters} with {@code count} counters.
+     * 
+     * @param count The number of counters, at most {@code 32}.
+     */
+    StripedCounters(int count) {
+        if (count > STRIDE) {
+            throw new IllegalArgumentException("Too many counters " + count);
+        }
+        int stripes = Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()) << 1);
+        this.mask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    /**
+     * Adds {@code delta} to the counter {@code index}.
+     * 
+     * @param index The counter index.
+     * @param delta The value to add.
+     */
+    void add(int index, long delta) {
+        int stripe = (int) Thread.currentThread().getId() & this.mask;
+        this.cells.getAndAdd(stripe * STRIDE + index, delta);
+    }
+
+    /**
+     * Returns the value of the counter {@code index}.
+     * 
+     * @param index The counter index.
+     * @return The sum over all stripes.
+     */
+    long get(int index) {
+        long sum = 0;
+        for (int n = index; n < this.cells.length(); n += STRIDE) {
+            sum += this.cells.get(n);
+        }
+        return sum;
+    }
+
+    /**
+     * Resets all counters to zero.
+     */
+    void reset() {
+        for (int n = 0; n < this.cells.length(); ++n) {
+            this.cells.set(n, 0);
+        }
+    }
+}
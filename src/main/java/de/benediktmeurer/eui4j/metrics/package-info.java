@@ -0,0 +1,23 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides optional instrumentation of eui4j. The
+ * {@link de.benediktmeurer.eui4j.metrics.EUIMetrics} class maintains counters for parsing,
+ * formatting and Hibernate user type calls, and emits custom JDK Flight Recorder events, both of
+ * which can be switched on and off at runtime.
+ */
+package de.benediktmeurer.eui4j.metrics;
@@ -0,0 +1,512 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.scan;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Finds the string representations of EUIs embedded in free-form text, such as syslog messages,
+ * switch command line dumps or DHCP logs. The scanner recognizes six (EUI-48) or eight (EUI-64)
+ * groups of two hexadecimal digits separated by colons or hyphens, as accepted by
+ * {@link EUI48#fromString(String)} and {@link EUI64#fromString(String)}, as well as three
+ * (EUI-48) or four (EUI-64) groups of four hexadecimal digits separated by dots, as printed by
+ * many switches. Bare runs of hexadecimal digits are not recognized.
+ * <p>
+ * A match must neither be preceded nor followed by a hexadecimal digit, must not be followed by
+ * its separator and another hexadecimal digit, and must not be preceded by a separator and a
+ * hexadecimal digit, unless that digit ends a word such as {@code mac:}. Thus no match is reported
+ * in the middle of a longer run of groups, such as a key fingerprint. A match that starts within
+ * an earlier match is not reported, so the eight groups of an EUI-64 yield a single match. The
+ * input is read in a single pass, looking ahead at most 25 characters from the start of a match
+ * and back at most 7 characters, and the matches are reported to a {@link ScanListener} as
+ * packed bit representations without allocating any objects per match. Characters beyond
+ * US-ASCII never belong to a match.
+ * <p>
+ * The parallel scans split the input into partitions, which are scanned independently on the
+ * common fork-join pool. Each partition reports the matches that start within it, and looks at
+ * the characters before and behind it, so that matches straddling the partition boundaries are
+ * reported exactly once and the results are the same as for a sequential scan.
+ * 
+ * @author Benedikt Meurer
+ * @see ScanListener
+ */
+public final class EUIScanner {
+    /** The length of the longest string representation, i.e. of an EUI-64 with colons. */
+    private static final int MAX_LENGTH = 23;
+
+    /** The number of characters behind the start of a match that decide about the match. */
+    private static final int LOOKAHEAD = MAX_LENGTH + 2;
+
+    /** The number of characters before the start of a match that decide about the match. */
+    private static final int LOOKBEHIND = 7;
+
+    /** The number of characters copied into the window for each step of a scan. */
+    private static final int WINDOW = 1 << 16;
+
+    /** The maximum number of bytes of a file mapped at once. */
+    private static final int MAP_SIZE = 1 << 30;
+
+    /** The values of the hexadecimal digits by Latin-1 character, {@code -1} for other characters. */
+    private static final byte[] DIGITS = new byte[256];
+
+    static {
+        for (int c = 0; c < DIGITS.length; ++c) {
+            DIGITS[c] = (byte) ((c < 128) ? Character.digit(c, 16) : -1);
+        }
+    }
+
+    /** Whether EUI-48s are reported. */
+    private final boolean eui48;
+
+    /** Whether EUI-64s are reported. */
+    private final boolean eui64;
+
+    /**
+     * Constructs a new {@link EUIScanner} that reports both EUI-48s and EUI-64s.
+     */
+    public EUIScanner() {
+        this.eui48 = true;
+        this.eui64 = true;
+    }
+
+    /**
+     * Constructs a new {@link EUIScanner} that reports only EUIs of {@code type}. EUIs of the
+     * other type are still recognized, so no part of them is reported.
+     * 
+     * @param type The type of the reported EUIs.
+     * @throws NullPointerException if {@code type} is {@code null}.
+     */
+    public EUIScanner(EUIType type) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        this.eui48 = (type == EUIType.EUI48);
+        this.eui64 = (type == EUIType.EUI64);
+    }
+
+    /**
+     * Scans {@code text} for EUIs.
+     * 
+     * @param text The text.
+     * @param listener The listener for the matches, whose offsets are indices into {@code text}.
+     * @return The number of matches.
+     */
+    public int scan(CharSequence text, ScanListener listener) {
+        return scan(text, 0, text.length(), listener);
+    }
+
+    /**
+     * Scans the characters from index {@code start} (inclusive) to {@code end} (exclusive) of
+     * {@code text} for EUIs. The characters outside this range are ignored.
+     * 
+     * @param text The text.
+     * @param start The index of the first character.
+     * @param end The index behind the last character.
+     * @param listener The listener for the matches, whose offsets are indices into {@code text}.
+     * @return The number of matches.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public int scan(CharSequence text, int start, int end, ScanListener listener) {
+        if (start < 0 || start > end || end > text.length()) {
+            throw new IndexOutOfBoundsException("Range " + start + " to " + end + " is out of bounds for length " + text.length());
+        }
+        Scan scan = new Scan(listener, start);
+        byte[] bytes = new byte[WINDOW + LOOKAHEAD + LOOKBEHIND];
+        for (int p = start; p < end;) {
+            int first = Math.max(start, p - LOOKBEHIND);
+            int stop = (int) Math.min(end, (long) p + WINDOW);
+            int last = (int) Math.min(end, (long) stop + LOOKAHEAD);
+            for (int n = first; n < last; ++n) {
+                char c = text.charAt(n);
+                bytes[n - first] = (byte) ((c < 128) ? c : 0);
+            }
+            scan.window(bytes, 0, p - first, stop - first, last - first, first);
+            p = stop;
+        }
+        return (int) scan.count;
+    }
+
+    /**
+     * Scans the US-ASCII bytes {@code ascii} for EUIs.
+     * 
+     * @param ascii The US-ASCII bytes.
+     * @param listener The listener for the matches, whose offsets are indices into {@code ascii}.
+     * @return The number of matches.
+     */
+    public int scan(byte[] ascii, ScanListener listener) {
+        return scan(ascii, 0, ascii.length, listener);
+    }
+
+    /**
+     * Scans the {@code length} US-ASCII bytes of {@code ascii} starting at {@code offset} for
+     * EUIs. The bytes outside this range are ignored.
+     * 
+     * @param ascii The US-ASCII bytes.
+     * @param offset The offset of the first byte.
+     * @param length The number of bytes.
+     * @param listener The listener for the matches, whose offsets are indices into {@code ascii}.
+     * @return The number of matches.
+     * @throws IndexOutOfBoundsException If the range is out of bounds.
+     */
+    public int scan(byte[] ascii, int offset, int length, ScanListener listener) {
+        if (offset < 0 || length < 0 || length > ascii.length - offset) {
+            throw new IndexOutOfBoundsException("Range of length " + length + " at " + offset + " is out of bounds for length " + ascii.length);
+        }
+        Scan scan = new Scan(listener, offset);
+        scan.window(ascii, offset, offset, offset + length, offset + length, 0);
+        return (int) scan.count;
+    }
+
+    /**
+     * Scans the US-ASCII bytes from the position to the limit of {@code buffer} for EUIs. The
+     * position of {@code buffer} is not changed.
+     * 
+     * @param buffer The buffer.
+     * @param listener The listener for the matches, whose offsets are indices into
+     *            {@code buffer}.
+     * @return The number of matches.
+     */
+    public int scan(ByteBuffer buffer, ScanListener listener) {
+        Scan scan = new Scan(listener, buffer.position());
+        scan.region(buffer, buffer.position(), buffer.limit(), buffer.position(), buffer.limit(), 0);
+        return (int) scan.count;
+    }
+
+    /**
+     * Scans the US-ASCII bytes from the position to the limit of {@code buffer} for EUIs, in up to
+     * {@code partitions} partitions on the common fork-join pool. The partition with index
+     * {@code i} reports to the listener returned by {@code listeners} for {@code i}, and covers
+     * only matches that start before those of the partitions with higher indices. The position of
+     * {@code buffer} is not changed.
+     * 
+     * @param buffer The buffer.
+     * @param partitions The maximum number of partitions.
+     * @param listeners The factory for the listeners of the partitions, whose offsets are indices
+     *            into {@code buffer}.
+     * @return The number of matches.
+     * @throws IllegalArgumentException if {@code partitions} is not positive.
+     */
+    public int parallelScan(final ByteBuffer buffer, int partitions, final IntFunction<? extends ScanListener> listeners) {
+        final int start = buffer.position();
+        final int end = buffer.limit();
+        final long[] bounds = partition(start, end, partitions);
+        return (int) IntStream.range(0, bounds.length - 1).parallel().mapToLong(i -> {
+            Scan scan = new Scan(listeners.apply(i), bounds[i]);
+            int from = (int) Math.max(start, bounds[i] - (MAX_LENGTH - 1));
+            scan.region(buffer, start, end, from, (int) bounds[i + 1], 0);
+            return scan.count;
+        }).sum();
+    }
+
+    /**
+     * Scans the US-ASCII contents of {@code file} for EUIs, mapping the file into memory.
+     * 
+     * @param file The file.
+     * @param listener The listener for the matches, whose offsets are positions in {@code file}.
+     * @return The number of matches.
+     * @throws IOException If the file cannot be read.
+     */
+    public long scan(File file, ScanListener listener) throws IOException {
+        return parallelScan(file, 1, i -> listener);
+    }
+
+    /**
+     * Scans the US-ASCII contents of {@code file} for EUIs, mapping the file into memory, in up to
+     * {@code partitions} partitions on the common fork-join pool. The partition with index
+     * {@code i} reports to the listener returned by {@code listeners} for {@code i}, and covers
+     * only matches that start before those of the partitions with higher indices.
+     * 
+     * @param file The file.
+     * @param partitions The maximum number of partitions.
+     * @param listeners The factory for the listeners of the partitions, whose offsets are
+     *            positions in {@code file}.
+     * @return The number of matches.
+     * @throws IllegalArgumentException if {@code partitions} is not positive.
+     * @throws IOException If the file cannot be read.
+     */
+    public long parallelScan(File file, int partitions, final IntFunction<? extends ScanListener> listeners) throws IOException {
+        final MappedByteBuffer[] maps;
+        final long size;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            size = channel.size();
+            maps = new MappedByteBuffer[(int) ((size + MAP_SIZE - 1) / MAP_SIZE)];
+            for (int n = 0; n < maps.length; ++n) {
+                long first = Math.max(0, (long) n * MAP_SIZE - LOOKBEHIND);
+                long last = Math.min(size, (long) (n + 1) * MAP_SIZE + LOOKAHEAD);
+                maps[n] = channel.map(FileChannel.MapMode.READ_ONLY, first, last - first);
+            }
+        }
+        finally {
+            raf.close();
+        }
+        final long[] bounds = partition(0, size, partitions);
+        return IntStream.range(0, bounds.length - 1).parallel().mapToLong(i -> {
+            Scan scan = new Scan(listeners.apply(i), bounds[i]);
+            long from = Math.max(0, bounds[i] - (MAX_LENGTH - 1));
+            for (int n = (int) (from / MAP_SIZE); n < maps.length && (long) n * MAP_SIZE < bounds[i + 1]; ++n) {
+                long first = Math.max(0, (long) n * MAP_SIZE - LOOKBEHIND);
+                long p = Math.max(from, (long) n * MAP_SIZE);
+                long stop = Math.min(bounds[i + 1], (long) (n + 1) * MAP_SIZE);
+                scan.region(maps[n], 0, maps[n].limit(), (int) (p - first), (int) (stop - first), first);
+            }
+            return scan.count;
+        }).sum();
+    }
+
+    /**
+     * Splits the range from {@code start} (inclusive) to {@code end} (exclusive) into up to
+     * {@code partitions} non-empty partitions of about equal size.
+     * 
+     * @param start The start of the range.
+     * @param end The end of the range.
+     * @param partitions The maximum number of partitions.
+     * @return The start indices of the partitions, followed by {@code end}.
+     * @throws IllegalArgumentException if {@code partitions} is not positive.
+     */
+    private static long[] partition(long start, long end, int partitions) {
+        if (partitions < 1) {
+            throw new IllegalArgumentException("partitions must be positive");
+        }
+        int count = (int) Math.max(1, Math.min(partitions, end - start));
+        long[] bounds = new long[count + 1];
+        for (int i = 0; i <= count; ++i) {
+            bounds[i] = start + (end - start) * i / count;
+        }
+        return bounds;
+    }
+
+    /**
+     * Returns the value of the hexadecimal digit at {@code index} of {@code bytes}.
+     * 
+     * @param bytes The bytes.
+     * @param index The index.
+     * @return The value, or {@code -1} if the byte is not a hexadecimal digit.
+     */
+    private static int digit(byte[] bytes, int index) {
+        return DIGITS[bytes[index] & 0xff];
+    }
+
+    /**
+     * The state of a scan of one partition.
+     */
+    private final class Scan {
+        /** The listener for the matches. */
+        private final ScanListener listener;
+
+        /** The offset of the first match that may be reported. */
+        private final long emitFrom;
+
+        /** The offset behind the matches found so far. */
+        private long covered;
+
+        /** The number of reported matches. */
+        private long count;
+
+        /** The bit representation of the last match. */
+        private long bits;
+
+        /** The number of octets of the last match. */
+        private int octets;
+
+        /**
+         * Constructs a new {@link Scan}.
+         * 
+         * @param listener The listener for the matches.
+         * @param emitFrom The offset of the first match that may be reported.
+         */
+        Scan(ScanListener listener, long emitFrom) {
+            this.listener = listener;
+            this.emitFrom = emitFrom;
+        }
+
+        /**
+         * Scans for matches that start at an index from {@code from} (inclusive) to {@code to}
+         * (exclusive) of {@code buffer}, by copying windows of its bytes.
+         * 
+         * @param buffer The buffer.
+         * @param lo The index of the first byte of the input in {@code buffer}.
+         * @param hi The index behind the last byte available in {@code buffer}.
+         * @param from The index of the first possible start of a match.
+         * @param to The index behind the last possible start of a match.
+         * @param base The offset of index {@code 0} of {@code buffer} in the input.
+         */
+        void region(ByteBuffer buffer, int lo, int hi, int from, int to, long base) {
+            ByteBuffer view = buffer.duplicate();
+            byte[] bytes = new byte[(int) Math.max(0, Math.min(WINDOW + LOOKAHEAD + LOOKBEHIND, hi - Math.max(lo, (long) from - LOOKBEHIND)))];
+            for (int p = from; p < to;) {
+                int first = Math.max(lo, p - LOOKBEHIND);
+                int stop = (int) Math.min(to, (long) p + WINDOW);
+                int last = (int) Math.min(hi, (long) stop + LOOKAHEAD);
+                view.limit(last).position(first);
+                view.get(bytes, 0, last - first);
+                window(bytes, 0, p - first, stop - first, last - first, base + first);
+                p = stop;
+            }
+        }
+
+        /**
+         * Scans for matches that start at an index from {@code from} (inclusive) to {@code to}
+         * (exclusive) of {@code bytes}.
+         * 
+         * @param bytes The bytes.
+         * @param lo The index of the first byte of the input in {@code bytes}, i.e. a match that
+         *            starts there has no predecessor.
+         * @param from The index of the first possible start of a match.
+         * @param to The index behind the last possible start of a match.
+         * @param limit The index behind the last byte available in {@code bytes}, at least
+         *            {@link #LOOKAHEAD} bytes behind {@code to} unless it is the end of the input.
+         * @param base The offset of index {@code 0} of {@code bytes} in the input.
+         */
+        void window(byte[] bytes, int lo, int from, int to, int limit, long base) {
+            boolean previous = (from > lo && digit(bytes, from - 1) >= 0);
+            for (int n = from; n < to; ++n) {
+                boolean hex = (digit(bytes, n) >= 0);
+                if (!hex || previous) {
+                    previous = hex;
+                    continue;
+                }
+                previous = true;
+                int length = continues(bytes, lo, n) ? 0 : match(bytes, n, limit);
+                if (length > 0) {
+                    long offset = base + n;
+                    boolean wanted = (this.octets == 6) ? EUIScanner.this.eui48 : EUIScanner.this.eui64;
+                    if (wanted && offset >= this.covered && offset >= this.emitFrom) {
+                        this.listener.found((this.octets == 6) ? EUIType.EUI48 : EUIType.EUI64, this.bits, offset, length);
+                        ++this.count;
+                    }
+                    this.covered = Math.max(this.covered, offset + length);
+                }
+            }
+        }
+
+        /**
+         * Returns whether a match at {@code start} of {@code bytes} would continue a preceding
+         * group of hexadecimal digits, i.e. whether {@code start} is preceded by a separator and a
+         * hexadecimal digit, unless these digits end a word like {@code mac:}. This mirrors the
+         * check for a following group in {@link #match(byte[], int, int)}, so that no match is
+         * reported in the middle of a longer run of groups.
+         * 
+         * @param bytes The bytes.
+         * @param lo The index of the first byte of the input in {@code bytes}.
+         * @param start The index of the first hexadecimal digit.
+         * @return {@code true} if the match would continue a preceding group.
+         */
+        private boolean continues(byte[] bytes, int lo, int start) {
+            if (start - 2 < lo || digit(bytes, start - 2) < 0) {
+                return false;
+            }
+            byte sep = bytes[start - 1];
+            if (sep != ':' && sep != '-' && sep != '.') {
+                return false;
+            }
+            int p = start - 3;
+            for (; p >= lo && digit(bytes, p) >= 0; --p) {
+                if (p <= start - LOOKBEHIND) {
+                    return true;
+                }
+            }
+            if (p < lo) {
+                return true;
+            }
+            byte c = bytes[p];
+            return !((c >= 'g' && c <= 'z') || (c >= 'G' && c <= 'Z') || c == '_');
+        }
+
+        /**
+         * Matches a string representation at {@code start} of {@code bytes}, and stores its value
+         * in {@link #bits} and {@link #octets}.
+         * 
+         * @param bytes The bytes.
+         * @param start The index of the first hexadecimal digit.
+         * @param limit The index behind the last byte available in {@code bytes}.
+         * @return The length of the match, or {@code 0} if there is no match.
+         */
+        private int match(byte[] bytes, int start, int limit) {
+            if (start + 4 >= limit) {
+                return 0;
+            }
+            int digit = digit(bytes, start + 1);
+            if (digit < 0) {
+                return 0;
+            }
+            long bits = (digit(bytes, start) << 4) | digit;
+            byte sep = bytes[start + 2];
+            int groups = 1;
+            int p = start + 2;
+            if (sep == ':' || sep == '-') {
+                while (groups < 8 && p + 2 < limit && bytes[p] == sep) {
+                    int hi = digit(bytes, p + 1);
+                    int lo = digit(bytes, p + 2);
+                    if ((hi | lo) < 0) {
+                        break;
+                    }
+                    bits = (bits << 8) | (hi << 4) | lo;
+                    ++groups;
+                    p += 3;
+                }
+                if (groups != 6 && groups != 8) {
+                    return 0;
+                }
+            }
+            else {
+                int hi = digit(bytes, p);
+                int lo = digit(bytes, p + 1);
+                sep = bytes[p + 2];
+                if ((hi | lo) < 0 || sep != '.') {
+                    return 0;
+                }
+                bits = (bits << 8) | (hi << 4) | lo;
+                p += 2;
+                while (groups < 4 && p + 4 < limit && bytes[p] == sep) {
+                    int d0 = digit(bytes, p + 1);
+                    int d1 = digit(bytes, p + 2);
+                    int d2 = digit(bytes, p + 3);
+                    int d3 = digit(bytes, p + 4);
+                    if ((d0 | d1 | d2 | d3) < 0) {
+                        break;
+                    }
+                    bits = (bits << 16) | (d0 << 12) | (d1 << 8) | (d2 << 4) | d3;
+                    ++groups;
+                    p += 5;
+                }
+                if (groups != 3 && groups != 4) {
+                    return 0;
+                }
+                groups *= 2;
+            }
+            if (p < limit && (digit(bytes, p) >= 0 || (bytes[p] == sep && p + 1 < limit && digit(bytes, p + 1) >= 0))) {
+                return 0;
+            }
+            this.bits = bits;
+            this.octets = groups;
+            return p - start;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.scan;
+
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Receives the EUIs found by an {@link EUIScanner}, in the order of their occurrence.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIScanner
+ */
+public interface ScanListener {
+    /**
+     * Called for an EUI found in the scanned input.
+     * 
+     * @param type The type of the EUI.
+     * @param bits The bit representation.
+     * @param offset The index of the first character of the string representation in the input.
+     * @param length The length of the string representation.
+     */
+    void found(EUIType type, long bits, long offset, int length);
+}
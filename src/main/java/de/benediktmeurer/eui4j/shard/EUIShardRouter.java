@@ -0,0 +1,359 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.shard;
+
+import java.util.Arrays;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Maps EUIs to shards {@code 0} to {@code n - 1}, based on the 64-bit hash of their bit
+ * representation (see {@link EUI48#hash64()} and {@link EUI64#hash64()}), which unlike
+ * {@code hashCode() % n} distributes the EUIs evenly and moves only a minimal fraction of them when
+ * shards are added or removed. Routers are immutable and thread-safe.
+ * <ul>
+ * <li>A {@link #jump(int) jump consistent hash} router needs no memory and routes in logarithmic
+ * time, but supports only shards of equal weight, and shards can only be added or removed at the
+ * end. Growing from {@code n} to {@code n + 1} shards moves {@code 1 / (n + 1)} of the EUIs.</li>
+ * <li>A {@link #rendezvous(long[], double[]) rendezvous hash} router routes in time linear in the
+ * number of shards, but supports weighted shards identified by node ids, any of which can be
+ * added, removed or reweighted, moving only EUIs from or to the changed shard.</li>
+ * </ul>
+ * 
+ * @author Benedikt Meurer
+ * @see ShardBalance
+ */
+public abstract class EUIShardRouter {
+    /** The number of shards. */
+    private final int shardCount;
+
+    /**
+     * Constructs a new {@link EUIShardRouter}.
+     * 
+     * @param shardCount The number of shards.
+     */
+    EUIShardRouter(int shardCount) {
+        this.shardCount = shardCount;
+    }
+
+    /**
+     * Returns a router to {@code shards} shards of equal weight, using jump consistent hashing
+     * (Lamping and Veach).
+     * 
+     * @param shards The number of shards.
+     * @return The router.
+     * @throws IllegalArgumentException if {@code shards} is not positive.
+     */
+    public static EUIShardRouter jump(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive");
+        }
+        return new JumpRouter(shards);
+    }
+
+    /**
+     * Returns a router to {@code weights.length} shards with the node ids {@code 0} to
+     * {@code weights.length - 1}, using weighted rendezvous hashing.
+     * 
+     * @param weights The positive weights of the shards.
+     * @return The router.
+     * @throws IllegalArgumentException if there are no weights, or a weight is not positive.
+     */
+    public static EUIShardRouter rendezvous(double... weights) {
+        long[] nodeIds = new long[weights.length];
+        for (int n = 0; n < nodeIds.length; ++n) {
+            nodeIds[n] = n;
+        }
+        return rendezvous(nodeIds, weights);
+    }
+
+    /**
+     * Returns a router to the shards with the distinct {@code nodeIds} and {@code weights}, using
+     * weighted rendezvous hashing. Shard {@code n} is the shard of {@code nodeIds[n]}, and a shard
+     * receives a share of the EUIs proportional to its weight. The shard of an EUI only depends on
+     * the node ids and weights, but not on their order.
+     * 
+     * @param nodeIds The distinct node ids of the shards.
+     * @param weights The positive weights of the shards.
+     * @return The router.
+     * @throws IllegalArgumentException if there are no shards, the arrays differ in length, the
+     *             node ids are not distinct, or a weight is not positive.
+     */
+    public static EUIShardRouter rendezvous(long[] nodeIds, double[] weights) {
+        if (nodeIds.length == 0) {
+            throw new IllegalArgumentException("no shards");
+        }
+        if (nodeIds.length != weights.length) {
+            throw new IllegalArgumentException("nodeIds and weights differ in length");
+        }
+        long[] sorted = nodeIds.clone();
+        Arrays.sort(sorted);
+        for (int n = 1; n < sorted.length; ++n) {
+            if (sorted[n] == sorted[n - 1]) {
+                throw new IllegalArgumentException("duplicate node id " + sorted[n]);
+            }
+        }
+        for (double weight : weights) {
+            if (!(weight > 0) || Double.isInfinite(weight)) {
+                throw new IllegalArgumentException("weight must be positive");
+            }
+        }
+        return new RendezvousRouter(nodeIds.clone(), weights.clone());
+    }
+
+    /**
+     * Returns the number of shards.
+     * 
+     * @return The number of shards.
+     */
+    public final int getShardCount() {
+        return this.shardCount;
+    }
+
+    /**
+     * Returns the node id of {@code shard}, which is {@code shard} itself for a jump consistent
+     * hash router.
+     * 
+     * @param shard The shard.
+     * @return The node id.
+     * @throws IndexOutOfBoundsException if {@code shard} is out of range.
+     */
+    public abstract long getNodeId(int shard);
+
+    /**
+     * Returns the share of the EUIs that {@code shard} receives.
+     * 
+     * @param shard The shard.
+     * @return The expected share, between {@code 0} and {@code 1}.
+     * @throws IndexOutOfBoundsException if {@code shard} is out of range.
+     */
+    public abstract double getShare(int shard);
+
+    /**
+     * Returns the shard of the EUI with the 64-bit hash {@code hash}.
+     * 
+     * @param hash The 64-bit hash.
+     * @return The shard.
+     */
+    abstract int routeHash(long hash);
+
+    /**
+     * Returns the shard of the bit representation {@code bits} of an EUI-48 or EUI-64.
+     * 
+     * @param bits The bit representation.
+     * @return The shard.
+     */
+    public final int route(long bits) {
+        return routeHash(EUI48s.hash64(bits));
+    }
+
+    /**
+     * Returns the shard of {@code val}.
+     * 
+     * @param val The EUI-48.
+     * @return The shard.
+     */
+    public final int route(EUI48 val) {
+        return routeHash(val.hash64());
+    }
+
+    /**
+     * Returns the shard of {@code val}.
+     * 
+     * @param val The EUI-64.
+     * @return The shard.
+     */
+    public final int route(EUI64 val) {
+        return routeHash(val.hash64());
+    }
+
+    /**
+     * Returns the shards of the bit representations {@code bits}.
+     * 
+     * @param bits The bit representations.
+     * @return The shards.
+     */
+    public final int[] route(long[] bits) {
+        int[] shards = new int[bits.length];
+        route(bits, 0, bits.length, shards, 0);
+        return shards;
+    }
+
+    /**
+     * Writes the shards of the bit representations from {@code from} (inclusive) to {@code to}
+     * (exclusive) of {@code bits} to {@code dest}, starting at {@code offset}.
+     * 
+     * @param bits The bit representations.
+     * @param from The index of the first bit representation.
+     * @param to The index behind the last bit representation.
+     * @param dest The destination array.
+     * @param offset The index in {@code dest}.
+     * @throws IndexOutOfBoundsException if a range is out of bounds.
+     */
+    public final void route(long[] bits, int from, int to, int[] dest, int offset) {
+        if (from < 0 || from > to || to > bits.length || offset < 0 || offset > dest.length - (to - from)) {
+            throw new IndexOutOfBoundsException();
+        }
+        for (int n = from; n < to; ++n) {
+            dest[offset + n - from] = routeHash(EUI48s.hash64(bits[n]));
+        }
+    }
+
+    /**
+     * A router using jump consistent hashing.
+     */
+    private static final class JumpRouter extends EUIShardRouter {
+        /**
+         * Constructs a new {@link JumpRouter}.
+         * 
+         * @param shards The number of shards.
+         */
+        JumpRouter(int shards) {
+            super(shards);
+        }
+
+        @Override
+        public long getNodeId(int shard) {
+            if (shard < 0 || shard >= getShardCount()) {
+                throw new IndexOutOfBoundsException("Shard " + shard + " is out of range");
+            }
+            return shard;
+        }
+
+        @Override
+        public double getShare(int shard) {
+            getNodeId(shard);
+            return 1.0 / getShardCount();
+        }
+
+        @Override
+        int routeHash(long hash) {
+            long key = hash;
+            long b = -1;
+            long j = 0;
+            while (j < getShardCount()) {
+                b = j;
+                key = key * 2862933555777941757L + 1;
+                j = (long) ((b + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+            }
+            return (int) b;
+        }
+
+        @Override
+        public String toString() {
+            return "JumpRouter[shards=" + getShardCount() + "]";
+        }
+    }
+
+    /**
+     * A router using weighted rendezvous hashing, which routes an EUI to the shard with the
+     * highest score {@code -weight / ln(u)}, where {@code u} is a uniform random number in (0, 1)
+     * derived from the hashes of the EUI and the node id of the shard. The logarithm is computed
+     * with {@link StrictMath}, so that all nodes of a cluster agree on the routing.
+     */
+    private static final class RendezvousRouter extends EUIShardRouter {
+        /** The node ids of the shards. */
+        private final long[] nodeIds;
+
+        /** The weights of the shards. */
+        private final double[] weights;
+
+        /** The reciprocals of the weights of the shards. */
+        private final double[] inverseWeights;
+
+        /** The hashes of the node ids. */
+        private final long[] nodeHashes;
+
+        /** The sum of the weights. */
+        private final double total;
+
+        /** Whether all weights are equal, such that the scores can be compared by {@code u}. */
+        private final boolean uniform;
+
+        /**
+         * Constructs a new {@link RendezvousRouter}.
+         * 
+         * @param nodeIds The node ids of the shards.
+         * @param weights The weights of the shards.
+         */
+        RendezvousRouter(long[] nodeIds, double[] weights) {
+            super(nodeIds.length);
+            this.nodeIds = nodeIds;
+            this.weights = weights;
+            this.inverseWeights = new double[nodeIds.length];
+            this.nodeHashes = new long[nodeIds.length];
+            double total = 0;
+            boolean uniform = true;
+            for (int n = 0; n < nodeIds.length; ++n) {
+                this.nodeHashes[n] = EUI48s.hash64(EUI48s.hash64(nodeIds[n]) + 0x9e3779b97f4a7c15L);
+                this.inverseWeights[n] = 1 / weights[n];
+                total += weights[n];
+                uniform &= weights[n] == weights[0];
+            }
+            this.total = total;
+            this.uniform = uniform;
+        }
+
+        @Override
+        public long getNodeId(int shard) {
+            return this.nodeIds[shard];
+        }
+
+        @Override
+        public double getShare(int shard) {
+            return this.weights[shard] / this.total;
+        }
+
+        @Override
+        int routeHash(long hash) {
+            int best = 0;
+            if (this.uniform) {
+                long max = 0;
+                for (int n = 0; n < this.nodeHashes.length; ++n) {
+                    long u = EUI48s.hash64(hash ^ this.nodeHashes[n]) >>> 1;
+                    if (u > max || (u == max && this.nodeIds[n] > this.nodeIds[best])) {
+                        max = u;
+                        best = n;
+                    }
+                }
+            }
+            else {
+                // Minimize -ln(u) / weight, which is at least (1 - u) / weight, so the logarithm
+                // only needs to be computed for shards that can still win
+                double min = Double.POSITIVE_INFINITY;
+                for (int n = 0; n < this.nodeHashes.length; ++n) {
+                    double u = ((EUI48s.hash64(hash ^ this.nodeHashes[n]) >>> 11) + 0.5) * 0x1.0p-53;
+                    if ((1 - u) * this.inverseWeights[n] <= min) {
+                        double score = -StrictMath.log(u) * this.inverseWeights[n];
+                        if (score < min || (score == min && this.nodeIds[n] > this.nodeIds[best])) {
+                            min = score;
+                            best = n;
+                        }
+                    }
+                }
+            }
+            return best;
+        }
+
+        @Override
+        public String toString() {
+            return "RendezvousRouter[nodeIds=" + Arrays.toString(this.nodeIds) + ", weights=" + Arrays.toString(this.weights) + "]";
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.shard;
+
+/**
+ * A report on how evenly an {@link EUIShardRouter} distributes a set of EUIs, comparing the number
+ * of EUIs routed to each shard with the number expected from the share of the shard.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIShardRouter
+ */
+public final class ShardBalance {
+    /** The router. */
+    private final EUIShardRouter router;
+
+    /** The number of EUIs per shard. */
+    private final long[] counts;
+
+    /** The total number of EUIs. */
+    private final long total;
+
+    /**
+     * Constructs a new {@link ShardBalance}.
+     * 
+     * @param router The router.
+     * @param counts The number of EUIs per shard.
+     * @param total The total number of EUIs.
+     */
+    private ShardBalance(EUIShardRouter router, long[] counts, long total) {
+        this.router = router;
+        this.counts = counts;
+        this.total = total;
+    }
+
+    /**
+     * Returns the report for routing the bit representations {@code bits} with {@code router}.
+     * 
+     * @param router The router.
+     * @param bits The bit representations.
+     * @return The report.
+     */
+    public static ShardBalance of(EUIShardRouter router, long[] bits) {
+        long[] counts = new long[router.getShardCount()];
+        for (long b : bits) {
+            ++counts[router.route(b)];
+        }
+        return new ShardBalance(router, counts, bits.length);
+    }
+
+    /**
+     * Returns the fraction of the bit representations {@code bits} that are routed to shards with
+     * different {@link EUIShardRouter#getNodeId(int) node ids} by {@code from} and {@code to},
+     * i.e. that move when the cluster is rebalanced from one router to the other.
+     * 
+     * @param from The old router.
+     * @param to The new router.
+     * @param bits The bit representations.
+     * @return The fraction of moved EUIs, between {@code 0} and {@code 1}.
+     */
+    public static double movedFraction(EUIShardRouter from, EUIShardRouter to, long[] bits) {
+        if (bits.length == 0) {
+            return 0;
+        }
+        long moved = 0;
+        for (long b : bits) {
+            if (from.getNodeId(from.route(b)) != to.getNodeId(to.route(b))) {
+                ++moved;
+            }
+        }
+        return (double) moved / bits.length;
+    }
+
+    /**
+     * Returns the number of shards.
+     * 
+     * @return The number of shards.
+     */
+    public int getShardCount() {
+        return this.counts.length;
+    }
+
+    /**
+     * Returns the total number of EUIs.
+     * 
+     * @return The total number of EUIs.
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Returns the number of EUIs routed to {@code shard}.
+     * 
+     * @param shard The shard.
+     * @return The number of EUIs.
+     * @throws IndexOutOfBoundsException if {@code shard} is out of range.
+     */
+    public long getCount(int shard) {
+        return this.counts[shard];
+    }
+
+    /**
+     * Returns the number of EUIs expected for {@code shard}, according to its share.
+     * 
+     * @param shard The shard.
+     * @return The expected number of EUIs.
+     * @throws IndexOutOfBoundsException if {@code shard} is out of range.
+     */
+    public double getExpected(int shard) {
+        return this.total * this.router.getShare(shard);
+    }
+
+    /**
+     * Returns the highest ratio of the actual to the expected number of EUIs of any shard, which
+     * is {@code 1} for a perfectly balanced distribution. The capacity of the cluster is limited
+     * by the shard with the highest load.
+     * 
+     * @return The maximum load.
+     */
+    public double getMaxLoad() {
+        double max = 0;
+        for (int shard = 0; shard < this.counts.length; ++shard) {
+            max = Math.max(max, this.counts[shard] / getExpected(shard));
+        }
+        return (this.total == 0) ? 1 : max;
+    }
+
+    /**
+     * Returns the lowest ratio of the actual to the expected number of EUIs of any shard.
+     * 
+     * @return The minimum load.
+     */
+    public double getMinLoad() {
+        double min = Double.POSITIVE_INFINITY;
+        for (int shard = 0; shard < this.counts.length; ++shard) {
+            min = Math.min(min, this.counts[shard] / getExpected(shard));
+        }
+        return (this.total == 0) ? 1 : min;
+    }
+
+    /**
+     * Returns the coefficient of variation of the loads of the shards, i.e. the standard
+     * deviation of the ratios of the actual to the expected number of EUIs, weighted by the
+     * shares of the shards.
+     * 
+     * @return The coefficient of variation.
+     */
+    public double getCoefficientOfVariation() {
+        if (this.total == 0) {
+            return 0;
+        }
+        double variance = 0;
+        for (int shard = 0; shard < this.counts.length; ++shard) {
+            double deviation = this.counts[shard] / getExpected(shard) - 1;
+            variance += this.router.getShare(shard) * deviation * deviation;
+        }
+        return Math.sqrt(variance);
+    }
+
+    /**
+     * Returns a string representation of this {@link ShardBalance}, with one line per shard.
+     * 
+     * @return The string representation.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d EUIs on %d shards, load %.4f to %.4f, cv %.4f%n", this.total, this.counts.length, getMinLoad(), getMaxLoad(), getCoefficientOfVariation()));
+        for (int shard = 0; shard < this.counts.length; ++shard) {
+            sb.append(String.format("%6d %12d %14.1f %8.4f%n", shard, this.counts[shard], getExpected(shard), (this.total == 0) ? 1.0 : this.counts[shard] / getExpected(shard)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,27 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides partitioning of EUIs across the nodes of a cluster.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.shard.EUIShardRouter} class maps EUIs to shards with jump
+ * consistent hashing or weighted rendezvous hashing, so that changes to the set of shards move only
+ * a minimal fraction of the EUIs.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.shard.ShardBalance} class reports how evenly a router
+ * distributes a set of EUIs, and how many EUIs move between two routers.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.shard;
@@ -0,0 +1,67 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+/**
+ * A {@link Run} backed by sorted arrays.
+ * 
+ * @author Benedikt Meurer
+ */
+final class ArrayRun extends Run {
+    /** The keys in unsigned order. */
+    private final long[] keys;
+
+    /** The timestamps, indexed like {@link #keys}. */
+    private final long[] timestamps;
+
+    /** The locations, indexed like {@link #keys}. */
+    private final long[] locations;
+
+    /**
+     * Constructs a new {@link ArrayRun} from the given arrays, which must have the same length and
+     * must be sorted by key in unsigned order.
+     * 
+     * @param keys The keys in unsigned order.
+     * @param timestamps The timestamps.
+     * @param locations The locations.
+     */
+    ArrayRun(long[] keys, long[] timestamps, long[] locations) {
+        this.keys = keys;
+        this.timestamps = timestamps;
+        this.locations = locations;
+    }
+
+    @Override
+    long size() {
+        return this.keys.length;
+    }
+
+    @Override
+    long key(long index) {
+        return this.keys[(int) index];
+    }
+
+    @Override
+    long timestamp(long index) {
+        return this.timestamps[(int) index];
+    }
+
+    @Override
+    long location(long index) {
+        return this.locations[(int) index];
+    }
+}
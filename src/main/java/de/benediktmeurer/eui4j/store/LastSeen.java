@@ -0,0 +1,101 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+/**
+ * An immutable last-seen record, consisting of the time and the location at which an EUI was last
+ * seen.
+ * 
+ * @author Benedikt Meurer
+ * @see LastSeenStore#get(long)
+ */
+public final class LastSeen {
+    /** The timestamp. */
+    private final long timestamp;
+
+    /** The location. */
+    private final long location;
+
+    /**
+     * Constructs a new {@link LastSeen} with the given {@code timestamp} and {@code location}.
+     * 
+     * @param timestamp The timestamp.
+     * @param location The location.
+     */
+    public LastSeen(long timestamp, long location) {
+        this.timestamp = timestamp;
+        this.location = location;
+    }
+
+    /**
+     * Returns the time at which the EUI was last seen.
+     * 
+     * @return The timestamp.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the application-defined location at which the EUI was last seen.
+     * 
+     * @return The location.
+     */
+    public long getLocation() {
+        return this.location;
+    }
+
+    /**
+     * Compares this {@link LastSeen} to the specified object. The result is {@code true} if and
+     * only if {@code obj} is a {@link LastSeen} with the same timestamp and location.
+     * 
+     * @param obj The object to be compared.
+     * @return {@code true} if the objects are equal; {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        else if (obj instanceof LastSeen) {
+            LastSeen val = (LastSeen) obj;
+            return this.timestamp == val.timestamp && this.location == val.location;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this {@link LastSeen}.
+     * 
+     * @return A hash code value for this {@code LastSeen}.
+     */
+    @Override
+    public int hashCode() {
+        long h = this.timestamp * 31 + this.location;
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a string representation of this {@link LastSeen}.
+     * 
+     * @return The string representation.
+     */
+    @Override
+    public String toString() {
+        return "LastSeen[timestamp=" + this.timestamp + ", location=" + this.location + "]";
+    }
+}
@@ -0,0 +1,140 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+/**
+ * A cursor over the records of a {@link LastSeenStore} in unsigned key order. A cursor merges the
+ * memory tables and segment files that were current when it was created; updates made afterwards
+ * are not visible through the cursor. A {@link LastSeenCursor} is not thread-safe.
+ * 
+ * <pre>
+ * LastSeenCursor cursor = store.scanOUI(0x001b21);
+ * while (cursor.next()) {
+ *     process(cursor.getKey(), cursor.getTimestamp(), cursor.getLocation());
+ * }
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ * @see LastSeenStore#scan(long, long)
+ */
+public final class LastSeenCursor {
+    /** The runs to merge, newest first. */
+    private final Run[] runs;
+
+    /** The current index into each run. */
+    private final long[] positions;
+
+    /** The highest key to return. */
+    private final long toKey;
+
+    /** Whether records for removed keys are skipped. */
+    private final boolean skipTombstones;
+
+    /** The key of the current record. */
+    private long key;
+
+    /** The timestamp of the current record. */
+    private long timestamp;
+
+    /** The location of the current record. */
+    private long location;
+
+    /**
+     * Constructs a new {@link LastSeenCursor} merging the records with keys between
+     * {@code fromKey} and {@code toKey} (both inclusive) from {@code runs}. If the same key appears
+     * in more than one run, the record from the run with the lowest index wins.
+     * 
+     * @param runs The runs to merge, newest first.
+     * @param fromKey The lowest key.
+     * @param toKey The highest key.
+     * @param skipTombstones Whether to skip records for removed keys.
+     */
+    LastSeenCursor(Run[] runs, long fromKey, long toKey, boolean skipTombstones) {
+        this.runs = runs;
+        this.positions = new long[runs.length];
+        this.toKey = toKey;
+        this.skipTombstones = skipTombstones;
+        for (int n = 0; n < runs.length; ++n) {
+            this.positions[n] = runs[n].lowerBound(fromKey);
+        }
+    }
+
+    /**
+     * Advances this cursor to the next record.
+     * 
+     * @return {@code true} if there is a next record; {@code false} if the cursor is exhausted.
+     */
+    public boolean next() {
+        for (;;) {
+            int best = -1;
+            long bestKey = 0;
+            for (int n = 0; n < this.runs.length; ++n) {
+                if (this.positions[n] < this.runs[n].size()) {
+                    long key = this.runs[n].key(this.positions[n]);
+                    if (Run.compareUnsigned(key, this.toKey) > 0) {
+                        this.positions[n] = this.runs[n].size();
+                    }
+                    else if (best < 0 || Run.compareUnsigned(key, bestKey) < 0) {
+                        best = n;
+                        bestKey = key;
+                    }
+                }
+            }
+            if (best < 0) {
+                return false;
+            }
+            this.key = bestKey;
+            this.timestamp = this.runs[best].timestamp(this.positions[best]);
+            this.location = this.runs[best].location(this.positions[best]);
+            for (int n = best; n < this.runs.length; ++n) {
+                if (this.positions[n] < this.runs[n].size() && this.runs[n].key(this.positions[n]) == bestKey) {
+                    ++this.positions[n];
+                }
+            }
+            if (!this.skipTombstones || this.timestamp != LastSeenStore.TOMBSTONE) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the key of the current record.
+     * 
+     * @return The key.
+     */
+    public long getKey() {
+        return this.key;
+    }
+
+    /**
+     * Returns the timestamp of the current record.
+     * 
+     * @return The timestamp.
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Returns the location of the current record.
+     * 
+     * @return The location.
+     */
+    public long getLocation() {
+        return this.location;
+    }
+}
@@ -0,0 +1,736 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64s;
+
+/**
+ * An embedded, persistent, log-structured store that maps EUIs to the time and location at which
+ * they were last seen. Keys are the 64-bit representations of {@link EUI64}s; {@link EUI48}s are
+ * encapsulated into EUI-64s by inserting {@code ff:fe} between the OUI and the extension
+ * identifier (see {@link #key(EUI48)}), so that both share a single key space in which all EUIs of
+ * an OUI form a contiguous range.
+ * <p>
+ * Updates are appended to a write-ahead log and applied to an in-memory table. When the memory
+ * table is full, it is written to a sorted, immutable segment file by a background thread, while a
+ * fresh memory table and log take over. Segment files are memory-mapped for lookups and merged
+ * into a single segment by a background compaction once there are too many of them. Later updates
+ * for a key always replace earlier ones.
+ * <p>
+ * Buffered log records are written to the file system every second, and forced to the storage
+ * device on {@link #sync()} and {@link #close()}. A store is recovered from its directory when it
+ * is opened again. A {@link LastSeenStore} is thread-safe, but a directory must only be used by a
+ * single store at a time.
+ * 
+ * @author Benedikt Meurer
+ */
+public class LastSeenStore implements Closeable {
+    /** The default maximum number of distinct keys in the memory table. */
+    public static final int DEFAULT_MEMTABLE_CAPACITY = 1 << 20;
+
+    /** The default number of segments that triggers a background compaction. */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 8;
+
+    /** The timestamp that marks a removed key. */
+    static final long TOMBSTONE = Long.MIN_VALUE;
+
+    /** The interval in milliseconds at which buffered log records are written. */
+    private static final long LOG_FLUSH_INTERVAL = 1000;
+
+    /** The interval in milliseconds at which the number of segments is checked. */
+    private static final long COMPACTION_CHECK_INTERVAL = 60000;
+
+    /** The store directory. */
+    private final File directory;
+
+    /** The maximum number of distinct keys in the memory table. */
+    private final int memTableCapacity;
+
+    /** The number of segments that triggers a background compaction. */
+    private final int compactionThreshold;
+
+    /** The executor for flushes, compactions and periodic tasks. */
+    private final ScheduledExecutorService executor;
+
+    /** The lock held during compaction. */
+    private final Object compactionLock = new Object();
+
+    /** The segments, newest first. */
+    private volatile Segment[] segments;
+
+    /** The failure of a background task, if any. */
+    private volatile IOException failure;
+
+    /** The active memory table; guarded by {@code this}. */
+    private MemTable memTable;
+
+    /** The write-ahead log for {@link #memTable}; guarded by {@code this}. */
+    private WriteAheadLog log;
+
+    /** The sequence number of {@link #log}; guarded by {@code this}. */
+    private long logSequence;
+
+    /** The memory table being flushed, or {@code null}; guarded by {@code this}. */
+    private MemTable flushingMemTable;
+
+    /** The write-ahead log for {@link #flushingMemTable}; guarded by {@code this}. */
+    private WriteAheadLog flushingLog;
+
+    /** The sequence number of {@link #flushingLog}; guarded by {@code this}. */
+    private long flushingSequence;
+
+    /** The next write-ahead log sequence number; guarded by {@code this}. */
+    private long nextSequence;
+
+    /** Whether {@link #close()} was called; guarded by {@code this}. */
+    private boolean closing;
+
+    /** Whether this store is closed; guarded by {@code this}. */
+    private boolean closed;
+
+    /**
+     * Opens the store in {@code directory} with the default memory table capacity and compaction
+     * threshold, creating the directory if necessary.
+     * 
+     * @param directory The store directory.
+     * @throws IOException If the store cannot be opened or recovered.
+     * @throws NullPointerException If {@code directory} is {@code null}.
+     */
+    public LastSeenStore(File directory) throws IOException {
+        this(directory, DEFAULT_MEMTABLE_CAPACITY, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the store in {@code directory}, creating the directory if necessary.
+     * 
+     * @param directory The store directory.
+     * @param memTableCapacity The maximum number of distinct keys in the memory table.
+     * @param compactionThreshold The number of segments that triggers a background compaction.
+     * @throws IllegalArgumentException If {@code memTableCapacity} is not positive or
+     *             {@code compactionThreshold} is less than {@code 2}.
+     * @throws IOException If the store cannot be opened or recovered.
+     * @throws NullPointerException If {@code directory} is {@code null}.
+     */
+    public LastSeenStore(File directory, int memTableCapacity, int compactionThreshold) throws IOException {
+        if (memTableCapacity <= 0) {
+            throw new IllegalArgumentException("memTableCapacity must be positive");
+        }
+        if (compactionThreshold < 2) {
+            throw new IllegalArgumentException("compactionThreshold must be at least 2");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Failed to create directory " + directory);
+        }
+        this.directory = directory;
+        this.memTableCapacity = memTableCapacity;
+        this.compactionThreshold = compactionThreshold;
+        recover();
+        this.memTable = new MemTable(memTableCapacity);
+        this.logSequence = this.nextSequence++;
+        this.log = new WriteAheadLog(new File(directory, logFileName(this.logSequence)));
+
+        final String threadName = "LastSeenStore-" + directory.getName();
+        this.executor = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, threadName);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushLog();
+            }
+        }, LOG_FLUSH_INTERVAL, LOG_FLUSH_INTERVAL, TimeUnit.MILLISECONDS);
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                compactIfNecessary();
+            }
+        }, COMPACTION_CHECK_INTERVAL, COMPACTION_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the store key for {@code val}, which is the bit representation of the EUI-64 that
+     * encapsulates {@code val}, i.e. {@code ff:fe} inserted between the OUI and the extension
+     * identifier.
+     * 
+     * @param val The EUI-48.
+     * @return The store key for {@code val}.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     * @see #toEUI48(long)
+     * @see EUI64s#encapsulate(long)
+     */
+    public static long key(EUI48 val) {
+        return EUI64s.encapsulate(val.getBits());
+    }
+
+    /**
+     * Returns the store key for {@code val}, which is its bit representation.
+     * 
+     * @param val The EUI-64.
+     * @return The store key for {@code val}.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public static long key(EUI64 val) {
+        return val.getBits();
+    }
+
+    /**
+     * Returns the {@link EUI48} encapsulated in the store {@code key}.
+     * 
+     * @param key The store key.
+     * @return The encapsulated EUI-48.
+     * @throws IllegalArgumentException If {@code key} does not encapsulate an EUI-48.
+     * @see #key(EUI48)
+     * @see EUI64s#decapsulate(long)
+     */
+    public static EUI48 toEUI48(long key) {
+        return new EUI48(EUI64s.decapsulate(key));
+    }
+
+    /**
+     * Records that the EUI with the given {@code key} was seen at {@code timestamp} and
+     * {@code location}, replacing any previous record for {@code key}.
+     * 
+     * @param key The store key.
+     * @param timestamp The timestamp.
+     * @param location The application-defined location.
+     * @throws IllegalArgumentException If {@code timestamp} is {@link Long#MIN_VALUE}, which is
+     *             reserved.
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void put(long key, long timestamp, long location) throws IOException {
+        if (timestamp == TOMBSTONE) {
+            throw new IllegalArgumentException("timestamp must not be Long.MIN_VALUE");
+        }
+        write(key, timestamp, location);
+    }
+
+    /**
+     * Records that {@code val} was seen at {@code timestamp} and {@code location}.
+     * 
+     * @param val The EUI-48.
+     * @param timestamp The timestamp.
+     * @param location The application-defined location.
+     * @throws IllegalArgumentException If {@code timestamp} is {@link Long#MIN_VALUE}.
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     * @see #put(long, long, long)
+     */
+    public void put(EUI48 val, long timestamp, long location) throws IOException {
+        put(key(val), timestamp, location);
+    }
+
+    /**
+     * Records that {@code val} was seen at {@code timestamp} and {@code location}.
+     * 
+     * @param val The EUI-64.
+     * @param timestamp The timestamp.
+     * @param location The application-defined location.
+     * @throws IllegalArgumentException If {@code timestamp} is {@link Long#MIN_VALUE}.
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     * @see #put(long, long, long)
+     */
+    public void put(EUI64 val, long timestamp, long location) throws IOException {
+        put(key(val), timestamp, location);
+    }
+
+    /**
+     * Removes the record for {@code key}, if any.
+     * 
+     * @param key The store key.
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public void remove(long key) throws IOException {
+        write(key, TOMBSTONE, 0);
+    }
+
+    /**
+     * Returns the record for {@code key}, or {@code null} if there is no record for {@code key}.
+     * 
+     * @param key The store key.
+     * @return The record for {@code key}, or {@code null}.
+     * @throws IllegalStateException If this store is closed.
+     */
+    public LastSeen get(long key) {
+        synchronized (this) {
+            ensureOpen();
+            int index = this.memTable.indexOf(key);
+            if (index >= 0) {
+                return newLastSeen(this.memTable.timestamp(index), this.memTable.location(index));
+            }
+            if (this.flushingMemTable != null && (index = this.flushingMemTable.indexOf(key)) >= 0) {
+                return newLastSeen(this.flushingMemTable.timestamp(index), this.flushingMemTable.location(index));
+            }
+        }
+        for (Segment segment : this.segments) {
+            long index = segment.indexOf(key);
+            if (index >= 0) {
+                return newLastSeen(segment.timestamp(index), segment.location(index));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the record for {@code val}, or {@code null} if there is no record for {@code val}.
+     * 
+     * @param val The EUI-48.
+     * @return The record for {@code val}, or {@code null}.
+     * @throws IllegalStateException If this store is closed.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public LastSeen get(EUI48 val) {
+        return get(key(val));
+    }
+
+    /**
+     * Returns the record for {@code val}, or {@code null} if there is no record for {@code val}.
+     * 
+     * @param val The EUI-64.
+     * @return The record for {@code val}, or {@code null}.
+     * @throws IllegalStateException If this store is closed.
+     * @throws NullPointerException If {@code val} is {@code null}.
+     */
+    public LastSeen get(EUI64 val) {
+        return get(key(val));
+    }
+
+    /**
+     * Returns a cursor over all records with keys between {@code fromKey} and {@code toKey} (both
+     * inclusive), in unsigned key order, which is the lexicographic order of the octet
+     * representations.
+     * 
+     * @param fromKey The lowest key.
+     * @param toKey The highest key.
+     * @return A cursor over the records in the range.
+     * @throws IllegalStateException If this store is closed.
+     */
+    public LastSeenCursor scan(long fromKey, long toKey) {
+        List<Run> runs = new ArrayList<Run>();
+        synchronized (this) {
+            ensureOpen();
+            runs.add(this.memTable.snapshot(fromKey, toKey));
+            if (this.flushingMemTable != null) {
+                runs.add(this.flushingMemTable.snapshot(fromKey, toKey));
+            }
+            runs.addAll(Arrays.asList(this.segments));
+        }
+        return new LastSeenCursor(runs.toArray(new Run[runs.size()]), fromKey, toKey, true);
+    }
+
+    /**
+     * Returns a cursor over all records for EUIs with the given 24-bit {@code oui}, including both
+     * EUI-48s and EUI-64s, in unsigned key order.
+     * 
+     * @param oui The organizationally unique identifier.
+     * @return A cursor over the records for {@code oui}.
+     * @throws IllegalArgumentException If {@code oui} is not a 24-bit value.
+     * @throws IllegalStateException If this store is closed.
+     */
+    public LastSeenCursor scanOUI(int oui) {
+        if ((oui >>> 24) != 0) {
+            throw new IllegalArgumentException("oui is out of range " + Integer.toHexString(oui));
+        }
+        long fromKey = (long) oui << 40;
+        return scan(fromKey, fromKey | 0xffffffffffL);
+    }
+
+    /**
+     * Writes the memory table to a new segment and waits until the segment is complete.
+     * 
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void flush() throws IOException {
+        ensureOpen();
+        if (this.memTable.size() > 0) {
+            rotate();
+        }
+        awaitFlush();
+    }
+
+    /**
+     * Forces all log records to the storage device.
+     * 
+     * @throws IllegalStateException If this store is closed.
+     * @throws IOException If an I/O error occurs.
+     */
+    public synchronized void sync() throws IOException {
+        ensureOpen();
+        checkFailure();
+        this.log.sync();
+    }
+
+    /**
+     * Merges all segments into a single segment, dropping removed keys. Compaction normally runs
+     * in the background; this method runs it in the calling thread.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    public void compact() throws IOException {
+        synchronized (this.compactionLock) {
+            Segment[] inputs = this.segments;
+            if (inputs.length < 2) {
+                return;
+            }
+            Segment merged = Segment.write(this.directory, inputs[inputs.length - 1].getMinSequence(), inputs[0].getMaxSequence(),
+                    new LastSeenCursor(inputs, 0, -1, true));
+            synchronized (this) {
+                // Flushes only ever prepend segments, so the inputs are still the oldest ones.
+                Segment[] current = this.segments;
+                Segment[] segments = new Segment[current.length - inputs.length + 1];
+                System.arraycopy(current, 0, segments, 0, segments.length - 1);
+                segments[segments.length - 1] = merged;
+                this.segments = segments;
+            }
+            for (Segment input : inputs) {
+                input.getFile().delete();
+            }
+        }
+    }
+
+    /**
+     * Returns the number of segment files.
+     * 
+     * @return The number of segments.
+     */
+    public int getSegmentCount() {
+        return this.segments.length;
+    }
+
+    /**
+     * Writes the memory table to a segment, stops the background tasks and closes the log. Does
+     * nothing if this store is already closed or being closed. Updates are rejected as soon as
+     * closing starts.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (this.closing) {
+                return;
+            }
+            this.closing = true;
+        }
+        try {
+            synchronized (this) {
+                if (this.memTable.size() > 0) {
+                    rotate();
+                }
+                awaitFlush();
+            }
+        }
+        finally {
+            synchronized (this) {
+                this.closed = true;
+            }
+            this.executor.shutdown();
+            try {
+                this.executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                this.log.close();
+                if (this.log.getCount() == 0) {
+                    this.log.getFile().delete();
+                }
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Recovers the segments from the store directory and writes remaining write-ahead logs to new
+     * segments. Temporary files and superseded segments left by a crash are deleted.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    private void recover() throws IOException {
+        List<Segment> segments = new ArrayList<Segment>();
+        List<Long> logSequences = new ArrayList<Long>();
+        for (File file : this.directory.listFiles()) {
+            String name = file.getName();
+            if (name.endsWith(".tmp")) {
+                file.delete();
+            }
+            else if (name.startsWith("segment-") && name.endsWith(".dat")) {
+                segments.add(new Segment(file));
+            }
+            else if (name.startsWith("wal-") && name.endsWith(".log")) {
+                logSequences.add(Long.parseLong(name.substring(4, name.length() - 4), 16));
+            }
+        }
+
+        // Order the segments newest first, and wider ranges before the ranges they cover.
+        Collections.sort(segments, new Comparator<Segment>() {
+            @Override
+            public int compare(Segment x, Segment y) {
+                if (x.getMaxSequence() != y.getMaxSequence()) {
+                    return x.getMaxSequence() > y.getMaxSequence() ? -1 : 1;
+                }
+                return x.getMinSequence() < y.getMinSequence() ? -1 : (x.getMinSequence() == y.getMinSequence() ? 0 : 1);
+            }
+        });
+        List<Segment> live = new ArrayList<Segment>();
+        for (Segment segment : segments) {
+            boolean covered = false;
+            for (Segment other : live) {
+                covered |= other.covers(segment);
+            }
+            if (covered) {
+                segment.getFile().delete();
+            }
+            else {
+                live.add(segment);
+            }
+        }
+        long maxSequence = live.isEmpty() ? 0 : live.get(0).getMaxSequence();
+
+        Collections.sort(logSequences);
+        for (long sequence : logSequences) {
+            File file = new File(this.directory, logFileName(sequence));
+            if (sequence > maxSequence) {
+                MemTable memTable = WriteAheadLog.replay(file);
+                live.add(0, Segment.write(this.directory, sequence, sequence, new LastSeenCursor(new Run[] { memTable.snapshot(0, -1) }, 0, -1, false)));
+                maxSequence = sequence;
+            }
+            file.delete();
+        }
+        this.segments = live.toArray(new Segment[live.size()]);
+        this.nextSequence = maxSequence + 1;
+    }
+
+    /**
+     * Appends a record to the log and applies it to the memory table, rotating the memory table
+     * first if it is full.
+     * 
+     * @param key The store key.
+     * @param timestamp The timestamp or {@link #TOMBSTONE}.
+     * @param location The location.
+     * @throws IOException If an I/O error occurs.
+     */
+    private synchronized void write(long key, long timestamp, long location) throws IOException {
+        ensureWritable();
+        checkFailure();
+        if ((this.memTable.isFull() && this.memTable.indexOf(key) < 0) || this.log.getCount() >= 4L * this.memTableCapacity) {
+            rotate();
+        }
+        this.log.append(key, timestamp, location);
+        this.memTable.put(key, timestamp, location);
+    }
+
+    /**
+     * Hands the memory table and its log over to a background flush, and starts a new memory
+     * table and log. Waits for the previous flush to complete first.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    private synchronized void rotate() throws IOException {
+        awaitFlush();
+        this.log.close();
+        this.flushingMemTable = this.memTable;
+        this.flushingLog = this.log;
+        this.flushingSequence = this.logSequence;
+        this.memTable = new MemTable(this.memTableCapacity);
+        this.logSequence = this.nextSequence++;
+        this.log = new WriteAheadLog(new File(this.directory, logFileName(this.logSequence)));
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                flushMemTable();
+            }
+        });
+    }
+
+    /**
+     * Waits until the background flush, if any, is complete.
+     * 
+     * @throws IOException If the background flush failed or the thread is interrupted.
+     */
+    private synchronized void awaitFlush() throws IOException {
+        while (this.flushingMemTable != null) {
+            checkFailure();
+            try {
+                wait();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a flush");
+            }
+        }
+        checkFailure();
+    }
+
+    /**
+     * Writes the memory table being flushed to a new segment and deletes its log. Runs on the
+     * background executor.
+     */
+    private void flushMemTable() {
+        MemTable memTable;
+        WriteAheadLog log;
+        long sequence;
+        synchronized (this) {
+            memTable = this.flushingMemTable;
+            log = this.flushingLog;
+            sequence = this.flushingSequence;
+        }
+        try {
+            Segment segment = Segment.write(this.directory, sequence, sequence, new LastSeenCursor(new Run[] { memTable.snapshot(0, -1) }, 0, -1, false));
+            synchronized (this) {
+                Segment[] segments = new Segment[this.segments.length + 1];
+                segments[0] = segment;
+                System.arraycopy(this.segments, 0, segments, 1, this.segments.length);
+                this.segments = segments;
+                this.flushingMemTable = null;
+                this.flushingLog = null;
+                notifyAll();
+            }
+            log.getFile().delete();
+            if (this.segments.length >= this.compactionThreshold) {
+                this.executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        compactIfNecessary();
+                    }
+                });
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Compacts the segments if there are at least as many as the compaction threshold. Runs on the
+     * background executor.
+     */
+    private void compactIfNecessary() {
+        try {
+            if (this.segments.length >= this.compactionThreshold) {
+                compact();
+            }
+        }
+        catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Writes buffered log records to the file system. Runs on the background executor.
+     */
+    private synchronized void flushLog() {
+        if (!this.closed) {
+            try {
+                this.log.flush();
+            }
+            catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    /**
+     * Records the failure of a background task and wakes up waiting writers.
+     * 
+     * @param e The failure.
+     */
+    private synchronized void fail(IOException e) {
+        if (this.failure == null) {
+            this.failure = e;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Throws an {@link IOException} if a background task failed.
+     * 
+     * @throws IOException If a background task failed.
+     */
+    private void checkFailure() throws IOException {
+        IOException failure = this.failure;
+        if (failure != null) {
+            throw new IOException("Background flush or compaction failed", failure);
+        }
+    }
+
+    /**
+     * Throws an {@link IllegalStateException} if this store is closed.
+     */
+    private void ensureOpen() {
+        if (this.closed) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    /**
+     * Throws an {@link IllegalStateException} if this store is closed or being closed.
+     */
+    private void ensureWritable() {
+        if (this.closing) {
+            throw new IllegalStateException("Store is closed");
+        }
+    }
+
+    /**
+     * Returns a new {@link LastSeen} for the given record, or {@code null} for a removed key.
+     * 
+     * @param timestamp The timestamp or {@link #TOMBSTONE}.
+     * @param location The location.
+     * @return The {@link LastSeen}, or {@code null}.
+     */
+    private static LastSeen newLastSeen(long timestamp, long location) {
+        return (timestamp == TOMBSTONE) ? null : new LastSeen(timestamp, location);
+    }
+
+    /**
+     * Returns the file name for the write-ahead log with the given sequence number.
+     * 
+     * @param sequence The sequence number.
+     * @return The log file name.
+     */
+    private static String logFileName(long sequence) {
+        return String.format("wal-%016x.log", sequence);
+    }
+}
@@ -0,0 +1,190 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+import java.util.Arrays;
+
+/**
+ * An in-memory table of last-seen records, implemented as an open addressing hash table with
+ * linear probing on primitive arrays. A {@link MemTable} is not thread-safe.
+ * 
+ * @author Benedikt Meurer
+ */
+final class MemTable {
+    /** The keys, valid where {@link #used} is set. */
+    private final long[] keys;
+
+    /** The timestamps, indexed like {@link #keys}. */
+    private final long[] timestamps;
+
+    /** The locations, indexed like {@link #keys}. */
+    private final long[] locations;
+
+    /** Whether a slot is occupied. */
+    private final boolean[] used;
+
+    /** The number of bits of the table index. */
+    private final int shift;
+
+    /** The maximum number of distinct keys. */
+    private final int capacity;
+
+    /** The number of distinct keys. */
+    private int size;
+
+    /**
+     * Constructs a new {@link MemTable} for up to {@code capacity} distinct keys.
+     * 
+     * @param capacity The maximum number of distinct keys.
+     * @throws IllegalArgumentException If {@code capacity} is not positive or too large.
+     */
+    MemTable(int capacity) {
+        if (capacity <= 0 || capacity > (1 << 29)) {
+            throw new IllegalArgumentException("capacity is out of range " + capacity);
+        }
+        int length = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.keys = new long[length];
+        this.timestamps = new long[length];
+        this.locations = new long[length];
+        this.used = new boolean[length];
+        this.shift = Long.numberOfLeadingZeros(length - 1);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns the number of distinct keys in this table.
+     * 
+     * @return The number of distinct keys.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns whether this table has reached its capacity.
+     * 
+     * @return {@code true} if no further distinct keys can be added.
+     */
+    boolean isFull() {
+        return this.size >= this.capacity;
+    }
+
+    /**
+     * Stores the given record, replacing any previous record for {@code key}.
+     * 
+     * @param key The key.
+     * @param timestamp The timestamp.
+     * @param location The location.
+     * @throws IllegalStateException If {@code key} is new and the table is full.
+     */
+    void put(long key, long timestamp, long location) {
+        int index = slot(key);
+        if (!this.used[index]) {
+            if (isFull()) {
+                throw new IllegalStateException("MemTable is full");
+            }
+            this.used[index] = true;
+            this.keys[index] = key;
+            ++this.size;
+        }
+        this.timestamps[index] = timestamp;
+        this.locations[index] = location;
+    }
+
+    /**
+     * Returns the slot index of {@code key}, or {@code -1} if {@code key} is not in this table.
+     * 
+     * @param key The key.
+     * @return The slot index, or {@code -1}.
+     * @see #timestamp(int)
+     * @see #location(int)
+     */
+    int indexOf(long key) {
+        int index = slot(key);
+        return this.used[index] ? index : -1;
+    }
+
+    /**
+     * Returns the timestamp stored in the slot at {@code index}.
+     * 
+     * @param index The slot index.
+     * @return The timestamp.
+     * @see #indexOf(long)
+     */
+    long timestamp(int index) {
+        return this.timestamps[index];
+    }
+
+    /**
+     * Returns the location stored in the slot at {@code index}.
+     * 
+     * @param index The slot index.
+     * @return The location.
+     * @see #indexOf(long)
+     */
+    long location(int index) {
+        return this.locations[index];
+    }
+
+    /**
+     * Returns a sorted copy of all records with keys between {@code fromKey} and {@code toKey}
+     * (both inclusive, in unsigned order).
+     * 
+     * @param fromKey The lowest key.
+     * @param toKey The highest key.
+     * @return The sorted records.
+     */
+    Run snapshot(long fromKey, long toKey) {
+        long lo = fromKey + Long.MIN_VALUE, hi = toKey + Long.MIN_VALUE;
+        long[] sorted = new long[this.size];
+        int count = 0;
+        for (int n = 0; n < this.keys.length; ++n) {
+            if (this.used[n]) {
+                long key = this.keys[n] + Long.MIN_VALUE;
+                if (key >= lo && key <= hi) {
+                    sorted[count++] = key;
+                }
+            }
+        }
+        Arrays.sort(sorted, 0, count);
+        long[] keys = new long[count];
+        long[] timestamps = new long[count];
+        long[] locations = new long[count];
+        for (int n = 0; n < count; ++n) {
+            int index = slot(keys[n] = sorted[n] - Long.MIN_VALUE);
+            timestamps[n] = this.timestamps[index];
+            locations[n] = this.locations[index];
+        }
+        return new ArrayRun(keys, timestamps, locations);
+    }
+
+    /**
+     * Returns the slot for {@code key}, which is either the slot containing {@code key} or the
+     * empty slot where {@code key} would be inserted.
+     * 
+     * @param key The key.
+     * @return The slot index.
+     */
+    private int slot(long key) {
+        int mask = this.keys.length - 1;
+        int index = (int) ((key * 0x9e3779b97f4a7c15L) >>> this.shift);
+        while (this.used[index] && this.keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+}
@@ -0,0 +1,92 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+/**
+ * A sorted sequence of last-seen records, ordered by key in unsigned (octet) order. Records are
+ * addressed by their index, starting at {@code 0}.
+ * 
+ * @author Benedikt Meurer
+ */
+abstract class Run {
+    /**
+     * Returns the number of records in this run.
+     * 
+     * @return The number of records.
+     */
+    abstract long size();
+
+    /**
+     * Returns the key of the record at {@code index}.
+     * 
+     * @param index The record index.
+     * @return The key.
+     */
+    abstract long key(long index);
+
+    /**
+     * Returns the timestamp of the record at {@code index}.
+     * 
+     * @param index The record index.
+     * @return The timestamp, or {@link LastSeenStore#TOMBSTONE} for a removed key.
+     */
+    abstract long timestamp(long index);
+
+    /**
+     * Returns the location of the record at {@code index}.
+     * 
+     * @param index The record index.
+     * @return The location.
+     */
+    abstract long location(long index);
+
+    /**
+     * Returns the index of the first record whose key is greater than or equal to {@code key} in
+     * unsigned order, or {@link #size()} if there is no such record.
+     * 
+     * @param key The key to search for.
+     * @return The index of the first record not less than {@code key}.
+     */
+    long lowerBound(long key) {
+        long lo = 0, hi = size();
+        while (lo < hi) {
+            long mid = (lo + hi) >>> 1;
+            if (compareUnsigned(key(mid), key) < 0) {
+                lo = mid + 1;
+            }
+            else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Compares the two keys {@code x} and {@code y} as unsigned values, which is the same as
+     * comparing their octet representations lexicographically.
+     * 
+     * @param x The first key.
+     * @param y The second key.
+     * @return A negative value, zero or a positive value if {@code x} is less than, equal to or
+     *         greater than {@code y}.
+     */
+    static int compareUnsigned(long x, long y) {
+        x += Long.MIN_VALUE;
+        y += Long.MIN_VALUE;
+        return (x < y) ? -1 : ((x == y) ? 0 : 1);
+    }
+}
@@ -0,0 +1,262 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An immutable, sorted segment file, memory-mapped for lookups. A segment file consists of a
+ * header followed by fixed-size records (key, timestamp and location) in unsigned key order. Each
+ * segment covers the write-ahead logs with sequence numbers {@link #getMinSequence()} to
+ * {@link #getMaxSequence()}; segments with higher sequence numbers take precedence.
+ * 
+ * @author Benedikt Meurer
+ */
+final class Segment extends Run {
+    /** The magic number at the start of each segment file. */
+    private static final int MAGIC = 0x45554953;
+
+    /** The version of the segment file format. */
+    private static final int VERSION = 1;
+
+    /** The size of the header in bytes. */
+    private static final int HEADER_SIZE = 32;
+
+    /** The size of a single record in bytes. */
+    private static final int RECORD_SIZE = WriteAheadLog.RECORD_SIZE;
+
+    /** The log2 of the number of records per mapped chunk, which keeps chunks below 2 GiB. */
+    private static final int CHUNK_SHIFT = 25;
+
+    /** The segment file. */
+    private final File file;
+
+    /** The lowest covered write-ahead log sequence number. */
+    private final long minSequence;
+
+    /** The highest covered write-ahead log sequence number. */
+    private final long maxSequence;
+
+    /** The number of records. */
+    private final long count;
+
+    /** The mapped chunks of records. */
+    private final MappedByteBuffer[] chunks;
+
+    /**
+     * Opens and maps the existing segment {@code file}.
+     * 
+     * @param file The segment file.
+     * @throws IOException If the file cannot be read or is not a valid segment file.
+     */
+    Segment(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Truncated segment file " + file);
+                }
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Invalid segment file " + file);
+            }
+            this.file = file;
+            this.minSequence = header.getLong();
+            this.maxSequence = header.getLong();
+            this.count = header.getLong();
+            if (this.count < 0 || channel.size() != HEADER_SIZE + this.count * RECORD_SIZE) {
+                throw new IOException("Corrupt segment file " + file);
+            }
+            long chunkRecords = 1L << CHUNK_SHIFT;
+            this.chunks = new MappedByteBuffer[(int) ((this.count + chunkRecords - 1) >>> CHUNK_SHIFT)];
+            for (int n = 0; n < this.chunks.length; ++n) {
+                long first = n * chunkRecords;
+                long records = Math.min(chunkRecords, this.count - first);
+                this.chunks[n] = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + first * RECORD_SIZE, records * RECORD_SIZE);
+            }
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Returns the segment file.
+     * 
+     * @return The segment file.
+     */
+    File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the lowest write-ahead log sequence number covered by this segment.
+     * 
+     * @return The lowest covered sequence number.
+     */
+    long getMinSequence() {
+        return this.minSequence;
+    }
+
+    /**
+     * Returns the highest write-ahead log sequence number covered by this segment.
+     * 
+     * @return The highest covered sequence number.
+     */
+    long getMaxSequence() {
+        return this.maxSequence;
+    }
+
+    /**
+     * Returns whether this segment covers all sequence numbers of {@code segment}.
+     * 
+     * @param segment The other segment.
+     * @return {@code true} if {@code segment} is superseded by this segment.
+     */
+    boolean covers(Segment segment) {
+        return this.minSequence <= segment.minSequence && segment.maxSequence <= this.maxSequence;
+    }
+
+    @Override
+    long size() {
+        return this.count;
+    }
+
+    @Override
+    long key(long index) {
+        return this.chunks[(int) (index >>> CHUNK_SHIFT)].getLong(offset(index));
+    }
+
+    @Override
+    long timestamp(long index) {
+        return this.chunks[(int) (index >>> CHUNK_SHIFT)].getLong(offset(index) + 8);
+    }
+
+    @Override
+    long location(long index) {
+        return this.chunks[(int) (index >>> CHUNK_SHIFT)].getLong(offset(index) + 16);
+    }
+
+    /**
+     * Returns the index of the record for {@code key}, or {@code -1} if this segment does not
+     * contain {@code key}.
+     * 
+     * @param key The key.
+     * @return The record index, or {@code -1}.
+     */
+    long indexOf(long key) {
+        if (this.count == 0 || compareUnsigned(key, key(0)) < 0 || compareUnsigned(key, key(this.count - 1)) > 0) {
+            return -1;
+        }
+        long index = lowerBound(key);
+        return (index < this.count && key(index) == key) ? index : -1;
+    }
+
+    @Override
+    public String toString() {
+        return this.file.getName();
+    }
+
+    /**
+     * Writes the records produced by {@code records} to a new segment file in {@code directory},
+     * and returns the opened segment. The file is first written under a temporary name, synced to
+     * the storage device and then renamed, so that a crash never leaves a partial segment file.
+     * 
+     * @param directory The directory for the segment file.
+     * @param minSequence The lowest covered write-ahead log sequence number.
+     * @param maxSequence The highest covered write-ahead log sequence number.
+     * @param records The records to write, in unsigned key order.
+     * @return The new segment.
+     * @throws IOException If an I/O error occurs.
+     */
+    static Segment write(File directory, long minSequence, long maxSequence, LastSeenCursor records) throws IOException {
+        String name = fileName(minSequence, maxSequence);
+        File tmp = new File(directory, name + ".tmp");
+        FileChannel channel = new FileOutputStream(tmp).getChannel();
+        try {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 10922);
+            buffer.position(HEADER_SIZE);
+            long count = 0;
+            while (records.next()) {
+                if (buffer.remaining() < RECORD_SIZE) {
+                    writeFully(channel, buffer);
+                }
+                buffer.putLong(records.getKey()).putLong(records.getTimestamp()).putLong(records.getLocation());
+                ++count;
+            }
+            writeFully(channel, buffer);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(minSequence).putLong(maxSequence).putLong(count).flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, buffer.position());
+            }
+            channel.force(true);
+        }
+        finally {
+            channel.close();
+        }
+        File file = new File(directory, name);
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Failed to rename " + tmp + " to " + file);
+        }
+        return new Segment(file);
+    }
+
+    /**
+     * Returns the file name for a segment covering the given sequence numbers.
+     * 
+     * @param minSequence The lowest covered sequence number.
+     * @param maxSequence The highest covered sequence number.
+     * @return The segment file name.
+     */
+    static String fileName(long minSequence, long maxSequence) {
+        return String.format("segment-%016x-%016x.dat", minSequence, maxSequence);
+    }
+
+    /**
+     * Writes the contents of {@code buffer} to {@code channel} and clears {@code buffer}.
+     * 
+     * @param channel The channel to write to.
+     * @param buffer The buffer to write.
+     * @throws IOException If an I/O error occurs.
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Returns the offset of the record at {@code index} within its chunk.
+     * 
+     * @param index The record index.
+     * @return The offset within the chunk.
+     */
+    private static int offset(long index) {
+        return (int) (index & ((1L << CHUNK_SHIFT) - 1)) * RECORD_SIZE;
+    }
+}
@@ -0,0 +1,165 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * An append-only log of last-seen records. Records are buffered in a direct buffer and written to
+ * the file channel when the buffer is full, on {@link #flush()} and on {@link #sync()}. A
+ * {@link WriteAheadLog} is not thread-safe.
+ * 
+ * @author Benedikt Meurer
+ */
+final class WriteAheadLog {
+    /** The size of a single record in bytes. */
+    static final int RECORD_SIZE = 24;
+
+    /** The log file. */
+    private final File file;
+
+    /** The channel used to append to {@link #file}. */
+    private final FileChannel channel;
+
+    /** The buffer for records not yet written to {@link #channel}. */
+    private final ByteBuffer buffer;
+
+    /** The number of records appended to this log. */
+    private long count;
+
+    /**
+     * Creates a new, empty {@link WriteAheadLog} in {@code file}.
+     * 
+     * @param file The log file.
+     * @throws IOException If the file cannot be created.
+     */
+    WriteAheadLog(File file) throws IOException {
+        this.file = file;
+        this.channel = new FileOutputStream(file).getChannel();
+        this.buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 2730);
+    }
+
+    /**
+     * Returns the log file.
+     * 
+     * @return The log file.
+     */
+    File getFile() {
+        return this.file;
+    }
+
+    /**
+     * Returns the number of records appended to this log.
+     * 
+     * @return The number of records.
+     */
+    long getCount() {
+        return this.count;
+    }
+
+    /**
+     * Appends the given record to this log.
+     * 
+     * @param key The key.
+     * @param timestamp The timestamp.
+     * @param location The location.
+     * @throws IOException If an I/O error occurs.
+     */
+    void append(long key, long timestamp, long location) throws IOException {
+        if (this.buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        this.buffer.putLong(key).putLong(timestamp).putLong(location);
+        ++this.count;
+    }
+
+    /**
+     * Writes all buffered records to the file.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    void flush() throws IOException {
+        this.buffer.flip();
+        while (this.buffer.hasRemaining()) {
+            this.channel.write(this.buffer);
+        }
+        this.buffer.clear();
+    }
+
+    /**
+     * Writes all buffered records to the file and forces them to the storage device.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    void sync() throws IOException {
+        flush();
+        this.channel.force(false);
+    }
+
+    /**
+     * Syncs and closes this log.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    void close() throws IOException {
+        try {
+            sync();
+        }
+        finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * Replays all complete records from the log {@code file} into a new {@link MemTable}. A
+     * trailing partial record, left by a crash during a write, is ignored.
+     * 
+     * @param file The log file.
+     * @return The {@link MemTable} with the logged records.
+     * @throws IOException If an I/O error occurs.
+     */
+    static MemTable replay(File file) throws IOException {
+        FileChannel channel = new FileInputStream(file).getChannel();
+        try {
+            long count = channel.size() / RECORD_SIZE;
+            MemTable memTable = new MemTable((int) Math.max(1, Math.min(count, 1 << 29)));
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 2730);
+            for (long n = 0; n < count;) {
+                buffer.clear();
+                buffer.limit((int) Math.min(buffer.capacity(), (count - n) * RECORD_SIZE));
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        throw new IOException("Unexpected end of log file " + file);
+                    }
+                }
+                buffer.flip();
+                for (; buffer.hasRemaining(); ++n) {
+                    memTable.put(buffer.getLong(), buffer.getLong(), buffer.getLong());
+                }
+            }
+            return memTable;
+        }
+        finally {
+            channel.close();
+        }
+    }
+}
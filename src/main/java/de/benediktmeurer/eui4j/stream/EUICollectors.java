@@ -0,0 +1,119 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collector;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.collect.EUI48BitmapSet;
+
+/**
+ * {@link Collector}s that collect streams of {@link EUI48}s and {@link EUI64}s into packed,
+ * primitive representations. Each collector accumulates bit representations without boxing, and
+ * combines partial results efficiently, so that the collectors scale with parallel streams: sorted
+ * arrays are sorted per partial result and merged in linear time, and counts are merged into the
+ * larger of two partial results.
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUICollectors {
+    /**
+     * Prevents instantiation.
+     */
+    private EUICollectors() {
+    }
+
+    /**
+     * Returns a {@link Collector} that collects {@link EUI48}s into an {@link EUI48BitmapSet}.
+     * 
+     * @return The collector.
+     */
+    public static Collector<EUI48, ?, EUI48BitmapSet> toEUI48BitmapSet() {
+        return Collector.of(EUI48BitmapSet::new,
+                            (EUI48BitmapSet set, EUI48 val) -> set.add(val.getBits()),
+                            (EUI48BitmapSet x, EUI48BitmapSet y) -> {
+                                if (x.cardinality() < y.cardinality()) {
+                                    y.addAll(x);
+                                    return y;
+                                }
+                                x.addAll(y);
+                                return x;
+                            },
+                            Collector.Characteristics.UNORDERED,
+                            Collector.Characteristics.IDENTITY_FINISH);
+    }
+
+    /**
+     * Returns a {@link Collector} that collects {@link EUI48}s into an array of their distinct bit
+     * representations, sorted in the order of {@link EUI48#compareTo(EUI48)}.
+     * 
+     * @return The collector.
+     * @see EUIStreams#sortedEUI48s(long[])
+     */
+    public static Collector<EUI48, ?, long[]> toSortedEUI48Bits() {
+        return Collector.of(() -> new SortedBitsBuilder(EUI48s.ORDER_FLIP),
+                            (SortedBitsBuilder builder, EUI48 val) -> builder.add(val.getBits()),
+                            SortedBitsBuilder::combine,
+                            SortedBitsBuilder::toArray,
+                            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Returns a {@link Collector} that collects {@link EUI64}s into an array of their distinct bit
+     * representations, sorted in the order of {@link EUI64#compareTo(EUI64)}.
+     * 
+     * @return The collector.
+     * @see EUIStreams#sortedEUI64s(long[])
+     */
+    public static Collector<EUI64, ?, long[]> toSortedEUI64Bits() {
+        return Collector.of(() -> new SortedBitsBuilder(0),
+                            (SortedBitsBuilder builder, EUI64 val) -> builder.add(val.getBits()),
+                            SortedBitsBuilder::combine,
+                            SortedBitsBuilder::toArray,
+                            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Returns a {@link Collector} that counts the occurrences of each distinct {@link EUI48}.
+     * 
+     * @return The collector, which produces a mutable map.
+     */
+    public static Collector<EUI48, ?, Map<EUI48, Long>> countingEUI48s() {
+        return Collector.of(LongCountMap::new,
+                            (LongCountMap map, EUI48 val) -> map.add(val.getBits(), 1),
+                            LongCountMap::combine,
+                            (LongCountMap map) -> map.putAll(new HashMap<EUI48, Long>(2 * map.size()), EUI48::new),
+                            Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Returns a {@link Collector} that counts the occurrences of each distinct {@link EUI64}.
+     * 
+     * @return The collector, which produces a mutable map.
+     */
+    public static Collector<EUI64, ?, Map<EUI64, Long>> countingEUI64s() {
+        return Collector.of(LongCountMap::new,
+                            (LongCountMap map, EUI64 val) -> map.add(val.getBits(), 1),
+                            LongCountMap::combine,
+                            (LongCountMap map) -> map.putAll(new HashMap<EUI64, Long>(2 * map.size()), EUI64::new),
+                            Collector.Characteristics.UNORDERED);
+    }
+}
@@ -0,0 +1,182 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import java.util.Spliterator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.collect.EUI48BitmapSet;
+
+/**
+ * Entry points for streams over packed bit representations of {@link EUI48}s and {@link EUI64}s.
+ * The streams are backed by {@link Spliterator}s that split evenly and report their exact sizes,
+ * and, for sorted input, are {@link Spliterator#SORTED sorted} and {@link Spliterator#DISTINCT
+ * distinct}, so that parallel pipelines scale across cores and redundant {@code sorted()} and
+ * {@code distinct()} steps are skipped. All streams are sequential; use {@code parallel()} to
+ * process them in parallel.
+ * 
+ * @author Benedikt Meurer
+ * @see EUICollectors
+ */
+public final class EUIStreams {
+    /**
+     * Prevents instantiation.
+     */
+    private EUIStreams() {
+    }
+
+    /**
+     * Returns a stream of the {@link EUI48}s with the bit representations {@code bits}, in the
+     * order of the array.
+     * 
+     * @param bits The bit representations, which must not be modified while the stream is used.
+     * @return The stream.
+     * @throws IllegalArgumentException If any of the bit representations is not a 48-bit value.
+     * @see EUI48#getBits()
+     */
+    public static Stream<EUI48> eui48s(long... bits) {
+        for (long b : bits) {
+            checkEUI48(b);
+        }
+        return StreamSupport.stream(new PackedSpliterator<EUI48>(bits, 0, bits.length, EUI48::new, 0), false);
+    }
+
+    /**
+     * Returns a sorted stream of the {@link EUI48}s with the distinct bit representations
+     * {@code bits}, which are sorted in the order of {@link EUI48#compareTo(EUI48)}, as produced by
+     * {@link EUICollectors#toSortedEUI48Bits()} or {@link EUI48BitmapSet#toLongArray()}.
+     * 
+     * @param bits The sorted, distinct bit representations, which must not be modified while the
+     *            stream is used.
+     * @return The stream.
+     * @throws IllegalArgumentException If {@code bits} is not sorted and distinct, or any of the
+     *             bit representations is not a 48-bit value.
+     */
+    public static Stream<EUI48> sortedEUI48s(long... bits) {
+        for (int n = 0; n < bits.length; ++n) {
+            checkEUI48(bits[n]);
+            if (n > 0 && EUI48s.compare(bits[n - 1], bits[n]) >= 0) {
+                throw new IllegalArgumentException("bits is not sorted and distinct at index " + n);
+            }
+        }
+        return StreamSupport.stream(new PackedSpliterator<EUI48>(bits, 0, bits.length, EUI48::new, Spliterator.SORTED | Spliterator.DISTINCT), false);
+    }
+
+    /**
+     * Returns a stream of the {@link EUI64}s with the bit representations {@code bits}, in the
+     * order of the array.
+     * 
+     * @param bits The bit representations, which must not be modified while the stream is used.
+     * @return The stream.
+     * @see EUI64#getBits()
+     */
+    public static Stream<EUI64> eui64s(long... bits) {
+        return StreamSupport.stream(new PackedSpliterator<EUI64>(bits, 0, bits.length, EUI64::new, 0), false);
+    }
+
+    /**
+     * Returns a sorted stream of the {@link EUI64}s with the distinct bit representations
+     * {@code bits}, which are sorted in the order of {@link EUI64#compareTo(EUI64)}, as produced by
+     * {@link EUICollectors#toSortedEUI64Bits()}.
+     * 
+     * @param bits The sorted, distinct bit representations, which must not be modified while the
+     *            stream is used.
+     * @return The stream.
+     * @throws IllegalArgumentException If {@code bits} is not sorted and distinct.
+     */
+    public static Stream<EUI64> sortedEUI64s(long... bits) {
+        for (int n = 1; n < bits.length; ++n) {
+            if (bits[n - 1] >= bits[n]) {
+                throw new IllegalArgumentException("bits is not sorted and distinct at index " + n);
+            }
+        }
+        return StreamSupport.stream(new PackedSpliterator<EUI64>(bits, 0, bits.length, EUI64::new, Spliterator.SORTED | Spliterator.DISTINCT), false);
+    }
+
+    /**
+     * Returns a stream of the bit representations of the EUI-48s in {@code set}, in the order of
+     * {@link EUI48#compareTo(EUI48)}. The stream splits at OUI boundaries.
+     * 
+     * @param set The set, which must not be modified while the stream is used.
+     * @return The stream.
+     * @see EUI48BitmapSet#bitsSpliterator()
+     */
+    public static LongStream bits(EUI48BitmapSet set) {
+        return StreamSupport.longStream(set.bitsSpliterator(), false);
+    }
+
+    /**
+     * Returns a stream of the bit representations of the EUI-48s in {@code stream}.
+     * 
+     * @param stream The stream of EUI-48s.
+     * @return The stream of bit representations.
+     * @see EUI48#getBits()
+     */
+    public static LongStream eui48Bits(Stream<EUI48> stream) {
+        return stream.mapToLong(EUI48::getBits);
+    }
+
+    /**
+     * Returns a stream of the bit representations of the EUI-64s in {@code stream}.
+     * 
+     * @param stream The stream of EUI-64s.
+     * @return The stream of bit representations.
+     * @see EUI64#getBits()
+     */
+    public static LongStream eui64Bits(Stream<EUI64> stream) {
+        return stream.mapToLong(EUI64::getBits);
+    }
+
+    /**
+     * Returns a stream of the {@link EUI48}s with the bit representations in {@code bits}.
+     * 
+     * @param bits The stream of bit representations.
+     * @return The stream of EUI-48s.
+     * @see EUI48#EUI48(long)
+     */
+    public static Stream<EUI48> eui48s(LongStream bits) {
+        return bits.mapToObj(EUI48::new);
+    }
+
+    /**
+     * Returns a stream of the {@link EUI64}s with the bit representations in {@code bits}.
+     * 
+     * @param bits The stream of bit representations.
+     * @return The stream of EUI-64s.
+     * @see EUI64#EUI64(long)
+     */
+    public static Stream<EUI64> eui64s(LongStream bits) {
+        return bits.mapToObj(EUI64::new);
+    }
+
+    /**
+     * Checks that {@code bits} is a 48-bit value.
+     * 
+     * @param bits The bit representation.
+     * @throws IllegalArgumentException If {@code bits} is not a 48-bit value.
+     */
+    private static void checkEUI48(long bits) {
+        if ((bits >>> 48) != 0) {
+            throw new IllegalArgumentException("bits is out of range " + Long.toHexString(bits));
+        }
+    }
+}
@@ -0,0 +1,140 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import de.benediktmeurer.eui4j.EUI64s;
+
+/**
+ * An open-addressing hash map from bit representations to counts, which avoids boxing while
+ * counting.
+ * 
+ * @author Benedikt Meurer
+ */
+final class LongCountMap {
+    /** The keys. */
+    private long[] keys = new long[16];
+
+    /** The counts, where {@code 0} marks an empty slot. */
+    private long[] counts = new long[16];
+
+    /** The number of keys. */
+    private int size;
+
+    /**
+     * Adds {@code delta} to the count of {@code key}.
+     * 
+     * @param key The key.
+     * @param delta The positive amount to add.
+     */
+    void add(long key, long delta) {
+        int mask = this.keys.length - 1;
+        for (int n = index(key, mask);; n = (n + 1) & mask) {
+            if (this.counts[n] == 0) {
+                this.keys[n] = key;
+                this.counts[n] = delta;
+                if (++this.size > (this.keys.length >>> 1)) {
+                    resize();
+                }
+                return;
+            }
+            else if (this.keys[n] == key) {
+                this.counts[n] += delta;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds the counts of {@code other} to the counts of the larger of the two maps.
+     * 
+     * @param other The other map.
+     * @return The map with the combined counts.
+     */
+    LongCountMap combine(LongCountMap other) {
+        LongCountMap x = this, y = other;
+        if (x.size < y.size) {
+            x = other;
+            y = this;
+        }
+        for (int n = 0; n < y.keys.length; ++n) {
+            if (y.counts[n] != 0) {
+                x.add(y.keys[n], y.counts[n]);
+            }
+        }
+        return x;
+    }
+
+    /**
+     * Puts the counts into {@code map}, creating its keys with {@code factory}.
+     * 
+     * @param map The target map.
+     * @param factory Creates a key from its bit representation.
+     * @param <T> The key type.
+     * @return {@code map}.
+     */
+    <T> Map<T, Long> putAll(Map<T, Long> map, LongFunction<T> factory) {
+        for (int n = 0; n < this.keys.length; ++n) {
+            if (this.counts[n] != 0) {
+                map.put(factory.apply(this.keys[n]), this.counts[n]);
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Returns the number of keys.
+     * 
+     * @return The number of keys.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Doubles the capacity of this map.
+     */
+    private void resize() {
+        long[] keys = this.keys, counts = this.counts;
+        this.keys = new long[2 * keys.length];
+        this.counts = new long[2 * counts.length];
+        int mask = this.keys.length - 1;
+        for (int i = 0; i < keys.length; ++i) {
+            if (counts[i] != 0) {
+                int n = index(keys[i], mask);
+                while (this.counts[n] != 0) {
+                    n = (n + 1) & mask;
+                }
+                this.keys[n] = keys[i];
+                this.counts[n] = counts[i];
+            }
+        }
+    }
+
+    /**
+     * Returns the initial slot for {@code key}, derived from {@link EUI64s#hash64(long)}.
+     * 
+     * @param key The key.
+     * @param mask The table size minus one.
+     * @return The slot index.
+     */
+    private static int index(long key, int mask) {
+        return (int) EUI64s.hash64(key) & mask;
+    }
+}
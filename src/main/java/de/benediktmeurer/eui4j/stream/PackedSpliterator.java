@@ -0,0 +1,113 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import java.util.Comparator;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * A {@link Spliterator} over EUIs that are created from a range of packed bit representations in a
+ * {@code long[]}. The spliterator splits the range in halves and always knows its exact size.
+ * 
+ * @author Benedikt Meurer
+ * @param <T> The EUI type.
+ */
+final class PackedSpliterator<T> implements Spliterator<T> {
+    /** The bit representations. */
+    private final long[] bits;
+
+    /** The index of the next element. */
+    private int index;
+
+    /** The index behind the last element. */
+    private final int fence;
+
+    /** Creates an EUI from its bit representation. */
+    private final LongFunction<T> factory;
+
+    /** The characteristics of this spliterator. */
+    private final int characteristics;
+
+    /**
+     * Constructs a new {@link PackedSpliterator} over the elements {@code index} (inclusive) to
+     * {@code fence} (exclusive) of {@code bits}.
+     * 
+     * @param bits The bit representations.
+     * @param index The index of the first element.
+     * @param fence The index behind the last element.
+     * @param factory Creates an EUI from its bit representation.
+     * @param characteristics Additional characteristics, such as {@link #SORTED} and
+     *            {@link #DISTINCT}.
+     */
+    PackedSpliterator(long[] bits, int index, int fence, LongFunction<T> factory, int characteristics) {
+        this.bits = bits;
+        this.index = index;
+        this.fence = fence;
+        this.factory = factory;
+        this.characteristics = characteristics | IMMUTABLE | NONNULL | ORDERED | SIZED | SUBSIZED;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        if (this.index >= this.fence) {
+            return false;
+        }
+        action.accept(this.factory.apply(this.bits[this.index++]));
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        long[] bits = this.bits;
+        LongFunction<T> factory = this.factory;
+        for (int n = this.index, fence = this.fence; n < fence; ++n) {
+            action.accept(factory.apply(bits[n]));
+        }
+        this.index = this.fence;
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        int mid = (this.index + this.fence) >>> 1;
+        if (mid <= this.index) {
+            return null;
+        }
+        Spliterator<T> prefix = new PackedSpliterator<T>(this.bits, this.index, mid, this.factory, this.characteristics);
+        this.index = mid;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return this.fence - this.index;
+    }
+
+    @Override
+    public int characteristics() {
+        return this.characteristics;
+    }
+
+    @Override
+    public Comparator<? super T> getComparator() {
+        if ((this.characteristics & SORTED) == 0) {
+            throw new IllegalStateException();
+        }
+        return null;
+    }
+}
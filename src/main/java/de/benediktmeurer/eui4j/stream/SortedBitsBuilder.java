@@ -0,0 +1,131 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import java.util.Arrays;
+
+/**
+ * A growable buffer of bit representations, which is sorted and freed of duplicates when it is
+ * combined with another buffer or converted to an array. Values are stored with the bits
+ * {@code flip} flipped, such that the natural order of the stored values is the order of the
+ * {@code compareTo} method of the EUI type.
+ * 
+ * @author Benedikt Meurer
+ */
+final class SortedBitsBuilder {
+    /** The bits flipped in the stored values. */
+    private final long flip;
+
+    /** The stored values. */
+    private long[] values = new long[16];
+
+    /** The number of stored values. */
+    private int size;
+
+    /** The number of leading stored values that are sorted and distinct. */
+    private int sorted;
+
+    /**
+     * Constructs a new, empty {@link SortedBitsBuilder}.
+     * 
+     * @param flip The bits to flip in the stored values.
+     */
+    SortedBitsBuilder(long flip) {
+        this.flip = flip;
+    }
+
+    /**
+     * Adds the bit representation {@code bits}.
+     * 
+     * @param bits The bit representation.
+     */
+    void add(long bits) {
+        if (this.size == this.values.length) {
+            this.values = Arrays.copyOf(this.values, 2 * this.size);
+        }
+        this.values[this.size++] = bits ^ this.flip;
+    }
+
+    /**
+     * Merges the values of {@code other} into this buffer, which leaves this buffer sorted.
+     * 
+     * @param other The other buffer.
+     * @return This buffer.
+     */
+    SortedBitsBuilder combine(SortedBitsBuilder other) {
+        sort();
+        other.sort();
+        if (other.size == 0) {
+            return this;
+        }
+        else if (this.size == 0) {
+            return other;
+        }
+        long[] x = this.values, y = other.values, z = new long[this.size + other.size];
+        int i = 0, j = 0, k = 0;
+        while (i < this.size && j < other.size) {
+            long v = (x[i] <= y[j]) ? x[i] : y[j];
+            if (x[i] == v) {
+                ++i;
+            }
+            if (y[j] == v) {
+                ++j;
+            }
+            z[k++] = v;
+        }
+        System.arraycopy(x, i, z, k, this.size - i);
+        k += this.size - i;
+        System.arraycopy(y, j, z, k, other.size - j);
+        k += other.size - j;
+        this.values = z;
+        this.size = this.sorted = k;
+        return this;
+    }
+
+    /**
+     * Returns the sorted, distinct bit representations.
+     * 
+     * @return The bit representations.
+     */
+    long[] toArray() {
+        sort();
+        long[] bits = Arrays.copyOf(this.values, this.size);
+        if (this.flip != 0) {
+            for (int n = 0; n < bits.length; ++n) {
+                bits[n] ^= this.flip;
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Sorts the stored values and removes duplicates.
+     */
+    private void sort() {
+        if (this.sorted == this.size) {
+            return;
+        }
+        Arrays.sort(this.values, 0, this.size);
+        int size = 0;
+        for (int n = 0; n < this.size; ++n) {
+            if (size == 0 || this.values[n] != this.values[size - 1]) {
+                this.values[size++] = this.values[n];
+            }
+        }
+        this.size = this.sorted = size;
+    }
+}
@@ -0,0 +1,148 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * The frames and bytes counted for the traffic from a source to a destination EUI-48.
+ * 
+ * @author Benedikt Meurer
+ * @see ConversationTable
+ */
+public final class Conversation {
+    /** The bit representation of the source. */
+    private final long source;
+
+    /** The bit representation of the destination. */
+    private final long destination;
+
+    /** The number of frames. */
+    private final long frames;
+
+    /** The number of bytes. */
+    private final long bytes;
+
+    /**
+     * Constructs a new {@link Conversation}.
+     * 
+     * @param source The bit representation of the source.
+     * @param destination The bit representation of the destination.
+     * @param frames The number of frames.
+     * @param bytes The number of bytes.
+     */
+    Conversation(long source, long destination, long frames, long bytes) {
+        this.source = source;
+        this.destination = destination;
+        this.frames = frames;
+        this.bytes = bytes;
+    }
+
+    /**
+     * Returns the source of the traffic.
+     * 
+     * @return The source.
+     */
+    public EUI48 getSource() {
+        return new EUI48(this.source);
+    }
+
+    /**
+     * Returns the bit representation of the source of the traffic.
+     * 
+     * @return The bit representation of the source.
+     */
+    public long getSourceBits() {
+        return this.source;
+    }
+
+    /**
+     * Returns the destination of the traffic.
+     * 
+     * @return The destination.
+     */
+    public EUI48 getDestination() {
+        return new EUI48(this.destination);
+    }
+
+    /**
+     * Returns the bit representation of the destination of the traffic.
+     * 
+     * @return The bit representation of the destination.
+     */
+    public long getDestinationBits() {
+        return this.destination;
+    }
+
+    /**
+     * Returns the number of frames sent from the source to the destination.
+     * 
+     * @return The number of frames.
+     */
+    public long getFrames() {
+        return this.frames;
+    }
+
+    /**
+     * Returns the number of bytes sent from the source to the destination.
+     * 
+     * @return The number of bytes.
+     */
+    public long getBytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Compares this {@link Conversation} to the specified object.
+     * 
+     * @param obj The object to compare with.
+     * @return {@code true} if the objects are equal, {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        else if (obj instanceof Conversation) {
+            Conversation val = (Conversation) obj;
+            return this.source == val.source && this.destination == val.destination && this.frames == val.frames && this.bytes == val.bytes;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this {@link Conversation}.
+     * 
+     * @return A hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        long h = ((this.source * 31 + this.destination) * 31 + this.frames) * 31 + this.bytes;
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a string representation of this {@link Conversation}.
+     * 
+     * @return The string representation.
+     */
+    @Override
+    public String toString() {
+        return "Conversation[source=" + EUI48s.toString(this.source) + ", destination=" + EUI48s.toString(this.destination) + ", frames=" + this.frames + ", bytes=" + this.bytes + "]";
+    }
+}
@@ -0,0 +1,522 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * A concurrent table of the frames and bytes sent from source to destination EUI-48s, for traffic
+ * accounting. The table uses open addressing with linear probing over a single
+ * {@link AtomicLongArray}, whose slots hold the packed source and destination and the two
+ * counters, so counting a frame allocates no objects and takes no locks. The counters are updated
+ * by atomic adds, and a new pair claims a free slot by compare-and-set.
+ * <p>
+ * The table holds up to a fixed number of pairs, and at most half of its slots are used. Traffic
+ * for additional pairs is not recorded, but counted as dropped. The table is meant to be drained
+ * periodically with {@link #snapshotAndReset()}, which atomically replaces the contents with an
+ * empty table while writers continue, and returns the previous contents once all writers that
+ * still use them have finished. The methods that read the table see the updates of concurrent
+ * writers only partially.
+ * 
+ * @author Benedikt Meurer
+ * @see Conversation
+ * @see Endpoint
+ */
+public final class ConversationTable {
+    /** The maximum number of pairs. */
+    public static final int MAX_CAPACITY = 1 << 27;
+
+    /** The bit that marks the source and destination words of a used slot. */
+    private static final long USED = Long.MIN_VALUE;
+
+    /** The index of the frame counter in a slot. */
+    private static final int FRAMES = 2;
+
+    /** The index of the byte counter in a slot. */
+    private static final int BYTES = 3;
+
+    /** Orders conversations by source and destination. */
+    private static final Comparator<Conversation> ORDER = (x, y) -> (x.getSourceBits() != y.getSourceBits()) ? Long.compare(x.getSourceBits(), y.getSourceBits())
+            : Long.compare(x.getDestinationBits(), y.getDestinationBits());
+
+    /** The maximum number of pairs. */
+    private final int capacity;
+
+    /** The current table. */
+    private final AtomicReference<Table> table;
+
+    /**
+     * Constructs a new, empty {@link ConversationTable} for up to {@code capacity} pairs.
+     * 
+     * @param capacity The maximum number of pairs.
+     * @throws IllegalArgumentException if {@code capacity} is not positive or greater than
+     *             {@link #MAX_CAPACITY}.
+     */
+    public ConversationTable(int capacity) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.capacity = capacity;
+        this.table = new AtomicReference<Table>(new Table(capacity));
+    }
+
+    /**
+     * Constructs a new {@link ConversationTable} with the contents of {@code table}.
+     * 
+     * @param capacity The maximum number of pairs.
+     * @param table The table.
+     */
+    private ConversationTable(int capacity, Table table) {
+        this.capacity = capacity;
+        this.table = new AtomicReference<Table>(table);
+    }
+
+    /**
+     * Returns the maximum number of pairs.
+     * 
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Counts a frame of {@code bytes} bytes from {@code source} to {@code destination}.
+     * 
+     * @param source The source.
+     * @param destination The destination.
+     * @param bytes The number of bytes.
+     * @return {@code true} if the frame was counted, {@code false} if the table is full.
+     */
+    public boolean add(EUI48 source, EUI48 destination, long bytes) {
+        return add(source.getBits(), destination.getBits(), 1, bytes);
+    }
+
+    /**
+     * Counts {@code frames} frames with a total of {@code bytes} bytes from {@code source} to
+     * {@code destination}.
+     * 
+     * @param source The bit representation of the source.
+     * @param destination The bit representation of the destination.
+     * @param frames The number of frames.
+     * @param bytes The number of bytes.
+     * @return {@code true} if the frames were counted, {@code false} if the table is full.
+     * @throws IllegalArgumentException if {@code source} or {@code destination} is not a valid bit
+     *             representation, or {@code frames} or {@code bytes} is negative.
+     */
+    public boolean add(long source, long destination, long frames, long bytes) {
+        if (((source | destination) >>> 48) != 0) {
+            throw new IllegalArgumentException("Invalid bit representation " + Long.toHexString(((source >>> 48) != 0) ? source : destination));
+        }
+        if ((frames | bytes) < 0) {
+            throw new IllegalArgumentException("frames and bytes must not be negative");
+        }
+        for (;;) {
+            Table table = this.table.get();
+            table.entered.increment();
+            try {
+                if (table == this.table.get()) {
+                    return table.add(source, destination, frames, bytes);
+                }
+            }
+            finally {
+                table.exited.increment();
+            }
+        }
+    }
+
+    /**
+     * Returns the traffic from {@code source} to {@code destination}.
+     * 
+     * @param source The source.
+     * @param destination The destination.
+     * @return The conversation, or {@code null} if no traffic was counted.
+     */
+    public Conversation get(EUI48 source, EUI48 destination) {
+        return get(source.getBits(), destination.getBits());
+    }
+
+    /**
+     * Returns the traffic from {@code source} to {@code destination}.
+     * 
+     * @param source The bit representation of the source.
+     * @param destination The bit representation of the destination.
+     * @return The conversation, or {@code null} if no traffic was counted.
+     */
+    public Conversation get(long source, long destination) {
+        Table table = this.table.get();
+        int slot = table.find(source | USED, destination | USED);
+        return (slot < 0) ? null : table.conversation(slot);
+    }
+
+    /**
+     * Returns the number of pairs.
+     * 
+     * @return The number of pairs.
+     */
+    public int size() {
+        return Math.min(this.capacity, this.table.get().size.get());
+    }
+
+    /**
+     * Returns the number of frames that were not counted, because the table was full.
+     * 
+     * @return The number of dropped frames.
+     */
+    public long getDroppedFrames() {
+        return this.table.get().droppedFrames.sum();
+    }
+
+    /**
+     * Returns the number of bytes that were not counted, because the table was full.
+     * 
+     * @return The number of dropped bytes.
+     */
+    public long getDroppedBytes() {
+        return this.table.get().droppedBytes.sum();
+    }
+
+    /**
+     * Returns all conversations, ordered by source and destination.
+     * 
+     * @return The conversations.
+     */
+    public List<Conversation> conversations() {
+        Table table = this.table.get();
+        List<Conversation> conversations = new ArrayList<Conversation>();
+        for (int slot = 0; slot < table.slots; ++slot) {
+            if (table.isUsed(slot)) {
+                conversations.add(table.conversation(slot));
+            }
+        }
+        Collections.sort(conversations, ORDER);
+        return conversations;
+    }
+
+    /**
+     * Returns the {@code n} conversations with the most frames, in descending order.
+     * 
+     * @param n The maximum number of conversations.
+     * @return The conversations.
+     * @throws IllegalArgumentException if {@code n} is negative.
+     */
+    public List<Conversation> topByFrames(int n) {
+        return top(n, FRAMES);
+    }
+
+    /**
+     * Returns the {@code n} conversations with the most bytes, in descending order.
+     * 
+     * @param n The maximum number of conversations.
+     * @return The conversations.
+     * @throws IllegalArgumentException if {@code n} is negative.
+     */
+    public List<Conversation> topByBytes(int n) {
+        return top(n, BYTES);
+    }
+
+    /**
+     * Returns the traffic sent and received by each EUI-48 that occurs in any conversation,
+     * ordered by address.
+     * 
+     * @return The endpoints.
+     */
+    public List<Endpoint> endpoints() {
+        Table table = this.table.get();
+        Map<Long, long[]> totals = new HashMap<Long, long[]>();
+        for (int slot = 0; slot < table.slots; ++slot) {
+            if (table.isUsed(slot)) {
+                long frames = table.get(slot, FRAMES);
+                long bytes = table.get(slot, BYTES);
+                long[] sent = total(totals, table.get(slot, 0) & ~USED);
+                sent[0] += frames;
+                sent[1] += bytes;
+                long[] received = total(totals, table.get(slot, 1) & ~USED);
+                received[2] += frames;
+                received[3] += bytes;
+            }
+        }
+        List<Endpoint> endpoints = new ArrayList<Endpoint>(totals.size());
+        for (Map.Entry<Long, long[]> entry : totals.entrySet()) {
+            long[] total = entry.getValue();
+            endpoints.add(new Endpoint(entry.getKey(), total[0], total[1], total[2], total[3]));
+        }
+        Collections.sort(endpoints, (x, y) -> Long.compare(x.getAddressBits(), y.getAddressBits()));
+        return endpoints;
+    }
+
+    /**
+     * Atomically replaces the contents of this table with an empty table, and returns the previous
+     * contents. Writers are not blocked, but this method waits for the writers that still use the
+     * previous contents to finish, so no counted traffic is lost.
+     * 
+     * @return A new table with the previous contents.
+     */
+    public ConversationTable snapshotAndReset() {
+        Table table = this.table.getAndSet(new Table(this.capacity));
+        while (table.exited.sum() != table.entered.sum()) {
+            Thread.yield();
+        }
+        return new ConversationTable(this.capacity, table);
+    }
+
+    /**
+     * Returns the {@code n} conversations with the largest counter at {@code field}, in descending
+     * order, using a min-heap of slot indices.
+     * 
+     * @param n The maximum number of conversations.
+     * @param field The index of the counter in a slot.
+     * @return The conversations.
+     * @throws IllegalArgumentException if {@code n} is negative.
+     */
+    private List<Conversation> top(int n, int field) {
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative");
+        }
+        Table table = this.table.get();
+        int[] heap = new int[Math.min(n, this.capacity)];
+        long[] values = new long[heap.length];
+        int count = 0;
+        for (int slot = 0; slot < table.slots && heap.length > 0; ++slot) {
+            if (table.isUsed(slot)) {
+                long value = table.get(slot, field);
+                if (count < heap.length) {
+                    int i = count++;
+                    while (i > 0 && values[(i - 1) >>> 1] > value) {
+                        heap[i] = heap[(i - 1) >>> 1];
+                        values[i] = values[(i - 1) >>> 1];
+                        i = (i - 1) >>> 1;
+                    }
+                    heap[i] = slot;
+                    values[i] = value;
+                }
+                else if (value > values[0]) {
+                    int i = 0;
+                    for (int child; (child = 2 * i + 1) < count; i = child) {
+                        if (child + 1 < count && values[child + 1] < values[child]) {
+                            ++child;
+                        }
+                        if (values[child] >= value) {
+                            break;
+                        }
+                        heap[i] = heap[child];
+                        values[i] = values[child];
+                    }
+                    heap[i] = slot;
+                    values[i] = value;
+                }
+            }
+        }
+        List<Conversation> conversations = new ArrayList<Conversation>(count);
+        for (int i = 0; i < count; ++i) {
+            conversations.add(table.conversation(heap[i]));
+        }
+        Comparator<Conversation> order = (field == FRAMES) ? Comparator.comparingLong(Conversation::getFrames) : Comparator.comparingLong(Conversation::getBytes);
+        Collections.sort(conversations, order.reversed().thenComparing(ORDER));
+        return conversations;
+    }
+
+    /**
+     * Returns the totals of {@code address} in {@code totals}, adding them if necessary.
+     * 
+     * @param totals The totals by address.
+     * @param address The bit representation of the address.
+     * @return The frames and bytes sent and the frames and bytes received.
+     */
+    private static long[] total(Map<Long, long[]> totals, long address) {
+        long[] total = totals.get(address);
+        if (total == null) {
+            total = new long[4];
+            totals.put(address, total);
+        }
+        return total;
+    }
+
+    /**
+     * The slots and counters of the pairs counted between two resets.
+     */
+    private static final class Table {
+        /** The slots, four words each: source, destination, frames and bytes. */
+        private final AtomicLongArray words;
+
+        /** The number of slots, a power of two. */
+        private final int slots;
+
+        /** The maximum number of pairs. */
+        private final int capacity;
+
+        /** The number of claimed slots, which may exceed the capacity while a claim fails. */
+        private final AtomicInteger size = new AtomicInteger();
+
+        /** The number of frames that were not counted. */
+        private final LongAdder droppedFrames = new LongAdder();
+
+        /** The number of bytes that were not counted. */
+        private final LongAdder droppedBytes = new LongAdder();
+
+        /** The number of writers that entered this table. */
+        private final LongAdder entered = new LongAdder();
+
+        /** The number of writers that exited this table. */
+        private final LongAdder exited = new LongAdder();
+
+        /**
+         * Constructs a new, empty {@link Table} for up to {@code capacity} pairs.
+         * 
+         * @param capacity The maximum number of pairs.
+         */
+        Table(int capacity) {
+            this.capacity = capacity;
+            this.slots = Integer.highestOneBit(2 * capacity - 1) << 1;
+            this.words = new AtomicLongArray(4 * this.slots);
+        }
+
+        /**
+         * Adds {@code frames} and {@code bytes} to the counters of a pair, claiming a free slot
+         * for a new pair.
+         * 
+         * @param source The bit representation of the source.
+         * @param destination The bit representation of the destination.
+         * @param frames The number of frames.
+         * @param bytes The number of bytes.
+         * @return {@code true} if the counters were updated, {@code false} if the table is full.
+         */
+        boolean add(long source, long destination, long frames, long bytes) {
+            long key0 = source | USED;
+            long key1 = destination | USED;
+            int mask = this.slots - 1;
+            for (int slot = index(source, destination, mask);; slot = (slot + 1) & mask) {
+                long word = this.words.get(4 * slot);
+                if (word == 0) {
+                    if (this.size.incrementAndGet() > this.capacity) {
+                        this.size.decrementAndGet();
+                        this.droppedFrames.add(frames);
+                        this.droppedBytes.add(bytes);
+                        return false;
+                    }
+                    if (this.words.compareAndSet(4 * slot, 0, key0)) {
+                        this.words.set(4 * slot + 1, key1);
+                        word = key0;
+                    }
+                    else {
+                        this.size.decrementAndGet();
+                        word = this.words.get(4 * slot);
+                    }
+                }
+                if (word == key0 && destination(slot) == key1) {
+                    if (frames != 0) {
+                        this.words.getAndAdd(4 * slot + FRAMES, frames);
+                    }
+                    if (bytes != 0) {
+                        this.words.getAndAdd(4 * slot + BYTES, bytes);
+                    }
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Returns the slot of a pair.
+         * 
+         * @param key0 The source word of the pair.
+         * @param key1 The destination word of the pair.
+         * @return The slot, or {@code -1} if the pair is not in this table.
+         */
+        int find(long key0, long key1) {
+            int mask = this.slots - 1;
+            for (int slot = index(key0 & ~USED, key1 & ~USED, mask);; slot = (slot + 1) & mask) {
+                long word = this.words.get(4 * slot);
+                if (word == 0) {
+                    return -1;
+                }
+                else if (word == key0 && destination(slot) == key1) {
+                    return slot;
+                }
+            }
+        }
+
+        /**
+         * Returns whether {@code slot} holds a pair.
+         * 
+         * @param slot The slot.
+         * @return {@code true} if the slot holds a pair.
+         */
+        boolean isUsed(int slot) {
+            return this.words.get(4 * slot) != 0 && this.words.get(4 * slot + 1) != 0;
+        }
+
+        /**
+         * Returns a word of {@code slot}.
+         * 
+         * @param slot The slot.
+         * @param field The index of the word in the slot.
+         * @return The word.
+         */
+        long get(int slot, int field) {
+            return this.words.get(4 * slot + field);
+        }
+
+        /**
+         * Returns the conversation in the used {@code slot}.
+         * 
+         * @param slot The slot.
+         * @return The conversation.
+         */
+        Conversation conversation(int slot) {
+            return new Conversation(get(slot, 0) & ~USED, get(slot, 1) & ~USED, get(slot, FRAMES), get(slot, BYTES));
+        }
+
+        /**
+         * Returns the destination word of a claimed {@code slot}, waiting for the thread that
+         * claimed it to store the word.
+         * 
+         * @param slot The slot.
+         * @return The destination word.
+         */
+        private long destination(int slot) {
+            long word;
+            while ((word = this.words.get(4 * slot + 1)) == 0) {
+                Thread.yield();
+            }
+            return word;
+        }
+
+        /**
+         * Returns the initial slot of a pair.
+         * 
+         * @param source The bit representation of the source.
+         * @param destination The bit representation of the destination.
+         * @param mask The number of slots minus one.
+         * @return The slot.
+         */
+        private static int index(long source, long destination, int mask) {
+            return (int) EUI48s.hash64(source * 0x9e3779b97f4a7c15L ^ destination) & mask;
+        }
+    }
+}
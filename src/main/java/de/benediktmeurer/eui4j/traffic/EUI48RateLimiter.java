@@ -0,0 +1,576 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * A token bucket rate limiter per EUI-48, for throttling requests such as DHCP or ARP per client
+ * address. Each address has a bucket of up to {@code burst} permits, which is refilled at a fixed
+ * rate. Instead of a limiter object per address, the buckets are kept in a table with open
+ * addressing over {@link AtomicLongArray}s, where each slot holds the packed address and a single
+ * word with the number of permits and the time of the last refill in microseconds. Refilling is
+ * lazy: the permits that accrued since that time are added when the address requests a permit.
+ * <p>
+ * The table is divided into stripes by the hash of the address. Requests from tracked addresses
+ * update the bucket by compare-and-set without locks or allocation, and denied requests do not
+ * write at all. Adding an address takes the lock of its stripe. When a stripe needs to grow, it is
+ * rebuilt without the idle addresses, whose buckets have refilled completely, since those behave
+ * exactly like addresses that were never seen. The table tracks up to a fixed number of addresses;
+ * requests from further addresses are denied and counted as overflows. The full table is swept
+ * for idle addresses at most once per time to refill a bucket, or once a second for slower rates.
+ * {@link #evictIdle()} sweeps all stripes, and may be called periodically to release memory after
+ * a burst of distinct addresses.
+ * 
+ * <pre>
+ * EUI48RateLimiter limiter = new EUI48RateLimiter(10, 20, 1 &lt;&lt; 22);
+ * if (!limiter.tryAcquire(clientMac)) {
+ *     drop(request);
+ * }
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ */
+public final class EUI48RateLimiter {
+    /** The maximum number of permits per bucket. */
+    public static final int MAX_BURST = (1 << 19) - 1;
+
+    /** The maximum number of addresses. */
+    public static final int MAX_CAPACITY = 1 << 27;
+
+    /** The maximum number of permits per second. */
+    public static final double MAX_RATE = 1e6;
+
+    /** The bit that marks the address words of used slots. */
+    private static final long USED = Long.MIN_VALUE;
+
+    /** The bit that marks the state words of slots that are being moved to a new array. */
+    private static final long FROZEN = Long.MIN_VALUE;
+
+    /** The number of bits of the time in a state word. */
+    private static final int TIME_BITS = 44;
+
+    /** The mask for the time in a state word. */
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    /** The largest clock difference in microseconds between concurrent requests. */
+    private static final long MAX_SKEW = 1000000;
+
+    /** The maximum number of stripes. */
+    private static final int MAX_STRIPES = 64;
+
+    /** The initial number of slots per stripe. */
+    private static final int MIN_SLOTS = 16;
+
+    /** The result of a stripe operation that acquired the permits. */
+    private static final int ACQUIRED = 1;
+
+    /** The result of a stripe operation that found too few permits. */
+    private static final int DENIED = 0;
+
+    /** The result of a stripe operation that could not add an address to the full table. */
+    private static final int FULL = -1;
+
+    /** The number of permits per second. */
+    private final double rate;
+
+    /** The maximum number of permits per bucket. */
+    private final int burst;
+
+    /** The maximum number of addresses. */
+    private final int capacity;
+
+    /** The number of microseconds per permit. */
+    private final double interval;
+
+    /** The minimum number of microseconds between sweeps of the full table. */
+    private final long sweepInterval;
+
+    /** The stripes. */
+    private final Stripe[] stripes;
+
+    /** The source of the time in nanoseconds. */
+    private final LongSupplier ticker;
+
+    /** The time in nanoseconds at which this limiter was created. */
+    private final long epoch;
+
+    /** The number of addresses. */
+    private final AtomicInteger size = new AtomicInteger();
+
+    /** The earliest time for the next sweep of the full table. */
+    private final AtomicLong nextSweep = new AtomicLong();
+
+    /** The number of requests that were denied because the table was full. */
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * Constructs a new {@link EUI48RateLimiter}.
+     * 
+     * @param permitsPerSecond The number of permits per second and address.
+     * @param burst The maximum number of permits per address.
+     * @param capacity The maximum number of addresses.
+     * @throws IllegalArgumentException if {@code permitsPerSecond}, {@code burst} or
+     *             {@code capacity} is not positive or greater than {@link #MAX_RATE},
+     *             {@link #MAX_BURST} or {@link #MAX_CAPACITY}.
+     */
+    public EUI48RateLimiter(double permitsPerSecond, int burst, int capacity) {
+        this(permitsPerSecond, burst, capacity, System::nanoTime);
+    }
+
+    /**
+     * Constructs a new {@link EUI48RateLimiter} that takes the time from {@code ticker}.
+     * 
+     * @param permitsPerSecond The number of permits per second and address.
+     * @param burst The maximum number of permits per address.
+     * @param capacity The maximum number of addresses.
+     * @param ticker The source of the time in nanoseconds.
+     */
+    EUI48RateLimiter(double permitsPerSecond, int burst, int capacity, LongSupplier ticker) {
+        if (!(permitsPerSecond > 0 && permitsPerSecond <= MAX_RATE)) {
+            throw new IllegalArgumentException("permitsPerSecond out of range: " + permitsPerSecond);
+        }
+        if (burst < 1 || burst > MAX_BURST) {
+            throw new IllegalArgumentException("burst out of range: " + burst);
+        }
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity out of range: " + capacity);
+        }
+        this.rate = permitsPerSecond;
+        this.burst = burst;
+        this.capacity = capacity;
+        this.interval = 1e6 / permitsPerSecond;
+        this.sweepInterval = Math.max(1000, Math.min(1000000, (long) (burst * this.interval)));
+        this.stripes = new Stripe[Integer.highestOneBit(Math.max(1, Math.min(MAX_STRIPES, capacity >>> 8)))];
+        for (int n = 0; n < this.stripes.length; ++n) {
+            this.stripes[n] = new Stripe(Math.max(MIN_SLOTS, Integer.highestOneBit(2 * capacity - 1) << 1));
+        }
+        this.ticker = ticker;
+        this.epoch = ticker.getAsLong();
+    }
+
+    /**
+     * Returns the number of permits per second and address.
+     * 
+     * @return The rate.
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Returns the maximum number of permits per address.
+     * 
+     * @return The burst size.
+     */
+    public int getBurst() {
+        return this.burst;
+    }
+
+    /**
+     * Returns the maximum number of addresses.
+     * 
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * Acquires a permit for {@code address} if one is available.
+     * 
+     * @param address The address.
+     * @return {@code true} if the permit was acquired, {@code false} otherwise.
+     */
+    public boolean tryAcquire(EUI48 address) {
+        return tryAcquire(address.getBits(), 1);
+    }
+
+    /**
+     * Acquires a permit for {@code address} if one is available.
+     * 
+     * @param address The bit representation of the address.
+     * @return {@code true} if the permit was acquired, {@code false} otherwise.
+     * @throws IllegalArgumentException if {@code address} is not a valid bit representation.
+     */
+    public boolean tryAcquire(long address) {
+        return tryAcquire(address, 1);
+    }
+
+    /**
+     * Acquires {@code permits} permits for {@code address} if they are available.
+     * 
+     * @param address The bit representation of the address.
+     * @param permits The number of permits.
+     * @return {@code true} if the permits were acquired, {@code false} otherwise.
+     * @throws IllegalArgumentException if {@code address} is not a valid bit representation, or
+     *             {@code permits} is not positive or greater than the burst size.
+     */
+    public boolean tryAcquire(long address, int permits) {
+        if ((address >>> 48) != 0) {
+            throw new IllegalArgumentException("Invalid bit representation " + Long.toHexString(address));
+        }
+        if (permits < 1 || permits > this.burst) {
+            throw new IllegalArgumentException("permits out of range: " + permits);
+        }
+        long key = address | USED;
+        long hash = EUI48s.hash64(address);
+        Stripe stripe = stripe(hash);
+        long now = now();
+        AtomicLongArray words = stripe.words;
+        int mask = (words.length() >>> 1) - 1;
+        for (int slot = (int) hash & mask;; slot = (slot + 1) & mask) {
+            long word = words.get(2 * slot);
+            if (word == 0) {
+                break;
+            }
+            else if (word == key) {
+                for (;;) {
+                    long state = words.get(2 * slot + 1);
+                    if (state < 0) {
+                        return tryAcquire(stripe, key, hash, now, permits);
+                    }
+                    long next = acquire(state, now, permits);
+                    if (next < 0) {
+                        return false;
+                    }
+                    if (words.compareAndSet(2 * slot + 1, state, next)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return tryAcquire(stripe, key, hash, now, permits);
+    }
+
+    /**
+     * Returns the number of permits currently available for {@code address}.
+     * 
+     * @param address The bit representation of the address.
+     * @return The number of permits.
+     * @throws IllegalArgumentException if {@code address} is not a valid bit representation.
+     */
+    public int availablePermits(long address) {
+        if ((address >>> 48) != 0) {
+            throw new IllegalArgumentException("Invalid bit representation " + Long.toHexString(address));
+        }
+        long hash = EUI48s.hash64(address);
+        long state = stripe(hash).state(address | USED, hash);
+        return (state < 0) ? this.burst : (int) (acquire(state, now(), 0) >>> TIME_BITS);
+    }
+
+    /**
+     * Returns the number of tracked addresses, including idle addresses that were not evicted yet.
+     * 
+     * @return The number of addresses.
+     */
+    public int size() {
+        return Math.min(this.capacity, this.size.get());
+    }
+
+    /**
+     * Returns the number of requests from untracked addresses that were denied because the table
+     * was full.
+     * 
+     * @return The number of overflows.
+     */
+    public long getOverflows() {
+        return this.overflows.sum();
+    }
+
+    /**
+     * Removes the idle addresses, whose buckets have refilled completely, from all stripes, and
+     * shrinks the stripes accordingly.
+     * 
+     * @return The number of removed addresses.
+     */
+    public int evictIdle() {
+        return evictIdle(now());
+    }
+
+    /**
+     * Acquires permits for an address on the locked path of its stripe, which also adds the
+     * address if it is not tracked yet. If the table is full, all stripes are swept for idle
+     * addresses first, unless this was done too recently.
+     * 
+     * @param stripe The stripe of the address.
+     * @param key The address word.
+     * @param hash The hash of the address.
+     * @param now The current time.
+     * @param permits The number of permits.
+     * @return {@code true} if the permits were acquired, {@code false} otherwise.
+     */
+    private boolean tryAcquire(Stripe stripe, long key, long hash, long now, int permits) {
+        int result = stripe.tryAcquire(this, key, hash, now, permits);
+        if (result == FULL) {
+            long next = this.nextSweep.get();
+            if (now - next >= 0 && this.nextSweep.compareAndSet(next, now + this.sweepInterval)) {
+                evictIdle(now);
+                result = stripe.tryAcquire(this, key, hash, now, permits);
+            }
+            if (result == FULL) {
+                this.overflows.increment();
+            }
+        }
+        return result == ACQUIRED;
+    }
+
+    /**
+     * Removes the idle addresses from all stripes.
+     * 
+     * @param now The current time.
+     * @return The number of removed addresses.
+     */
+    private int evictIdle(long now) {
+        int count = 0;
+        for (Stripe stripe : this.stripes) {
+            count += stripe.evictIdle(this, now);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the stripe for an address.
+     * 
+     * @param hash The hash of the address.
+     * @return The stripe.
+     */
+    private Stripe stripe(long hash) {
+        return this.stripes[(int) (hash >>> 40) & (this.stripes.length - 1)];
+    }
+
+    /**
+     * Returns the current time.
+     * 
+     * @return The number of microseconds since this limiter was created.
+     */
+    private long now() {
+        return (this.ticker.getAsLong() - this.epoch) / 1000;
+    }
+
+    /**
+     * Refills the bucket {@code state} up to {@code now}, and takes {@code permits} permits from
+     * it. The time of the last refill only advances by whole permits, so no fractional permits are
+     * lost, unless the bucket is full.
+     * 
+     * @param state The state word of the bucket.
+     * @param now The current time.
+     * @param permits The number of permits.
+     * @return The new state word, or {@code -1} if there are not enough permits.
+     */
+    private long acquire(long state, long now, int permits) {
+        long tokens = state >>> TIME_BITS;
+        long time = state & TIME_MASK;
+        long add = refill(now - time);
+        if (add >= this.burst - tokens) {
+            tokens = this.burst;
+            time = now & TIME_MASK;
+        }
+        else if (add > 0) {
+            tokens += add;
+            time = (time + (long) (add * this.interval)) & TIME_MASK;
+        }
+        return (tokens < permits) ? -1 : ((tokens - permits) << TIME_BITS) | time;
+    }
+
+    /**
+     * Returns whether the bucket {@code state} has refilled completely at {@code now}.
+     * 
+     * @param state The state word of the bucket.
+     * @param now The current time.
+     * @return {@code true} if the bucket is full.
+     */
+    private boolean isIdle(long state, long now) {
+        return refill(now - (state & TIME_MASK)) >= this.burst - (state >>> TIME_BITS);
+    }
+
+    /**
+     * Returns the number of permits that accrue in {@code delta} microseconds, where
+     * {@code delta} is taken modulo the range of the time in a state word. A slightly negative
+     * {@code delta} is due to clock readings that were overtaken by a concurrent request, and
+     * yields no permits; a largely negative one is due to a long idle time that wrapped around,
+     * and yields a full bucket.
+     * 
+     * @param delta The difference between the current time and the time of the last refill.
+     * @return The number of permits.
+     */
+    private long refill(long delta) {
+        long elapsed = (delta << (64 - TIME_BITS)) >> (64 - TIME_BITS);
+        if (elapsed < 0) {
+            return (elapsed < -MAX_SKEW) ? this.burst : 0;
+        }
+        return (long) (elapsed / this.interval);
+    }
+
+    /**
+     * A part of the table, holding the addresses with a common range of hash values. The slots of
+     * an array are claimed only once; the stripe is rebuilt into a new array to remove addresses,
+     * setting the {@link EUI48RateLimiter#FROZEN} bit in the state words of the old array first, so
+     * that concurrent requests on it fail over to the locked path.
+     */
+    private static final class Stripe {
+        /** The slots, two words each: the address and the state. */
+        private volatile AtomicLongArray words = new AtomicLongArray(2 * MIN_SLOTS);
+
+        /** The maximum number of slots. */
+        private final int maxSlots;
+
+        /** The number of addresses, guarded by the stripe's lock. */
+        private int size;
+
+        /**
+         * Constructs a new, empty {@link Stripe} with up to {@code maxSlots} slots.
+         * 
+         * @param maxSlots The maximum number of slots, a power of two.
+         */
+        Stripe(int maxSlots) {
+            this.maxSlots = maxSlots;
+        }
+
+        /**
+         * Acquires permits for an address while holding the lock, adding the address if it is not
+         * tracked yet.
+         * 
+         * @param limiter The limiter.
+         * @param key The address word.
+         * @param hash The hash of the address.
+         * @param now The current time.
+         * @param permits The number of permits.
+         * @return {@link #ACQUIRED}, {@link #DENIED}, or {@link #FULL} if the address could not
+         *         be added.
+         */
+        synchronized int tryAcquire(EUI48RateLimiter limiter, long key, long hash, long now, int permits) {
+            int slot = find(key, hash);
+            AtomicLongArray words = this.words;
+            if (words.get(2 * slot) == key) {
+                for (;;) {
+                    long state = words.get(2 * slot + 1);
+                    long next = limiter.acquire(state, now, permits);
+                    if (next < 0) {
+                        return DENIED;
+                    }
+                    if (words.compareAndSet(2 * slot + 1, state, next)) {
+                        return ACQUIRED;
+                    }
+                }
+            }
+            if (limiter.size.incrementAndGet() > limiter.capacity) {
+                limiter.size.decrementAndGet();
+                return FULL;
+            }
+            if (2 * (this.size + 1) > (this.words.length() >>> 1)) {
+                rebuild(limiter, now, false);
+            }
+            slot = find(key, hash);
+            this.words.set(2 * slot + 1, ((long) (limiter.burst - permits) << TIME_BITS) | (now & TIME_MASK));
+            this.words.set(2 * slot, key);
+            ++this.size;
+            return ACQUIRED;
+        }
+
+        /**
+         * Returns the state word of an address.
+         * 
+         * @param key The address word.
+         * @param hash The hash of the address.
+         * @return The state word, or {@code -1} if the address is not tracked.
+         */
+        synchronized long state(long key, long hash) {
+            int slot = find(key, hash);
+            return (this.words.get(2 * slot) == key) ? this.words.get(2 * slot + 1) : -1;
+        }
+
+        /**
+         * Removes the idle addresses.
+         * 
+         * @param limiter The limiter.
+         * @param now The current time.
+         * @return The number of removed addresses.
+         */
+        synchronized int evictIdle(EUI48RateLimiter limiter, long now) {
+            int size = this.size;
+            rebuild(limiter, now, true);
+            return size - this.size;
+        }
+
+        /**
+         * Returns the slot of an address, or the free slot at which it would be added.
+         * 
+         * @param key The address word.
+         * @param hash The hash of the address.
+         * @return The slot.
+         */
+        private int find(long key, long hash) {
+            AtomicLongArray words = this.words;
+            int mask = (words.length() >>> 1) - 1;
+            int slot = (int) hash & mask;
+            for (long word; (word = words.get(2 * slot)) != 0 && word != key;) {
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Replaces the slots with a new array that holds the addresses that are not idle, with at
+         * most a quarter of the slots used after adding another address, unless the stripe has
+         * reached its maximum size. Unless {@code shrink} is set, the new array is at least as
+         * large as the old one, so that a stripe whose addresses keep going idle between rebuilds
+         * is not regrown over and over.
+         * 
+         * @param limiter The limiter.
+         * @param now The current time.
+         * @param shrink Whether the new array may be smaller than the old one.
+         */
+        private void rebuild(EUI48RateLimiter limiter, long now, boolean shrink) {
+            AtomicLongArray old = this.words;
+            int count = 0;
+            for (int slot = 0; slot < (old.length() >>> 1); ++slot) {
+                if (old.get(2 * slot) != 0) {
+                    long state = old.getAndAccumulate(2 * slot + 1, FROZEN, (x, y) -> x | y);
+                    if (!limiter.isIdle(state, now)) {
+                        ++count;
+                    }
+                }
+            }
+            int slots = Math.max(shrink ? MIN_SLOTS : (old.length() >>> 1), Math.min(this.maxSlots, Integer.highestOneBit(4 * count + 3) << 1));
+            AtomicLongArray words = new AtomicLongArray(2 * slots);
+            int mask = slots - 1;
+            for (int n = 0; n < (old.length() >>> 1); ++n) {
+                long key = old.get(2 * n);
+                long state = old.get(2 * n + 1) & ~FROZEN;
+                if (key != 0 && !limiter.isIdle(state, now)) {
+                    int slot = (int) EUI48s.hash64(key & ~USED) & mask;
+                    while (words.get(2 * slot) != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    words.set(2 * slot, key);
+                    words.set(2 * slot + 1, state);
+                }
+            }
+            this.words = words;
+            limiter.size.addAndGet(count - this.size);
+            this.size = count;
+        }
+    }
+}
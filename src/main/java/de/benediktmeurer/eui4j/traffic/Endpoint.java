@@ -0,0 +1,155 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+
+/**
+ * The frames and bytes sent and received by an EUI-48, aggregated over all its conversations.
+ * 
+ * @author Benedikt Meurer
+ * @see ConversationTable#endpoints()
+ */
+public final class Endpoint {
+    /** The bit representation of the address. */
+    private final long address;
+
+    /** The number of frames sent. */
+    private final long framesSent;
+
+    /** The number of bytes sent. */
+    private final long bytesSent;
+
+    /** The number of frames received. */
+    private final long framesReceived;
+
+    /** The number of bytes received. */
+    private final long bytesReceived;
+
+    /**
+     * Constructs a new {@link Endpoint}.
+     * 
+     * @param address The bit representation of the address.
+     * @param framesSent The number of frames sent.
+     * @param bytesSent The number of bytes sent.
+     * @param framesReceived The number of frames received.
+     * @param bytesReceived The number of bytes received.
+     */
+    Endpoint(long address, long framesSent, long bytesSent, long framesReceived, long bytesReceived) {
+        this.address = address;
+        this.framesSent = framesSent;
+        this.bytesSent = bytesSent;
+        this.framesReceived = framesReceived;
+        this.bytesReceived = bytesReceived;
+    }
+
+    /**
+     * Returns the address of the endpoint.
+     * 
+     * @return The address.
+     */
+    public EUI48 getAddress() {
+        return new EUI48(this.address);
+    }
+
+    /**
+     * Returns the bit representation of the address of the endpoint.
+     * 
+     * @return The bit representation of the address.
+     */
+    public long getAddressBits() {
+        return this.address;
+    }
+
+    /**
+     * Returns the number of frames sent by the endpoint.
+     * 
+     * @return The number of frames sent.
+     */
+    public long getFramesSent() {
+        return this.framesSent;
+    }
+
+    /**
+     * Returns the number of bytes sent by the endpoint.
+     * 
+     * @return The number of bytes sent.
+     */
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    /**
+     * Returns the number of frames received by the endpoint.
+     * 
+     * @return The number of frames received.
+     */
+    public long getFramesReceived() {
+        return this.framesReceived;
+    }
+
+    /**
+     * Returns the number of bytes received by the endpoint.
+     * 
+     * @return The number of bytes received.
+     */
+    public long getBytesReceived() {
+        return this.bytesReceived;
+    }
+
+    /**
+     * Compares this {@link Endpoint} to the specified object.
+     * 
+     * @param obj The object to compare with.
+     * @return {@code true} if the objects are equal, {@code false} otherwise.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        else if (obj instanceof Endpoint) {
+            Endpoint val = (Endpoint) obj;
+            return this.address == val.address && this.framesSent == val.framesSent && this.bytesSent == val.bytesSent && this.framesReceived == val.framesReceived
+                    && this.bytesReceived == val.bytesReceived;
+        }
+        return false;
+    }
+
+    /**
+     * Returns a hash code for this {@link Endpoint}.
+     * 
+     * @return A hash code value for this object.
+     */
+    @Override
+    public int hashCode() {
+        long h = (((this.address * 31 + this.framesSent) * 31 + this.bytesSent) * 31 + this.framesReceived) * 31 + this.bytesReceived;
+        return (int) (h >> 32) ^ (int) h;
+    }
+
+    /**
+     * Returns a string representation of this {@link Endpoint}.
+     * 
+     * @return The string representation.
+     */
+    @Override
+    public String toString() {
+        return "Endpoint[address=" + EUI48s.toString(this.address) + ", framesSent=" + this.framesSent + ", bytesSent=" + this.bytesSent + ", framesReceived="
+                + this.framesReceived + ", bytesReceived=" + this.bytesReceived + "]";
+    }
+}
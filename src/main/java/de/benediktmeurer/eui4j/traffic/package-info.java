@@ -0,0 +1,29 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides traffic accounting and rate limiting by EUI.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.traffic.ConversationTable} class counts the frames and
+ * bytes per pair of source and destination EUI-48, concurrently and without allocating objects per
+ * frame, and reports them as {@link de.benediktmeurer.eui4j.traffic.Conversation}s and aggregated
+ * per {@link de.benediktmeurer.eui4j.traffic.Endpoint}.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.traffic.EUI48RateLimiter} class throttles requests per
+ * EUI-48 with token buckets packed into a single word per address, for millions of addresses,
+ * without locks or allocation for tracked addresses.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.traffic;
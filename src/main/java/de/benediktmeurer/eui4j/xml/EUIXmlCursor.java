@@ -0,0 +1,318 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * A cursor over the EUI values selected by the paths of an {@link EUIXmlReader}, in document
+ * order. The cursor pulls events from the underlying {@link XMLStreamReader} only as far as needed
+ * to find the next value, and keeps no more than the text of the current element, so documents of
+ * any size are read in constant memory. An {@link EUIXmlCursor} is not thread-safe.
+ * 
+ * <pre>
+ * EUIXmlCursor cursor = reader.open(file);
+ * try {
+ *     while (cursor.next()) {
+ *         process(cursor.getBits());
+ *     }
+ * }
+ * finally {
+ *     cursor.close();
+ * }
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ * @see EUIXmlReader#open(XMLStreamReader)
+ */
+public final class EUIXmlCursor implements Closeable {
+    /** The EUI type. */
+    private final EUIType type;
+
+    /** The paths that select the values. */
+    private final XmlPath[] paths;
+
+    /** The underlying reader. */
+    private final XMLStreamReader reader;
+
+    /** The resource to close together with the reader, or {@code null}. */
+    private final Closeable resource;
+
+    /** The number of leading steps of each path that match the currently open elements. */
+    private final int[] matched;
+
+    /** The values found in the last element, which are not yet returned. */
+    private final long[] pending;
+
+    /** The number of values in {@link #pending}. */
+    private int pendingCount;
+
+    /** The index of the next value in {@link #pending} to return. */
+    private int pendingIndex;
+
+    /** The depth of the current element, {@code 1} for the document element. */
+    private int depth;
+
+    /** The depth of the element whose text is collected, or {@code -1}. */
+    private int textDepth = -1;
+
+    /** The collected text. */
+    private char[] text = new char[32];
+
+    /** A view of {@link #text} for parsing. */
+    private CharBuffer textView = CharBuffer.wrap(this.text);
+
+    /** The number of collected characters. */
+    private int textLength;
+
+    /** The bit representation of the current value. */
+    private long bits;
+
+    /**
+     * Constructs a new {@link EUIXmlCursor}.
+     * 
+     * @param type The EUI type.
+     * @param paths The paths that select the values.
+     * @param reader The underlying reader.
+     * @param resource The resource to close together with the reader, or {@code null}.
+     */
+    EUIXmlCursor(EUIType type, XmlPath[] paths, XMLStreamReader reader, Closeable resource) {
+        this.type = type;
+        this.paths = paths;
+        this.reader = reader;
+        this.resource = resource;
+        this.matched = new int[paths.length];
+        this.pending = new long[paths.length];
+    }
+
+    /**
+     * Advances this cursor to the next value.
+     * 
+     * @return {@code true} if there is a next value; {@code false} if the document is exhausted.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    public boolean next() throws XMLStreamException {
+        if (this.pendingIndex < this.pendingCount) {
+            this.bits = this.pending[this.pendingIndex++];
+            return true;
+        }
+        this.pendingCount = 0;
+        this.pendingIndex = 0;
+        while (this.reader.hasNext()) {
+            switch (this.reader.next()) {
+            case XMLStreamConstants.START_ELEMENT:
+                startElement();
+                break;
+            case XMLStreamConstants.END_ELEMENT:
+                endElement();
+                break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.CDATA:
+            case XMLStreamConstants.SPACE:
+                if (this.depth == this.textDepth) {
+                    appendText();
+                }
+                break;
+            default:
+                break;
+            }
+            if (this.pendingCount > 0) {
+                this.bits = this.pending[this.pendingIndex++];
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the bit representation of the current value.
+     * 
+     * @return The bit representation.
+     */
+    public long getBits() {
+        return this.bits;
+    }
+
+    /**
+     * Returns the current value as an {@link EUI48}.
+     * 
+     * @return The current value.
+     * @throws IllegalStateException If the cursor reads EUI-64s.
+     */
+    public EUI48 getEUI48() {
+        if (this.type != EUIType.EUI48) {
+            throw new IllegalStateException("Cursor reads " + this.type);
+        }
+        return new EUI48(this.bits);
+    }
+
+    /**
+     * Returns the current value as an {@link EUI64}.
+     * 
+     * @return The current value.
+     * @throws IllegalStateException If the cursor reads EUI-48s.
+     */
+    public EUI64 getEUI64() {
+        if (this.type != EUIType.EUI64) {
+            throw new IllegalStateException("Cursor reads " + this.type);
+        }
+        return new EUI64(this.bits);
+    }
+
+    /**
+     * Returns the location of the underlying reader, which is right behind the start tag for a
+     * value taken from an attribute, and right behind the end tag for a value taken from the text
+     * content of an element.
+     * 
+     * @return The location.
+     */
+    public Location getLocation() {
+        return this.reader.getLocation();
+    }
+
+    /**
+     * Closes the underlying reader, and the input it was opened on by the {@link EUIXmlReader}.
+     * 
+     * @throws IOException If an I/O error occurs.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.reader.close();
+        }
+        catch (XMLStreamException e) {
+            throw new IOException(e);
+        }
+        finally {
+            if (this.resource != null) {
+                this.resource.close();
+            }
+        }
+    }
+
+    /**
+     * Handles a start tag, by advancing the path matches, and either taking the selected
+     * attribute values or starting to collect the text.
+     * 
+     * @throws XMLStreamException If a selected attribute value is not a valid EUI string
+     *             representation.
+     */
+    private void startElement() throws XMLStreamException {
+        int depth = ++this.depth;
+        String localName = this.reader.getLocalName();
+        for (int i = 0; i < this.paths.length; ++i) {
+            XmlPath path = this.paths[i];
+            if (this.matched[i] == depth - 1 && depth <= path.depth() && path.matches(depth - 1, localName)) {
+                this.matched[i] = depth;
+                if (depth == path.depth()) {
+                    if (path.attribute() != null) {
+                        String value = this.reader.getAttributeValue(null, path.attribute());
+                        if (value != null) {
+                            this.pending[this.pendingCount++] = parse(value, 0, value.length());
+                        }
+                    }
+                    else {
+                        this.textDepth = depth;
+                        this.textLength = 0;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Handles an end tag, by taking the collected text if it belongs to this element, and
+     * retracting the path matches.
+     * 
+     * @throws XMLStreamException If the collected text is not a valid EUI string representation.
+     */
+    private void endElement() throws XMLStreamException {
+        int depth = this.depth--;
+        if (depth == this.textDepth) {
+            this.textDepth = -1;
+            this.pending[this.pendingCount++] = parse(this.textView, 0, this.textLength);
+        }
+        for (int i = 0; i < this.paths.length; ++i) {
+            if (this.matched[i] == depth) {
+                this.matched[i] = depth - 1;
+            }
+        }
+    }
+
+    /**
+     * Appends the characters of the current text event to the collected text.
+     */
+    private void appendText() {
+        int length = this.reader.getTextLength();
+        if (this.textLength + length > this.text.length) {
+            this.text = Arrays.copyOf(this.text, Math.max(this.textLength + length, 2 * this.text.length));
+            this.textView = CharBuffer.wrap(this.text);
+        }
+        System.arraycopy(this.reader.getTextCharacters(), this.reader.getTextStart(), this.text, this.textLength, length);
+        this.textLength += length;
+    }
+
+    /**
+     * Parses the EUI string representation from index {@code start} (inclusive) to {@code end}
+     * (exclusive) of {@code chars}, ignoring leading and trailing XML whitespace.
+     * 
+     * @param chars The characters.
+     * @param start The index of the first character.
+     * @param end The index behind the last character.
+     * @return The bit representation.
+     * @throws XMLStreamException If the characters are not a valid EUI string representation.
+     */
+    private long parse(CharSequence chars, int start, int end) throws XMLStreamException {
+        while (start < end && isWhitespace(chars.charAt(start))) {
+            ++start;
+        }
+        while (end > start && isWhitespace(chars.charAt(end - 1))) {
+            --end;
+        }
+        try {
+            return (this.type == EUIType.EUI48) ? EUI48s.parse(chars, start, end) : EUI64s.parse(chars, start, end);
+        }
+        catch (IllegalArgumentException e) {
+            throw new XMLStreamException(e.getMessage(), this.reader.getLocation(), e);
+        }
+    }
+
+    /**
+     * Returns whether {@code c} is XML whitespace.
+     * 
+     * @param c The character.
+     * @return {@code true} for space, tab, carriage return and line feed.
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\r' || c == '\n';
+    }
+}
@@ -0,0 +1,255 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.util.function.LongConsumer;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import de.benediktmeurer.eui4j.EUI48XmlAdapter;
+import de.benediktmeurer.eui4j.EUI64XmlAdapter;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Reads the EUIs from large XML documents, such as vendor inventories, with a StAX
+ * {@link XMLStreamReader}. Unlike unmarshalling with JAXB and the {@link EUI48XmlAdapter} or
+ * {@link EUI64XmlAdapter}, no object tree is built for the document; the values selected by the
+ * configured paths are handed out one at a time as bit representations, either through an
+ * {@link EUIXmlCursor} or to a {@link LongConsumer}, so the memory needed does not depend on the
+ * size of the document.
+ * <p>
+ * A path lists the local names of the elements from the document element downwards, separated by
+ * slashes, where a {@code *} step matches any element. If the last step starts with {@code @}, the
+ * path selects the attribute with that local name, otherwise the text content of the elements. For
+ * example, {@code inventory/device/@mac} selects the {@code mac} attributes of the
+ * {@code device} elements below the {@code inventory} document element, and
+ * {@code inventory/device/mac} selects the text of their {@code mac} child elements. Namespaces are
+ * ignored, and elements that lack a selected attribute are skipped. The values are parsed with the
+ * same rules as {@link de.benediktmeurer.eui4j.EUI48#fromString(String)} and
+ * {@link de.benediktmeurer.eui4j.EUI64#fromString(String)}, after leading and trailing XML
+ * whitespace is removed.
+ * <p>
+ * Document type declarations and external entities are not supported.
+ * 
+ * <pre>
+ * EUIXmlReader reader = new EUIXmlReader(EUIType.EUI48, &quot;inventory/device/@mac&quot;);
+ * long count = reader.read(file, set::add);
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ * @see EUIXmlCursor
+ * @see EUIXmlWriter
+ */
+public final class EUIXmlReader {
+    /** The EUI type. */
+    private final EUIType type;
+
+    /** The paths that select the values. */
+    private final XmlPath[] paths;
+
+    /** The factory for the underlying readers. */
+    private final XMLInputFactory factory;
+
+    /**
+     * Constructs a new {@link EUIXmlReader} for values of the specified {@code type}, selected by
+     * any of the {@code paths}.
+     * 
+     * @param type The EUI type.
+     * @param paths The paths that select the values.
+     * @throws IllegalArgumentException If {@code paths} is empty or any path is invalid.
+     * @throws NullPointerException If {@code type} or any path is {@code null}.
+     */
+    public EUIXmlReader(EUIType type, String... paths) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        if (paths.length == 0) {
+            throw new IllegalArgumentException("No paths");
+        }
+        this.type = type;
+        this.paths = new XmlPath[paths.length];
+        for (int i = 0; i < paths.length; ++i) {
+            this.paths[i] = new XmlPath(paths[i]);
+        }
+        this.factory = XMLInputFactory.newInstance();
+        this.factory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.FALSE);
+        this.factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+        this.factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    }
+
+    /**
+     * Returns the EUI type.
+     * 
+     * @return The EUI type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the paths that select the values.
+     * 
+     * @return The paths.
+     */
+    public String[] getPaths() {
+        String[] paths = new String[this.paths.length];
+        for (int i = 0; i < paths.length; ++i) {
+            paths[i] = this.paths[i].toString();
+        }
+        return paths;
+    }
+
+    /**
+     * Opens a cursor over the values in the document read by {@code reader}, which must be
+     * positioned at the start of the document.
+     * 
+     * @param reader The reader.
+     * @return The cursor.
+     */
+    public EUIXmlCursor open(XMLStreamReader reader) {
+        return new EUIXmlCursor(this.type, this.paths, reader, null);
+    }
+
+    /**
+     * Opens a cursor over the values in the document in {@code in}. The encoding is detected from
+     * the document. Closing the cursor does not close {@code in}.
+     * 
+     * @param in The input stream.
+     * @return The cursor.
+     * @throws XMLStreamException If the document cannot be opened.
+     */
+    public EUIXmlCursor open(InputStream in) throws XMLStreamException {
+        return open(this.factory.createXMLStreamReader(in));
+    }
+
+    /**
+     * Opens a cursor over the values in the document in {@code in}. Closing the cursor does not
+     * close {@code in}.
+     * 
+     * @param in The reader.
+     * @return The cursor.
+     * @throws XMLStreamException If the document cannot be opened.
+     */
+    public EUIXmlCursor open(Reader in) throws XMLStreamException {
+        return open(this.factory.createXMLStreamReader(in));
+    }
+
+    /**
+     * Opens a cursor over the values in the document in {@code file}. Closing the cursor closes
+     * the file.
+     * 
+     * @param file The file.
+     * @return The cursor.
+     * @throws IOException If the file cannot be opened.
+     * @throws XMLStreamException If the document cannot be opened.
+     */
+    public EUIXmlCursor open(File file) throws IOException, XMLStreamException {
+        FileInputStream in = new FileInputStream(file);
+        try {
+            return new EUIXmlCursor(this.type, this.paths, this.factory.createXMLStreamReader(file.toURI().toString(), in), in);
+        }
+        catch (XMLStreamException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Passes the values in the document in {@code in} to {@code consumer}, in document order.
+     * 
+     * @param in The input stream.
+     * @param consumer The consumer of the bit representations.
+     * @return The number of values.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    public long read(InputStream in, LongConsumer consumer) throws XMLStreamException {
+        return read(this.factory.createXMLStreamReader(in), consumer);
+    }
+
+    /**
+     * Passes the values in the document in {@code in} to {@code consumer}, in document order.
+     * 
+     * @param in The reader.
+     * @param consumer The consumer of the bit representations.
+     * @return The number of values.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    public long read(Reader in, LongConsumer consumer) throws XMLStreamException {
+        return read(this.factory.createXMLStreamReader(in), consumer);
+    }
+
+    /**
+     * Passes the values in the document in {@code file} to {@code consumer}, in document order.
+     * 
+     * @param file The file.
+     * @param consumer The consumer of the bit representations.
+     * @return The number of values.
+     * @throws IOException If the file cannot be read.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    public long read(File file, LongConsumer consumer) throws IOException, XMLStreamException {
+        EUIXmlCursor cursor = open(file);
+        try {
+            return read(cursor, consumer);
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    /**
+     * Passes the values in the document read by {@code reader} to {@code consumer}, in document
+     * order. The reader must be positioned at the start of the document.
+     * 
+     * @param reader The reader.
+     * @param consumer The consumer of the bit representations.
+     * @return The number of values.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    public long read(XMLStreamReader reader, LongConsumer consumer) throws XMLStreamException {
+        return read(open(reader), consumer);
+    }
+
+    /**
+     * Passes the remaining values of {@code cursor} to {@code consumer}.
+     * 
+     * @param cursor The cursor.
+     * @param consumer The consumer of the bit representations.
+     * @return The number of values.
+     * @throws XMLStreamException If the document is not well-formed, or a selected value is not a
+     *             valid EUI string representation.
+     */
+    private static long read(EUIXmlCursor cursor, LongConsumer consumer) throws XMLStreamException {
+        long count = 0;
+        while (cursor.next()) {
+            consumer.accept(cursor.getBits());
+            ++count;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,229 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import java.io.OutputStream;
+import java.util.PrimitiveIterator;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+import de.benediktmeurer.eui4j.EUI48XmlAdapter;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64XmlAdapter;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Writes EUIs to large XML documents, such as vendor inventories, with a StAX
+ * {@link XMLStreamWriter}, without building JAXB objects. The values are written from their bit
+ * representations in the same lexical form as the {@link EUI48XmlAdapter} and
+ * {@link EUI64XmlAdapter} use, and text content is formatted into a reused character buffer.
+ * <p>
+ * The structure of the document is either written by the caller, using the underlying
+ * {@link #getWriter() writer} together with {@link #writeCharacters(long)},
+ * {@link #writeAttribute(String, long)} and {@link #writeElement(String, long)}, or derived from a
+ * path like those of the {@link EUIXmlReader} by
+ * {@link #writeDocument(String, PrimitiveIterator.OfLong)}. An {@link EUIXmlWriter} is not
+ * thread-safe.
+ * 
+ * <pre>
+ * EUIXmlWriter writer = new EUIXmlWriter(EUIType.EUI48, out);
+ * writer.writeDocument(&quot;inventory/device/@mac&quot;, EUIStreams.bits(set).iterator());
+ * writer.close();
+ * </pre>
+ * 
+ * @author Benedikt Meurer
+ * @see EUIXmlReader
+ */
+public final class EUIXmlWriter {
+    /** The EUI type. */
+    private final EUIType type;
+
+    /** The underlying writer. */
+    private final XMLStreamWriter writer;
+
+    /** The buffer for the string representations. */
+    private final char[] buffer = new char[EUI64s.STRING_LENGTH];
+
+    /**
+     * Constructs a new {@link EUIXmlWriter} for values of the specified {@code type}, which writes
+     * to {@code writer}.
+     * 
+     * @param type The EUI type.
+     * @param writer The underlying writer.
+     * @throws NullPointerException If {@code type} or {@code writer} is {@code null}.
+     */
+    public EUIXmlWriter(EUIType type, XMLStreamWriter writer) {
+        if (type == null) {
+            throw new NullPointerException("type is null");
+        }
+        if (writer == null) {
+            throw new NullPointerException("writer is null");
+        }
+        this.type = type;
+        this.writer = writer;
+    }
+
+    /**
+     * Constructs a new {@link EUIXmlWriter} for values of the specified {@code type}, which writes
+     * UTF-8 encoded XML to {@code out}.
+     * 
+     * @param type The EUI type.
+     * @param out The output stream.
+     * @throws XMLStreamException If the underlying writer cannot be created.
+     * @throws NullPointerException If {@code type} or {@code out} is {@code null}.
+     */
+    public EUIXmlWriter(EUIType type, OutputStream out) throws XMLStreamException {
+        this(type, XMLOutputFactory.newInstance().createXMLStreamWriter(out, "UTF-8"));
+    }
+
+    /**
+     * Returns the EUI type.
+     * 
+     * @return The EUI type.
+     */
+    public EUIType getType() {
+        return this.type;
+    }
+
+    /**
+     * Returns the underlying writer.
+     * 
+     * @return The underlying writer.
+     */
+    public XMLStreamWriter getWriter() {
+        return this.writer;
+    }
+
+    /**
+     * Writes the string representation of {@code bits} as text content.
+     * 
+     * @param bits The bit representation.
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public void writeCharacters(long bits) throws XMLStreamException {
+        this.writer.writeCharacters(this.buffer, 0, format(bits));
+    }
+
+    /**
+     * Writes the string representation of {@code bits} as the value of the attribute
+     * {@code localName} of the current start tag.
+     * 
+     * @param localName The local name of the attribute.
+     * @param bits The bit representation.
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public void writeAttribute(String localName, long bits) throws XMLStreamException {
+        this.writer.writeAttribute(localName, new String(this.buffer, 0, format(bits)));
+    }
+
+    /**
+     * Writes an element {@code localName} with the string representation of {@code bits} as its
+     * text content.
+     * 
+     * @param localName The local name of the element.
+     * @param bits The bit representation.
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public void writeElement(String localName, long bits) throws XMLStreamException {
+        this.writer.writeStartElement(localName);
+        writeCharacters(bits);
+        this.writer.writeEndElement();
+    }
+
+    /**
+     * Writes a complete UTF-8 document with the values from {@code bits} at {@code path}. The
+     * elements of all steps but the last are written once, and the element of the last step is
+     * repeated for each value. If the path ends with an attribute, each value is written as that
+     * attribute of an empty element. For example, {@code inventory/device/@mac} is written as
+     * {@code <inventory><device mac="..."/>...</inventory>}, and {@code inventory/devices/mac} as
+     * {@code <inventory><devices><mac>...</mac>...</devices></inventory>}. The first step is the
+     * root element, so the path needs at least one element step before the repeated one. The
+     * underlying writer is flushed afterwards.
+     * 
+     * @param path The path of the values, without {@code *} steps.
+     * @param bits The bit representations.
+     * @return The number of values written.
+     * @throws IllegalArgumentException If {@code path} is invalid, contains a {@code *} step, or
+     *             has no root element step before the repeated element.
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public long writeDocument(String path, PrimitiveIterator.OfLong bits) throws XMLStreamException {
+        XmlPath p = new XmlPath(path);
+        if (p.hasWildcard()) {
+            throw new IllegalArgumentException("Invalid path: " + path);
+        }
+        if (p.depth() < 2) {
+            throw new IllegalArgumentException("Path has no root element: " + path);
+        }
+        int containers = p.depth() - 1;
+        String element = p.step(containers);
+        String attribute = p.attribute();
+        this.writer.writeStartDocument("UTF-8", "1.0");
+        for (int i = 0; i < containers; ++i) {
+            this.writer.writeStartElement(p.step(i));
+        }
+        long count = 0;
+        while (bits.hasNext()) {
+            long b = bits.nextLong();
+            if (attribute != null) {
+                this.writer.writeEmptyElement(element);
+                writeAttribute(attribute, b);
+            }
+            else {
+                writeElement(element, b);
+            }
+            ++count;
+        }
+        for (int i = 0; i < containers; ++i) {
+            this.writer.writeEndElement();
+        }
+        this.writer.writeEndDocument();
+        this.writer.flush();
+        return count;
+    }
+
+    /**
+     * Flushes the underlying writer.
+     * 
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public void flush() throws XMLStreamException {
+        this.writer.flush();
+    }
+
+    /**
+     * Closes the underlying writer. This does not close the output it writes to.
+     * 
+     * @throws XMLStreamException If the underlying writer fails.
+     */
+    public void close() throws XMLStreamException {
+        this.writer.close();
+    }
+
+    /**
+     * Formats {@code bits} into the buffer.
+     * 
+     * @param bits The bit representation.
+     * @return The length of the string representation.
+     */
+    private int format(long bits) {
+        return (this.type == EUIType.EUI48) ? EUI48s.format(bits, this.buffer, 0) : EUI64s.format(bits, this.buffer, 0);
+    }
+}
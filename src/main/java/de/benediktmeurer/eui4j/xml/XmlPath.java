@@ -0,0 +1,138 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import java.util.Arrays;
+
+/**
+ * A simple location path that selects the EUI values in an XML document, such as
+ * {@code inventory/device/mac} or {@code inventory/device/@mac}. The path consists of the local
+ * names of the elements from the document element downwards, separated by slashes, where a
+ * {@code *} step matches any element. If the last step starts with {@code @}, the path selects the
+ * attribute with that local name of the elements selected by the steps before it, otherwise it
+ * selects the text content of the elements selected by all steps. Namespaces are ignored.
+ * 
+ * @author Benedikt Meurer
+ */
+final class XmlPath {
+    /** The step that matches any element. */
+    private static final String ANY = "*";
+
+    /** The original path. */
+    private final String path;
+
+    /** The local names of the element steps. */
+    private final String[] steps;
+
+    /** The local name of the attribute, or {@code null} if the path selects text content. */
+    private final String attribute;
+
+    /**
+     * Constructs a new {@link XmlPath} from its string form. A single leading slash is ignored.
+     * 
+     * @param path The string form of the path.
+     * @throws IllegalArgumentException If {@code path} has no element steps or an empty step.
+     * @throws NullPointerException If {@code path} is {@code null}.
+     */
+    XmlPath(String path) {
+        if (path == null) {
+            throw new NullPointerException("path is null");
+        }
+        String[] steps = (path.startsWith("/") ? path.substring(1) : path).split("/", -1);
+        String attribute = null;
+        if (steps[steps.length - 1].startsWith("@")) {
+            attribute = steps[steps.length - 1].substring(1);
+            steps = Arrays.copyOf(steps, steps.length - 1);
+        }
+        if (steps.length == 0 || (attribute != null && (attribute.isEmpty() || attribute.equals(ANY)))) {
+            throw new IllegalArgumentException("Invalid path: " + path);
+        }
+        for (String step : steps) {
+            if (step.isEmpty() || step.startsWith("@")) {
+                throw new IllegalArgumentException("Invalid path: " + path);
+            }
+        }
+        this.path = path;
+        this.steps = steps;
+        this.attribute = attribute;
+    }
+
+    /**
+     * Returns the number of element steps.
+     * 
+     * @return The number of element steps.
+     */
+    int depth() {
+        return this.steps.length;
+    }
+
+    /**
+     * Returns the local name of the element step at {@code index}.
+     * 
+     * @param index The index of the step, starting with {@code 0} for the document element.
+     * @return The local name, or {@code *}.
+     */
+    String step(int index) {
+        return this.steps[index];
+    }
+
+    /**
+     * Returns whether the element step at {@code index} matches an element with the specified
+     * {@code localName}.
+     * 
+     * @param index The index of the step, starting with {@code 0} for the document element.
+     * @param localName The local name of the element.
+     * @return {@code true} if the step matches.
+     */
+    boolean matches(int index, String localName) {
+        String step = this.steps[index];
+        return step.equals(ANY) || step.equals(localName);
+    }
+
+    /**
+     * Returns whether any element step is a wildcard.
+     * 
+     * @return {@code true} if the path contains a {@code *} step.
+     */
+    boolean hasWildcard() {
+        for (String step : this.steps) {
+            if (step.equals(ANY)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the local name of the selected attribute.
+     * 
+     * @return The local name, or {@code null} if the path selects text content.
+     */
+    String attribute() {
+        return this.attribute;
+    }
+
+    /**
+     * Returns the string form of this path.
+     * 
+     * @return The string form.
+     */
+    @Override
+    public String toString() {
+        return this.path;
+    }
+}
@@ -0,0 +1,29 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package provides streaming access to EUIs in large XML documents, alongside the JAXB
+ * adapters, which need the whole document as an object tree.
+ * <ul>
+ * <li>The {@link de.benediktmeurer.eui4j.xml.EUIXmlReader} class pulls the EUIs at configured
+ * element or attribute paths out of a document with StAX, and hands them out as bit
+ * representations through an {@link de.benediktmeurer.eui4j.xml.EUIXmlCursor} or a callback, in
+ * constant memory.</li>
+ * <li>The {@link de.benediktmeurer.eui4j.xml.EUIXmlWriter} class writes EUIs from their bit
+ * representations with StAX, in the same lexical form as the JAXB adapters.</li>
+ * </ul>
+ */
+package de.benediktmeurer.eui4j.xml;
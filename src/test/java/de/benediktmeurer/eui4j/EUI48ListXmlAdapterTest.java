@@ -0,0 +1,138 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link EUI48ListXmlAdapter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48ListXmlAdapter
+ */
+public class EUI48ListXmlAdapterTest {
+    @DataProvider(name = "lists")
+    public Object[][] dataProviderLists() {
+        return new Object[][] {
+                { new String[0], "" },
+                { new String[] { "00:00:00:00:00:00" }, "00:00:00:00:00:00" },
+                { new String[] { "00:00:00:00:00:00", "00:11:22:33:44:55", "ff:ff:ff:ff:ff:ff" }, "00:00:00:00:00:00" + " " + "00:11:22:33:44:55" + " " + "ff:ff:ff:ff:ff:ff" },
+                { new String[] { "00:11:22:33:44:55", "00:11:22:33:44:55" }, "00:11:22:33:44:55" + " " + "00:11:22:33:44:55" }
+        };
+    }
+
+    @DataProvider(name = "alternateLists")
+    public Object[][] dataProviderAlternateLists() {
+        return new Object[][] {
+                { new String[0], " \t\r\n" },
+                { new String[] { "00:00:00:00:00:00" }, "\n  " + "00:00:00:00:00:00" + "\n" },
+                { new String[] { "00:00:00:00:00:00", "00:11:22:33:44:55", "ff:ff:ff:ff:ff:ff" }, "00:00:00:00:00:00" + "\t" + "00-11-22-33-44-55" + "\r\n " + "ff:ff:ff:ff:ff:ff".toUpperCase() }
+        };
+    }
+
+    @DataProvider(name = "invalidLists")
+    public Object[][] dataProviderInvalidLists() {
+        return new Object[][] {
+                { "00:11:22:33:44" },
+                { "00:11:22:33:44:55:66" },
+                { "00:11-22:33:44:55" },
+                { "00:11:22:33:44:5g" },
+                { "00:00:00:00:00:00" + "," + "00:11:22:33:44:55" },
+                { "00:00:00:00:00:00" + " " + "00:11:22:33:44:5g" },
+                { "00:00:00:00:00:00" + "\u00a0" + "00:11:22:33:44:55" }
+        };
+    }
+
+    @Test(dataProvider = "lists")
+    public void testMarshal(String[] names, String list) throws Exception {
+        assertEquals(new EUI48ListXmlAdapter().marshal(eui48s(names)), list);
+    }
+
+    @Test(dataProvider = "lists")
+    public void testUnmarshal(String[] names, String list) throws Exception {
+        assertEquals(new EUI48ListXmlAdapter().unmarshal(list), eui48s(names));
+    }
+
+    @Test(dataProvider = "alternateLists")
+    public void testUnmarshalAlternate(String[] names, String list) throws Exception {
+        assertEquals(new EUI48ListXmlAdapter().unmarshal(list), eui48s(names));
+    }
+
+    @Test(dataProvider = "invalidLists", expectedExceptions = IllegalArgumentException.class)
+    public void testUnmarshalInvalid(String list) throws Exception {
+        new EUI48ListXmlAdapter().unmarshal(list);
+    }
+
+    @Test
+    public void testNull() throws Exception {
+        assertNull(new EUI48ListXmlAdapter().marshal(null));
+        assertNull(new EUI48ListXmlAdapter().unmarshal(null));
+    }
+
+    @Test
+    public void testMarshalUnmarshal() throws Exception {
+        Random random = new Random(48);
+        List<EUI48> vals = new ArrayList<EUI48>();
+        for (int n = 0; n < 10000; ++n) {
+            vals.add(new EUI48(random.nextLong() >>> 16));
+        }
+        EUI48ListXmlAdapter adapter = new EUI48ListXmlAdapter();
+        assertEquals(adapter.unmarshal(adapter.marshal(vals)), vals);
+    }
+
+    @Test
+    public void testJAXB() throws Exception {
+        Inventory inventory = new Inventory();
+        inventory.macs = eui48s(new String[] { "00:00:00:00:00:00", "00:11:22:33:44:55" });
+        JAXBContext context = JAXBContext.newInstance(Inventory.class);
+        StringWriter writer = new StringWriter();
+        context.createMarshaller().marshal(inventory, writer);
+        assertEquals(writer.toString().substring(writer.toString().indexOf("<inventory>")), "<inventory><macs>" + "00:00:00:00:00:00" + " " + "00:11:22:33:44:55" + "</macs></inventory>");
+        Inventory unmarshalled = (Inventory) context.createUnmarshaller().unmarshal(new StringReader(writer.toString()));
+        assertEquals(unmarshalled.macs, inventory.macs);
+    }
+
+    private static List<EUI48> eui48s(String[] names) {
+        List<EUI48> vals = new ArrayList<EUI48>();
+        for (String name : names) {
+            vals.add(EUI48.fromString(name));
+        }
+        return vals;
+    }
+
+    @XmlRootElement(name = "inventory")
+    public static class Inventory {
+        @XmlElement
+        @XmlJavaTypeAdapter(EUI48ListXmlAdapter.class)
+        List<EUI48> macs;
+    }
+}
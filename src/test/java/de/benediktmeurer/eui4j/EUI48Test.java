@@ -18,6 +18,11 @@ package de.benediktmeurer.eui4j;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -55,7 +60,9 @@ public class EUI48Test {
         return new Object[][] {
                 { 0, (short) 0, new byte[] { 0, 0, 0, 0, 0, 0 } },
                 { -1, (short) -1, new byte[] { -1, -1, -1, -1, -1, -1 } },
-                { 0x55443322, (short) 0x1100, new byte[] { 0x55, 0x44, 0x33, 0x22, 0x11, 0x00 } }
+                { 0x55443322, (short) 0x1100, new byte[] { 0x55, 0x44, 0x33, 0x22, 0x11, 0x00 } },
+                { 0xfedcba98, (short) 0x7654, new byte[] { (byte) 0xfe, (byte) 0xdc, (byte) 0xba, (byte) 0x98, 0x76, 0x54 } },
+                { 0x00112233, (short) 0xc4d5, new byte[] { 0x00, 0x11, 0x22, 0x33, (byte) 0xc4, (byte) 0xd5 } }
         };
     }
 
@@ -80,6 +87,57 @@ public class EUI48Test {
         };
     }
 
+    @DataProvider(name = "bitPairsAndBits")
+    public Object[][] dataProviderBitPairsAndBits() {
+        return new Object[][] {
+                { 0, (short) 0, 0L },
+                { -1, (short) -1, 0xffffffffffffL },
+                { 0x11223344, (short) 0x5566, 0x112233445566L },
+                { 0x8000ffff, (short) 0x8000, 0x8000ffff8000L }
+        };
+    }
+
+    @DataProvider(name = "hashDatasets")
+    public Object[][] dataProviderHashDatasets() {
+        // A single DHCP pool handing out sequential addresses from one OUI.
+        EUI48[] sequential = new EUI48[1 << 18];
+        for (int n = 0; n < sequential.length; ++n) {
+            sequential[n] = new EUI48(0x001b2100 | (n >> 16), (short) n);
+        }
+
+        // Sequential blocks of 4096 addresses at random offsets in 64 different OUIs.
+        Random random = new Random(0x5eed);
+        EUI48[] perOUI = new EUI48[1 << 18];
+        for (int n = 0; n < perOUI.length; n += 4096) {
+            long oui = random.nextInt(1 << 24) & ~0x030000;
+            long nic = random.nextInt(1 << 24) & ~0xfff;
+            for (int i = 0; i < 4096; ++i) {
+                long bits = (oui << 24) | (nic + i);
+                perOUI[n + i] = new EUI48((int) (bits >> 16), (short) bits);
+            }
+        }
+
+        return new Object[][] {
+                { sequential },
+                { perOUI }
+        };
+    }
+
+    @DataProvider(name = "namesAndClassifications")
+    public Object[][] dataProviderNamesAndClassifications() {
+        return new Object[][] {
+                // name, OUI, NIC, multicast, broadcast, locally administered
+                { "00:00:00:00:00:00", 0x000000, 0x000000, false, false, false },
+                { "00:1b:21:3a:4b:5c", 0x001b21, 0x3a4b5c, false, false, false },
+                { "01:00:5e:00:00:fb", 0x01005e, 0x0000fb, true, false, false },
+                { "02:42:ac:11:00:02", 0x0242ac, 0x110002, false, false, true },
+                { "33:33:00:00:00:01", 0x333300, 0x000001, true, false, true },
+                { "fe:ff:ff:ff:ff:ff", 0xfeffff, 0xffffff, false, false, true },
+                { "ff:ff:ff:ff:ff:fe", 0xffffff, 0xfffffe, true, false, true },
+                { "ff:ff:ff:ff:ff:ff", 0xffffff, 0xffffff, true, true, true }
+        };
+    }
+
     @Test(dataProvider = "bitPairsAndOctets")
     public void testGetOctets(int mostSignificantBits, short leastSignificantBits, byte[] octets) {
         assertEquals(new EUI48(mostSignificantBits, leastSignificantBits).getOctets(), octets);
@@ -92,6 +150,21 @@ public class EUI48Test {
         assertEquals(val.getLeastSignificantBits(), leastSignificantBits);
     }
 
+    @Test(dataProvider = "bitPairsAndBits")
+    public void testGetBits(int mostSignificantBits, short leastSignificantBits, long bits) {
+        assertEquals(new EUI48(mostSignificantBits, leastSignificantBits).getBits(), bits);
+    }
+
+    @Test(dataProvider = "bitPairsAndBits")
+    public void testConstructorWithBits(int mostSignificantBits, short leastSignificantBits, long bits) {
+        assertEquals(new EUI48(bits), new EUI48(mostSignificantBits, leastSignificantBits));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorWithInvalidBits() {
+        new EUI48(0x1000000000000L);
+    }
+
     @Test(expectedExceptions = NullPointerException.class)
     public void testConstructorWithNullOctets() {
         new EUI48(null);
@@ -117,6 +190,55 @@ public class EUI48Test {
         assertEquals(new EUI48(mostSignificantBits, leastSignificantBits).hashCode(), new EUI48(mostSignificantBits, leastSignificantBits).hashCode());
     }
 
+    @Test(dataProvider = "bitPairs")
+    public void testHash64(int mostSignificantBits, short leastSignificantBits) {
+        assertEquals(new EUI48(mostSignificantBits, leastSignificantBits).hash64(), new EUI48(mostSignificantBits, leastSignificantBits).hash64());
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHashCodeCollisions(EUI48[] vals) {
+        Set<Integer> hashCodes = new HashSet<Integer>();
+        for (EUI48 val : vals) {
+            hashCodes.add(val.hashCode());
+        }
+        // Birthday bound for 2^18 values in a 32-bit space is about 8 collisions.
+        assertTrue(hashCodes.size() >= vals.length - 64, "distinct hash codes: " + hashCodes.size());
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHashCodeBuckets(EUI48[] vals) {
+        // Use a table with load factor 1 and the bucket index computation of java.util.HashMap.
+        int[] buckets = new int[vals.length];
+        for (EUI48 val : vals) {
+            int h = val.hashCode();
+            ++buckets[(h ^ (h >>> 16)) & (buckets.length - 1)];
+        }
+        int empty = 0, max = 0;
+        for (int load : buckets) {
+            if (load == 0) {
+                ++empty;
+            }
+            max = Math.max(max, load);
+        }
+        // A uniform hash leaves a fraction of 1/e (about 0.368) of the buckets empty.
+        double emptyFraction = (double) empty / buckets.length;
+        assertTrue(emptyFraction > 0.36 && emptyFraction < 0.376, "empty buckets: " + emptyFraction);
+        assertTrue(max <= 12, "maximum bucket load: " + max);
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHash64Partitions(EUI48[] vals) {
+        int[] partitions = new int[10];
+        for (EUI48 val : vals) {
+            long h = val.hash64();
+            ++partitions[(int) ((h >>> 1) % partitions.length)];
+        }
+        int expected = vals.length / partitions.length;
+        for (int count : partitions) {
+            assertTrue(Math.abs(count - expected) < expected / 20, "partition size: " + count);
+        }
+    }
+
     @Test(dataProvider = "bitPairs")
     public void testEquals(int mostSignificantBits, short leastSignificantBits) {
         assertEquals(new EUI48(mostSignificantBits, leastSignificantBits), new EUI48(mostSignificantBits, leastSignificantBits));
@@ -157,4 +279,25 @@ public class EUI48Test {
     public void testFromStringWithInvalidName(String name) {
         EUI48.fromString(name);
     }
+
+    @Test(dataProvider = "namesAndClassifications")
+    public void testClassification(String name, int oui, int nic, boolean multicast, boolean broadcast, boolean local) {
+        EUI48 val = EUI48.fromString(name);
+        assertEquals(val.getOUI(), oui);
+        assertEquals(val.getNIC(), nic);
+        assertEquals(val.isMulticast(), multicast);
+        assertEquals(val.isUnicast(), !multicast);
+        assertEquals(val.isBroadcast(), broadcast);
+        assertEquals(val.isLocallyAdministered(), local);
+        assertEquals(val.isUniversal(), !local);
+        assertEquals(((long) val.getOUI() << 24) | val.getNIC(), val.getBits());
+    }
+
+    @Test(dataProvider = "bitPairs")
+    public void testCompareToUnsigned(int mostSignificantBits, short leastSignificantBits) {
+        EUI48 val = new EUI48(mostSignificantBits, leastSignificantBits);
+        assertEquals(val.compareToUnsigned(val), 0);
+        assertEquals(Integer.signum(val.compareToUnsigned(new EUI48(0x800000008000L))), Integer.signum(val.toString().compareTo("80:00:00:00:80:00")));
+        assertEquals(Integer.signum(val.compareToUnsigned(new EUI48(0x7fffffff7fffL))), Integer.signum(val.toString().compareTo("7f:ff:ff:ff:7f:ff")));
+    }
 }
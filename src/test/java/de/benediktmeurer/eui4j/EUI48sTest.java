@@ -0,0 +1,178 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link EUI48s} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48s
+ */
+public class EUI48sTest {
+    @DataProvider(name = "bits")
+    public Object[][] dataProviderBits() {
+        Random random = new Random(48);
+        Object[][] data = new Object[100][];
+        for (int n = 0; n < data.length; ++n) {
+            data[n] = new Object[] { random.nextLong() >>> 16 };
+        }
+        data[0][0] = 0L;
+        data[1][0] = EUI48s.BROADCAST;
+        data[2][0] = 0x001b213a4b5cL;
+        data[3][0] = 0xfedcba987654L;
+        return data;
+    }
+
+    @DataProvider(name = "names")
+    public Object[][] dataProviderNames() {
+        return new Object[][] {
+                { "00:1b:21:3a:4b:5c", 0x001b213a4b5cL },
+                { "00:1b:21:3a:4b:5c".replace(':', '-'), 0x001b213a4b5cL },
+                { "00:1b:21:3a:4b:5c".toUpperCase(), 0x001b213a4b5cL },
+                { "fe:dc:ba:98:76:54", 0xfedcba987654L }
+        };
+    }
+
+    @DataProvider(name = "invalidNames")
+    public Object[][] dataProviderInvalidNames() {
+        return new Object[][] {
+                { "" },
+                { "00:1b:21:3a:4b" },
+                { "00:1b:21:3a:4b:5c" + ":00" },
+                { "00:1b:21:3a:4b:5c".replaceFirst(":", "-") },
+                { "00:1b:21:3a:4b:5c".replace('b', 'x') }
+        };
+    }
+
+    @Test(dataProvider = "bits")
+    public void testMatchesEUI48(long bits) {
+        EUI48 val = new EUI48(bits);
+        assertEquals(EUI48s.toEUI48(bits), val);
+        assertEquals(EUI48s.toBits(val), bits);
+        assertEquals(EUI48s.toString(bits), val.toString());
+        assertEquals(EUI48s.toOctets(bits), val.getOctets());
+        assertEquals(EUI48s.fromOctets(val.getOctets()), bits);
+        assertEquals(EUI48s.hash64(bits), val.hash64());
+        assertEquals(EUI48s.hashCode(bits), val.hashCode());
+        assertEquals(EUI48s.getOUI(bits), val.getOUI());
+        assertEquals(EUI48s.getNIC(bits), val.getNIC());
+        assertEquals(EUI48s.isMulticast(bits), val.isMulticast());
+        assertEquals(EUI48s.isLocallyAdministered(bits), val.isLocallyAdministered());
+        assertEquals(EUI48s.isBroadcast(bits), val.isBroadcast());
+        assertEquals(EUI48s.parse(val.toString()), bits);
+    }
+
+    @Test(dataProvider = "bits")
+    public void testCompare(long bits) {
+        EUI48 val = new EUI48(bits);
+        for (Object[] other : dataProviderBits()) {
+            EUI48 o = new EUI48((Long) other[0]);
+            assertEquals(Integer.signum(EUI48s.compare(bits, o.getBits())), Integer.signum(val.compareTo(o)));
+            assertEquals(Integer.signum(EUI48s.compareUnsigned(bits, o.getBits())), Integer.signum(val.compareToUnsigned(o)));
+        }
+    }
+
+    @Test(dataProvider = "bits")
+    public void testFormat(long bits) {
+        String name = EUI48s.toString(bits);
+        char[] chars = new char[17 + 4];
+        assertEquals(EUI48s.format(bits, chars, 2), 17 + 2);
+        assertEquals(new String(chars, 2, 17), name);
+        byte[] bytes = new byte[17 + 4];
+        assertEquals(EUI48s.format(bits, bytes, 3), 17 + 3);
+        assertEquals(new String(bytes, 3, 17, StandardCharsets.US_ASCII), name);
+        assertEquals(EUI48s.appendTo(bits, new StringBuilder("mac=")).toString(), "mac=" + name);
+    }
+
+    @Test(dataProvider = "bits")
+    public void testOctets(long bits) {
+        byte[] octets = new byte[6 + 2];
+        assertEquals(EUI48s.putOctets(bits, octets, 1), 6 + 1);
+        assertEquals(EUI48s.fromOctets(octets, 1), bits);
+        long rebuilt = 0;
+        for (int n = 0; n < 6; ++n) {
+            assertEquals(EUI48s.getOctet(bits, n), octets[1 + n] & 0xff);
+            rebuilt = EUI48s.setOctet(rebuilt, n, octets[1 + n]);
+        }
+        assertEquals(rebuilt, bits);
+    }
+
+    @Test(dataProvider = "names")
+    public void testParse(String name, long bits) {
+        assertEquals(EUI48s.parse(name), bits);
+        assertEquals(EUI48s.parse(new StringBuilder("<").append(name).append(">"), 1, name.length() + 1), bits);
+        byte[] ascii = ("  " + name).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(EUI48s.parse(ascii, 2, name.length()), bits);
+    }
+
+    @Test(dataProvider = "invalidNames", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalid(String name) {
+        EUI48s.parse(name);
+    }
+
+    @Test(dataProvider = "invalidNames", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalidBytes(String name) {
+        EUI48s.parse(name.getBytes(StandardCharsets.US_ASCII), 0, name.length());
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testParseOutOfBounds() {
+        EUI48s.parse("00:1b:21:3a:4b:5c", 1, 17 + 1);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetOctetOutOfBounds() {
+        EUI48s.getOctet(0L, 6);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFromOctetsInvalidLength() {
+        EUI48s.fromOctets(new byte[6 - 1]);
+    }
+
+    @Test
+    public void testBroadcast() {
+        assertTrue(EUI48s.isBroadcast(EUI48s.BROADCAST));
+        assertFalse(EUI48s.isBroadcast(0x001b213a4b5cL));
+        assertEquals(EUI48s.getOUI(0x001b213a4b5cL), 0x001b21);
+        assertEquals(EUI48s.getNIC(0x001b213a4b5cL), 0x3a4b5c);
+    }
+
+    @Test
+    public void testIsValid() {
+        assertTrue(EUI48s.isValid(0L));
+        assertTrue(EUI48s.isValid(0xffffffffffffL));
+        assertFalse(EUI48s.isValid(1L << 48));
+        assertFalse(EUI48s.isValid(-1L));
+        assertEquals(EUI48s.checkValid(0x001b213a4b5cL), 0x001b213a4b5cL);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCheckValidInvalid() {
+        EUI48s.checkValid(1L << 48);
+    }
+}
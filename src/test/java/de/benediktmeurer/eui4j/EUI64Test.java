@@ -18,6 +18,11 @@ package de.benediktmeurer.eui4j;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
 
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -57,11 +62,27 @@ public class EUI64Test {
         };
     }
 
+    @DataProvider(name = "namesAndClassifications")
+    public Object[][] dataProviderNamesAndClassifications() {
+        return new Object[][] {
+                // name, OUI, NIC, multicast, broadcast, locally administered
+                { "00:00:00:00:00:00:00:00", 0x000000, 0x0000000000L, false, false, false },
+                { "00:1b:21:ff:fe:3a:4b:5c", 0x001b21, 0xfffe3a4b5cL, false, false, false },
+                { "01:00:5e:00:00:00:00:fb", 0x01005e, 0x00000000fbL, true, false, false },
+                { "02:42:ac:ff:fe:11:00:02", 0x0242ac, 0xfffe110002L, false, false, true },
+                { "fe:ff:ff:ff:ff:ff:ff:ff", 0xfeffff, 0xffffffffffL, false, false, true },
+                { "ff:ff:ff:ff:ff:ff:ff:fe", 0xffffff, 0xfffffffffeL, true, false, true },
+                { "ff:ff:ff:ff:ff:ff:ff:ff", 0xffffff, 0xffffffffffL, true, true, true }
+        };
+    }
+
     @DataProvider(name = "bitsAndOctets")
     public Object[][] dataProviderBitsAndOctets() {
         return new Object[][] {
                 { 0x1122334455667711L, new byte[] { 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, 0x77, 0x11 } },
-                { 0L, new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 } }
+                { 0L, new byte[] { 0, 0, 0, 0, 0, 0, 0, 0 } },
+                { 0x0011223344556680L, new byte[] { 0x00, 0x11, 0x22, 0x33, 0x44, 0x55, 0x66, (byte) 0x80 } },
+                { 0xfedcba9876543210L, new byte[] { (byte) 0xfe, (byte) 0xdc, (byte) 0xba, (byte) 0x98, 0x76, 0x54, 0x32, 0x10 } }
         };
     }
 
@@ -77,6 +98,31 @@ public class EUI64Test {
         };
     }
 
+    @DataProvider(name = "hashDatasets")
+    public Object[][] dataProviderHashDatasets() {
+        // Sequential addresses from one OUI with a 40-bit extension identifier.
+        EUI64[] sequential = new EUI64[1 << 18];
+        for (int n = 0; n < sequential.length; ++n) {
+            sequential[n] = new EUI64(0x001b210000000000L | n);
+        }
+
+        // Modified EUI-64s derived from sequential blocks of EUI-48s in 64 different OUIs.
+        Random random = new Random(0x5eed);
+        EUI64[] perOUI = new EUI64[1 << 18];
+        for (int n = 0; n < perOUI.length; n += 4096) {
+            long oui = random.nextInt(1 << 24) & ~0x030000;
+            long nic = random.nextInt(1 << 24) & ~0xfff;
+            for (int i = 0; i < 4096; ++i) {
+                perOUI[n + i] = new EUI64((oui << 40) | 0xfffe000000L | (nic + i));
+            }
+        }
+
+        return new Object[][] {
+                { sequential },
+                { perOUI }
+        };
+    }
+
     @Test(dataProvider = "bitsAndOctets")
     public void testGetOctets(long bits, byte[] octets) {
         assertEquals(new EUI64(bits).getOctets(), octets);
@@ -112,6 +158,55 @@ public class EUI64Test {
         assertEquals(new EUI64(bits).hashCode(), new EUI64(bits).hashCode());
     }
 
+    @Test(dataProvider = "bits")
+    public void testHash64(long bits) {
+        assertEquals(new EUI64(bits).hash64(), new EUI64(bits).hash64());
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHashCodeCollisions(EUI64[] vals) {
+        Set<Integer> hashCodes = new HashSet<Integer>();
+        for (EUI64 val : vals) {
+            hashCodes.add(val.hashCode());
+        }
+        // Birthday bound for 2^18 values in a 32-bit space is about 8 collisions.
+        assertTrue(hashCodes.size() >= vals.length - 64, "distinct hash codes: " + hashCodes.size());
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHashCodeBuckets(EUI64[] vals) {
+        // Use a table with load factor 1 and the bucket index computation of java.util.HashMap.
+        int[] buckets = new int[vals.length];
+        for (EUI64 val : vals) {
+            int h = val.hashCode();
+            ++buckets[(h ^ (h >>> 16)) & (buckets.length - 1)];
+        }
+        int empty = 0, max = 0;
+        for (int load : buckets) {
+            if (load == 0) {
+                ++empty;
+            }
+            max = Math.max(max, load);
+        }
+        // A uniform hash leaves a fraction of 1/e (about 0.368) of the buckets empty.
+        double emptyFraction = (double) empty / buckets.length;
+        assertTrue(emptyFraction > 0.36 && emptyFraction < 0.376, "empty buckets: " + emptyFraction);
+        assertTrue(max <= 12, "maximum bucket load: " + max);
+    }
+
+    @Test(dataProvider = "hashDatasets")
+    public void testHash64Partitions(EUI64[] vals) {
+        int[] partitions = new int[10];
+        for (EUI64 val : vals) {
+            long h = val.hash64();
+            ++partitions[(int) ((h >>> 1) % partitions.length)];
+        }
+        int expected = vals.length / partitions.length;
+        for (int count : partitions) {
+            assertTrue(Math.abs(count - expected) < expected / 20, "partition size: " + count);
+        }
+    }
+
     @Test(dataProvider = "bits")
     public void testEquals(long bits) {
         assertEquals(new EUI64(bits), new EUI64(bits));
@@ -151,4 +246,26 @@ public class EUI64Test {
     public void testFromStringWithInvalidName(String name) {
         EUI64.fromString(name);
     }
+
+    @Test(dataProvider = "namesAndClassifications")
+    public void testClassification(String name, int oui, long nic, boolean multicast, boolean broadcast, boolean local) {
+        EUI64 val = EUI64.fromString(name);
+        assertEquals(val.getOUI(), oui);
+        assertEquals(val.getNIC(), nic);
+        assertEquals(val.isMulticast(), multicast);
+        assertEquals(val.isUnicast(), !multicast);
+        assertEquals(val.isBroadcast(), broadcast);
+        assertEquals(val.isLocallyAdministered(), local);
+        assertEquals(val.isUniversal(), !local);
+        assertEquals(((long) val.getOUI() << 40) | val.getNIC(), val.getBits());
+    }
+
+    @Test(dataProvider = "bits")
+    public void testCompareToUnsigned(long bits) {
+        EUI64 val = new EUI64(bits);
+        assertEquals(val.compareToUnsigned(val), 0);
+        assertEquals(Integer.signum(val.compareToUnsigned(new EUI64(0L))), (bits == 0) ? 0 : 1);
+        assertEquals(Integer.signum(new EUI64(-1L).compareToUnsigned(val)), (bits == -1L) ? 0 : 1);
+        assertEquals(Integer.signum(val.compareToUnsigned(new EUI64(0x8000000000000000L))), Integer.signum(val.toString().compareTo("80:00:00:00:00:00:00:00")));
+    }
 }
@@ -0,0 +1,183 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link EUI64s} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI64s
+ */
+public class EUI64sTest {
+    @DataProvider(name = "bits")
+    public Object[][] dataProviderBits() {
+        Random random = new Random(64);
+        Object[][] data = new Object[100][];
+        for (int n = 0; n < data.length; ++n) {
+            data[n] = new Object[] { random.nextLong() };
+        }
+        data[0][0] = 0L;
+        data[1][0] = EUI64s.BROADCAST;
+        data[2][0] = 0x001b21fffe3a4b5cL;
+        data[3][0] = 0xfedcba9876543210L;
+        return data;
+    }
+
+    @DataProvider(name = "names")
+    public Object[][] dataProviderNames() {
+        return new Object[][] {
+                { "00:1b:21:ff:fe:3a:4b:5c", 0x001b21fffe3a4b5cL },
+                { "00:1b:21:ff:fe:3a:4b:5c".replace(':', '-'), 0x001b21fffe3a4b5cL },
+                { "00:1b:21:ff:fe:3a:4b:5c".toUpperCase(), 0x001b21fffe3a4b5cL },
+                { "fe:dc:ba:98:76:54:32:10", 0xfedcba9876543210L }
+        };
+    }
+
+    @DataProvider(name = "invalidNames")
+    public Object[][] dataProviderInvalidNames() {
+        return new Object[][] {
+                { "" },
+                { "00:1b:21:ff:fe:3a:4b" },
+                { "00:1b:21:ff:fe:3a:4b:5c" + ":00" },
+                { "00:1b:21:ff:fe:3a:4b:5c".replaceFirst(":", "-") },
+                { "00:1b:21:ff:fe:3a:4b:5c".replace('b', 'x') }
+        };
+    }
+
+    @Test(dataProvider = "bits")
+    public void testMatchesEUI64(long bits) {
+        EUI64 val = new EUI64(bits);
+        assertEquals(EUI64s.toEUI64(bits), val);
+        assertEquals(EUI64s.toBits(val), bits);
+        assertEquals(EUI64s.toString(bits), val.toString());
+        assertEquals(EUI64s.toOctets(bits), val.getOctets());
+        assertEquals(EUI64s.fromOctets(val.getOctets()), bits);
+        assertEquals(EUI64s.hash64(bits), val.hash64());
+        assertEquals(EUI64s.hashCode(bits), val.hashCode());
+        assertEquals(EUI64s.getOUI(bits), val.getOUI());
+        assertEquals(EUI64s.getNIC(bits), val.getNIC());
+        assertEquals(EUI64s.isMulticast(bits), val.isMulticast());
+        assertEquals(EUI64s.isLocallyAdministered(bits), val.isLocallyAdministered());
+        assertEquals(EUI64s.isBroadcast(bits), val.isBroadcast());
+        assertEquals(EUI64s.parse(val.toString()), bits);
+    }
+
+    @Test(dataProvider = "bits")
+    public void testCompare(long bits) {
+        EUI64 val = new EUI64(bits);
+        for (Object[] other : dataProviderBits()) {
+            EUI64 o = new EUI64((Long) other[0]);
+            assertEquals(Integer.signum(EUI64s.compare(bits, o.getBits())), Integer.signum(val.compareTo(o)));
+            assertEquals(Integer.signum(EUI64s.compareUnsigned(bits, o.getBits())), Integer.signum(val.compareToUnsigned(o)));
+        }
+    }
+
+    @Test(dataProvider = "bits")
+    public void testFormat(long bits) {
+        String name = EUI64s.toString(bits);
+        char[] chars = new char[23 + 4];
+        assertEquals(EUI64s.format(bits, chars, 2), 23 + 2);
+        assertEquals(new String(chars, 2, 23), name);
+        byte[] bytes = new byte[23 + 4];
+        assertEquals(EUI64s.format(bits, bytes, 3), 23 + 3);
+        assertEquals(new String(bytes, 3, 23, StandardCharsets.US_ASCII), name);
+        assertEquals(EUI64s.appendTo(bits, new StringBuilder("mac=")).toString(), "mac=" + name);
+    }
+
+    @Test(dataProvider = "bits")
+    public void testOctets(long bits) {
+        byte[] octets = new byte[8 + 2];
+        assertEquals(EUI64s.putOctets(bits, octets, 1), 8 + 1);
+        assertEquals(EUI64s.fromOctets(octets, 1), bits);
+        long rebuilt = 0;
+        for (int n = 0; n < 8; ++n) {
+            assertEquals(EUI64s.getOctet(bits, n), octets[1 + n] & 0xff);
+            rebuilt = EUI64s.setOctet(rebuilt, n, octets[1 + n]);
+        }
+        assertEquals(rebuilt, bits);
+    }
+
+    @Test(dataProvider = "names")
+    public void testParse(String name, long bits) {
+        assertEquals(EUI64s.parse(name), bits);
+        assertEquals(EUI64s.parse(new StringBuilder("<").append(name).append(">"), 1, name.length() + 1), bits);
+        byte[] ascii = ("  " + name).getBytes(StandardCharsets.US_ASCII);
+        assertEquals(EUI64s.parse(ascii, 2, name.length()), bits);
+    }
+
+    @Test(dataProvider = "invalidNames", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalid(String name) {
+        EUI64s.parse(name);
+    }
+
+    @Test(dataProvider = "invalidNames", expectedExceptions = IllegalArgumentException.class)
+    public void testParseInvalidBytes(String name) {
+        EUI64s.parse(name.getBytes(StandardCharsets.US_ASCII), 0, name.length());
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testParseOutOfBounds() {
+        EUI64s.parse("00:1b:21:ff:fe:3a:4b:5c", 1, 23 + 1);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetOctetOutOfBounds() {
+        EUI64s.getOctet(0L, 8);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testFromOctetsInvalidLength() {
+        EUI64s.fromOctets(new byte[8 - 1]);
+    }
+
+    @Test
+    public void testBroadcast() {
+        assertTrue(EUI64s.isBroadcast(EUI64s.BROADCAST));
+        assertFalse(EUI64s.isBroadcast(0x001b21fffe3a4b5cL));
+        assertEquals(EUI64s.getOUI(0x001b21fffe3a4b5cL), 0x001b21);
+        assertEquals(EUI64s.getNIC(0x001b21fffe3a4b5cL), 0xfffe3a4b5cL);
+    }
+
+    @Test
+    public void testEncapsulate() {
+        long bits = EUI64s.encapsulate(0x001b213a4b5cL);
+        assertEquals(bits, 0x001b21fffe3a4b5cL);
+        assertTrue(EUI64s.isEncapsulatedEUI48(bits));
+        assertEquals(EUI64s.decapsulate(bits), 0x001b213a4b5cL);
+        assertFalse(EUI64s.isEncapsulatedEUI48(0x001b21fffd3a4b5cL));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEncapsulateInvalid() {
+        EUI64s.encapsulate(1L << 48);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDecapsulateInvalid() {
+        EUI64s.decapsulate(0x001b21fffd3a4b5cL);
+    }
+}
@@ -0,0 +1,170 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link EUIComparators} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIComparators
+ */
+public class EUIComparatorsTest {
+    @DataProvider(name = "eui64Pairs")
+    public Object[][] dataProviderEUI64Pairs() {
+        return new Object[][] {
+                { "00:00:00:00:00:00:00:00", "00:00:00:00:00:00:00:01" },
+                { "00:00:00:00:00:00:00:ff", "00:00:00:00:00:00:01:00" },
+                { "7f:ff:ff:ff:ff:ff:ff:ff", "80:00:00:00:00:00:00:00" },
+                { "00:1b:21:ff:fe:3a:4b:5c", "fe:00:00:00:00:00:00:00" },
+                { "ff:ff:ff:ff:ff:ff:ff:fe", "ff:ff:ff:ff:ff:ff:ff:ff" }
+        };
+    }
+
+    @DataProvider(name = "eui48Pairs")
+    public Object[][] dataProviderEUI48Pairs() {
+        return new Object[][] {
+                { "00:00:00:00:00:00", "00:00:00:00:00:01" },
+                { "00:00:00:00:7f:ff", "00:00:00:00:80:00" },
+                { "7f:ff:ff:ff:ff:ff", "80:00:00:00:00:00" },
+                { "00:1b:21:3a:4b:5c", "fe:00:00:00:00:00" },
+                { "ff:ff:ff:ff:ff:fe", "ff:ff:ff:ff:ff:ff" }
+        };
+    }
+
+    @DataProvider(name = "arrays")
+    public Object[][] dataProviderArrays() {
+        return new Object[][] {
+                // a, b, sign of the comparison
+                { new byte[0], new byte[0], 0 },
+                { new byte[0], new byte[] { 0 }, -1 },
+                { new byte[] { 1, 2 }, new byte[] { 1, 2, 0 }, -1 },
+                { new byte[] { 1, 2, 3 }, new byte[] { 1, 2, 3 }, 0 },
+                { new byte[] { 1, (byte) 0x80 }, new byte[] { 1, 0x7f }, 1 },
+                { new byte[] { (byte) 0xff }, new byte[] { 0, 0, 0 }, 1 }
+        };
+    }
+
+    @Test(dataProvider = "eui48Pairs")
+    public void testEUI48OctetOrder(String lower, String higher) {
+        EUI48 a = EUI48.fromString(lower);
+        EUI48 b = EUI48.fromString(higher);
+        assertTrue(EUIComparators.EUI48_OCTET_ORDER.compare(a, b) < 0);
+        assertTrue(EUIComparators.EUI48_OCTET_ORDER.compare(b, a) > 0);
+        assertEquals(EUIComparators.EUI48_OCTET_ORDER.compare(a, a), 0);
+        assertTrue(EUIComparators.OCTET_ARRAY_ORDER.compare(a.getOctets(), b.getOctets()) < 0);
+        assertTrue(EUIComparators.compareOctets(a.getOctets(), b) < 0);
+        assertTrue(EUIComparators.compareOctets(b.getOctets(), a) > 0);
+        assertEquals(EUIComparators.compareOctets(a.getOctets(), a), 0);
+    }
+
+    @Test(dataProvider = "eui64Pairs")
+    public void testEUI64OctetOrder(String lower, String higher) {
+        EUI64 a = EUI64.fromString(lower);
+        EUI64 b = EUI64.fromString(higher);
+        assertTrue(EUIComparators.EUI64_OCTET_ORDER.compare(a, b) < 0);
+        assertTrue(EUIComparators.EUI64_OCTET_ORDER.compare(b, a) > 0);
+        assertEquals(EUIComparators.EUI64_OCTET_ORDER.compare(a, a), 0);
+        assertTrue(EUIComparators.OCTET_ARRAY_ORDER.compare(a.getOctets(), b.getOctets()) < 0);
+        assertTrue(EUIComparators.OCTET_BUFFER_ORDER.compare(ByteBuffer.wrap(a.getOctets()), ByteBuffer.wrap(b.getOctets())) < 0);
+        assertTrue(EUIComparators.compareOctets(a.getOctets(), b) < 0);
+        assertTrue(EUIComparators.compareOctets(b.getOctets(), a) > 0);
+        assertEquals(EUIComparators.compareOctets(a.getOctets(), a), 0);
+    }
+
+    @Test(dataProvider = "arrays")
+    public void testOctetArrayOrder(byte[] a, byte[] b, int sign) {
+        assertEquals(Integer.signum(EUIComparators.OCTET_ARRAY_ORDER.compare(a, b)), sign);
+        assertEquals(Integer.signum(EUIComparators.OCTET_ARRAY_ORDER.compare(b, a)), -sign);
+    }
+
+    @Test(dataProvider = "arrays")
+    public void testOctetBufferOrder(byte[] a, byte[] b, int sign) {
+        ByteBuffer x = ByteBuffer.allocateDirect(a.length + 3);
+        x.position(3);
+        x.put(a).position(3);
+        ByteBuffer y = ByteBuffer.wrap(b);
+        assertEquals(Integer.signum(EUIComparators.OCTET_BUFFER_ORDER.compare(x, y)), sign);
+        assertEquals(Integer.signum(EUIComparators.OCTET_BUFFER_ORDER.compare(y, x)), -sign);
+        assertEquals(x.position(), 3);
+        assertEquals(y.position(), 0);
+    }
+
+    @Test
+    public void testSortMatchesStringOrder() {
+        Random random = new Random(36);
+        List<EUI64> vals = new ArrayList<EUI64>();
+        List<String> names = new ArrayList<String>();
+        for (int n = 0; n < 1000; ++n) {
+            EUI64 val = new EUI64(random.nextLong());
+            vals.add(val);
+            names.add(val.toString());
+        }
+        Collections.sort(vals, EUIComparators.EUI64_OCTET_ORDER);
+        Collections.sort(names);
+        for (int n = 0; n < vals.size(); ++n) {
+            assertEquals(vals.get(n).toString(), names.get(n));
+        }
+    }
+
+    @Test
+    public void testCompareOctetRanges() {
+        byte[] a = { 9, 9, 1, 2, 3 };
+        byte[] b = { 1, 2, 4 };
+        assertEquals(EUIComparators.compareOctets(a, 2, b, 0, 2), 0);
+        assertTrue(EUIComparators.compareOctets(a, 2, b, 0, 3) < 0);
+        assertEquals(EUIComparators.compareOctets(ByteBuffer.wrap(a), 2, ByteBuffer.wrap(b), 0, 2), 0);
+        assertTrue(EUIComparators.compareOctets(ByteBuffer.wrap(a), 2, ByteBuffer.wrap(b), 0, 3) < 0);
+    }
+
+    @Test(expectedExceptions = ArrayIndexOutOfBoundsException.class)
+    public void testCompareOctetRangesOutOfBounds() {
+        EUIComparators.compareOctets(new byte[4], 2, new byte[4], 0, 3);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCompareOctetsInvalidLength() {
+        EUIComparators.compareOctets(new byte[6], new EUI64(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerializable() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(EUIComparators.EUI64_OCTET_ORDER);
+        out.close();
+        Comparator<EUI64> comparator = (Comparator<EUI64>) new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertTrue(comparator.compare(new EUI64(1L), new EUI64(-1L)) < 0);
+    }
+}
@@ -0,0 +1,288 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.alloc;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link EUI48Allocator} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48Allocator
+ */
+public class EUI48AllocatorTest {
+    private static final long BASE = 0x02001b000000L;
+
+    @DataProvider(name = "sizes")
+    public Object[][] dataProviderSizes() {
+        return new Object[][] { { 1 }, { 63 }, { 64 }, { 65 }, { 1000 }, { 4096 } };
+    }
+
+    @DataProvider(name = "blocks")
+    public Object[][] dataProviderBlocks() {
+        return new Object[][] {
+                // size, reserved offsets, block size, expected offset (or -1)
+                { 100, new int[0], 10, 0 },
+                { 100, new int[] { 0 }, 10, 1 },
+                { 100, new int[] { 5 }, 10, 6 },
+                { 100, new int[] { 5, 20 }, 10, 6 },
+                { 100, new int[] { 5, 15 }, 10, 16 },
+                { 100, new int[] { 50 }, 60, -1 },
+                { 100, new int[0], 100, 0 },
+                { 100, new int[0], 101, -1 },
+                { 200, new int[] { 10, 63, 127 }, 64, 128 },
+                { 200, new int[] { 10, 140 }, 64, 11 },
+                { 1000, new int[] { 100, 300, 301, 700 }, 398, 302 },
+                { 1000, new int[] { 100, 300, 301, 700 }, 399, -1 }
+        };
+    }
+
+    @DataProvider(name = "invalidRanges")
+    public Object[][] dataProviderInvalidRanges() {
+        return new Object[][] {
+                { 10L, 9L },
+                { -1L, 10L },
+                { 0L, 1L << 48 },
+                { 0L, 1L << 32 },
+                { BASE + 50, BASE + 150 },
+                { BASE - 10, BASE },
+                { BASE + 99, BASE + 200 },
+                { BASE - 10, BASE + 200 }
+        };
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testAllocate(int size) {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + size - 1));
+        assertEquals(allocator.getCapacity(), size);
+        for (int n = 0; n < size; ++n) {
+            EUI48 val = allocator.allocate();
+            assertEquals(val, new EUI48(BASE + n));
+            assertTrue(allocator.isAllocated(val));
+        }
+        assertNull(allocator.allocate());
+        assertEquals(allocator.allocateBits(), -1L);
+        assertEquals(allocator.getAllocatedCount(), size);
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testRelease(int size) {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + size - 1));
+        for (int n = 0; n < size; ++n) {
+            allocator.allocateBits();
+        }
+        for (int n = 0; n < size; n += 3) {
+            assertTrue(allocator.release(BASE + n));
+            assertFalse(allocator.release(BASE + n));
+            assertFalse(allocator.isAllocated(BASE + n));
+        }
+        BitSet reallocated = new BitSet();
+        for (int n = 0; n < size; n += 3) {
+            long bits = allocator.allocateBits();
+            assertEquals((bits - BASE) % 3, 0L);
+            reallocated.set((int) (bits - BASE));
+        }
+        assertEquals(reallocated.cardinality(), (size + 2) / 3);
+        assertEquals(allocator.allocateBits(), -1L);
+    }
+
+    @Test(dataProvider = "blocks")
+    public void testAllocateBlock(int size, int[] reserved, int n, int expected) {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + size - 1));
+        for (int offset : reserved) {
+            assertTrue(allocator.reserve(new EUI48(BASE + offset)));
+        }
+        EUI48 first = allocator.allocate(n);
+        if (expected < 0) {
+            assertNull(first);
+            assertEquals(allocator.getAllocatedCount(), reserved.length);
+        }
+        else {
+            assertEquals(first, new EUI48(BASE + expected));
+            for (int i = 0; i < n; ++i) {
+                assertTrue(allocator.isAllocated(BASE + expected + i));
+            }
+            assertEquals(allocator.getAllocatedCount(), reserved.length + n);
+            assertEquals(allocator.release(first, n), n);
+            assertEquals(allocator.getAllocatedCount(), reserved.length);
+        }
+    }
+
+    @Test
+    public void testAllocateBlockWrapsAround() {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 999));
+        assertEquals(allocator.allocateBits(300), BASE);
+        assertEquals(allocator.allocateBits(600), BASE + 300);
+        assertEquals(allocator.release(BASE, 300), 300);
+        assertEquals(allocator.allocateBits(200), BASE);
+        assertEquals(allocator.allocateBits(100), BASE + 200);
+        assertEquals(allocator.allocateBits(101), -1L);
+        assertEquals(allocator.allocateBits(100), BASE + 900);
+    }
+
+    @Test
+    public void testReserve() {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 9));
+        assertTrue(allocator.reserve(BASE));
+        assertTrue(allocator.reserve(BASE + 2));
+        assertFalse(allocator.reserve(BASE + 2));
+        assertEquals(allocator.allocateBits(), BASE + 1);
+        assertEquals(allocator.allocateBits(), BASE + 3);
+    }
+
+    @Test
+    public void testMultipleRanges() {
+        EUI48Allocator allocator = new EUI48Allocator();
+        allocator.addRange(BASE + 1000, BASE + 1009);
+        allocator.addRange(BASE, BASE + 4);
+        assertEquals(allocator.getCapacity(), 15L);
+        assertEquals(allocator.allocateBits(3), BASE);
+        assertEquals(allocator.allocateBits(3), BASE + 1000);
+        assertEquals(allocator.allocateBits(), BASE + 3);
+        assertEquals(allocator.allocateBits(), BASE + 4);
+        assertEquals(allocator.allocateBits(), BASE + 1003);
+        assertEquals(allocator.allocateBits(8), -1L);
+        assertEquals(allocator.allocateBits(6), BASE + 1004);
+        assertEquals(allocator.allocateBits(), -1L);
+    }
+
+    @Test(dataProvider = "invalidRanges", expectedExceptions = IllegalArgumentException.class)
+    public void testAddRangeInvalid(long first, long last) {
+        EUI48Allocator allocator = new EUI48Allocator();
+        allocator.addRange(BASE, BASE + 99);
+        allocator.addRange(first, last);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReleaseOutOfRange() {
+        new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 99)).release(BASE + 100);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testReleaseBlockAcrossRanges() {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 99));
+        allocator.addRange(BASE + 100, BASE + 199);
+        allocator.release(BASE + 90, 20);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAllocateInvalidBlockSize() {
+        new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 99)).allocate(0);
+    }
+
+    @Test
+    public void testConcurrentAllocate() throws Exception {
+        final int size = 200000;
+        final EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + size - 1));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; ++t) {
+                final int blockSize = 1 + (t % 4) * 3;
+                futures[t] = executor.submit(new Callable<BitSet>() {
+                    @Override
+                    public BitSet call() {
+                        BitSet allocated = new BitSet();
+                        for (int n = 0;; ++n) {
+                            long bits = (n % 2 == 0) ? allocator.allocateBits() : allocator.allocateBits(blockSize);
+                            if (bits < 0) {
+                                bits = allocator.allocateBits();
+                                if (bits < 0) {
+                                    return allocated;
+                                }
+                                allocated.set((int) (bits - BASE));
+                            }
+                            else {
+                                allocated.set((int) (bits - BASE), (int) (bits - BASE) + ((n % 2 == 0) ? 1 : blockSize));
+                            }
+                        }
+                    }
+                });
+            }
+            BitSet all = new BitSet();
+            int total = 0;
+            for (Future<?> future : futures) {
+                BitSet allocated = (BitSet) future.get();
+                assertFalse(all.intersects(allocated));
+                all.or(allocated);
+                total += allocated.cardinality();
+            }
+            assertEquals(total, size);
+            assertEquals(all.cardinality(), size);
+            assertEquals(allocator.getAllocatedCount(), (long) size);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testSnapshotRestore() throws IOException {
+        EUI48Allocator allocator = new EUI48Allocator(new EUI48(BASE), new EUI48(BASE + 999));
+        allocator.addRange(BASE + 0x10000, BASE + 0x10000 + 69);
+        allocator.allocateBits(500);
+        allocator.reserve(BASE + 777);
+        allocator.reserve(BASE + 0x10000 + 69);
+        File file = File.createTempFile("eui4j", "allocator");
+        try {
+            allocator.snapshot(file);
+            EUI48Allocator restored = EUI48Allocator.restore(file);
+            assertEquals(restored.getCapacity(), allocator.getCapacity());
+            assertEquals(restored.getAllocatedCount(), allocator.getAllocatedCount());
+            for (long bits = BASE; bits < BASE + 1000; ++bits) {
+                assertEquals(restored.isAllocated(bits), allocator.isAllocated(bits));
+            }
+            assertTrue(restored.isAllocated(BASE + 0x10000 + 69));
+            assertEquals(restored.allocateBits(278), -1L);
+            assertEquals(restored.allocateBits(277), BASE + 500);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testRestoreInvalid() throws IOException {
+        File file = File.createTempFile("eui4j", "allocator");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12 });
+            out.close();
+            EUI48Allocator.restore(file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
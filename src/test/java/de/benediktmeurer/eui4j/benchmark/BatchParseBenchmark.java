@@ -0,0 +1,97 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.bulk.EUIBatchParser;
+import de.benediktmeurer.eui4j.bulk.EUIGenerator;
+import de.benediktmeurer.eui4j.bulk.EUIParseResult;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Benchmarks parsing one million EUI-48 strings, one percent of which are malformed, with a loop
+ * over {@link EUI48#fromString(String)} and with the {@link EUIBatchParser}, from an array and
+ * from a buffer of lines.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BatchParseBenchmark {
+    private String[] names;
+
+    private ByteBuffer lines;
+
+    private EUIBatchParser parser;
+
+    @Setup
+    public void setup() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 0x5eed).setMalformedRate(0.01);
+        this.names = new String[1 << 20];
+        for (int n = 0; n < this.names.length; ++n) {
+            this.names[n] = generator.toString(n);
+        }
+        this.lines = ByteBuffer.allocateDirect(this.names.length * 18);
+        generator.format(this.lines, 0);
+        this.lines.flip();
+        this.parser = new EUIBatchParser(EUIType.EUI48);
+    }
+
+    @Benchmark
+    public BitSet parseLoop() {
+        long[] bits = new long[this.names.length];
+        BitSet errors = new BitSet();
+        for (int n = 0; n < this.names.length; ++n) {
+            try {
+                bits[n] = EUI48.fromString(this.names[n]).getBits();
+            }
+            catch (IllegalArgumentException e) {
+                errors.set(n);
+            }
+        }
+        return errors;
+    }
+
+    @Benchmark
+    public EUIParseResult parseArray() {
+        return this.parser.parse(this.names);
+    }
+
+    @Benchmark
+    public EUIParseResult parseBuffer() {
+        return this.parser.parse(this.lines, (byte) '\n');
+    }
+}
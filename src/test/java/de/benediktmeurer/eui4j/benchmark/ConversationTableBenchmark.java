@@ -0,0 +1,131 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.traffic.ConversationTable;
+
+/**
+ * Benchmarks counting one million frames over 10000 source and destination pairs in a
+ * {@code HashMap<List<EUI48>, long[]>} and in a {@link ConversationTable}, with one and with four
+ * threads, and extracting the top 100 conversations.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConversationTableBenchmark {
+    private long[] sources;
+
+    private long[] destinations;
+
+    private int[] sizes;
+
+    private ConversationTable shared;
+
+    private ConversationTable filled;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0xf10);
+        long[] hosts = new long[1000];
+        for (int n = 0; n < hosts.length; ++n) {
+            hosts[n] = 0x001b21000000L | random.nextInt(1 << 24);
+        }
+        long[][] pairs = new long[10000][];
+        for (int n = 0; n < pairs.length; ++n) {
+            pairs[n] = new long[] { hosts[random.nextInt(hosts.length)], hosts[random.nextInt(hosts.length)] };
+        }
+        this.sources = new long[1 << 20];
+        this.destinations = new long[this.sources.length];
+        this.sizes = new int[this.sources.length];
+        for (int n = 0; n < this.sources.length; ++n) {
+            long[] pair = pairs[(int) Math.min(pairs.length - 1, -Math.log(random.nextDouble()) * 1000)];
+            this.sources[n] = pair[0];
+            this.destinations[n] = pair[1];
+            this.sizes[n] = 64 + random.nextInt(1437);
+        }
+        this.shared = new ConversationTable(1 << 14);
+        this.filled = new ConversationTable(1 << 14);
+        for (int n = 0; n < this.sources.length; ++n) {
+            this.filled.add(this.sources[n], this.destinations[n], 1, this.sizes[n]);
+        }
+    }
+
+    @Benchmark
+    public int hashMap() {
+        Map<List<EUI48>, long[]> map = new HashMap<List<EUI48>, long[]>();
+        for (int n = 0; n < this.sources.length; ++n) {
+            List<EUI48> key = Arrays.asList(new EUI48(this.sources[n]), new EUI48(this.destinations[n]));
+            long[] counters = map.get(key);
+            if (counters == null) {
+                counters = new long[2];
+                map.put(key, counters);
+            }
+            counters[0] += 1;
+            counters[1] += this.sizes[n];
+        }
+        return map.size();
+    }
+
+    @Benchmark
+    public int table() {
+        ConversationTable table = new ConversationTable(1 << 14);
+        for (int n = 0; n < this.sources.length; ++n) {
+            table.add(this.sources[n], this.destinations[n], 1, this.sizes[n]);
+        }
+        return table.size();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int sharedTable() {
+        ConversationTable table = this.shared;
+        for (int n = 0; n < this.sources.length; ++n) {
+            table.add(this.sources[n], this.destinations[n], 1, this.sizes[n]);
+        }
+        return table.size();
+    }
+
+    @Benchmark
+    public Object top() {
+        return this.filled.topByBytes(100);
+    }
+}
@@ -0,0 +1,117 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.bulk.EUIGenerator;
+import de.benediktmeurer.eui4j.diff.DiffListener;
+import de.benediktmeurer.eui4j.diff.DiffSummary;
+import de.benediktmeurer.eui4j.diff.EUIDiff;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Benchmarks comparing two inventories of one million EUI-48s, which share 90% of their entries,
+ * with {@link HashSet}s of {@link EUI48}s and with the sequential and parallel {@link EUIDiff}.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DiffBenchmark {
+    private long[] before;
+
+    private long[] after;
+
+    @Setup
+    public void setup() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 0x5eed).addVendor(0x001b21, 5).addVendor(0x00005e, 1).setBlockLength(1000);
+        long[] all = new long[1100000];
+        generator.fill(all, 0);
+        this.before = Arrays.copyOfRange(all, 0, 1000000);
+        this.after = Arrays.copyOfRange(all, 100000, 1100000);
+        Arrays.sort(this.before);
+        Arrays.sort(this.after);
+    }
+
+    @Benchmark
+    public int hashSets() {
+        Set<EUI48> b = new HashSet<EUI48>();
+        Set<EUI48> a = new HashSet<EUI48>();
+        for (long bits : this.before) {
+            b.add(new EUI48(bits));
+        }
+        for (long bits : this.after) {
+            a.add(new EUI48(bits));
+        }
+        int changes = 0;
+        for (EUI48 val : a) {
+            if (!b.contains(val)) {
+                ++changes;
+            }
+        }
+        for (EUI48 val : b) {
+            if (!a.contains(val)) {
+                ++changes;
+            }
+        }
+        return changes;
+    }
+
+    @Benchmark
+    public DiffSummary diff() {
+        return EUIDiff.unsigned(EUIType.EUI48).diff(this.before, this.after, new DiffListener() {
+        });
+    }
+
+    @Benchmark
+    public long parallelDiff() {
+        final LongAdder changes = new LongAdder();
+        EUIDiff.unsigned(EUIType.EUI48).parallelDiff(this.before, this.after, 16, i -> new DiffListener() {
+            @Override
+            public void added(long bits) {
+                changes.increment();
+            }
+
+            @Override
+            public void removed(long bits) {
+                changes.increment();
+            }
+        });
+        return changes.sum();
+    }
+}
@@ -0,0 +1,69 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.alloc.EUI48Allocator;
+
+/**
+ * Benchmarks concurrent allocation and release with the {@link EUI48Allocator}, for a locally
+ * administered range of 2^24 addresses of which half are allocated.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class EUI48AllocatorBenchmark {
+    private EUI48Allocator allocator;
+
+    @Setup
+    public void setup() {
+        this.allocator = new EUI48Allocator(EUI48.fromString("02:00:00:00:00:00"), EUI48.fromString("02:00:00:ff:ff:ff"));
+        for (int n = 0; n < (1 << 23); ++n) {
+            this.allocator.allocateBits();
+        }
+    }
+
+    @Benchmark
+    public boolean allocateRelease() {
+        return this.allocator.release(this.allocator.allocateBits());
+    }
+
+    @Benchmark
+    public int allocateReleaseBlock() {
+        return this.allocator.release(this.allocator.allocateBits(16), 16);
+    }
+}
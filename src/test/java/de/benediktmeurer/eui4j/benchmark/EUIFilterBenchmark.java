@@ -0,0 +1,115 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.bulk.EUIFilter;
+
+/**
+ * Benchmarks counting and filtering one million random EUI-48s, half of which are multicast
+ * addresses, with the {@link EUIFilter} and with branching loops over {@link EUI48} objects and
+ * bit representations.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EUIFilterBenchmark {
+    private long[] bits;
+
+    private EUI48[] values;
+
+    private long[] out;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0x5eed);
+        this.bits = new long[1 << 20];
+        this.values = new EUI48[this.bits.length];
+        this.out = new long[this.bits.length];
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.bits[n] = random.nextLong() >>> 16;
+            this.values[n] = new EUI48(this.bits[n]);
+        }
+    }
+
+    @Benchmark
+    public int countObjects() {
+        int count = 0;
+        for (EUI48 val : this.values) {
+            if (val.isMulticast()) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countBranching() {
+        int count = 0;
+        for (long b : this.bits) {
+            if ((b & (1L << 40)) != 0) {
+                ++count;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countFilter() {
+        return EUIFilter.EUI48_MULTICAST.count(this.bits);
+    }
+
+    @Benchmark
+    public int filterBranching() {
+        int count = 0;
+        for (long b : this.bits) {
+            if ((b & (1L << 40)) != 0) {
+                this.out[count++] = b;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int filterFilter() {
+        return EUIFilter.EUI48_MULTICAST.filter(this.bits, 0, this.bits.length, this.out, 0);
+    }
+
+    @Benchmark
+    public int partitionFilter() {
+        return EUIFilter.EUI48_MULTICAST.partition(this.bits, 0, this.bits.length, this.out, 0);
+    }
+}
@@ -0,0 +1,110 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.bulk.EUIGenerator;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Benchmarks generating one million EUI-48s with the {@link EUIGenerator}, as bit representations,
+ * octets and formatted lines, compared to {@link Random} and {@link EUI48#toString()}.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EUIGeneratorBenchmark {
+    private EUIGenerator generator;
+
+    private long[] bits;
+
+    private ByteBuffer octets;
+
+    private ByteBuffer lines;
+
+    @Setup
+    public void setup() {
+        this.generator = new EUIGenerator(EUIType.EUI48, 0x5eed).addVendor(0x001b21, 5).addVendor(0x00005e, 1).setBlockLength(256).setDuplicateRate(0.05).setMalformedRate(0.01);
+        this.bits = new long[1 << 20];
+        this.octets = ByteBuffer.allocateDirect(this.bits.length * 6);
+        this.lines = ByteBuffer.allocateDirect(this.bits.length * 18);
+    }
+
+    @Benchmark
+    public long[] fillRandom() {
+        Random random = new Random(0x5eed);
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.bits[n] = random.nextLong() >>> 16;
+        }
+        return this.bits;
+    }
+
+    @Benchmark
+    public long[] fillGenerator() {
+        this.generator.fill(this.bits, 0);
+        return this.bits;
+    }
+
+    @Benchmark
+    public long[] parallelFillGenerator() {
+        this.generator.parallelFill(this.bits, 0);
+        return this.bits;
+    }
+
+    @Benchmark
+    public int fillOctets() {
+        this.octets.clear();
+        return this.generator.fill(this.octets, 0);
+    }
+
+    @Benchmark
+    public int formatObjects() {
+        this.lines.clear();
+        Random random = new Random(0x5eed);
+        for (int n = 0; n < this.bits.length; ++n) {
+            byte[] ascii = new EUI48(random.nextLong() >>> 16).toString().getBytes();
+            this.lines.put(ascii).put((byte) '\n');
+        }
+        return this.lines.position();
+    }
+
+    @Benchmark
+    public int formatGenerator() {
+        this.lines.clear();
+        return this.generator.format(this.lines, 0);
+    }
+}
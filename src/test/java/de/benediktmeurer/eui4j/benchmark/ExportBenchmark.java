@@ -0,0 +1,134 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.export.EUIExporter;
+import de.benediktmeurer.eui4j.export.ExportFormat;
+
+/**
+ * Benchmarks exporting one million EUI-48s as NDJSON to a channel that discards its input, with a
+ * {@link Writer} over {@link EUI48#toString()} and with the {@link EUIExporter}, sequentially and
+ * in parallel.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+    private long[] bits;
+
+    private EUI48[] values;
+
+    private EUIExporter exporter;
+
+    private ExecutorService executor;
+
+    private final WritableByteChannel channel = new WritableByteChannel() {
+        @Override
+        public int write(ByteBuffer src) {
+            int count = src.remaining();
+            src.position(src.limit());
+            return count;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0x5eed);
+        this.bits = new long[1 << 20];
+        this.values = new EUI48[this.bits.length];
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.bits[n] = random.nextLong() >>> 16;
+            this.values[n] = new EUI48(this.bits[n]);
+        }
+        this.exporter = new EUIExporter(ExportFormat.NDJSON);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.executor.shutdown();
+    }
+
+    @Benchmark
+    public void writeWriter() throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }, StandardCharsets.US_ASCII), 1 << 16);
+        for (EUI48 val : this.values) {
+            writer.write("{\"mac\":\"");
+            writer.write(val.toString());
+            writer.write("\"}\n");
+        }
+        writer.flush();
+    }
+
+    @Benchmark
+    public long writeExporter() throws IOException {
+        return this.exporter.writeEUI48s(this.bits, this.channel);
+    }
+
+    @Benchmark
+    public long writeExporterParallel() throws IOException {
+        return this.exporter.writeEUI48s(this.bits, 0, this.bits.length, this.channel, this.executor);
+    }
+}
@@ -0,0 +1,133 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Benchmarks the hash functions of {@link EUI48} and {@link EUI64}, both in isolation and when
+ * populating and probing a {@link HashMap} with sequential addresses from a single OUI.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HashCodeBenchmark {
+    @Param({ "65536", "1048576" })
+    public int size;
+
+    private EUI48[] eui48s;
+
+    private EUI64[] eui64s;
+
+    @Setup
+    public void setup() {
+        this.eui48s = new EUI48[this.size];
+        this.eui64s = new EUI64[this.size];
+        for (int n = 0; n < this.size; ++n) {
+            this.eui48s[n] = new EUI48(0x001b2100 | (n >> 16), (short) n);
+            this.eui64s[n] = new EUI64(0x001b21fffe000000L | n);
+        }
+    }
+
+    @Benchmark
+    public int eui48HashCode() {
+        int h = 0;
+        for (EUI48 val : this.eui48s) {
+            h += val.hashCode();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long eui48Hash64() {
+        long h = 0;
+        for (EUI48 val : this.eui48s) {
+            h += val.hash64();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public int eui48HashMap() {
+        Map<EUI48, EUI48> map = new HashMap<EUI48, EUI48>();
+        for (EUI48 val : this.eui48s) {
+            map.put(val, val);
+        }
+        int hits = 0;
+        for (EUI48 val : this.eui48s) {
+            if (map.get(val) != null) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+
+    @Benchmark
+    public int eui64HashCode() {
+        int h = 0;
+        for (EUI64 val : this.eui64s) {
+            h += val.hashCode();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public long eui64Hash64() {
+        long h = 0;
+        for (EUI64 val : this.eui64s) {
+            h += val.hash64();
+        }
+        return h;
+    }
+
+    @Benchmark
+    public int eui64HashMap() {
+        Map<EUI64, EUI64> map = new HashMap<EUI64, EUI64>();
+        for (EUI64 val : this.eui64s) {
+            map.put(val, val);
+        }
+        int hits = 0;
+        for (EUI64 val : this.eui64s) {
+            if (map.get(val) != null) {
+                ++hits;
+            }
+        }
+        return hits;
+    }
+}
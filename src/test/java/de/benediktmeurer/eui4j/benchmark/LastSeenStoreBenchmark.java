@@ -0,0 +1,89 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.store.LastSeenStore;
+
+/**
+ * Benchmarks updates and point lookups of the {@link LastSeenStore} with sequential EUI-48 keys
+ * from a single OUI.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LastSeenStoreBenchmark {
+    private static final long BASE_KEY = 0x001b21fffe000000L;
+
+    private File directory;
+
+    private LastSeenStore store;
+
+    private long sequence;
+
+    @Setup
+    public void setup() throws IOException {
+        this.directory = File.createTempFile("eui4j", "benchmark");
+        this.directory.delete();
+        this.store = new LastSeenStore(this.directory);
+        for (int n = 0; n < (1 << 22); ++n) {
+            this.store.put(BASE_KEY | n, n, 0);
+        }
+        this.store.flush();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.store.close();
+        for (File file : this.directory.listFiles()) {
+            file.delete();
+        }
+        this.directory.delete();
+    }
+
+    @Benchmark
+    public void put() throws IOException {
+        long n = this.sequence++;
+        this.store.put(BASE_KEY | (n & 0xffffff), n, 1);
+    }
+
+    @Benchmark
+    public Object get() {
+        long n = this.sequence++;
+        return this.store.get(BASE_KEY | (n & 0x3fffff));
+    }
+}
@@ -0,0 +1,75 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+
+/**
+ * Benchmarks parsing and formatting of EUI-48s with the {@link EUIMetrics} instrumentation
+ * disabled and enabled.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    @Param({ "false", "true" })
+    public boolean enabled;
+
+    private final EUI48 value = EUI48.fromString("00:1b:21:3a:4b:5c");
+
+    @Setup
+    public void setup() {
+        EUIMetrics.setEnabled(this.enabled);
+    }
+
+    @TearDown
+    public void tearDown() {
+        EUIMetrics.setEnabled(false);
+        EUIMetrics.reset();
+    }
+
+    @Benchmark
+    public EUI48 parse() {
+        return EUI48.fromString("00:1b:21:3a:4b:5c");
+    }
+
+    @Benchmark
+    public String format() {
+        return this.value.toString();
+    }
+}
@@ -0,0 +1,143 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.BootstrapServiceRegistryBuilder;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.hibernate.EUI48NaturalIdCache;
+
+/**
+ * Benchmarks resolving MAC address natural ids to entity references in new sessions on an
+ * in-memory H2 database, without a cache, with the second-level natural id cache (Ehcache), and
+ * with an {@link EUI48NaturalIdCache}. The 10000 devices all fit into either cache.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NaturalIdBenchmark {
+    private static final long BASE = 0x001b21000000L;
+
+    private static final int DEVICES = 10000;
+
+    @Param({ "NONE", "SECOND_LEVEL", "EUI48" })
+    private String cache;
+
+    private SessionFactory sessionFactory;
+
+    private EUI48[] macs;
+
+    private Random random;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:NaturalIdBenchmark;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.cache.use_second_level_cache", Boolean.toString(this.cache.equals("SECOND_LEVEL")));
+        configuration.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+        configuration.addAnnotatedClass(Device.class);
+        BootstrapServiceRegistryBuilder bootstrap = new BootstrapServiceRegistryBuilder();
+        if (this.cache.equals("EUI48")) {
+            bootstrap.with(new EUI48NaturalIdCache());
+        }
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder(bootstrap.build()).applySettings(configuration.getProperties())
+                .buildServiceRegistry());
+        this.macs = new EUI48[DEVICES];
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (int n = 0; n < DEVICES; ++n) {
+                Device device = new Device();
+                device.id = (long) n;
+                device.mac = this.macs[n] = new EUI48(BASE + n * 13);
+                session.save(device);
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        this.random = new Random(0x5eed);
+        for (EUI48 mac : this.macs) {
+            resolve(mac);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    public Object resolve() {
+        return resolve(this.macs[this.random.nextInt(DEVICES)]);
+    }
+
+    private Object resolve(EUI48 mac) {
+        Session session = this.sessionFactory.openSession();
+        try {
+            return session.bySimpleNaturalId(Device.class).getReference(mac);
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Entity(name = "NaturalIdDevice")
+    @NaturalIdCache
+    public static class Device {
+        @Id
+        Long id;
+
+        @NaturalId
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        EUI48 mac;
+    }
+}
@@ -0,0 +1,120 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.bulk.EUIGenerator;
+import de.benediktmeurer.eui4j.bulk.EUIOctetCodec;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Benchmarks decoding and encoding one million tightly packed EUIs in wire format, one
+ * {@link EUI48} or {@link EUI64} object at a time and with the {@link EUIOctetCodec}, from and to
+ * a byte array and a direct buffer.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class OctetCodecBenchmark {
+    @Param({ "EUI48", "EUI64" })
+    private EUIType type;
+
+    private EUIOctetCodec codec;
+
+    private int octets;
+
+    private long[] bits;
+
+    private byte[] bytes;
+
+    private ByteBuffer buffer;
+
+    @Setup
+    public void setup() {
+        this.codec = new EUIOctetCodec(this.type);
+        this.octets = this.codec.getOctets();
+        this.bits = new EUIGenerator(this.type, 0x0c7e75L).longs(0, 1 << 20).toArray();
+        this.bytes = new byte[this.bits.length * this.octets];
+        this.codec.encode(this.bits, 0, this.bytes, 0, this.octets, this.bits.length);
+        this.buffer = ByteBuffer.allocateDirect(this.bytes.length);
+        this.buffer.put(this.bytes).clear();
+    }
+
+    @Benchmark
+    public long[] decodeObjects() {
+        for (int n = 0; n < this.bits.length; ++n) {
+            byte[] octets = Arrays.copyOfRange(this.bytes, n * this.octets, (n + 1) * this.octets);
+            this.bits[n] = (this.type == EUIType.EUI48) ? new EUI48(octets).getBits() : new EUI64(octets).getBits();
+        }
+        return this.bits;
+    }
+
+    @Benchmark
+    public long[] decodeArray() {
+        this.codec.decode(this.bytes, 0, this.octets, this.bits, 0, this.bits.length);
+        return this.bits;
+    }
+
+    @Benchmark
+    public long[] decodeBuffer() {
+        this.codec.decode(this.buffer, 0, this.octets, this.bits, 0, this.bits.length);
+        return this.bits;
+    }
+
+    @Benchmark
+    public byte[] encodeObjects() {
+        for (int n = 0; n < this.bits.length; ++n) {
+            byte[] octets = (this.type == EUIType.EUI48) ? new EUI48(this.bits[n]).getOctets() : new EUI64(this.bits[n]).getOctets();
+            System.arraycopy(octets, 0, this.bytes, n * this.octets, this.octets);
+        }
+        return this.bytes;
+    }
+
+    @Benchmark
+    public byte[] encodeArray() {
+        this.codec.encode(this.bits, 0, this.bytes, 0, this.octets, this.bits.length);
+        return this.bytes;
+    }
+
+    @Benchmark
+    public ByteBuffer encodeBuffer() {
+        this.codec.encode(this.bits, 0, this.buffer, 0, this.octets, this.bits.length);
+        return this.buffer;
+    }
+}
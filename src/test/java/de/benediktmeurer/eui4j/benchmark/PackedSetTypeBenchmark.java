@@ -0,0 +1,228 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.CollectionTable;
+import javax.persistence.Column;
+import javax.persistence.ElementCollection;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI48SetType;
+
+/**
+ * Benchmarks loading and flushing an entity with thousands of EUI-48s in an in-memory H2
+ * database, stored either as an element collection of {@link EUI48BinaryType} rows or as a single
+ * {@link EUI48SetType} column.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PackedSetTypeBenchmark {
+    @Param({ "5000" })
+    private int size;
+
+    private SessionFactory sessionFactory;
+
+    private int counter;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:PackedSetTypeBenchmark;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.jdbc.batch_size", "100");
+        configuration.addAnnotatedClass(RowMembership.class);
+        configuration.addAnnotatedClass(PackedMembership.class);
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+        Random random = new Random(0x5eed);
+        Set<EUI48> devices = new HashSet<EUI48>();
+        while (devices.size() < this.size) {
+            devices.add(new EUI48(0x001b21000000L | random.nextInt(1 << 24)));
+        }
+        RowMembership rows = new RowMembership();
+        rows.id = 1L;
+        rows.devices = new HashSet<EUI48>(devices);
+        PackedMembership packed = new PackedMembership();
+        packed.id = 1L;
+        packed.devices = new HashSet<EUI48>(devices);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.save(rows);
+            session.save(packed);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    public int loadRows() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            return ((RowMembership) session.get(RowMembership.class, 1L)).devices.size();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public int loadPacked() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            return ((PackedMembership) session.get(PackedMembership.class, 1L)).devices.size();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public boolean loadPackedAndDecode() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            return ((PackedMembership) session.get(PackedMembership.class, 1L)).devices.contains(new EUI48(0x001b21000000L));
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void flushUnchangedRows() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            ((RowMembership) session.get(RowMembership.class, 1L)).devices.size();
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void flushUnchangedPacked() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            ((PackedMembership) session.get(PackedMembership.class, 1L)).devices.size();
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void flushChangedRows() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            toggle(((RowMembership) session.get(RowMembership.class, 1L)).devices);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public void flushChangedPacked() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            toggle(((PackedMembership) session.get(PackedMembership.class, 1L)).devices);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    private void toggle(Set<EUI48> devices) {
+        EUI48 val = new EUI48(0x02000000ffffL);
+        if ((this.counter++ & 1) == 0) {
+            devices.add(val);
+        }
+        else {
+            devices.remove(val);
+        }
+    }
+
+    @Entity
+    public static class RowMembership {
+        @Id
+        Long id;
+
+        @ElementCollection
+        @CollectionTable(name = "RowMembership_devices")
+        @Column(name = "device")
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        Set<EUI48> devices;
+    }
+
+    @Entity
+    public static class PackedMembership {
+        @Id
+        Long id;
+
+        @Column(length = 1 << 20)
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48SetType")
+        Set<EUI48> devices;
+    }
+}
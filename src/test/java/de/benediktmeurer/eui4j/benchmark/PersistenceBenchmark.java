@@ -0,0 +1,351 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Cacheable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI64BinaryType;
+
+/**
+ * Benchmarks entities keyed by a MAC address in an in-memory H2 or HSQLDB database, comparing the
+ * {@link EUI48BinaryType} and {@link EUI64BinaryType} mappings with a plain {@code BIGINT} column
+ * and a {@code VARCHAR} column holding the canonical string. The workloads are batch inserts,
+ * primary key lookups bypassing the second-level cache, range scans over 100 consecutive keys and
+ * second-level cache hits (Ehcache). The {@code benchmark} profile runs with the JMH {@code gc}
+ * profiler, whose {@code gc.alloc.rate.norm} reports the bytes allocated per operation.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+    private static final int BATCH = 100;
+
+    private static final int RANGE = 100;
+
+    private static final int CACHED = 1000;
+
+    @Param({ "H2", "HSQLDB" })
+    private Database database;
+
+    @Param({ "EUI48_BINARY", "EUI64_BINARY", "LONG", "STRING" })
+    private Strategy strategy;
+
+    @Param({ "10000" })
+    private int size;
+
+    private SessionFactory sessionFactory;
+
+    private long[] bits;
+
+    private Random random;
+
+    private long next;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", this.database.driver);
+        configuration.setProperty("hibernate.connection.url", this.database.url);
+        configuration.setProperty("hibernate.dialect", this.database.dialect);
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.jdbc.batch_size", Integer.toString(BATCH));
+        configuration.setProperty("hibernate.cache.use_second_level_cache", "true");
+        configuration.setProperty("hibernate.cache.region.factory_class", "org.hibernate.cache.ehcache.EhCacheRegionFactory");
+        configuration.addAnnotatedClass(this.strategy.entityClass);
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+        this.random = new Random(0x5eed);
+        Set<Long> devices = new HashSet<Long>();
+        while (devices.size() < this.size) {
+            devices.add(0x001b21000000L | this.random.nextInt(1 << 24));
+        }
+        this.bits = new long[this.size];
+        int index = 0;
+        for (long val : devices) {
+            this.bits[index++] = val;
+        }
+        Arrays.sort(this.bits);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (long val : this.bits) {
+                session.save(this.strategy.create(val, "device"));
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        this.next = 0x020000000000L;
+    }
+
+    @Setup(Level.Iteration)
+    public void prepare() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.createQuery("delete from " + this.strategy.entityName + " where name = 'batch'").executeUpdate();
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        for (int n = 0; n < CACHED; ++n) {
+            session = this.sessionFactory.openSession();
+            try {
+                session.get(this.strategy.entityClass, this.strategy.key(this.bits[n]));
+            }
+            finally {
+                session.close();
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void batchInsert() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (int n = 0; n < BATCH; ++n) {
+                session.save(this.strategy.create(this.next++, "batch"));
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Object lookup() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.setCacheMode(CacheMode.IGNORE);
+            return session.get(this.strategy.entityClass, this.strategy.key(this.bits[this.random.nextInt(this.size)]));
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public List<?> rangeScan() {
+        int from = this.random.nextInt(this.size - RANGE);
+        Session session = this.sessionFactory.openSession();
+        try {
+            return session.createQuery("from " + this.strategy.entityName + " where mac between :from and :to")
+                    .setParameter("from", this.strategy.key(this.bits[from]))
+                    .setParameter("to", this.strategy.key(this.bits[from + RANGE - 1]))
+                    .list();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Benchmark
+    public Object cacheHit() {
+        Session session = this.sessionFactory.openSession();
+        try {
+            return session.get(this.strategy.entityClass, this.strategy.key(this.bits[this.random.nextInt(CACHED)]));
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    public enum Database {
+        H2("org.h2.Driver", "jdbc:h2:mem:PersistenceBenchmark;DB_CLOSE_DELAY=-1", "org.hibernate.dialect.H2Dialect"),
+        HSQLDB("org.hsqldb.jdbc.JDBCDriver", "jdbc:hsqldb:mem:PersistenceBenchmark", "org.hibernate.dialect.HSQLDialect");
+
+        final String driver;
+
+        final String url;
+
+        final String dialect;
+
+        Database(String driver, String url, String dialect) {
+            this.driver = driver;
+            this.url = url;
+            this.dialect = dialect;
+        }
+    }
+
+    public enum Strategy {
+        EUI48_BINARY(Eui48BinaryDevice.class) {
+            @Override
+            Serializable key(long bits) {
+                return new EUI48(bits);
+            }
+
+            @Override
+            Object create(long bits, String name) {
+                Eui48BinaryDevice device = new Eui48BinaryDevice();
+                device.mac = new EUI48(bits);
+                device.name = name;
+                return device;
+            }
+        },
+        EUI64_BINARY(Eui64BinaryDevice.class) {
+            @Override
+            Serializable key(long bits) {
+                return new EUI64(bits);
+            }
+
+            @Override
+            Object create(long bits, String name) {
+                Eui64BinaryDevice device = new Eui64BinaryDevice();
+                device.mac = new EUI64(bits);
+                device.name = name;
+                return device;
+            }
+        },
+        LONG(LongDevice.class) {
+            @Override
+            Serializable key(long bits) {
+                return bits;
+            }
+
+            @Override
+            Object create(long bits, String name) {
+                LongDevice device = new LongDevice();
+                device.mac = bits;
+                device.name = name;
+                return device;
+            }
+        },
+        STRING(StringDevice.class) {
+            @Override
+            Serializable key(long bits) {
+                return new EUI48(bits).toString();
+            }
+
+            @Override
+            Object create(long bits, String name) {
+                StringDevice device = new StringDevice();
+                device.mac = new EUI48(bits).toString();
+                device.name = name;
+                return device;
+            }
+        };
+
+        final Class<?> entityClass;
+
+        final String entityName;
+
+        Strategy(Class<?> entityClass) {
+            this.entityClass = entityClass;
+            this.entityName = entityClass.getAnnotation(Entity.class).name();
+        }
+
+        abstract Serializable key(long bits);
+
+        abstract Object create(long bits, String name);
+    }
+
+    @Entity(name = "Eui48BinaryDevice")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class Eui48BinaryDevice {
+        @Id
+        @Column(length = 6)
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        EUI48 mac;
+
+        String name;
+    }
+
+    @Entity(name = "Eui64BinaryDevice")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class Eui64BinaryDevice {
+        @Id
+        @Column(length = 8)
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI64BinaryType")
+        EUI64 mac;
+
+        String name;
+    }
+
+    @Entity(name = "LongDevice")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class LongDevice {
+        @Id
+        Long mac;
+
+        String name;
+    }
+
+    @Entity(name = "StringDevice")
+    @Cacheable
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+    public static class StringDevice {
+        @Id
+        @Column(length = 17)
+        String mac;
+
+        String name;
+    }
+}
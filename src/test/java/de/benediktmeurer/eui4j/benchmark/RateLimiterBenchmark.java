@@ -0,0 +1,118 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.traffic.EUI48RateLimiter;
+
+/**
+ * Benchmarks rate limiting one million requests from a million distinct EUI-48s, with a few hot
+ * addresses, in a {@code ConcurrentHashMap<EUI48, Bucket>} and in an {@link EUI48RateLimiter},
+ * with four threads.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@Threads(4)
+public class RateLimiterBenchmark {
+    private long[] requests;
+
+    private ConcurrentHashMap<EUI48, Bucket> map;
+
+    private EUI48RateLimiter limiter;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0xdc4);
+        this.requests = new long[1 << 20];
+        for (int n = 0; n < this.requests.length; ++n) {
+            this.requests[n] = 0x020000000000L | ((random.nextInt(4) == 0) ? random.nextInt(16) : random.nextInt(1 << 20));
+        }
+        this.map = new ConcurrentHashMap<EUI48, Bucket>();
+        this.limiter = new EUI48RateLimiter(10, 20, 1 << 21);
+    }
+
+    @Benchmark
+    public int concurrentHashMap() {
+        int acquired = 0;
+        for (long bits : this.requests) {
+            if (this.map.computeIfAbsent(new EUI48(bits), k -> new Bucket(10, 20)).tryAcquire()) {
+                ++acquired;
+            }
+        }
+        return acquired;
+    }
+
+    @Benchmark
+    public int limiter() {
+        int acquired = 0;
+        for (long bits : this.requests) {
+            if (this.limiter.tryAcquire(bits)) {
+                ++acquired;
+            }
+        }
+        return acquired;
+    }
+
+    static final class Bucket {
+        private final double rate;
+
+        private final double burst;
+
+        private double tokens;
+
+        private long time = System.nanoTime();
+
+        Bucket(double rate, double burst) {
+            this.rate = rate;
+            this.burst = burst;
+            this.tokens = burst;
+        }
+
+        synchronized boolean tryAcquire() {
+            long now = System.nanoTime();
+            this.tokens = Math.min(this.burst, this.tokens + (now - this.time) * this.rate / 1e9);
+            this.time = now;
+            if (this.tokens < 1) {
+                return false;
+            }
+            this.tokens -= 1;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.hibernate.EUI48EntityResolver;
+
+/**
+ * Benchmarks resolving 1000 concurrently requested MAC addresses to entities in an in-memory H2
+ * database, with one {@code SELECT} per lookup on a thread pool, and with an
+ * {@link EUI48EntityResolver} on the same thread pool, whose cache is disabled so that every lookup
+ * reaches the database.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ResolverBenchmark {
+    private static final long BASE = 0x001b21000000L;
+
+    private static final int DEVICES = 10000;
+
+    private static final int LOOKUPS = 1000;
+
+    private SessionFactory sessionFactory;
+
+    private ExecutorService executor;
+
+    private EUI48EntityResolver<Device> resolver;
+
+    @Setup
+    public void setup() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:ResolverBenchmark;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.addAnnotatedClass(Device.class);
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (int n = 0; n < DEVICES; ++n) {
+                Device device = new Device();
+                device.id = (long) n;
+                device.mac = new EUI48(BASE + n);
+                device.name = "device" + n;
+                session.save(device);
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        this.executor = Executors.newFixedThreadPool(8);
+        this.resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, EUI48EntityResolver.DEFAULT_BATCH_SIZE,
+                EUI48EntityResolver.DEFAULT_WINDOW, TimeUnit.MICROSECONDS, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        this.resolver.close();
+        this.executor.shutdown();
+        this.sessionFactory.close();
+    }
+
+    @Benchmark
+    public int perLookup() throws Exception {
+        List<Future<Device>> futures = new ArrayList<Future<Device>>(LOOKUPS);
+        for (int n = 0; n < LOOKUPS; ++n) {
+            final EUI48 mac = new EUI48(BASE + (n * 7919) % DEVICES);
+            futures.add(this.executor.submit(new Callable<Device>() {
+                @Override
+                public Device call() {
+                    Session session = sessionFactory.openSession();
+                    try {
+                        return (Device) session.createQuery("from " + Device.class.getName() + " e where e.mac = :mac").setParameter("mac", mac)
+                                .setReadOnly(true).uniqueResult();
+                    }
+                    finally {
+                        session.close();
+                    }
+                }
+            }));
+        }
+        int found = 0;
+        for (Future<Device> future : futures) {
+            if (future.get() != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int resolver() throws Exception {
+        List<CompletableFuture<Device>> futures = new ArrayList<CompletableFuture<Device>>(LOOKUPS);
+        for (int n = 0; n < LOOKUPS; ++n) {
+            futures.add(this.resolver.resolve(BASE + (n * 7919) % DEVICES));
+        }
+        int found = 0;
+        for (CompletableFuture<Device> future : futures) {
+            if (future.get() != null) {
+                ++found;
+            }
+        }
+        return found;
+    }
+
+    @Entity(name = "ResolverDevice")
+    public static class Device {
+        @Id
+        Long id;
+
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        EUI48 mac;
+
+        String name;
+    }
+}
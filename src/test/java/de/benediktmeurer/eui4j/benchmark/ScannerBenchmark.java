@@ -0,0 +1,120 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.scan.EUIScanner;
+import de.benediktmeurer.eui4j.scan.ScanListener;
+
+/**
+ * Benchmarks extracting the EUI-48s from 16 MB of synthetic DHCP log lines with a regular
+ * expression and {@link EUI48#fromString(String)}, and with the {@link EUIScanner} from a string,
+ * a byte array and, in parallel, from a direct buffer.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScannerBenchmark {
+    private static final Pattern PATTERN = Pattern.compile("(?<![0-9A-Fa-f])[0-9A-Fa-f]{2}([:-])[0-9A-Fa-f]{2}(?:\\1[0-9A-Fa-f]{2}){4}(?![0-9A-Fa-f])");
+
+    private String text;
+
+    private byte[] bytes;
+
+    private ByteBuffer buffer;
+
+    private EUIScanner scanner;
+
+    private long sum;
+
+    private final ScanListener listener = (type, bits, offset, length) -> this.sum += bits;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0x5ca9);
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 16 << 20) {
+            sb.append("Oct 19 08:26:").append(10 + random.nextInt(50)).append(" sw1 dhcpd[1742]: DHCPACK on 10.0.");
+            sb.append(random.nextInt(256)).append('.').append(random.nextInt(256)).append(" to ");
+            sb.append(EUI48s.toString(0x001b21000000L | random.nextInt(1 << 24))).append(" via eth0\n");
+        }
+        this.text = sb.toString();
+        this.bytes = this.text.getBytes(StandardCharsets.US_ASCII);
+        this.buffer = ByteBuffer.allocateDirect(this.bytes.length);
+        this.buffer.put(this.bytes).flip();
+        this.scanner = new EUIScanner();
+    }
+
+    @Benchmark
+    public long regex() {
+        long sum = 0;
+        Matcher matcher = PATTERN.matcher(this.text);
+        while (matcher.find()) {
+            sum += EUI48.fromString(matcher.group()).getBits();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long scanText() {
+        this.sum = 0;
+        this.scanner.scan(this.text, this.listener);
+        return this.sum;
+    }
+
+    @Benchmark
+    public long scanBytes() {
+        this.sum = 0;
+        this.scanner.scan(this.bytes, this.listener);
+        return this.sum;
+    }
+
+    @Benchmark
+    public long parallelScanBuffer() {
+        final long[] sums = new long[64];
+        this.scanner.parallelScan(this.buffer, sums.length, i -> (type, bits, offset, length) -> sums[i] += bits);
+        long sum = 0;
+        for (long val : sums) {
+            sum += val;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,105 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.shard.EUIShardRouter;
+
+/**
+ * Benchmarks routing one million sequential EUI-48s to shards with {@code hashCode() % n} and with
+ * the jump consistent hash and rendezvous hash {@link EUIShardRouter}s.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ShardRouterBenchmark {
+    @Param({ "16", "128" })
+    private int shards;
+
+    private long[] bits;
+
+    private int[] out;
+
+    private EUIShardRouter jump;
+
+    private EUIShardRouter rendezvous;
+
+    private EUIShardRouter weighted;
+
+    @Setup
+    public void setup() {
+        this.bits = new long[1 << 20];
+        this.out = new int[this.bits.length];
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.bits[n] = 0x001b21000000L + n;
+        }
+        double[] weights = new double[this.shards];
+        double[] uniform = new double[this.shards];
+        for (int n = 0; n < this.shards; ++n) {
+            weights[n] = 1 + n % 3;
+            uniform[n] = 1;
+        }
+        this.jump = EUIShardRouter.jump(this.shards);
+        this.rendezvous = EUIShardRouter.rendezvous(uniform);
+        this.weighted = EUIShardRouter.rendezvous(weights);
+    }
+
+    @Benchmark
+    public int[] hashCodeModulo() {
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.out[n] = Math.floorMod(new EUI48(this.bits[n]).hashCode(), this.shards);
+        }
+        return this.out;
+    }
+
+    @Benchmark
+    public int[] jump() {
+        this.jump.route(this.bits, 0, this.bits.length, this.out, 0);
+        return this.out;
+    }
+
+    @Benchmark
+    public int[] rendezvous() {
+        this.rendezvous.route(this.bits, 0, this.bits.length, this.out, 0);
+        return this.out;
+    }
+
+    @Benchmark
+    public int[] weightedRendezvous() {
+        this.weighted.route(this.bits, 0, this.bits.length, this.out, 0);
+        return this.out;
+    }
+}
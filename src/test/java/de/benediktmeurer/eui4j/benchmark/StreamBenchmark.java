@@ -0,0 +1,92 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.stream.EUICollectors;
+import de.benediktmeurer.eui4j.stream.EUIStreams;
+
+/**
+ * Benchmarks collecting parallel streams of one million EUI-48s from a thousand OUIs with the
+ * {@link EUICollectors} and with the standard {@link Collectors}.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamBenchmark {
+    private List<EUI48> values;
+
+    private long[] sortedBits;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(0x5eed);
+        long[] bits = new long[1 << 20];
+        for (int n = 0; n < bits.length; ++n) {
+            bits[n] = ((long) random.nextInt(1000) << 24) | random.nextInt(1 << 24);
+        }
+        this.values = EUIStreams.eui48s(bits).collect(Collectors.toList());
+        this.sortedBits = this.values.stream().collect(EUICollectors.toSortedEUI48Bits());
+    }
+
+    @Benchmark
+    public Set<EUI48> collectToSet() {
+        return this.values.parallelStream().collect(Collectors.toSet());
+    }
+
+    @Benchmark
+    public Set<EUI48> collectToBitmapSet() {
+        return this.values.parallelStream().collect(EUICollectors.toEUI48BitmapSet());
+    }
+
+    @Benchmark
+    public List<EUI48> sortDistinct() {
+        return this.values.parallelStream().sorted().distinct().collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public long[] collectToSortedBits() {
+        return this.values.parallelStream().collect(EUICollectors.toSortedEUI48Bits());
+    }
+
+    @Benchmark
+    public long countSortedDistinct() {
+        return EUIStreams.sortedEUI48s(this.sortedBits).parallel().sorted().distinct().filter((EUI48 val) -> (val.getBits() & 1) == 0).count();
+    }
+}
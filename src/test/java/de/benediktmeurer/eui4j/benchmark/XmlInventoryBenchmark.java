@@ -0,0 +1,139 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.stream.XMLStreamException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48XmlAdapter;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+import de.benediktmeurer.eui4j.xml.EUIXmlReader;
+import de.benediktmeurer.eui4j.xml.EUIXmlWriter;
+
+/**
+ * Benchmarks reading and writing an inventory of a hundred thousand EUI-48 attributes with JAXB
+ * and the {@link EUI48XmlAdapter}, and with the streaming {@link EUIXmlReader} and
+ * {@link EUIXmlWriter}. The EUIs are held as bit representations, so marshalling with JAXB
+ * includes building the object tree.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlInventoryBenchmark {
+    private static final String PATH = "inventory/device/@mac";
+
+    private long[] bits;
+
+    private Marshaller marshaller;
+
+    private Unmarshaller unmarshaller;
+
+    private EUIXmlReader reader;
+
+    private byte[] xml;
+
+    @Setup
+    public void setup() throws JAXBException {
+        Random random = new Random(0x5eed);
+        this.bits = new long[100000];
+        for (int n = 0; n < this.bits.length; ++n) {
+            this.bits[n] = random.nextLong() >>> 16;
+        }
+        JAXBContext context = JAXBContext.newInstance(Inventory.class);
+        this.marshaller = context.createMarshaller();
+        this.unmarshaller = context.createUnmarshaller();
+        this.reader = new EUIXmlReader(EUIType.EUI48, PATH);
+        this.xml = marshalJaxb().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String marshalJaxb() throws JAXBException {
+        Inventory inventory = new Inventory();
+        inventory.devices = new ArrayList<Device>(this.bits.length);
+        for (long b : this.bits) {
+            Device device = new Device();
+            device.mac = new EUI48(b);
+            inventory.devices.add(device);
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        this.marshaller.marshal(inventory, out);
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String writeStreaming() throws XMLStreamException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new EUIXmlWriter(EUIType.EUI48, out).writeDocument(PATH, LongStream.of(this.bits).iterator());
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Object unmarshalJaxb() throws JAXBException {
+        return this.unmarshaller.unmarshal(new ByteArrayInputStream(this.xml));
+    }
+
+    @Benchmark
+    public long readStreaming(Blackhole blackhole) throws XMLStreamException {
+        return this.reader.read(new ByteArrayInputStream(this.xml), blackhole::consume);
+    }
+
+    @XmlRootElement(name = "inventory")
+    public static class Inventory {
+        @XmlElement(name = "device")
+        List<Device> devices;
+    }
+
+    public static class Device {
+        @XmlAttribute(name = "mac")
+        @XmlJavaTypeAdapter(EUI48XmlAdapter.class)
+        EUI48 mac;
+    }
+}
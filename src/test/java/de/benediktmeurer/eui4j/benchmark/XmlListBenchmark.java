@@ -0,0 +1,137 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.benchmark;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48ListXmlAdapter;
+import de.benediktmeurer.eui4j.EUI48XmlAdapter;
+
+/**
+ * Benchmarks marshalling and unmarshalling an inventory of ten thousand EUI-48s with JAXB, as
+ * repeated elements with the {@link EUI48XmlAdapter} and as a single list value with the
+ * {@link EUI48ListXmlAdapter}.
+ * 
+ * @author Benedikt Meurer
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class XmlListBenchmark {
+    private ElementInventory elementInventory;
+
+    private ListInventory listInventory;
+
+    private Marshaller elementMarshaller;
+
+    private Marshaller listMarshaller;
+
+    private Unmarshaller elementUnmarshaller;
+
+    private Unmarshaller listUnmarshaller;
+
+    private String elementXml;
+
+    private String listXml;
+
+    @Setup
+    public void setup() throws JAXBException {
+        Random random = new Random(0x5eed);
+        List<EUI48> macs = new ArrayList<EUI48>();
+        for (int n = 0; n < 10000; ++n) {
+            macs.add(new EUI48(random.nextLong() >>> 16));
+        }
+        this.elementInventory = new ElementInventory();
+        this.elementInventory.macs = macs;
+        this.listInventory = new ListInventory();
+        this.listInventory.macs = macs;
+        JAXBContext elementContext = JAXBContext.newInstance(ElementInventory.class);
+        JAXBContext listContext = JAXBContext.newInstance(ListInventory.class);
+        this.elementMarshaller = elementContext.createMarshaller();
+        this.listMarshaller = listContext.createMarshaller();
+        this.elementUnmarshaller = elementContext.createUnmarshaller();
+        this.listUnmarshaller = listContext.createUnmarshaller();
+        this.elementXml = marshalElements();
+        this.listXml = marshalList();
+    }
+
+    @Benchmark
+    public String marshalElements() throws JAXBException {
+        StringWriter writer = new StringWriter();
+        this.elementMarshaller.marshal(this.elementInventory, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public String marshalList() throws JAXBException {
+        StringWriter writer = new StringWriter();
+        this.listMarshaller.marshal(this.listInventory, writer);
+        return writer.toString();
+    }
+
+    @Benchmark
+    public Object unmarshalElements() throws JAXBException {
+        return this.elementUnmarshaller.unmarshal(new StringReader(this.elementXml));
+    }
+
+    @Benchmark
+    public Object unmarshalList() throws JAXBException {
+        return this.listUnmarshaller.unmarshal(new StringReader(this.listXml));
+    }
+
+    @XmlRootElement(name = "inventory")
+    public static class ElementInventory {
+        @XmlElement(name = "mac")
+        @XmlJavaTypeAdapter(EUI48XmlAdapter.class)
+        List<EUI48> macs;
+    }
+
+    @XmlRootElement(name = "inventory")
+    public static class ListInventory {
+        @XmlElement(name = "macs")
+        @XmlJavaTypeAdapter(EUI48ListXmlAdapter.class)
+        List<EUI48> macs;
+    }
+}
@@ -0,0 +1,29 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * This package contains JMH micro benchmarks for the EUI classes. The benchmarks are compiled with
+ * the tests and can be run using the {@code benchmark} profile:
+ * 
+ * <pre>
+ * mvn -Pbenchmark integration-test -DskipTests -Dbenchmark=HashCodeBenchmark
+ * </pre>
+ * 
+ * The {@code benchmark} property is a regular expression selecting the benchmarks to run. The
+ * benchmarks run with the JMH {@code gc} profiler, which reports the bytes allocated per operation;
+ * another profiler can be selected with the {@code benchmark.profiler} property.
+ */
+package de.benediktmeurer.eui4j.benchmark;
@@ -0,0 +1,263 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIMetrics;
+import de.benediktmeurer.eui4j.metrics.EUIMetricsSnapshot;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+import de.benediktmeurer.eui4j.metrics.ParseFailure;
+
+/**
+ * Unit tests for the {@link EUIBatchParser} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIBatchParser
+ */
+public class EUIBatchParserTest {
+    @DataProvider(name = "parsers")
+    public Object[][] dataProviderParsers() {
+        return new Object[][] {
+                { EUIType.EUI48, 1 },
+                { EUIType.EUI48, 7 },
+                { EUIType.EUI48, 64 },
+                { EUIType.EUI48, EUIBatchParser.DEFAULT_CHUNK_SIZE },
+                { EUIType.EUI64, 3 },
+                { EUIType.EUI64, 100 },
+                { EUIType.EUI64, EUIBatchParser.DEFAULT_CHUNK_SIZE }
+        };
+    }
+
+    @DataProvider(name = "strings")
+    public Object[][] dataProviderStrings() {
+        return new Object[][] {
+                { EUIType.EUI48, "00:1b:21:3a:4b:5c", 0x001b213a4b5cL },
+                { EUIType.EUI48, "00-1B-21-3A-4B-5C", 0x001b213a4b5cL },
+                { EUIType.EUI48, "ff:ff:ff:ff:ff:ff", 0xffffffffffffL },
+                { EUIType.EUI48, "00:1b:21:3a:4b", -1L },
+                { EUIType.EUI48, "00:1b:21:3a:4b:5c:", -1L },
+                { EUIType.EUI48, "00:1b-21:3a:4b:5c", -1L },
+                { EUIType.EUI48, "00.1b.21.3a.4b.5c", -1L },
+                { EUIType.EUI48, "00:1b:21:3a:4b:5g", -1L },
+                { EUIType.EUI48, "00:1b:21:3a:4b:5ä", -1L },
+                { EUIType.EUI48, "", -1L },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b:5c", 0x001b21fffe3a4b5cL },
+                { EUIType.EUI64, "FF-FF-FF-FF-FF-FF-FF-FF", -1L },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b", 0L },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b:x5", 0L },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b-5c", 0L }
+        };
+    }
+
+    @Test(dataProvider = "strings")
+    public void testParseString(EUIType type, String name, long bits) {
+        EUIParseResult result = new EUIBatchParser(type).parse(new String[] { name });
+        assertEquals(result.size(), 1);
+        assertEquals(result.isValid(0), isValid(type, name));
+        assertEquals(result.getBits()[0], result.isValid(0) ? bits : 0L);
+        assertEquals(result.getErrorCount(), result.isValid(0) ? 0 : 1);
+    }
+
+    @Test(dataProvider = "parsers")
+    public void testParseArray(EUIType type, int chunkSize) {
+        String[] names = names(type, 20000);
+        assertResult(type, new EUIBatchParser(type, chunkSize).parse(names), names);
+    }
+
+    @Test(dataProvider = "parsers")
+    public void testParseList(EUIType type, int chunkSize) {
+        String[] names = names(type, 5000);
+        EUIBatchParser parser = new EUIBatchParser(type, chunkSize);
+        assertResult(type, parser.parse(new ArrayList<String>(Arrays.asList(names))), names);
+        assertResult(type, parser.parse(new LinkedList<String>(Arrays.asList(names))), names);
+    }
+
+    @Test(dataProvider = "parsers")
+    public void testParseBuffer(EUIType type, int chunkSize) {
+        String[] names = names(type, 20000);
+        EUIBatchParser parser = new EUIBatchParser(type, chunkSize);
+        StringBuilder lines = new StringBuilder("garbage\n");
+        StringBuilder csv = new StringBuilder();
+        for (int n = 0; n < names.length; ++n) {
+            lines.append(names[n]).append((n % 5 == 0) ? "\r\n" : "\n");
+            csv.append((n == 0) ? "" : ",").append(names[n]);
+        }
+        ByteBuffer heap = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.US_ASCII));
+        heap.position(8);
+        assertResult(type, parser.parse(heap, (byte) '\n'), names);
+        assertEquals(heap.position(), 8);
+        byte[] bytes = csv.toString().getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        assertResult(type, parser.parse(direct, (byte) ','), names);
+    }
+
+    @Test
+    public void testParseBufferRecords() {
+        EUIBatchParser parser = new EUIBatchParser(EUIType.EUI48, 1);
+        assertEquals(parser.parse(ByteBuffer.allocate(0), (byte) '\n').size(), 0);
+        EUIParseResult result = parser.parse(ByteBuffer.wrap("\n00:00:00:00:00:01\n\n00:00:00:00:00:02\r".getBytes(StandardCharsets.US_ASCII)), (byte) '\n');
+        assertEquals(result.size(), 4);
+        assertEquals(result.getValidBits(), new long[] { 1L, 2L });
+        BitSet errors = new BitSet();
+        errors.set(0);
+        errors.set(2);
+        assertEquals(result.getErrors(), errors);
+        StringBuilder longRecord = new StringBuilder("00:00:00:00:00:03,");
+        for (int n = 0; n < 100; ++n) {
+            longRecord.append("00:");
+        }
+        result = parser.parse(ByteBuffer.wrap(longRecord.append(",00:00:00:00:00:04").toString().getBytes(StandardCharsets.US_ASCII)), (byte) ',');
+        assertEquals(result.size(), 3);
+        assertFalse(result.isValid(1));
+        assertEquals(result.getValidBits(), new long[] { 3L, 4L });
+    }
+
+    @Test
+    public void testParseNull() {
+        EUIParseResult result = new EUIBatchParser(EUIType.EUI64).parse(new String[] { null, "00:1b:21:ff:fe:3a:4b:5c" });
+        assertFalse(result.isValid(0));
+        assertTrue(result.isValid(1));
+        assertEquals(result.getValidBits(), new long[] { 0x001b21fffe3a4b5cL });
+    }
+
+    @Test
+    public void testCustomPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            String[] names = names(EUIType.EUI48, 10000);
+            EUIBatchParser parser = new EUIBatchParser(EUIType.EUI48, 100, pool);
+            assertEquals(parser.getChunkSize(), 100);
+            assertEquals(parser.getType(), EUIType.EUI48);
+            assertResult(EUIType.EUI48, parser.parse(names), names);
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testMetrics() {
+        String[] names = names(EUIType.EUI48, 1000);
+        EUIMetrics.reset();
+        EUIMetrics.setEnabled(true);
+        try {
+            for (String name : names) {
+                try {
+                    EUI48s.parse(name);
+                }
+                catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+            EUIMetricsSnapshot expected = EUIMetrics.snapshot();
+            EUIMetrics.reset();
+            new EUIBatchParser(EUIType.EUI48, 10).parse(names);
+            assertMetrics(EUIMetrics.snapshot(), expected);
+            EUIMetrics.reset();
+            StringBuilder lines = new StringBuilder();
+            for (String name : names) {
+                lines.append(name).append('\n');
+            }
+            new EUIBatchParser(EUIType.EUI48, 10).parse(ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.US_ASCII)), (byte) '\n');
+            assertMetrics(EUIMetrics.snapshot(), expected);
+        }
+        finally {
+            EUIMetrics.setEnabled(false);
+            EUIMetrics.reset();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidChunkSize() {
+        new EUIBatchParser(EUIType.EUI48, 0);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testIsValidOutOfBounds() {
+        new EUIBatchParser(EUIType.EUI48).parse(new String[0]).isValid(0);
+    }
+
+    private static String[] names(EUIType type, int count) {
+        EUIGenerator generator = new EUIGenerator(type, count).setMalformedRate(0.1);
+        String[] names = new String[count];
+        for (int n = 0; n < count; ++n) {
+            names[n] = generator.toString(n);
+            if (n % 3 == 0) {
+                names[n] = names[n].toUpperCase().replace(':', '-');
+            }
+        }
+        return names;
+    }
+
+    private static boolean isValid(EUIType type, String name) {
+        try {
+            parse(type, name);
+            return true;
+        }
+        catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private static long parse(EUIType type, String name) {
+        return (type == EUIType.EUI48) ? EUI48s.parse(name) : EUI64s.parse(name);
+    }
+
+    private static void assertResult(EUIType type, EUIParseResult result, String[] names) {
+        assertEquals(result.size(), names.length);
+        int errors = 0;
+        for (int n = 0; n < names.length; ++n) {
+            if (isValid(type, names[n])) {
+                assertTrue(result.isValid(n), names[n]);
+                assertEquals(result.getBits()[n], parse(type, names[n]), names[n]);
+            }
+            else {
+                assertFalse(result.isValid(n), names[n]);
+                assertEquals(result.getBits()[n], 0L, names[n]);
+                ++errors;
+            }
+        }
+        assertTrue(errors > 0);
+        assertEquals(result.getErrorCount(), errors);
+        assertEquals(result.getValidBits().length, names.length - errors);
+    }
+
+    private static void assertMetrics(EUIMetricsSnapshot actual, EUIMetricsSnapshot expected) {
+        assertEquals(actual.getParseCount(EUIType.EUI48), expected.getParseCount(EUIType.EUI48));
+        for (ParseFailure reason : ParseFailure.values()) {
+            assertEquals(actual.getParseFailureCount(EUIType.EUI48, reason), expected.getParseFailureCount(EUIType.EUI48, reason), reason.toString());
+        }
+    }
+}
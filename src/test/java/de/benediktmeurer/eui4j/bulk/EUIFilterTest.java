@@ -0,0 +1,233 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link EUIFilter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIFilter
+ */
+public class EUIFilterTest {
+    @DataProvider(name = "eui48Filters")
+    public Object[][] dataProviderEUI48Filters() {
+        return new Object[][] {
+                { EUIFilter.EUI48_MULTICAST },
+                { EUIFilter.EUI48_UNICAST },
+                { EUIFilter.EUI48_BROADCAST },
+                { EUIFilter.EUI48_LOCAL },
+                { EUIFilter.EUI48_UNIVERSAL },
+                { EUIFilter.eui48OUI(0x001b21) },
+                { EUIFilter.eui48OUI(0x001b21).negate() }
+        };
+    }
+
+    @DataProvider(name = "eui64Filters")
+    public Object[][] dataProviderEUI64Filters() {
+        return new Object[][] {
+                { EUIFilter.EUI64_MULTICAST },
+                { EUIFilter.EUI64_UNICAST },
+                { EUIFilter.EUI64_BROADCAST },
+                { EUIFilter.EUI64_LOCAL },
+                { EUIFilter.EUI64_UNIVERSAL },
+                { EUIFilter.eui64OUI(0x001b21) },
+                { EUIFilter.eui64OUI(0x001b21).negate() }
+        };
+    }
+
+    @DataProvider(name = "invalidOUIs")
+    public Object[][] dataProviderInvalidOUIs() {
+        return new Object[][] { { -1 }, { 0x1000000 }, { 0x7fffffff } };
+    }
+
+    @DataProvider(name = "invalidRanges")
+    public Object[][] dataProviderInvalidRanges() {
+        return new Object[][] { { -1, 5 }, { 5, 4 }, { 0, 11 } };
+    }
+
+    @Test(dataProvider = "eui48Filters")
+    public void testEUI48Predicates(EUIFilter filter) {
+        for (long bits : eui48Bits(1000)) {
+            EUI48 val = new EUI48(bits);
+            boolean expected;
+            if (filter == EUIFilter.EUI48_MULTICAST) {
+                expected = val.isMulticast();
+            }
+            else if (filter == EUIFilter.EUI48_UNICAST) {
+                expected = val.isUnicast();
+            }
+            else if (filter == EUIFilter.EUI48_BROADCAST) {
+                expected = val.isBroadcast();
+            }
+            else if (filter == EUIFilter.EUI48_LOCAL) {
+                expected = val.isLocallyAdministered();
+            }
+            else if (filter == EUIFilter.EUI48_UNIVERSAL) {
+                expected = val.isUniversal();
+            }
+            else {
+                expected = (val.getOUI() == 0x001b21) == filter.equals(EUIFilter.eui48OUI(0x001b21));
+            }
+            assertEquals(filter.test(bits), expected, val.toString());
+        }
+    }
+
+    @Test(dataProvider = "eui64Filters")
+    public void testEUI64Predicates(EUIFilter filter) {
+        for (long bits : eui64Bits(1000)) {
+            EUI64 val = new EUI64(bits);
+            boolean expected;
+            if (filter == EUIFilter.EUI64_MULTICAST) {
+                expected = val.isMulticast();
+            }
+            else if (filter == EUIFilter.EUI64_UNICAST) {
+                expected = val.isUnicast();
+            }
+            else if (filter == EUIFilter.EUI64_BROADCAST) {
+                expected = val.isBroadcast();
+            }
+            else if (filter == EUIFilter.EUI64_LOCAL) {
+                expected = val.isLocallyAdministered();
+            }
+            else if (filter == EUIFilter.EUI64_UNIVERSAL) {
+                expected = val.isUniversal();
+            }
+            else {
+                expected = (val.getOUI() == 0x001b21) == filter.equals(EUIFilter.eui64OUI(0x001b21));
+            }
+            assertEquals(filter.test(bits), expected, val.toString());
+        }
+    }
+
+    @Test(dataProvider = "eui48Filters")
+    public void testCount(EUIFilter filter) {
+        long[] bits = eui48Bits(1000);
+        int expected = 0;
+        for (int n = 100; n < 900; ++n) {
+            expected += filter.test(bits[n]) ? 1 : 0;
+        }
+        assertEquals(filter.count(bits, 100, 900), expected);
+        assertEquals(filter.count(bits) + filter.negate().count(bits), bits.length);
+    }
+
+    @Test(dataProvider = "eui48Filters")
+    public void testFilter(EUIFilter filter) {
+        long[] bits = eui48Bits(1000);
+        long[] expected = new long[bits.length];
+        int count = 0;
+        for (long b : bits) {
+            if (filter.test(b)) {
+                expected[count++] = b;
+            }
+        }
+        assertEquals(filter.filter(bits), Arrays.copyOf(expected, count));
+        long[] inPlace = bits.clone();
+        assertEquals(filter.filter(inPlace, 0, inPlace.length, inPlace, 0), count);
+        assertEquals(Arrays.copyOf(inPlace, count), Arrays.copyOf(expected, count));
+    }
+
+    @Test(dataProvider = "eui64Filters")
+    public void testPartition(EUIFilter filter) {
+        long[] bits = eui64Bits(1000);
+        long[] out = new long[bits.length + 20];
+        int count = filter.partition(bits, 0, bits.length, out, 10);
+        assertEquals(count, filter.count(bits));
+        assertEquals(Arrays.copyOfRange(out, 10, 10 + count), filter.filter(bits));
+        assertEquals(Arrays.copyOfRange(out, 10 + count, 10 + bits.length), filter.negate().filter(bits));
+        assertEquals(out[9], 0L);
+        assertEquals(out[10 + bits.length], 0L);
+    }
+
+    @Test
+    public void testNegate() {
+        assertEquals(EUIFilter.EUI48_MULTICAST.negate().negate(), EUIFilter.EUI48_MULTICAST);
+        assertFalse(EUIFilter.EUI48_MULTICAST.negate().test(0xffffffffffffL));
+        assertTrue(EUIFilter.EUI48_BROADCAST.negate().test(0xfffffffffffeL));
+        assertEquals(EUIFilter.of(0xff, 0x1ff), EUIFilter.of(0xff, 0xff));
+    }
+
+    @Test(dataProvider = "invalidOUIs", expectedExceptions = IllegalArgumentException.class)
+    public void testEUI48OUIInvalid(int oui) {
+        EUIFilter.eui48OUI(oui);
+    }
+
+    @Test(dataProvider = "invalidOUIs", expectedExceptions = IllegalArgumentException.class)
+    public void testEUI64OUIInvalid(int oui) {
+        EUIFilter.eui64OUI(oui);
+    }
+
+    @Test(dataProvider = "invalidRanges", expectedExceptions = ArrayIndexOutOfBoundsException.class)
+    public void testCountInvalidRange(int from, int to) {
+        EUIFilter.EUI48_MULTICAST.count(new long[10], from, to);
+    }
+
+    @Test(expectedExceptions = ArrayIndexOutOfBoundsException.class)
+    public void testFilterOutputTooSmall() {
+        EUIFilter.EUI48_MULTICAST.filter(new long[10], 0, 10, new long[10], 1);
+    }
+
+    private static long[] eui48Bits(int count) {
+        Random random = new Random(count);
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            switch (n % 4) {
+            case 0:
+                bits[n] = 0x001b21000000L | random.nextInt(1 << 24);
+                break;
+            case 1:
+                bits[n] = 0xffffffffffffL;
+                break;
+            default:
+                bits[n] = random.nextLong() >>> 16;
+                break;
+            }
+        }
+        return bits;
+    }
+
+    private static long[] eui64Bits(int count) {
+        Random random = new Random(count);
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            switch (n % 4) {
+            case 0:
+                bits[n] = 0x001b210000000000L | (random.nextLong() >>> 24);
+                break;
+            case 1:
+                bits[n] = -1L;
+                break;
+            default:
+                bits[n] = random.nextLong();
+                break;
+            }
+        }
+        return bits;
+    }
+}
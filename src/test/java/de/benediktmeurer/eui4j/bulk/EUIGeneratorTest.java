@@ -0,0 +1,268 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIGenerator} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIGenerator
+ */
+public class EUIGeneratorTest {
+    @DataProvider(name = "generators")
+    public Object[][] dataProviderGenerators() {
+        return new Object[][] {
+                { new EUIGenerator(EUIType.EUI48, 1) },
+                { new EUIGenerator(EUIType.EUI64, 2) },
+                { new EUIGenerator(EUIType.EUI48, 3).setBlockLength(100).setDuplicateRate(0.3, 1000) },
+                { new EUIGenerator(EUIType.EUI64, 4).setBlockLength(7).setDuplicateRate(0.5).setMalformedRate(0.2) },
+                { new EUIGenerator(EUIType.EUI48, 5).addVendor(0x001b21, 3).addVendor(0x00005e, 1).setBlockLength(1000).setDuplicateRate(0.1).setMalformedRate(0.1) }
+        };
+    }
+
+    @Test(dataProvider = "generators")
+    public void testDeterministic(EUIGenerator generator) {
+        long[] expected = new long[10000];
+        generator.fill(expected, 0);
+        long[] actual = new long[expected.length];
+        generator.fill(actual, 0);
+        assertEquals(actual, expected);
+        for (int n = 0; n < expected.length; n += 7) {
+            assertEquals(generator.getBits(n), expected[n]);
+        }
+        assertNotEquals(generator.split(0).getBits(0), generator.getBits(0));
+    }
+
+    @Test(dataProvider = "generators")
+    public void testFillAtOffset(EUIGenerator generator) {
+        long[] all = new long[20000];
+        generator.fill(all, 0);
+        long[] part = new long[12345];
+        generator.fill(part, 10, 12000, 3333);
+        for (int n = 10; n < 12000; ++n) {
+            assertEquals(part[n], all[3333 + n - 10]);
+        }
+        assertEquals(part[0], 0L);
+        assertEquals(part[12000], 0L);
+        assertEquals(generator.longs(5000, 6000).toArray(), Arrays.copyOfRange(all, 5000, 6000));
+    }
+
+    @Test(dataProvider = "generators")
+    public void testParallelFill(EUIGenerator generator) {
+        long[] expected = new long[300000];
+        generator.fill(expected, 42);
+        long[] actual = new long[expected.length];
+        generator.parallelFill(actual, 42);
+        assertEquals(actual, expected);
+        assertEquals(generator.longs(42, 42 + expected.length).parallel().toArray(), expected);
+    }
+
+    @Test(dataProvider = "generators")
+    public void testFillBuffer(EUIGenerator generator) {
+        int octets = (generator.getType() == EUIType.EUI48) ? EUI48s.OCTETS : EUI64s.OCTETS;
+        ByteBuffer buffer = ByteBuffer.allocateDirect(octets * 1000 + octets - 1);
+        assertEquals(generator.fill(buffer, 17), 1000);
+        assertEquals(buffer.remaining(), octets - 1);
+        buffer.flip();
+        byte[] bytes = new byte[octets];
+        for (int n = 0; n < 1000; ++n) {
+            buffer.get(bytes);
+            long bits = (octets == EUI48s.OCTETS) ? EUI48s.fromOctets(bytes) : EUI64s.fromOctets(bytes);
+            assertEquals(bits, generator.getBits(17 + n));
+        }
+    }
+
+    @Test(dataProvider = "generators")
+    public void testFillLittleEndianBuffer(EUIGenerator generator) {
+        int octets = (generator.getType() == EUIType.EUI48) ? EUI48s.OCTETS : EUI64s.OCTETS;
+        ByteBuffer buffer = ByteBuffer.allocate(octets * 100).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(3);
+        assertEquals(generator.fill(buffer, 5), 99);
+        assertEquals(buffer.position(), 3 + octets * 99);
+        assertEquals(buffer.order(), ByteOrder.LITTLE_ENDIAN);
+        byte[] bytes = new byte[octets];
+        for (int n = 0; n < 99; ++n) {
+            buffer.position(3 + n * octets);
+            buffer.get(bytes);
+            long bits = (octets == EUI48s.OCTETS) ? EUI48s.fromOctets(bytes) : EUI64s.fromOctets(bytes);
+            assertEquals(bits, generator.getBits(5 + n));
+        }
+    }
+
+    @Test(dataProvider = "generators")
+    public void testFormatBuffer(EUIGenerator generator) {
+        ByteBuffer buffer = ByteBuffer.allocate(50000);
+        int count = generator.format(buffer, 99);
+        buffer.flip();
+        String[] lines = StandardCharsets.US_ASCII.decode(buffer).toString().split("\n", -1);
+        assertEquals(lines.length, count + 1);
+        assertEquals(lines[count], "");
+        assertTrue(buffer.limit() > 50000 - 25);
+        for (int n = 0; n < count; ++n) {
+            assertEquals(lines[n], generator.toString(99 + n));
+        }
+    }
+
+    @Test(dataProvider = "generators")
+    public void testMalformed(EUIGenerator generator) {
+        for (int n = 0; n < 5000; ++n) {
+            String name = generator.toString(n);
+            try {
+                long bits = (generator.getType() == EUIType.EUI48) ? EUI48s.parse(name) : EUI64s.parse(name);
+                assertFalse(generator.isMalformed(n), name);
+                assertEquals(bits, generator.getBits(n));
+            }
+            catch (IllegalArgumentException e) {
+                assertTrue(generator.isMalformed(n), name);
+            }
+        }
+    }
+
+    @Test
+    public void testRates() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI64, 6).setDuplicateRate(0.25).setMalformedRate(0.1);
+        long[] bits = new long[100000];
+        generator.fill(bits, 0);
+        Set<Long> distinct = new HashSet<Long>();
+        int malformed = 0;
+        for (int n = 0; n < bits.length; ++n) {
+            distinct.add(bits[n]);
+            if (generator.isMalformed(n)) {
+                ++malformed;
+            }
+        }
+        assertEquals(distinct.size(), 75000, 1000);
+        assertEquals(malformed, 10000, 1000);
+    }
+
+    @Test
+    public void testVendors() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 7).addVendor(0x001b21, 1).addVendor(0x00005e, 3).addVendor(0xacde48, 4);
+        long[] bits = new long[80000];
+        generator.fill(bits, 0);
+        int[] counts = new int[3];
+        for (long b : bits) {
+            switch (EUI48s.getOUI(b)) {
+            case 0x001b21:
+                ++counts[0];
+                break;
+            case 0x00005e:
+                ++counts[1];
+                break;
+            case 0xacde48:
+                ++counts[2];
+                break;
+            default:
+                fail("unexpected OUI " + Integer.toHexString(EUI48s.getOUI(b)));
+            }
+        }
+        assertEquals(counts[0], 10000, 800);
+        assertEquals(counts[1], 30000, 800);
+        assertEquals(counts[2], 40000, 800);
+    }
+
+    @Test
+    public void testRandomOUIs() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 8);
+        for (int n = 0; n < 10000; ++n) {
+            long bits = generator.getBits(n);
+            assertFalse(EUI48s.isMulticast(bits));
+            assertFalse(EUI48s.isLocallyAdministered(bits));
+        }
+    }
+
+    @Test
+    public void testBlocks() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 9).setBlockLength(10);
+        long[] bits = new long[1000];
+        generator.fill(bits, 0);
+        for (int n = 0; n < bits.length; ++n) {
+            if (n % 10 != 0) {
+                assertEquals(EUI48s.getOUI(bits[n]), EUI48s.getOUI(bits[n - 1]));
+                assertEquals(EUI48s.getNIC(bits[n]), (EUI48s.getNIC(bits[n - 1]) + 1) & 0xffffff);
+            }
+        }
+    }
+
+    @Test
+    public void testSplit() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 10).addVendor(0x001b21, 1).setBlockLength(5);
+        EUIGenerator split = generator.split(1);
+        assertEquals(split.getType(), EUIType.EUI48);
+        assertEquals(EUI48s.getOUI(split.getBits(0)), 0x001b21);
+        assertEquals(generator.split(1).longs(0, 100).toArray(), split.longs(0, 100).toArray());
+        assertNotEquals(generator.split(2).longs(0, 100).toArray(), split.longs(0, 100).toArray());
+    }
+
+    @Test
+    public void testEUIs() {
+        EUIGenerator generator = new EUIGenerator(EUIType.EUI48, 11);
+        assertEquals(generator.getEUI48(5).getBits(), generator.getBits(5));
+        generator = new EUIGenerator(EUIType.EUI64, 11);
+        assertEquals(generator.getEUI64(5).getBits(), generator.getBits(5));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testGetEUI64FromEUI48Generator() {
+        new EUIGenerator(EUIType.EUI48, 0).getEUI64(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNegativeIndex() {
+        new EUIGenerator(EUIType.EUI48, 0).getBits(-1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidWeight() {
+        new EUIGenerator(EUIType.EUI48, 0).addVendor(0x001b21, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidOUI() {
+        new EUIGenerator(EUIType.EUI48, 0).addVendor(0x1000000, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidDuplicateRate() {
+        new EUIGenerator(EUIType.EUI48, 0).setDuplicateRate(1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBlockLength() {
+        new EUIGenerator(EUIType.EUI48, 0).setBlockLength(0);
+    }
+}
@@ -0,0 +1,176 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.bulk;
+
+import static org.testng.Assert.assertEquals;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIOctetCodec} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIOctetCodec
+ */
+public class EUIOctetCodecTest {
+    @DataProvider(name = "layouts")
+    public Object[][] dataProviderLayouts() {
+        return new Object[][] {
+                // type, offset, stride, count
+                { EUIType.EUI48, 0, 6, 0 },
+                { EUIType.EUI48, 0, 6, 1 },
+                { EUIType.EUI48, 0, 6, 1000 },
+                { EUIType.EUI48, 3, 6, 999 },
+                { EUIType.EUI48, 0, 7, 100 },
+                { EUIType.EUI48, 6, 14, 500 },
+                { EUIType.EUI48, 1, 1500, 10 },
+                { EUIType.EUI64, 0, 8, 0 },
+                { EUIType.EUI64, 0, 8, 1 },
+                { EUIType.EUI64, 0, 8, 1000 },
+                { EUIType.EUI64, 5, 8, 999 },
+                { EUIType.EUI64, 2, 11, 100 },
+                { EUIType.EUI64, 0, 40, 500 }
+        };
+    }
+
+    @Test(dataProvider = "layouts")
+    public void testDecode(EUIType type, int offset, int stride, int count) {
+        EUIOctetCodec codec = new EUIOctetCodec(type);
+        byte[] src = new byte[offset + Math.max(0, count - 1) * stride + codec.getOctets() * Math.min(1, count)];
+        new Random(count).nextBytes(src);
+        long[] expected = new long[count];
+        for (int n = 0; n < count; ++n) {
+            expected[n] = (type == EUIType.EUI48) ? EUI48s.fromOctets(src, offset + n * stride) : EUI64s.fromOctets(src, offset + n * stride);
+        }
+        assertEquals(codec.decode(src, offset, stride, count), expected);
+        long[] dest = new long[count + 2];
+        codec.decode(src, offset, stride, dest, 1, count);
+        assertEquals(Arrays.copyOfRange(dest, 1, count + 1), expected);
+        assertEquals(dest[0], 0L);
+        assertEquals(dest[count + 1], 0L);
+        for (ByteBuffer buffer : buffers(src, 3)) {
+            Arrays.fill(dest, 0);
+            codec.decode(buffer, offset + 3, stride, dest, 0, count);
+            assertEquals(Arrays.copyOf(dest, count), expected);
+            assertEquals(buffer.position(), 0);
+        }
+    }
+
+    @Test(dataProvider = "layouts")
+    public void testEncode(EUIType type, int offset, int stride, int count) {
+        EUIOctetCodec codec = new EUIOctetCodec(type);
+        Random random = new Random(count);
+        long[] src = new long[count + 1];
+        for (int n = 0; n < src.length; ++n) {
+            src[n] = (type == EUIType.EUI48) ? random.nextLong() >>> 16 : random.nextLong();
+        }
+        byte[] expected = new byte[offset + Math.max(0, count - 1) * stride + codec.getOctets() * Math.min(1, count) + 2];
+        Arrays.fill(expected, (byte) 0x5a);
+        for (int n = 0; n < count; ++n) {
+            if (type == EUIType.EUI48) {
+                EUI48s.putOctets(src[n + 1], expected, offset + n * stride);
+            }
+            else {
+                EUI64s.putOctets(src[n + 1], expected, offset + n * stride);
+            }
+        }
+        byte[] dest = new byte[expected.length];
+        Arrays.fill(dest, (byte) 0x5a);
+        codec.encode(src, 1, dest, offset, stride, count);
+        assertEquals(dest, expected);
+        byte[] shifted = new byte[expected.length + 3];
+        for (ByteBuffer buffer : buffers(shifted, 3)) {
+            for (int n = 0; n < buffer.limit(); ++n) {
+                buffer.put(n, (byte) 0x5a);
+            }
+            codec.encode(src, 1, buffer, offset + 3, stride, count);
+            for (int n = 0; n < expected.length; ++n) {
+                assertEquals(buffer.get(n + 3), expected[n]);
+            }
+            assertEquals(buffer.position(), 0);
+        }
+    }
+
+    @Test(dataProvider = "layouts")
+    public void testRoundTrip(EUIType type, int offset, int stride, int count) {
+        EUIOctetCodec codec = new EUIOctetCodec(type);
+        long[] bits = new EUIGenerator(type, stride).longs(0, count).toArray();
+        byte[] octets = new byte[offset + count * stride];
+        codec.encode(bits, 0, octets, offset, stride, count);
+        assertEquals(codec.decode(octets, offset, stride, count), bits);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEncodeInvalid() {
+        byte[] dest = new byte[12];
+        try {
+            new EUIOctetCodec(EUIType.EUI48).encode(new long[] { 1, 1L << 48 }, 0, dest, 0, 6, 2);
+        }
+        finally {
+            assertEquals(dest, new byte[12]);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidStride() {
+        new EUIOctetCodec(EUIType.EUI64).decode(new byte[64], 0, 7, 2);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testDecodeOutOfBounds() {
+        new EUIOctetCodec(EUIType.EUI48).decode(new byte[17], 0, 6, 3);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testDecodeDestOutOfBounds() {
+        new EUIOctetCodec(EUIType.EUI48).decode(new byte[18], 0, 6, new long[3], 1, 3);
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testEncodeOutOfBounds() {
+        ByteBuffer buffer = ByteBuffer.allocate(32);
+        buffer.limit(23);
+        new EUIOctetCodec(EUIType.EUI64).encode(new long[3], 0, buffer, 0, 8, 3);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullType() {
+        new EUIOctetCodec(null);
+    }
+
+    private static ByteBuffer[] buffers(byte[] bytes, int shift) {
+        ByteBuffer heap = ByteBuffer.allocate(bytes.length + shift);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + shift);
+        ByteBuffer little = ByteBuffer.allocateDirect(bytes.length + shift).order(ByteOrder.LITTLE_ENDIAN);
+        ByteBuffer[] buffers = { heap, direct, little };
+        for (ByteBuffer buffer : buffers) {
+            buffer.position(shift);
+            buffer.put(bytes).clear();
+        }
+        return buffers;
+    }
+}
@@ -0,0 +1,398 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.collect;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link EUI48BitmapSet} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48BitmapSet
+ */
+public class EUI48BitmapSetTest {
+    @DataProvider(name = "sets")
+    public Object[][] dataProviderSets() {
+        Random random = new Random(0x5eed);
+        return new Object[][] {
+                { "empty", new long[0] },
+                { "sparse", sparse(random, 1000) },
+                { "sequential", sequential(0x001b21fff000L, 10000) },
+                { "sequentialSigned", sequential(0x8000007ff000L, 70000) },
+                { "mixed", mixed(random) },
+                { "dense", dense(random, 0xf0ffffL, Container.ARRAY_MAX + 1000) }
+        };
+    }
+
+    @DataProvider(name = "setPairs")
+    public Object[][] dataProviderSetPairs() {
+        Random random = new Random(0x5eed);
+        long[] dense1 = dense(random, 0x001b21L, Container.ARRAY_MAX + 1000);
+        long[] dense2 = dense(random, 0x001b21L, Container.ARRAY_MAX + 1000);
+        long[] mixed1 = mixed(random);
+        long[] mixed2 = union(mixed(random), sequential(0x001b21000000L, 5000));
+        return new Object[][] {
+                { "empty/mixed", new long[0], mixed1 },
+                { "mixed/mixed", mixed1, mixed2 },
+                { "mixed/mixed", mixed2, mixed1 },
+                { "same", mixed1, mixed1 },
+                { "dense/dense", dense1, dense2 },
+                { "dense/mixed", dense1, mixed2 },
+                { "sequential/sequential", sequential(0x001b21000000L, 50000), sequential(0x001b21004000L, 50000) },
+                { "sparse/sequential", sparse(random, 20000), sequential(0x001b21000000L, 1 << 20) }
+        };
+    }
+
+    @Test(dataProvider = "sets")
+    public void testAddContainsRemove(String name, long[] bits) {
+        EUI48BitmapSet set = new EUI48BitmapSet();
+        for (long val : bits) {
+            assertTrue(set.add(new EUI48(val)));
+            assertFalse(set.add(val));
+        }
+        assertEquals(set.size(), bits.length);
+        for (long val : bits) {
+            assertTrue(set.contains(new EUI48(val)));
+        }
+        for (int n = 0; n < bits.length; n += 3) {
+            assertTrue(set.remove(new EUI48(bits[n])));
+            assertFalse(set.remove(bits[n]));
+            assertFalse(set.contains(bits[n]));
+        }
+        assertEquals(set.size(), bits.length - (bits.length + 2) / 3);
+    }
+
+    @Test(dataProvider = "sets")
+    public void testIterationOrder(String name, long[] bits) {
+        EUI48BitmapSet set = new EUI48BitmapSet(bits);
+        List<EUI48> expected = new ArrayList<EUI48>();
+        for (long val : bits) {
+            expected.add(new EUI48(val));
+        }
+        Collections.sort(expected);
+        assertEquals(new ArrayList<EUI48>(set), expected);
+        assertEquals(set.toLongArray(), bits);
+    }
+
+    @Test(dataProvider = "sets")
+    public void testSpliterator(String name, long[] bits) {
+        EUI48BitmapSet set = new EUI48BitmapSet(bits);
+        Spliterator<EUI48> spliterator = set.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertEquals(spliterator.getExactSizeIfKnown(), set.cardinality());
+        assertEquals(set.parallelStream().collect(Collectors.toList()), new ArrayList<EUI48>(set));
+        assertEquals(set.parallelStream().sorted().count(), set.cardinality());
+        assertEquals(StreamSupport.longStream(set.bitsSpliterator(), true).toArray(), bits);
+
+        // Splits must partition the set in order and know their exact sizes.
+        List<Spliterator.OfLong> parts = new ArrayList<Spliterator.OfLong>();
+        parts.add(set.bitsSpliterator());
+        for (int n = 0; n < parts.size(); ++n) {
+            Spliterator.OfLong prefix = parts.get(n).trySplit();
+            if (prefix != null) {
+                parts.add(n--, prefix);
+            }
+        }
+        final List<Long> values = new ArrayList<Long>();
+        for (Spliterator.OfLong part : parts) {
+            long size = part.getExactSizeIfKnown();
+            int before = values.size();
+            part.forEachRemaining((long value) -> values.add(value));
+            assertEquals(values.size() - before, size);
+        }
+        assertEquals(values.size(), bits.length);
+        for (int n = 0; n < bits.length; ++n) {
+            assertEquals(values.get(n).longValue(), bits[n]);
+        }
+    }
+
+    @Test(expectedExceptions = ConcurrentModificationException.class)
+    public void testSpliteratorConcurrentModification() {
+        EUI48BitmapSet set = new EUI48BitmapSet(0x001b213a4b5cL, 0x001b213a4b5dL);
+        Spliterator<EUI48> spliterator = set.spliterator();
+        set.add(0x001b213a4b5eL);
+        spliterator.tryAdvance((EUI48 val) -> {
+        });
+    }
+
+    @Test(dataProvider = "sets")
+    public void testIteratorRemove(String name, long[] bits) {
+        EUI48BitmapSet set = new EUI48BitmapSet(bits);
+        List<Long> expected = new ArrayList<Long>();
+        Iterator<EUI48> iterator = set.iterator();
+        for (int n = 0; n < bits.length; ++n) {
+            assertEquals(iterator.next().getBits(), bits[n]);
+            if (n % 3 == 0 || (n / 100) % 2 == 0) {
+                iterator.remove();
+            }
+            else {
+                expected.add(bits[n]);
+            }
+        }
+        assertFalse(iterator.hasNext());
+        assertEquals(set.cardinality(), (long) expected.size());
+        long[] remaining = set.toLongArray();
+        for (int n = 0; n < remaining.length; ++n) {
+            assertEquals(remaining[n], expected.get(n).longValue());
+        }
+
+        set = new EUI48BitmapSet(bits);
+        assertEquals(set.removeIf(val -> (val.getBits() & 1) == 0), LongStream.of(bits).anyMatch(val -> (val & 1) == 0));
+        assertEquals(set.toLongArray(), LongStream.of(bits).filter(val -> (val & 1) != 0).toArray());
+        set.retainAll(Collections.emptySet());
+        assertTrue(set.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testIteratorRemoveTwice() {
+        Iterator<EUI48> iterator = new EUI48BitmapSet(0x001b213a4b5cL, 0x001b213a4b5dL).iterator();
+        iterator.next();
+        iterator.remove();
+        iterator.remove();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testIteratorRemoveBeforeNext() {
+        new EUI48BitmapSet(0x001b213a4b5cL).iterator().remove();
+    }
+
+    @Test(expectedExceptions = ConcurrentModificationException.class)
+    public void testIteratorRemoveConcurrentModification() {
+        EUI48BitmapSet set = new EUI48BitmapSet(0x001b213a4b5cL, 0x001b213a4b5dL);
+        Iterator<EUI48> iterator = set.iterator();
+        iterator.next();
+        set.add(0x001b213a4b5eL);
+        iterator.remove();
+    }
+
+    @Test(dataProvider = "sets")
+    public void testSerialization(String name, long[] bits) throws IOException {
+        EUI48BitmapSet set = new EUI48BitmapSet(bits);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        set.writeTo(new DataOutputStream(bytes));
+        assertEquals(bytes.size(), set.getSerializedSize());
+        EUI48BitmapSet copy = EUI48BitmapSet.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(copy, set);
+        assertEquals(copy.toLongArray(), bits);
+    }
+
+    @Test
+    public void testSerializedForm() throws IOException {
+        EUI48BitmapSet set = new EUI48BitmapSet(0x800000000001L, 0x001b21000005L, 0x001b21000006L, 0x001b21000007L);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        set.writeTo(new DataOutputStream(bytes));
+        assertEquals(bytes.toByteArray(), new byte[] {
+                0x45, 0x34, 0x38, 0x53, 0, 0, 0, 2,
+                0x00, 0x1b, 0x21, 2, 0, 0, 0, 1, 0, 0, 5, 0, 0, 7,
+                (byte) 0x80, 0x00, 0x00, 0, 0, 0, 0, 1, 0, 0, 1
+        });
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testReadFromWithInvalidMagic() throws IOException {
+        EUI48BitmapSet.readFrom(new DataInputStream(new ByteArrayInputStream(new byte[8])));
+    }
+
+    @Test(dataProvider = "setPairs")
+    public void testUnion(String name, long[] x, long[] y) {
+        assertEquals(EUI48BitmapSet.union(new EUI48BitmapSet(x), new EUI48BitmapSet(y)).toLongArray(), union(x, y));
+    }
+
+    @Test(dataProvider = "setPairs")
+    public void testIntersection(String name, long[] x, long[] y) {
+        assertEquals(EUI48BitmapSet.intersection(new EUI48BitmapSet(x), new EUI48BitmapSet(y)).toLongArray(), intersection(x, y));
+    }
+
+    @Test(dataProvider = "setPairs")
+    public void testDifference(String name, long[] x, long[] y) {
+        assertEquals(EUI48BitmapSet.difference(new EUI48BitmapSet(x), new EUI48BitmapSet(y)).toLongArray(), difference(x, y));
+    }
+
+    @Test(dataProvider = "setPairs")
+    public void testBulkOperations(String name, long[] x, long[] y) {
+        EUI48BitmapSet set = new EUI48BitmapSet(x);
+        assertEquals(set.addAll(new EUI48BitmapSet(y)), union(x, y).length != x.length);
+        assertEquals(set.toLongArray(), union(x, y));
+        set = new EUI48BitmapSet(x);
+        set.retainAll(new EUI48BitmapSet(y));
+        assertEquals(set.toLongArray(), intersection(x, y));
+        set = new EUI48BitmapSet(x);
+        set.removeAll(new EUI48BitmapSet(y));
+        assertEquals(set.toLongArray(), difference(x, y));
+    }
+
+    @Test
+    public void testEquals() {
+        Random random = new Random(0x5eed);
+        long[] bits = mixed(random);
+        EUI48BitmapSet set = new EUI48BitmapSet(bits);
+        List<EUI48> list = new ArrayList<EUI48>(set);
+        assertEquals(set, new EUI48BitmapSet(list));
+        assertEquals(set.hashCode(), new java.util.HashSet<EUI48>(list).hashCode());
+        assertTrue(set.equals(new java.util.HashSet<EUI48>(list)));
+    }
+
+    @Test
+    public void testCompression() {
+        EUI48BitmapSet set = new EUI48BitmapSet(sequential(0x001b21000000L, 1 << 20));
+        assertTrue(set.getSerializedSize() < 64, "serialized size: " + set.getSerializedSize());
+        assertEquals(set.cardinality(), 1 << 20);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddWithInvalidBits() {
+        new EUI48BitmapSet().add(1L << 48);
+    }
+
+    /** The bits that make the order of {@link EUI48#compareTo(EUI48)} a plain {@code long} order. */
+    private static final long FLIP = 0x800000008000L;
+
+    private static long[] sorted(long[] bits) {
+        long[] keys = new long[bits.length];
+        for (int n = 0; n < bits.length; ++n) {
+            keys[n] = bits[n] ^ FLIP;
+        }
+        Arrays.sort(keys);
+        int size = 0;
+        for (int n = 0; n < keys.length; ++n) {
+            if (size == 0 || keys[size - 1] != keys[n]) {
+                keys[size++] = keys[n];
+            }
+        }
+        long[] result = new long[size];
+        for (int n = 0; n < size; ++n) {
+            result[n] = keys[n] ^ FLIP;
+        }
+        return result;
+    }
+
+    private static long[] union(long[] x, long[] y) {
+        long[] bits = Arrays.copyOf(x, x.length + y.length);
+        System.arraycopy(y, 0, bits, x.length, y.length);
+        return sorted(bits);
+    }
+
+    private static long[] intersection(long[] x, long[] y) {
+        long[] bits = new long[x.length];
+        int size = 0;
+        for (long val : x) {
+            if (contains(y, val)) {
+                bits[size++] = val;
+            }
+        }
+        return Arrays.copyOf(bits, size);
+    }
+
+    private static long[] difference(long[] x, long[] y) {
+        long[] bits = new long[x.length];
+        int size = 0;
+        for (long val : x) {
+            if (!contains(y, val)) {
+                bits[size++] = val;
+            }
+        }
+        return Arrays.copyOf(bits, size);
+    }
+
+    private static boolean contains(long[] sorted, long val) {
+        int lo = 0, hi = sorted.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long key = sorted[mid] ^ FLIP;
+            if (key < (val ^ FLIP)) {
+                lo = mid + 1;
+            }
+            else if (key > (val ^ FLIP)) {
+                hi = mid - 1;
+            }
+            else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long[] sequential(long first, int count) {
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = first + n;
+        }
+        return sorted(bits);
+    }
+
+    private static long[] sparse(Random random, int count) {
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = random.nextLong() & 0xffffffffffffL;
+        }
+        return sorted(bits);
+    }
+
+    private static long[] dense(Random random, long oui, int count) {
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = (oui << 24) | random.nextInt(1 << 21);
+        }
+        return sorted(bits);
+    }
+
+    private static long[] mixed(Random random) {
+        long[] bits = new long[200000];
+        int size = 0;
+        for (long val : sparse(random, 500)) {
+            bits[size++] = val;
+        }
+        long[] ouis = { 0x001b21L, 0x505620L, 0xfcfcfcL, 0x8c8590L };
+        for (long oui : ouis) {
+            for (int n = 0; n < 20; ++n) {
+                long start = (oui << 24) | random.nextInt(1 << 24);
+                int length = 1 + random.nextInt(3000);
+                for (int i = 0; i < length && ((start + i) >>> 24) == oui; ++i) {
+                    bits[size++] = start + i;
+                }
+            }
+            for (int n = 0; n < 2000; ++n) {
+                bits[size++] = (oui << 24) | (0x7f0000 + random.nextInt(1 << 17));
+            }
+        }
+        return sorted(Arrays.copyOf(bits, size));
+    }
+}
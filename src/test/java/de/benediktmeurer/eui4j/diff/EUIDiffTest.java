@@ -0,0 +1,223 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.LongStream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48s;
+import de.benediktmeurer.eui4j.EUI64s;
+import de.benediktmeurer.eui4j.bulk.EUIGenerator;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIDiff} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIDiff
+ */
+public class EUIDiffTest {
+    @DataProvider(name = "diffs")
+    public Object[][] dataProviderDiffs() {
+        Comparator<Long> eui48 = (x, y) -> EUI48s.compare(x, y);
+        Comparator<Long> unsigned48 = (x, y) -> EUI48s.compareUnsigned(x, y);
+        Comparator<Long> eui64 = (x, y) -> EUI64s.compare(x, y);
+        Comparator<Long> unsigned64 = (x, y) -> EUI64s.compareUnsigned(x, y);
+        return new Object[][] {
+                { EUIDiff.eui48(), eui48 },
+                { EUIDiff.unsigned(EUIType.EUI48), unsigned48 },
+                { EUIDiff.eui64(), eui64 },
+                { EUIDiff.unsigned(EUIType.EUI64), unsigned64 }
+        };
+    }
+
+    @Test(dataProvider = "diffs")
+    public void testDiff(EUIDiff diff, Comparator<Long> order) {
+        long[][] sources = sources(diff.getType(), order, 20000);
+        Recorder recorder = new Recorder();
+        DiffSummary summary = diff.diff(sources[0], sources[1], recorder);
+        assertRecorded(recorder, sources[0], sources[1], order);
+        assertEquals(summary.getAdded(), recorder.added.size());
+        assertEquals(summary.getRemoved(), recorder.removed.size());
+        assertEquals(summary.getUnchanged(), recorder.unchanged.size());
+        assertFalse(summary.isEmpty());
+        assertTrue(diff.diff(sources[0], sources[0], new DiffListener() {
+        }).isEmpty());
+    }
+
+    @Test(dataProvider = "diffs")
+    public void testParallelDiff(EUIDiff diff, Comparator<Long> order) {
+        long[][] sources = sources(diff.getType(), order, 50000);
+        Recorder expected = new Recorder();
+        DiffSummary summary = diff.diff(sources[0], sources[1], expected);
+        for (int partitions : new int[] { 1, 2, 7, 64 }) {
+            Recorder[] recorders = new Recorder[partitions];
+            assertEquals(diff.parallelDiff(sources[0], sources[1], partitions, i -> recorders[i] = new Recorder()), summary);
+            assertPartitions(diff.getType(), recorders, expected);
+        }
+    }
+
+    @Test(dataProvider = "diffs")
+    public void testFiles(EUIDiff diff, Comparator<Long> order) throws IOException {
+        long[][] sources = sources(diff.getType(), order, 30000);
+        File beforeFile = File.createTempFile("eui4j", "before");
+        File afterFile = File.createTempFile("eui4j", "after");
+        try {
+            SortedBitsFile before = SortedBitsFile.write(beforeFile, sources[0]);
+            SortedBitsFile after = SortedBitsFile.write(afterFile, sources[1]);
+            Recorder expected = new Recorder();
+            DiffSummary summary = diff.diff(sources[0], sources[1], expected);
+            Recorder actual = new Recorder();
+            assertEquals(diff.diff(before, after, actual), summary);
+            assertEquals(actual.added, expected.added);
+            assertEquals(actual.removed, expected.removed);
+            assertEquals(actual.unchanged, expected.unchanged);
+            Recorder[] recorders = new Recorder[5];
+            assertEquals(diff.parallelDiff(before, after, recorders.length, i -> recorders[i] = new Recorder()), summary);
+            assertPartitions(diff.getType(), recorders, expected);
+        }
+        finally {
+            beforeFile.delete();
+            afterFile.delete();
+        }
+    }
+
+    @Test
+    public void testDuplicates() {
+        Recorder recorder = new Recorder();
+        DiffSummary summary = EUIDiff.eui64().diff(new long[] { 1, 1, 2, 3, 3, 3 }, new long[] { 2, 2, 3, 4, 4 }, recorder);
+        assertEquals(summary, new DiffSummary(1, 1, 2));
+        assertEquals(recorder.removed, Arrays.asList(1L));
+        assertEquals(recorder.unchanged, Arrays.asList(2L, 3L));
+        assertEquals(recorder.added, Arrays.asList(4L));
+    }
+
+    @Test
+    public void testEmpty() {
+        assertEquals(EUIDiff.eui48().diff(new long[0], new long[0], new Recorder()), new DiffSummary(0, 0, 0));
+        assertEquals(EUIDiff.eui48().diff(new long[0], new long[] { 1, 2 }, new Recorder()), new DiffSummary(2, 0, 0));
+        assertEquals(EUIDiff.eui48().parallelDiff(new long[] { 1, 2 }, new long[0], 4, i -> new Recorder()), new DiffSummary(0, 2, 0));
+        assertEquals(EUIDiff.eui48().parallelDiff(new long[0], new long[0], 4, i -> new Recorder()), new DiffSummary(0, 0, 0));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsorted() {
+        EUIDiff.unsigned(EUIType.EUI48).diff(new long[] { 1, 3, 2 }, new long[] { 1, 2, 3 }, new Recorder());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testUnsortedInOrder() {
+        // Sorted by value, but not by EUI48#compareTo()
+        EUIDiff.eui48().diff(new long[] { 0x000000007fffL, 0x000000008000L }, new long[0], new Recorder());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPartitions() {
+        EUIDiff.eui48().parallelDiff(new long[0], new long[0], 0, i -> new Recorder());
+    }
+
+    private static long[][] sources(EUIType type, Comparator<Long> order, int size) {
+        EUIGenerator generator = new EUIGenerator(type, size).addVendor(0x001b21, 5).addVendor(0x00005e, 1).addVendor(0xfcfcfc, 2).addVendor(0x80ffff, 1).setBlockLength(50);
+        long[] all = new long[size];
+        generator.fill(all, 0);
+        long[] before = LongStream.of(Arrays.copyOfRange(all, 0, size * 2 / 3)).boxed().sorted(order).mapToLong(Long::longValue).toArray();
+        long[] after = LongStream.of(Arrays.copyOfRange(all, size / 3, size)).boxed().sorted(order).mapToLong(Long::longValue).toArray();
+        return new long[][] { before, after };
+    }
+
+    private static void assertRecorded(Recorder recorder, long[] before, long[] after, Comparator<Long> order) {
+        Set<Long> b = new HashSet<Long>();
+        Set<Long> a = new HashSet<Long>();
+        LongStream.of(before).forEach(b::add);
+        LongStream.of(after).forEach(a::add);
+        Set<Long> added = new HashSet<Long>(a);
+        added.removeAll(b);
+        Set<Long> removed = new HashSet<Long>(b);
+        removed.removeAll(a);
+        Set<Long> unchanged = new HashSet<Long>(a);
+        unchanged.retainAll(b);
+        assertEquals(new HashSet<Long>(recorder.added), added);
+        assertEquals(new HashSet<Long>(recorder.removed), removed);
+        assertEquals(new HashSet<Long>(recorder.unchanged), unchanged);
+        for (int n = 1; n < recorder.all.size(); ++n) {
+            assertTrue(order.compare(recorder.all.get(n - 1), recorder.all.get(n)) < 0);
+        }
+        assertFalse(added.isEmpty());
+        assertFalse(removed.isEmpty());
+        assertFalse(unchanged.isEmpty());
+    }
+
+    private static void assertPartitions(EUIType type, Recorder[] recorders, Recorder expected) {
+        List<Long> all = new ArrayList<Long>();
+        Set<Integer> ouis = new HashSet<Integer>();
+        for (Recorder recorder : recorders) {
+            if (recorder != null) {
+                all.addAll(recorder.all);
+                Set<Integer> partition = new HashSet<Integer>();
+                for (long bits : recorder.all) {
+                    partition.add((type == EUIType.EUI48) ? EUI48s.getOUI(bits) : EUI64s.getOUI(bits));
+                }
+                for (int oui : partition) {
+                    assertTrue(ouis.add(oui), "OUI in multiple partitions");
+                }
+            }
+        }
+        assertEquals(all, expected.all);
+    }
+
+    private static final class Recorder implements DiffListener {
+        final List<Long> added = new ArrayList<Long>();
+
+        final List<Long> removed = new ArrayList<Long>();
+
+        final List<Long> unchanged = new ArrayList<Long>();
+
+        final List<Long> all = new ArrayList<Long>();
+
+        @Override
+        public void added(long bits) {
+            this.added.add(bits);
+            this.all.add(bits);
+        }
+
+        @Override
+        public void removed(long bits) {
+            this.removed.add(bits);
+            this.all.add(bits);
+        }
+
+        @Override
+        public void unchanged(long bits) {
+            this.unchanged.add(bits);
+            this.all.add(bits);
+        }
+    }
+}
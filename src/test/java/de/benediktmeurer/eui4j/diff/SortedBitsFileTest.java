@@ -0,0 +1,121 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.diff;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link SortedBitsFile} class.
+ * 
+ * @author Benedikt Meurer
+ * @see SortedBitsFile
+ */
+public class SortedBitsFileTest {
+    @DataProvider(name = "sizes")
+    public Object[][] dataProviderSizes() {
+        return new Object[][] { { 0 }, { 1 }, { 1000 }, { 100000 } };
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testWriteRead(int size) throws IOException {
+        long[] bits = new Random(size).longs(size).toArray();
+        File file = File.createTempFile("eui4j", "bits");
+        try {
+            SortedBitsFile written = SortedBitsFile.write(file, bits);
+            SortedBitsFile read = new SortedBitsFile(file);
+            assertEquals(written.size(), (long) size);
+            assertEquals(read.size(), (long) size);
+            assertEquals(read.getFile(), file);
+            for (int n = 0; n < size; ++n) {
+                assertEquals(read.get(n), bits[n]);
+            }
+            PrimitiveIterator.OfLong iterator = read.iterator();
+            for (int n = 0; n < size; ++n) {
+                assertEquals(iterator.nextLong(), bits[n]);
+            }
+            assertFalse(iterator.hasNext());
+            iterator = read.iterator(size / 3, size / 2);
+            for (int n = size / 3; n < size / 2; ++n) {
+                assertEquals(iterator.nextLong(), bits[n]);
+            }
+            assertFalse(iterator.hasNext());
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = NoSuchElementException.class)
+    public void testIteratorExhausted() throws IOException {
+        File file = File.createTempFile("eui4j", "bits");
+        try {
+            SortedBitsFile.write(file, 1L).iterator(1, 1).nextLong();
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetOutOfBounds() throws IOException {
+        File file = File.createTempFile("eui4j", "bits");
+        try {
+            SortedBitsFile.write(file, 1L, 2L).get(2);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testInvalidFile() throws IOException {
+        File file = File.createTempFile("eui4j", "bits");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            out.write(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16 });
+            out.close();
+            new SortedBitsFile(file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void testTruncatedFile() throws IOException {
+        File file = File.createTempFile("eui4j", "bits");
+        try {
+            SortedBitsFile.write(file, 1L, 2L);
+            new java.io.RandomAccessFile(file, "rw").setLength(20);
+            new SortedBitsFile(file);
+        }
+        finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.export;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link EUIExporter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIExporter
+ */
+public class EUIExporterTest {
+    @DataProvider(name = "exporters")
+    public Object[][] dataProviderExporters() {
+        return new Object[][] {
+                { new EUIExporter(ExportFormat.LINES) },
+                { new EUIExporter(ExportFormat.CSV) },
+                { new EUIExporter(ExportFormat.NDJSON, "address") },
+                { new EUIExporter(ExportFormat.LINES, "mac", 23 + 1, 1) },
+                { new EUIExporter(ExportFormat.CSV, "mac", 100, 2) },
+                { new EUIExporter(ExportFormat.NDJSON, "mac_addr", 1000, 3) }
+        };
+    }
+
+    @DataProvider(name = "invalidArguments")
+    public Object[][] dataProviderInvalidArguments() {
+        return new Object[][] {
+                { "", 1000, 1 },
+                { "a b", 1000, 1 },
+                { "a\"b", 1000, 1 },
+                { "mac", 23, 1 },
+                { "mac", 1000, 0 }
+        };
+    }
+
+    @DataProvider(name = "sizes")
+    public Object[][] dataProviderSizes() {
+        return new Object[][] { { 0 }, { 1 }, { 5 }, { 1000 }, { 10000 } };
+    }
+
+    @Test(dataProvider = "exporters")
+    public void testWriteEUI48s(EUIExporter exporter) throws IOException {
+        for (Object[] size : dataProviderSizes()) {
+            long[] bits = eui48Bits((Integer) size[0]);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long written = exporter.writeEUI48s(bits, Channels.newChannel(out));
+            assertEquals(written, (long) out.size());
+            assertEquals(new String(out.toByteArray(), StandardCharsets.US_ASCII), expectedEUI48s(exporter, bits));
+        }
+    }
+
+    @Test(dataProvider = "exporters")
+    public void testWriteEUI64s(EUIExporter exporter) throws IOException {
+        for (Object[] size : dataProviderSizes()) {
+            long[] bits = eui64Bits((Integer) size[0]);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long written = exporter.writeEUI64s(bits, Channels.newChannel(out));
+            assertEquals(written, (long) out.size());
+            assertEquals(new String(out.toByteArray(), StandardCharsets.US_ASCII), expectedEUI64s(exporter, bits));
+        }
+    }
+
+    @Test(dataProvider = "exporters")
+    public void testWriteParallel(EUIExporter exporter) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            long[] bits = eui48Bits(20000);
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            exporter.writeEUI48s(bits, 100, bits.length - 100, Channels.newChannel(out), executor);
+            long[] range = new long[bits.length - 200];
+            System.arraycopy(bits, 100, range, 0, range.length);
+            assertEquals(new String(out.toByteArray(), StandardCharsets.US_ASCII), expectedEUI48s(exporter, range));
+            bits = eui64Bits(20000);
+            List<EUI64> values = new ArrayList<EUI64>();
+            for (long b : bits) {
+                values.add(new EUI64(b));
+            }
+            out.reset();
+            exporter.writeEUI64s(values, Channels.newChannel(out), executor);
+            assertEquals(new String(out.toByteArray(), StandardCharsets.US_ASCII), expectedEUI64s(exporter, bits));
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(dataProvider = "exporters")
+    public void testWriteIterable(EUIExporter exporter) throws IOException {
+        long[] bits = eui48Bits(5000);
+        List<EUI48> values = new ArrayList<EUI48>();
+        for (long b : bits) {
+            values.add(new EUI48(b));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.writeEUI48s(values, Channels.newChannel(out));
+        assertEquals(new String(out.toByteArray(), StandardCharsets.US_ASCII), expectedEUI48s(exporter, bits));
+    }
+
+    @Test
+    public void testWriteFileChannel() throws IOException {
+        EUIExporter exporter = new EUIExporter(ExportFormat.NDJSON);
+        long[] bits = eui48Bits(50000);
+        File file = File.createTempFile("eui4j", "export");
+        try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                FileChannel channel = raf.getChannel();
+                assertEquals(exporter.writeEUI48s(bits, channel), 50000L * 28);
+            }
+            finally {
+                raf.close();
+            }
+            assertEquals(new String(Files.readAllBytes(file.toPath()), StandardCharsets.US_ASCII), expectedEUI48s(exporter, bits));
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWriteEUI48sInvalidBits() throws IOException {
+        new EUIExporter(ExportFormat.LINES).writeEUI48s(new long[] { 1L, 1L << 48 }, Channels.newChannel(new ByteArrayOutputStream()));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testWriteParallelInvalidBits() throws IOException {
+        long[] bits = eui48Bits(10000);
+        bits[9000] = -1L;
+        new EUIExporter(ExportFormat.LINES, "mac", 1000, 2).writeEUI48s(bits, 0, bits.length, Channels.newChannel(new ByteArrayOutputStream()), Runnable::run);
+    }
+
+    @Test(expectedExceptions = ArrayIndexOutOfBoundsException.class)
+    public void testWriteInvalidRange() throws IOException {
+        new EUIExporter(ExportFormat.LINES).writeEUI64s(new long[10], 5, 11, Channels.newChannel(new ByteArrayOutputStream()), null);
+    }
+
+    @Test(dataProvider = "invalidArguments", expectedExceptions = IllegalArgumentException.class)
+    public void testConstructorInvalid(String field, int bufferSize, int maxBuffers) {
+        new EUIExporter(ExportFormat.NDJSON, field, bufferSize, maxBuffers);
+    }
+
+    private static String expectedEUI48s(EUIExporter exporter, long[] bits) {
+        List<String> names = new ArrayList<String>();
+        for (long b : bits) {
+            names.add(new EUI48(b).toString());
+        }
+        return expected(exporter, names);
+    }
+
+    private static String expectedEUI64s(EUIExporter exporter, long[] bits) {
+        List<String> names = new ArrayList<String>();
+        for (long b : bits) {
+            names.add(new EUI64(b).toString());
+        }
+        return expected(exporter, names);
+    }
+
+    private static String expected(EUIExporter exporter, List<String> names) {
+        StringBuilder sb = new StringBuilder();
+        if (exporter.getFormat() == ExportFormat.CSV) {
+            sb.append(exporter.getField()).append('\n');
+        }
+        for (String name : names) {
+            if (exporter.getFormat() == ExportFormat.NDJSON) {
+                sb.append("{\"").append(exporter.getField()).append("\":\"").append(name).append("\"}\n");
+            }
+            else {
+                sb.append(name).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static long[] eui48Bits(int count) {
+        Random random = new Random(count);
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = random.nextLong() >>> 16;
+        }
+        return bits;
+    }
+
+    private static long[] eui64Bits(int count) {
+        Random random = new Random(count);
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = random.nextLong();
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,378 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link EUI48EntityResolver} class, with an in-memory H2 database.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48EntityResolver
+ */
+public class EUI48EntityResolverTest {
+    private static final long BASE = 0x001b21000000L;
+
+    private static final int DEVICES = 1000;
+
+    private SessionFactory sessionFactory;
+
+    private ExecutorService executor;
+
+    private volatile Runnable onLoad;
+
+    @BeforeClass
+    public void setUp() {
+        this.sessionFactory = buildSessionFactory("EUI48EntityResolverTest");
+        EventListenerRegistry registry = ((SessionFactoryImplementor) this.sessionFactory).getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_LOAD, new PostLoadEventListener() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public void onPostLoad(PostLoadEvent event) {
+                Runnable onLoad = EUI48EntityResolverTest.this.onLoad;
+                if (onLoad != null) {
+                    onLoad.run();
+                }
+            }
+        });
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (int n = 0; n < DEVICES; ++n) {
+                Device device = new Device();
+                device.id = (long) n;
+                device.mac = new EUI48(BASE + n);
+                device.name = "device" + n;
+                session.save(device);
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @AfterClass
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @BeforeMethod
+    public void startExecutor() {
+        this.executor = Executors.newFixedThreadPool(4);
+        this.sessionFactory.getStatistics().clear();
+    }
+
+    @AfterMethod
+    public void stopExecutor() {
+        this.executor.shutdown();
+    }
+
+    @Test
+    public void testResolve() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor);
+        try {
+            Device device = resolver.resolve(new EUI48(BASE + 42)).get();
+            assertNotNull(device);
+            assertEquals(device.id, Long.valueOf(42));
+            assertEquals(device.name, "device42");
+            assertNull(resolver.resolve(BASE + DEVICES).get());
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        final EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 100, 1,
+                TimeUnit.SECONDS, 0);
+        ExecutorService callers = Executors.newFixedThreadPool(10);
+        try {
+            List<Future<CompletableFuture<Device>>> futures = new ArrayList<Future<CompletableFuture<Device>>>();
+            for (int n = 0; n < 100; ++n) {
+                final long bits = BASE + n * 7;
+                futures.add(callers.submit(new Callable<CompletableFuture<Device>>() {
+                    @Override
+                    public CompletableFuture<Device> call() {
+                        return resolver.resolve(bits);
+                    }
+                }));
+            }
+            for (int n = 0; n < futures.size(); ++n) {
+                Device device = futures.get(n).get().get(5, TimeUnit.SECONDS);
+                assertEquals(device.mac, new EUI48(BASE + n * 7));
+            }
+            assertEquals(this.sessionFactory.getStatistics().getQueryExecutionCount(), 1L);
+        }
+        finally {
+            callers.shutdown();
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testWindow() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 100, 50,
+                TimeUnit.MILLISECONDS, 0);
+        try {
+            CompletableFuture<Device> first = resolver.resolve(BASE + 1);
+            CompletableFuture<Device> second = resolver.resolve(BASE + 2);
+            CompletableFuture<Device> missing = resolver.resolve(BASE + DEVICES + 1);
+            assertEquals(first.get(5, TimeUnit.SECONDS).id, Long.valueOf(1));
+            assertEquals(second.get(5, TimeUnit.SECONDS).id, Long.valueOf(2));
+            assertNull(missing.get(5, TimeUnit.SECONDS));
+            assertEquals(this.sessionFactory.getStatistics().getQueryExecutionCount(), 1L);
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testBatchSize() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 10, 1, TimeUnit.HOURS,
+                0);
+        try {
+            List<CompletableFuture<Device>> futures = new ArrayList<CompletableFuture<Device>>();
+            for (int n = 0; n < 30; ++n) {
+                futures.add(resolver.resolve(BASE + n));
+            }
+            for (int n = 0; n < futures.size(); ++n) {
+                assertEquals(futures.get(n).get(5, TimeUnit.SECONDS).id, Long.valueOf(n));
+            }
+            assertEquals(this.sessionFactory.getStatistics().getQueryExecutionCount(), 3L);
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testSameKeySharesFuture() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 100, 1,
+                TimeUnit.HOURS, 0);
+        try {
+            CompletableFuture<Device> future = resolver.resolve(BASE + 5);
+            assertSame(resolver.resolve(new EUI48(BASE + 5)), future);
+            resolver.flush();
+            assertEquals(future.get(5, TimeUnit.SECONDS).id, Long.valueOf(5));
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testCache() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor);
+        try {
+            Device device = resolver.resolve(BASE + 7).get();
+            assertNull(resolver.resolve(BASE + DEVICES).get());
+            assertEquals(resolver.getCachedCount(), 1);
+            this.sessionFactory.getStatistics().clear();
+            CompletableFuture<Device> future = resolver.resolve(BASE + 7);
+            assertTrue(future.isDone());
+            assertSame(future.get(), device);
+            assertEquals(this.sessionFactory.getStatistics().getQueryExecutionCount(), 0L);
+
+            resolver.invalidate(BASE + 7);
+            assertEquals(resolver.getCachedCount(), 0);
+            future = resolver.resolve(BASE + 7);
+            assertEquals(future.get().id, device.id);
+            assertEquals(this.sessionFactory.getStatistics().getQueryExecutionCount(), 1L);
+            resolver.invalidateAll();
+            assertEquals(resolver.getCachedCount(), 0);
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testInvalidateDuringLoad() throws Exception {
+        final EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor);
+        try {
+            this.onLoad = new Runnable() {
+                @Override
+                public void run() {
+                    resolver.invalidate(BASE + 8);
+                }
+            };
+            assertEquals(resolver.resolve(BASE + 8).get().id, Long.valueOf(8));
+            assertEquals(resolver.getCachedCount(), 0);
+            this.onLoad = null;
+            resolver.resolve(BASE + 8).get();
+            assertEquals(resolver.getCachedCount(), 1);
+        }
+        finally {
+            this.onLoad = null;
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testCacheBound() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 100, 1,
+                TimeUnit.MILLISECONDS, 32);
+        try {
+            for (int n = 0; n < 500; ++n) {
+                resolver.resolve(BASE + n).get();
+                assertTrue(resolver.getCachedCount() <= 32);
+            }
+            assertTrue(resolver.getCachedCount() > 0);
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testFailure() throws Exception {
+        SessionFactory closed = buildSessionFactory("EUI48EntityResolverTestFailure");
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(closed, Device.class, "mac", this.executor);
+        closed.close();
+        try {
+            resolver.resolve(BASE).get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof HibernateException);
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testRejected() throws Exception {
+        ExecutorService rejecting = Executors.newSingleThreadExecutor();
+        rejecting.shutdown();
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", rejecting);
+        try {
+            CompletableFuture<Device> future = resolver.resolve(BASE);
+            resolver.flush();
+            assertTrue(future.isCompletedExceptionally());
+        }
+        finally {
+            resolver.close();
+        }
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        EUI48EntityResolver<Device> resolver = new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor, 100, 1,
+                TimeUnit.HOURS, 0);
+        CompletableFuture<Device> future = resolver.resolve(BASE + 3);
+        resolver.close();
+        assertEquals(future.get(5, TimeUnit.SECONDS).id, Long.valueOf(3));
+        try {
+            resolver.resolve(BASE + 3);
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertFalse(future.isCompletedExceptionally());
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNotAnEUI48Property() {
+        new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "name", this.executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoSuchProperty() {
+        new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "ip", this.executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNotAnEntity() {
+        new EUI48EntityResolver<String>(this.sessionFactory, String.class, "mac", this.executor);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidBits() {
+        new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", this.executor).resolve(1L << 48);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullExecutor() {
+        new EUI48EntityResolver<Device>(this.sessionFactory, Device.class, "mac", (Executor) null);
+    }
+
+    static SessionFactory buildSessionFactory(String name) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+        configuration.addAnnotatedClass(Device.class);
+        return configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+    }
+
+    @Entity
+    public static class Device {
+        @Id
+        Long id;
+
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        EUI48 mac;
+
+        String name;
+    }
+}
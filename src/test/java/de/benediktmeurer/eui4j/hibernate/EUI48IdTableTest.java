@@ -0,0 +1,108 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link EUI48IdTable} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48IdTable
+ */
+public class EUI48IdTableTest {
+    @DataProvider(name = "capacities")
+    public Object[][] dataProviderCapacities() {
+        return new Object[][] { { 1 }, { 7 }, { 64 }, { 100 }, { 5000 } };
+    }
+
+    @Test(dataProvider = "capacities")
+    public void testRandomOperations(int capacity) {
+        EUI48IdTable table = new EUI48IdTable(capacity);
+        Map<Long, Serializable> reference = new HashMap<Long, Serializable>();
+        Random random = new Random(capacity);
+        for (int n = 0; n < 100000; ++n) {
+            long bits = 0x001b21000000L | random.nextInt(3 * capacity + 1);
+            switch (random.nextInt(4)) {
+            case 0:
+                reference.remove(bits);
+                table.invalidate(bits);
+                assertNull(table.get(bits));
+                break;
+            case 1:
+                Long id = Long.valueOf(n);
+                table.put(bits, id, table.epoch());
+                reference.put(bits, id);
+                assertEquals(table.get(bits), id);
+                break;
+            default:
+                Serializable found = table.get(bits);
+                if (found != null) {
+                    assertEquals(found, reference.get(bits));
+                }
+                break;
+            }
+            assertTrue(table.size() <= capacity);
+        }
+    }
+
+    @Test
+    public void testEvictsUnreferenced() {
+        EUI48IdTable table = new EUI48IdTable(4);
+        for (long bits = 0; bits < 4; ++bits) {
+            assertFalse(table.put(bits, bits, table.epoch()));
+        }
+        table.get(0);
+        table.get(2);
+        assertTrue(table.put(4, 4L, table.epoch()));
+        assertEquals(table.size(), 4);
+        assertEquals(table.get(0), 0L);
+        assertEquals(table.get(2), 2L);
+        assertEquals(table.get(4), 4L);
+    }
+
+    @Test
+    public void testStaleEpoch() {
+        EUI48IdTable table = new EUI48IdTable(16);
+        long epoch = table.epoch();
+        table.invalidate(1);
+        table.put(1, 1L, epoch);
+        assertNull(table.get(1));
+        epoch = table.epoch();
+        table.invalidateAll();
+        table.put(1, 1L, epoch);
+        assertNull(table.get(1));
+        table.put(1, 1L, table.epoch());
+        assertEquals(table.get(1), 1L);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new EUI48IdTable(EUI48IdTable.MAX_CAPACITY + 1);
+    }
+}
@@ -0,0 +1,300 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.hibernate;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.Type;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.BootstrapServiceRegistryBuilder;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link EUI48NaturalIdCache} class, with an in-memory H2 database.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48NaturalIdCache
+ */
+public class EUI48NaturalIdCacheTest {
+    private static final long BASE = 0x001b21000000L;
+
+    private static final int DEVICES = 500;
+
+    private EUI48NaturalIdCache cache;
+
+    private SessionFactory sessionFactory;
+
+    @BeforeClass
+    public void setUp() {
+        this.cache = new EUI48NaturalIdCache();
+        Configuration configuration = configuration("EUI48NaturalIdCacheTest");
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder(new BootstrapServiceRegistryBuilder().with(this.cache).build())
+                .applySettings(configuration.getProperties()).buildServiceRegistry());
+        populate(this.sessionFactory);
+    }
+
+    @AfterClass
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @BeforeMethod
+    public void clear() {
+        this.cache.invalidateAll();
+        this.cache.clearStatistics();
+        this.sessionFactory.getStatistics().clear();
+    }
+
+    @Test
+    public void testHit() {
+        EUI48 mac = new EUI48(BASE + 17);
+        assertEquals(load(this.sessionFactory, mac).id, Long.valueOf(17));
+        assertEquals(this.cache.getMissCount(), 1L);
+        assertEquals(this.cache.getCachedCount(), 1);
+        assertEquals(this.sessionFactory.getStatistics().getNaturalIdQueryExecutionCount(), 1L);
+
+        for (int n = 0; n < 3; ++n) {
+            assertEquals(load(this.sessionFactory, mac).id, Long.valueOf(17));
+        }
+        assertEquals(this.cache.getHitCount(), 3L);
+        assertEquals(this.cache.getMissCount(), 1L);
+        assertEquals(this.cache.getHitRate(), 0.75);
+        assertEquals(this.sessionFactory.getStatistics().getNaturalIdQueryExecutionCount(), 1L);
+    }
+
+    @Test
+    public void testMissingIsNotCached() {
+        EUI48 mac = new EUI48(BASE + DEVICES);
+        assertNull(load(this.sessionFactory, mac));
+        assertNull(load(this.sessionFactory, mac));
+        assertEquals(this.cache.getHitCount(), 0L);
+        assertEquals(this.cache.getMissCount(), 2L);
+        assertEquals(this.cache.getCachedCount(), 0);
+        assertEquals(this.cache.getHitRate(), 0.0);
+    }
+
+    @Test
+    public void testDeleteInvalidates() {
+        Device device = new Device();
+        device.id = 10000L;
+        device.mac = new EUI48(BASE + 10000);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.save(device);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertNotNull(load(this.sessionFactory, device.mac));
+        assertEquals(this.cache.getCachedCount(), 1);
+
+        session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.delete(session.get(Device.class, device.id));
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(this.cache.getCachedCount(), 0);
+        assertNull(load(this.sessionFactory, device.mac));
+        assertEquals(this.cache.getHitCount(), 0L);
+    }
+
+    @Test
+    public void testUpdateInvalidates() {
+        EUI48 mac = new EUI48(BASE + 3), changed = new EUI48(BASE + 20000);
+        assertNotNull(load(this.sessionFactory, mac));
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            ((Device) session.get(Device.class, 3L)).mac = changed;
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(this.cache.getCachedCount(), 0);
+        assertNull(load(this.sessionFactory, mac));
+        assertEquals(load(this.sessionFactory, changed).id, Long.valueOf(3));
+
+        session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            ((Device) session.get(Device.class, 3L)).mac = mac;
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertNull(load(this.sessionFactory, changed));
+        assertEquals(load(this.sessionFactory, mac).id, Long.valueOf(3));
+    }
+
+    @Test
+    public void testUpdateInvalidatesAfterCommit() {
+        EUI48 mac = new EUI48(BASE + 30), changed = new EUI48(BASE + 30000);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            ((Device) session.get(Device.class, 30L)).mac = changed;
+            session.flush();
+            assertEquals(load(this.sessionFactory, mac).id, Long.valueOf(30));
+            assertEquals(this.cache.getCachedCount(), 1);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(this.cache.getCachedCount(), 0);
+        assertNull(load(this.sessionFactory, mac));
+        assertEquals(load(this.sessionFactory, changed).id, Long.valueOf(30));
+    }
+
+    @Test
+    public void testDeleteInvalidatesAfterCommit() {
+        EUI48 mac = new EUI48(BASE + 31);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.delete(session.get(Device.class, 31L));
+            session.flush();
+            assertEquals(load(this.sessionFactory, mac).id, Long.valueOf(31));
+            assertEquals(this.cache.getCachedCount(), 1);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(this.cache.getCachedCount(), 0);
+        assertNull(load(this.sessionFactory, mac));
+    }
+
+    @Test
+    public void testInvalidate() {
+        EUI48 mac = new EUI48(BASE + 5);
+        load(this.sessionFactory, mac);
+        load(this.sessionFactory, new EUI48(BASE + 6));
+        this.cache.invalidate(mac);
+        assertEquals(this.cache.getCachedCount(), 1);
+        load(this.sessionFactory, mac);
+        assertEquals(this.cache.getMissCount(), 3L);
+    }
+
+    @Test
+    public void testCapacity() {
+        EUI48NaturalIdCache cache = new EUI48NaturalIdCache(64);
+        SessionFactory sessionFactory = buildSessionFactory(configuration("EUI48NaturalIdCacheTestCapacity"));
+        try {
+            cache.install(sessionFactory);
+            populate(sessionFactory);
+            for (int n = 0; n < DEVICES; ++n) {
+                assertEquals(load(sessionFactory, new EUI48(BASE + n)).id, Long.valueOf(n));
+                assertTrue(cache.getCachedCount() <= 64);
+            }
+            assertEquals(cache.getCachedCount(), 64);
+            assertEquals(cache.getEvictionCount(), DEVICES - 64L);
+            for (int n = 0; n < DEVICES; ++n) {
+                assertEquals(load(sessionFactory, new EUI48(BASE + n)).id, Long.valueOf(n));
+            }
+            assertEquals(cache.getHitCount() + cache.getMissCount(), 2L * DEVICES);
+        }
+        finally {
+            sessionFactory.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testInstallTwice() {
+        this.cache.install(this.sessionFactory);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new EUI48NaturalIdCache(0);
+    }
+
+    private static Device load(SessionFactory sessionFactory, EUI48 mac) {
+        Session session = sessionFactory.openSession();
+        try {
+            return (Device) session.bySimpleNaturalId(Device.class).load(mac);
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    private static void populate(SessionFactory sessionFactory) {
+        Session session = sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            for (int n = 0; n < DEVICES; ++n) {
+                Device device = new Device();
+                device.id = (long) n;
+                device.mac = new EUI48(BASE + n);
+                session.save(device);
+            }
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    private static Configuration configuration(String name) {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+        configuration.addAnnotatedClass(Device.class);
+        return configuration;
+    }
+
+    private static SessionFactory buildSessionFactory(Configuration configuration) {
+        return configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+    }
+
+    @Entity(name = "NaturalIdDevice")
+    public static class Device {
+        @Id
+        Long id;
+
+        @NaturalId(mutable = true)
+        @Type(type = "de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType")
+        EUI48 mac;
+    }
+}
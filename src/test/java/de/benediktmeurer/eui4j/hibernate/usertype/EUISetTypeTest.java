@@ -0,0 +1,290 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.Set;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
+import org.hibernate.annotations.TypeDefs;
+import org.hibernate.cfg.Configuration;
+import org.hibernate.service.ServiceRegistryBuilder;
+import org.hibernate.stat.Statistics;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link EUI48SetType} and {@link EUI64SetType} classes, with an in-memory H2
+ * database.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48SetType
+ * @see EUI64SetType
+ */
+public class EUISetTypeTest {
+    private SessionFactory sessionFactory;
+
+    @DataProvider(name = "sizes")
+    public Object[][] dataProviderSizes() {
+        return new Object[][] { { 0 }, { 1 }, { 100 }, { 10000 } };
+    }
+
+    @BeforeClass
+    public void setUp() {
+        Configuration configuration = new Configuration();
+        configuration.setProperty("hibernate.connection.driver_class", "org.h2.Driver");
+        configuration.setProperty("hibernate.connection.url", "jdbc:h2:mem:EUISetTypeTest;DB_CLOSE_DELAY=-1");
+        configuration.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        configuration.setProperty("hibernate.hbm2ddl.auto", "create-drop");
+        configuration.setProperty("hibernate.generate_statistics", "true");
+        configuration.addAnnotatedClass(Membership.class);
+        this.sessionFactory = configuration.buildSessionFactory(new ServiceRegistryBuilder().applySettings(configuration.getProperties()).buildServiceRegistry());
+    }
+
+    @AfterClass
+    public void tearDown() {
+        this.sessionFactory.close();
+    }
+
+    @BeforeMethod
+    public void clearStatistics() {
+        this.sessionFactory.getStatistics().clear();
+    }
+
+    @Test(dataProvider = "sizes")
+    public void testRoundTrip(int size) {
+        Membership membership = new Membership();
+        membership.id = 1000L + size;
+        membership.devices = eui48s(size);
+        membership.uncompressedDevices = eui48s(size + 1);
+        membership.hosts = eui64s(size);
+        save(membership);
+
+        Session session = this.sessionFactory.openSession();
+        try {
+            Membership loaded = (Membership) session.get(Membership.class, membership.id);
+            assertTrue(loaded.devices instanceof PackedEUISet);
+            assertEquals(loaded.devices.size(), size);
+            assertFalse(((PackedEUISet<?>) loaded.devices).isDecoded());
+            assertEquals(loaded.devices, membership.devices);
+            assertEquals(loaded.uncompressedDevices, membership.uncompressedDevices);
+            assertEquals(loaded.hosts, membership.hosts);
+            assertNull(loaded.optionalHosts);
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testUnmodifiedIsNotDirty() {
+        Membership membership = new Membership();
+        membership.id = 1L;
+        membership.devices = eui48s(1000);
+        membership.hosts = eui64s(1000);
+        save(membership);
+
+        Statistics statistics = this.sessionFactory.getStatistics();
+        statistics.clear();
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            Membership loaded = (Membership) session.get(Membership.class, membership.id);
+            assertTrue(loaded.devices.contains(membership.devices.iterator().next()));
+            for (EUI64 val : loaded.hosts) {
+                assertTrue(membership.hosts.contains(val));
+            }
+            assertNotNull(((PackedEUISet<?>) loaded.hosts).getEncoded());
+            session.flush();
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(statistics.getEntityUpdateCount(), 0L);
+    }
+
+    @Test
+    public void testModifiedIsDirty() {
+        Membership membership = new Membership();
+        membership.id = 2L;
+        membership.devices = eui48s(1000);
+        membership.hosts = eui64s(10);
+        save(membership);
+
+        EUI48 added = new EUI48(0x0200000000ffL);
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            Membership loaded = (Membership) session.get(Membership.class, membership.id);
+            assertTrue(loaded.devices.add(added));
+            loaded.hosts = new HashSet<EUI64>(loaded.hosts);
+            loaded.optionalHosts = eui64s(3);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+        assertEquals(this.sessionFactory.getStatistics().getEntityUpdateCount(), 1L);
+
+        session = this.sessionFactory.openSession();
+        try {
+            Membership loaded = (Membership) session.get(Membership.class, membership.id);
+            assertEquals(loaded.devices.size(), 1001);
+            assertTrue(loaded.devices.contains(added));
+            assertEquals(loaded.hosts, membership.hosts);
+            assertEquals(loaded.optionalHosts, eui64s(3));
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    @Test
+    public void testEquals() {
+        EUI48SetType type = new EUI48SetType();
+        Set<EUI48> set = eui48s(100);
+        Object copy = type.deepCopy(set);
+        assertTrue(type.equals(set, copy));
+        assertEquals(type.hashCode(copy), type.hashCode(set));
+        assertTrue(type.equals(copy, type.deepCopy(copy)));
+        assertFalse(type.equals(set, type.deepCopy(eui48s(99))));
+        assertFalse(type.equals(set, null));
+        assertTrue(type.equals(null, null));
+        assertEquals(type.assemble(type.disassemble(set), null), set);
+    }
+
+    @Test
+    public void testEqualsWithEqualContentHash() {
+        EUI64SetType type = new EUI64SetType();
+        EUI64 a = new EUI64(1L);
+        EUI64 b = new EUI64(2L);
+        EUI64 c = new EUI64(3L);
+        EUI64 d = new EUI64(unhash64(a.hash64() + b.hash64() - c.hash64()));
+        Set<EUI64> x = new HashSet<EUI64>(Arrays.asList(a, b));
+        Set<EUI64> y = new HashSet<EUI64>(Arrays.asList(c, d));
+        assertEquals(type.hashCode(y), type.hashCode(x));
+        assertFalse(type.equals(x, y));
+        assertFalse(type.equals(type.deepCopy(x), type.deepCopy(y)));
+    }
+
+    @Test
+    public void testIteratorRemove() {
+        EUI48SetType type = new EUI48SetType();
+        @SuppressWarnings("unchecked")
+        Set<EUI48> set = (Set<EUI48>) type.deepCopy(eui48s(100));
+        int count = 0;
+        for (Iterator<EUI48> it = set.iterator(); it.hasNext(); it.next()) {
+            ++count;
+        }
+        assertEquals(count, 100);
+        assertNotNull(((PackedEUISet<?>) set).getEncoded());
+        Iterator<EUI48> it = set.iterator();
+        EUI48 removed = it.next();
+        it.remove();
+        assertNull(((PackedEUISet<?>) set).getEncoded());
+        assertEquals(set.size(), 99);
+        assertFalse(set.contains(removed));
+    }
+
+    private void save(Membership membership) {
+        Session session = this.sessionFactory.openSession();
+        try {
+            session.beginTransaction();
+            session.save(membership);
+            session.getTransaction().commit();
+        }
+        finally {
+            session.close();
+        }
+    }
+
+    private static Set<EUI48> eui48s(int count) {
+        Random random = new Random(count);
+        Set<EUI48> set = new HashSet<EUI48>();
+        while (set.size() < count) {
+            set.add(new EUI48(0x001b21000000L | (random.nextLong() >>> 40)));
+        }
+        return set;
+    }
+
+    /**
+     * Returns the EUI-64 bits whose {@link EUI64#hash64()} is {@code hash}, by inverting the
+     * SplitMix64 finalizer.
+     */
+    private static long unhash64(long hash) {
+        long z = unshift(hash, 31) * inverse(0x94d049bb133111ebL);
+        z = unshift(z, 27) * inverse(0xbf58476d1ce4e5b9L);
+        return unshift(z, 30);
+    }
+
+    private static long unshift(long y, int shift) {
+        long x = y;
+        for (int n = shift; n < 64; n += shift) {
+            x = y ^ (x >>> shift);
+        }
+        return x;
+    }
+
+    private static long inverse(long odd) {
+        long inverse = odd;
+        for (int n = 0; n < 5; ++n) {
+            inverse *= 2 - odd * inverse;
+        }
+        return inverse;
+    }
+
+    private static Set<EUI64> eui64s(int count) {
+        Random random = new Random(count);
+        Set<EUI64> set = new HashSet<EUI64>();
+        while (set.size() < count) {
+            set.add(new EUI64(random.nextLong()));
+        }
+        return set;
+    }
+
+    @Entity
+    @TypeDefs({ @TypeDef(name = "eui48Set", typeClass = EUI48SetType.class),
+            @TypeDef(name = "uncompressedEUI48Set", typeClass = EUI48SetType.class, parameters = @Parameter(name = EUI48SetType.COMPRESSED, value = "false")),
+            @TypeDef(name = "eui64Set", typeClass = EUI64SetType.class) })
+    public static class Membership {
+        @Id
+        Long id;
+
+        @Type(type = "eui48Set")
+        @Column(length = 1 << 20)
+        Set<EUI48> devices;
+
+        @Type(type = "uncompressedEUI48Set")
+        @Column(length = 1 << 20)
+        Set<EUI48> uncompressedDevices;
+
+        @Type(type = "eui64Set")
+        @Column(length = 1 << 20)
+        Set<EUI64> hosts;
+
+        @Type(type = "eui64Set")
+        Set<EUI64> optionalHosts;
+    }
+}
@@ -0,0 +1,137 @@
+package de.benediktmeurer.eui4j.hibernate.usertype;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link PackedSetCodec} class.
+ * 
+ * @author Benedikt Meurer
+ * @see PackedSetCodec
+ */
+public class PackedSetCodecTest {
+    @DataProvider(name = "eui48Bits")
+    public Object[][] dataProviderEUI48Bits() {
+        return new Object[][] {
+                { new long[0] },
+                { new long[] { 0L } },
+                { new long[] { 0xffffffffffffL } },
+                { new long[] { 0L, 1L, 2L, 0x800000000000L, 0xffffffffffffL } },
+                { new long[] { 0x001b213a4b5cL, 0x001b213a4b5dL, 0x001b21ffffffL, 0x00a0c9000000L } }
+        };
+    }
+
+    @DataProvider(name = "eui64Bits")
+    public Object[][] dataProviderEUI64Bits() {
+        return new Object[][] {
+                { new long[0] },
+                { new long[] { 0L } },
+                { new long[] { -1L } },
+                { new long[] { 0L, 1L, Long.MAX_VALUE, Long.MIN_VALUE, -1L } },
+                { new long[] { 0x001b21fffe3a4b5cL, 0x001b21fffe3a4b5dL, 0xfe00000000000000L } }
+        };
+    }
+
+    @DataProvider(name = "invalidEncodings")
+    public Object[][] dataProviderInvalidEncodings() {
+        byte[] valid = PackedSetCodec.encode(new HashSet<EUI48>(Arrays.asList(new EUI48(1L), new EUI48(2L))), false, true);
+        byte[] version = valid.clone();
+        version[0] = 2;
+        byte[] flags = valid.clone();
+        flags[1] = 0x10;
+        Object[][] counts = dataProviderInvalidCounts();
+        return new Object[][] {
+                { new byte[0] },
+                { Arrays.copyOf(valid, PackedSetCodec.HEADER_LENGTH - 1) },
+                { Arrays.copyOf(valid, valid.length - 1) },
+                { Arrays.copyOf(valid, valid.length + 1) },
+                { version },
+                { flags },
+                counts[0],
+                counts[1],
+                counts[2],
+                counts[3]
+        };
+    }
+
+    @DataProvider(name = "invalidCounts")
+    public Object[][] dataProviderInvalidCounts() {
+        Set<EUI48> set = new HashSet<EUI48>(Arrays.asList(new EUI48(1L), new EUI48(2L)));
+        byte[] delta = PackedSetCodec.encode(set, false, true);
+        byte[] raw = PackedSetCodec.encode(set, false, false);
+        byte[][] encodings = new byte[][] { delta.clone(), delta.clone(), raw.clone(), raw.clone() };
+        encodings[0][5] = 3;
+        encodings[1][2] = 0x7f;
+        encodings[2][5] = 3;
+        encodings[3][2] = 0x7f;
+        return new Object[][] { { encodings[0] }, { encodings[1] }, { encodings[2] }, { encodings[3] } };
+    }
+
+    @Test(dataProvider = "eui48Bits")
+    public void testEUI48RoundTrip(long[] bits) {
+        Set<EUI48> set = new HashSet<EUI48>();
+        for (long b : bits) {
+            set.add(new EUI48(b));
+        }
+        for (boolean delta : new boolean[] { false, true }) {
+            byte[] encoded = PackedSetCodec.encode(set, false, delta);
+            assertFalse(PackedSetCodec.isEUI64(encoded));
+            assertEquals(PackedSetCodec.size(encoded), bits.length);
+            assertEquals(PackedSetCodec.contentHash(encoded), PackedSetCodec.contentHash(set, false));
+            assertEquals(PackedSetCodec.decode(encoded), bits);
+            assertEquals(new PackedEUISet<EUI48>(encoded), set);
+        }
+    }
+
+    @Test(dataProvider = "eui64Bits")
+    public void testEUI64RoundTrip(long[] bits) {
+        Set<EUI64> set = new HashSet<EUI64>();
+        for (long b : bits) {
+            set.add(new EUI64(b));
+        }
+        for (boolean delta : new boolean[] { false, true }) {
+            byte[] encoded = PackedSetCodec.encode(set, true, delta);
+            assertTrue(PackedSetCodec.isEUI64(encoded));
+            assertEquals(PackedSetCodec.size(encoded), bits.length);
+            assertEquals(PackedSetCodec.contentHash(encoded), PackedSetCodec.contentHash(set, true));
+            assertEquals(PackedSetCodec.decode(encoded), bits);
+            assertEquals(new PackedEUISet<EUI64>(encoded), set);
+        }
+    }
+
+    @Test
+    public void testDeltaIsCompact() {
+        Set<EUI48> set = new HashSet<EUI48>();
+        for (int n = 0; n < 1000; ++n) {
+            set.add(new EUI48(0x001b21000000L + n * 3));
+        }
+        assertEquals(PackedSetCodec.encode(set, false, false).length, PackedSetCodec.HEADER_LENGTH + 6000);
+        assertEquals(PackedSetCodec.encode(set, false, true).length, PackedSetCodec.HEADER_LENGTH + 6 + 999);
+    }
+
+    @Test(dataProvider = "invalidEncodings", expectedExceptions = IllegalArgumentException.class)
+    public void testDecodeInvalid(byte[] encoded) {
+        PackedSetCodec.decode(encoded);
+    }
+
+    @Test(dataProvider = "invalidCounts", expectedExceptions = IllegalArgumentException.class)
+    public void testSizeInvalid(byte[] encoded) {
+        PackedSetCodec.size(encoded);
+    }
+
+    @Test(expectedExceptions = ClassCastException.class)
+    public void testEncodeWrongType() {
+        PackedSetCodec.encode(new HashSet<EUI64>(Arrays.asList(new EUI64(1L))), false, true);
+    }
+}
@@ -0,0 +1,271 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.metrics;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.testng.SkipException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI48BinaryType;
+import de.benediktmeurer.eui4j.hibernate.usertype.EUI64BinaryType;
+
+/**
+ * Unit tests for the {@link EUIMetrics} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIMetrics
+ */
+public class EUIMetricsTest {
+    @BeforeMethod
+    public void enable() {
+        EUIMetrics.reset();
+        EUIMetrics.setEnabled(true);
+    }
+
+    @AfterMethod
+    public void disable() {
+        EUIMetrics.setEnabled(false);
+        EUIMetrics.setFlightRecorderEnabled(false);
+        EUIMetrics.reset();
+    }
+
+    @DataProvider(name = "invalidStrings")
+    public Object[][] dataProviderInvalidStrings() {
+        return new Object[][] {
+                { EUIType.EUI48, "", ParseFailure.LENGTH },
+                { EUIType.EUI48, "00:1b:21:3a:4b", ParseFailure.LENGTH },
+                { EUIType.EUI48, "00:1b:21:3a:4b:5c:6d", ParseFailure.LENGTH },
+                { EUIType.EUI48, "00.1b.21.3a.4b.5c", ParseFailure.SEPARATOR },
+                { EUIType.EUI48, "00:1b-21:3a:4b:5c", ParseFailure.SEPARATOR },
+                { EUIType.EUI48, "00:1b:2g:3a:4b:5c", ParseFailure.DIGIT },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b", ParseFailure.LENGTH },
+                { EUIType.EUI64, "00-1b-21-ff-fe-3a-4b:5c", ParseFailure.SEPARATOR },
+                { EUIType.EUI64, "00:1b:21:ff:fe:3a:4b:5x", ParseFailure.DIGIT }
+        };
+    }
+
+    @Test(dataProvider = "invalidStrings")
+    public void testParseFailure(EUIType type, String name, ParseFailure reason) {
+        try {
+            if (type == EUIType.EUI48) {
+                EUI48.fromString(name);
+            }
+            else {
+                EUI64.fromString(name);
+            }
+            fail("Expected IllegalArgumentException");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        EUIMetricsSnapshot snapshot = EUIMetrics.snapshot();
+        for (EUIType t : EUIType.values()) {
+            for (ParseFailure r : ParseFailure.values()) {
+                assertEquals(snapshot.getParseFailureCount(t, r), (t == type && r == reason) ? 1L : 0L, t + " " + r);
+            }
+            assertEquals(snapshot.getParseCount(t), 0L);
+        }
+        assertEquals(snapshot.getParseFailureCount(type), 1L);
+    }
+
+    @Test
+    public void testParseAndFormat() {
+        for (int n = 0; n < 10; ++n) {
+            EUI48.fromString("00:1b:21:3a:4b:5c").toString();
+        }
+        for (int n = 0; n < 3; ++n) {
+            EUI64.fromString("00:1b:21:ff:fe:3a:4b:5c");
+        }
+        EUIMetricsSnapshot snapshot = EUIMetrics.snapshot();
+        assertEquals(snapshot.getParseCount(EUIType.EUI48), 10L);
+        assertEquals(snapshot.getFormatCount(EUIType.EUI48), 10L);
+        assertEquals(snapshot.getFormatChars(EUIType.EUI48), 170L);
+        assertEquals(snapshot.getParseCount(EUIType.EUI64), 3L);
+        assertEquals(snapshot.getFormatCount(EUIType.EUI64), 0L);
+    }
+
+    @Test
+    public void testDisabled() {
+        EUIMetrics.setEnabled(false);
+        EUI48.fromString("00:1b:21:3a:4b:5c").toString();
+        try {
+            EUI64.fromString("invalid");
+        }
+        catch (IllegalArgumentException e) {
+            // expected
+        }
+        EUIMetricsSnapshot snapshot = EUIMetrics.snapshot();
+        for (EUIType type : EUIType.values()) {
+            assertEquals(snapshot.getParseCount(type), 0L);
+            assertEquals(snapshot.getParseFailureCount(type), 0L);
+            assertEquals(snapshot.getFormatCount(type), 0L);
+        }
+    }
+
+    @Test
+    public void testConcurrentUpdates() throws InterruptedException {
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int n = 0; n < 10000; ++n) {
+                        EUIMetrics.recordParse(EUIType.EUI64);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(EUIMetrics.snapshot().getParseCount(EUIType.EUI64), 80000L);
+    }
+
+    @Test
+    public void testUserTypes() throws SQLException {
+        EUI48 eui48 = EUI48.fromString("00:1b:21:3a:4b:5c");
+        EUI64 eui64 = EUI64.fromString("00:1b:21:01:02:3a:4b:5c");
+        Map<String, Object> columns = new HashMap<String, Object>();
+        columns.put("eui48", eui48.getOctets());
+        columns.put("eui64", eui64.getOctets());
+        ResultSet rs = resultSet(columns);
+        PreparedStatement st = preparedStatement();
+
+        EUI48BinaryType eui48Type = new EUI48BinaryType();
+        EUI64BinaryType eui64Type = new EUI64BinaryType();
+        assertEquals(eui48Type.nullSafeGet(rs, new String[] { "eui48" }, null, null), eui48);
+        assertEquals(eui48Type.nullSafeGet(rs, new String[] { "none" }, null, null), null);
+        assertEquals(eui64Type.nullSafeGet(rs, new String[] { "eui64" }, null, null), eui64);
+        eui48Type.nullSafeSet(st, eui48, 1, null);
+        eui64Type.nullSafeSet(st, null, 1, null);
+        eui64Type.nullSafeSet(st, eui64, 1, null);
+
+        EUIMetricsSnapshot snapshot = EUIMetrics.snapshot();
+        assertEquals(snapshot.getUserTypeGetCount(EUIType.EUI48), 2L);
+        assertEquals(snapshot.getUserTypeGetCount(EUIType.EUI64), 1L);
+        assertEquals(snapshot.getUserTypeSetCount(EUIType.EUI48), 1L);
+        assertEquals(snapshot.getUserTypeSetCount(EUIType.EUI64), 2L);
+        assertTrue(snapshot.getUserTypeGetNanos(EUIType.EUI48) >= 0);
+        assertTrue(snapshot.getUserTypeSetNanos(EUIType.EUI64) >= 0);
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws IOException {
+        if (!EUIMetrics.isFlightRecorderAvailable()) {
+            throw new SkipException("Flight Recorder is not available");
+        }
+        EUIMetrics.setFlightRecorderEnabled(true);
+        File file = File.createTempFile("eui4j", ".jfr");
+        Recording recording = new Recording();
+        try {
+            recording.enable("de.benediktmeurer.eui4j.ParseFailure");
+            recording.enable("de.benediktmeurer.eui4j.UserType");
+            recording.start();
+            for (String name : new String[] { "00:1b:21", "00_1b_21_3a_4b_5c", "00:1b:21:3a:4b:zz" }) {
+                try {
+                    EUI48.fromString(name);
+                }
+                catch (IllegalArgumentException e) {
+                    // expected
+                }
+            }
+            EUIMetrics.recordGet(EUIType.EUI64, 12345);
+            recording.stop();
+            recording.dump(file.toPath());
+
+            Map<String, String> reasons = new HashMap<String, String>();
+            int userTypeEvents = 0;
+            for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+                String name = event.getEventType().getName();
+                if (name.equals("de.benediktmeurer.eui4j.ParseFailure")) {
+                    assertEquals(event.getString("type"), "EUI48");
+                    reasons.put(event.getString("input"), event.getString("reason"));
+                }
+                else if (name.equals("de.benediktmeurer.eui4j.UserType")) {
+                    assertEquals(event.getString("type"), "EUI64");
+                    assertEquals(event.getString("operation"), "get");
+                    assertEquals(event.getDuration("latency").toNanos(), 12345L);
+                    ++userTypeEvents;
+                }
+            }
+            assertEquals(reasons.size(), 3);
+            assertEquals(reasons.get("00:1b:21"), "LENGTH");
+            assertEquals(reasons.get("00_1b_21_3a_4b_5c"), "SEPARATOR");
+            assertEquals(reasons.get("00:1b:21:3a:4b:zz"), "DIGIT");
+            assertEquals(userTypeEvents, 1);
+        }
+        finally {
+            recording.close();
+            file.delete();
+        }
+    }
+
+    private static ResultSet resultSet(final Map<String, Object> columns) {
+        return (ResultSet) Proxy.newProxyInstance(EUIMetricsTest.class.getClassLoader(), new Class<?>[] { ResultSet.class }, new InvocationHandler() {
+            private boolean wasNull;
+
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("getBytes")) {
+                    Object value = columns.get(args[0]);
+                    this.wasNull = (value == null);
+                    return value;
+                }
+                else if (method.getName().equals("wasNull")) {
+                    return this.wasNull;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    private static PreparedStatement preparedStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(EUIMetricsTest.class.getClassLoader(), new Class<?>[] { PreparedStatement.class }, new InvocationHandler() {
+            @Override
+            public Object invoke(Object proxy, Method method, Object[] args) {
+                if (method.getName().equals("setBytes") || method.getName().equals("setNull")) {
+                    return null;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+}
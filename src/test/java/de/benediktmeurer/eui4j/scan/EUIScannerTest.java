@@ -0,0 +1,269 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.scan;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIScanner} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIScanner
+ */
+public class EUIScannerTest {
+    @DataProvider(name = "texts")
+    public Object[][] dataProviderTexts() {
+        return new Object[][] {
+                { "", new String[0] },
+                { "link 00:1b:21:ab:cd:ef up", new String[] { "EUI48 1b21abcdef 5 17" } },
+                { "00-1B-21-AB-CD-EF", new String[] { "EUI48 1b21abcdef 0 17" } },
+                { "Gi0/1 001b.21ab.cdef DYNAMIC", new String[] { "EUI48 1b21abcdef 6 14" } },
+                { "eui 02:00:00:ff:fe:00:00:01", new String[] { "EUI64 20000fffe000001 4 23" } },
+                { "0200.00FF.FE00.0001", new String[] { "EUI64 20000fffe000001 0 19" } },
+                { "mac:00:1b:21:ab:cd:ef", new String[] { "EUI48 1b21abcdef 4 17" } },
+                { "x00:1b:21:ab:cd:ef", new String[] { "EUI48 1b21abcdef 1 17" } },
+                { "from 00:1b:21:ab:cd:ef.", new String[] { "EUI48 1b21abcdef 5 17" } },
+                { "00:1b:21:ab:cd:ef,00:1B:21:AB:CD:F0", new String[] { "EUI48 1b21abcdef 0 17", "EUI48 1b21abcdf0 18 17" } },
+                { "ä00:1b:21:ab:cd:efä", new String[] { "EUI48 1b21abcdef 1 17" } },
+                { "00:1b:21:ab:cd:ef:01", new String[0] },
+                { "x aa:bb:cc:dd:ee:ff:11 y", new String[0] },
+                { "ECDSA key 16:27:ac:a5:76:28:2d:36:63:1b:56:4d:eb:df:a6:48", new String[0] },
+                { "1234.5678.001b.21ab.cdef", new String[0] },
+                { "eth0-00-1b-21-ab-cd-ef", new String[] { "EUI48 1b21abcdef 5 17" } },
+                { "100:1b:21:ab:cd:ef", new String[0] },
+                { "00:1b:21:ab:cd:eff", new String[0] },
+                { "00:1b:21:ab:cd:ef:0", new String[0] },
+                { "00:1b-21:ab:cd:ef", new String[0] },
+                { "00:1b:21:ab:cd:e", new String[0] },
+                { "001b.21ab.cdef.1", new String[0] },
+                { "001b.21ab.cde", new String[0] },
+                { "001b:21ab:cdef", new String[0] },
+                { "fe80::1 12:30:45 10.0.0.1 ab:cd", new String[0] }
+        };
+    }
+
+    @Test(dataProvider = "texts")
+    public void testScan(String text, String[] expected) throws IOException {
+        Recorder recorder = new Recorder();
+        assertEquals(new EUIScanner().scan(text, recorder), expected.length);
+        assertEquals(recorder.matches, Arrays.asList(expected));
+        for (Recorder other : scanAll(new EUIScanner(), text)) {
+            assertEquals(other.matches, recorder.matches);
+        }
+    }
+
+    @Test(dataProvider = "texts")
+    public void testScanType(String text, String[] expected) {
+        for (EUIType type : EUIType.values()) {
+            Recorder recorder = new Recorder();
+            new EUIScanner(type).scan(text, recorder);
+            List<String> filtered = new ArrayList<String>();
+            for (String match : expected) {
+                if (match.startsWith(type.name())) {
+                    filtered.add(match);
+                }
+            }
+            assertEquals(recorder.matches, filtered);
+        }
+    }
+
+    @Test
+    public void testScanRange() {
+        Recorder recorder = new Recorder();
+        String text = "a00:1b:21:ab:cd:ef:00:11";
+        assertEquals(new EUIScanner().scan(text, 1, 18, recorder), 1);
+        assertEquals(recorder.matches, Arrays.asList("EUI48 1b21abcdef 1 17"));
+        byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+        recorder = new Recorder();
+        assertEquals(new EUIScanner().scan(ascii, 1, 17, recorder), 1);
+        assertEquals(recorder.matches, Arrays.asList("EUI48 1b21abcdef 1 17"));
+        ByteBuffer buffer = ByteBuffer.wrap(ascii);
+        buffer.position(1).limit(18);
+        recorder = new Recorder();
+        assertEquals(new EUIScanner().scan(buffer, recorder), 1);
+        assertEquals(recorder.matches, Arrays.asList("EUI48 1b21abcdef 1 17"));
+        assertEquals(buffer.position(), 1);
+    }
+
+    @Test
+    public void testScanRandom() throws IOException {
+        Random random = new Random(0x5ca9);
+        List<String> planted = new ArrayList<String>();
+        String text = text(random, 40000, planted);
+        assertTrue(text.length() > 300000);
+        EUIScanner scanner = new EUIScanner();
+        Recorder recorder = new Recorder();
+        scanner.scan(text, recorder);
+        assertTrue(recorder.matches.containsAll(planted));
+        for (Recorder other : scanAll(scanner, text)) {
+            assertEquals(other.matches, recorder.matches);
+        }
+    }
+
+    @Test
+    public void testParallelScanBoundaries() {
+        Random random = new Random(0xb0);
+        String text = text(random, 200, new ArrayList<String>());
+        EUIScanner scanner = new EUIScanner();
+        Recorder expected = new Recorder();
+        scanner.scan(text, expected);
+        ByteBuffer buffer = ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1));
+        for (int partitions = 1; partitions <= text.length(); partitions += 1 + partitions / 4) {
+            assertEquals(parallelScan(scanner, buffer, partitions).matches, expected.matches);
+        }
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testScanInvalidRange() {
+        new EUIScanner().scan("00:1b:21:ab:cd:ef", 2, 18, new Recorder());
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testScanInvalidOffset() {
+        new EUIScanner().scan(new byte[10], 5, 6, new Recorder());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testParallelScanInvalidPartitions() {
+        new EUIScanner().parallelScan(ByteBuffer.allocate(10), 0, i -> new Recorder());
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullType() {
+        new EUIScanner(null);
+    }
+
+    private static List<Recorder> scanAll(EUIScanner scanner, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+        List<Recorder> recorders = new ArrayList<Recorder>();
+        Recorder recorder = new Recorder();
+        scanner.scan(bytes, recorder);
+        recorders.add(recorder);
+        recorder = new Recorder();
+        scanner.scan(ByteBuffer.wrap(bytes), recorder);
+        recorders.add(recorder);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+        direct.position(3);
+        direct.put(bytes).position(3);
+        recorder = new Recorder();
+        scanner.scan(direct.slice(), recorder);
+        recorders.add(recorder);
+        recorders.add(parallelScan(scanner, ByteBuffer.wrap(bytes), 7));
+        File file = File.createTempFile("eui4j", "scan");
+        try {
+            FileOutputStream out = new FileOutputStream(file);
+            try {
+                out.write(bytes);
+            }
+            finally {
+                out.close();
+            }
+            recorder = new Recorder();
+            scanner.scan(file, recorder);
+            recorders.add(recorder);
+            final Recorder[] partitions = new Recorder[13];
+            scanner.parallelScan(file, partitions.length, i -> partitions[i] = new Recorder());
+            recorders.add(concat(partitions));
+        }
+        finally {
+            file.delete();
+        }
+        return recorders;
+    }
+
+    private static Recorder parallelScan(EUIScanner scanner, ByteBuffer buffer, int count) {
+        final Recorder[] partitions = new Recorder[count];
+        int matches = scanner.parallelScan(buffer, count, i -> partitions[i] = new Recorder());
+        Recorder recorder = concat(partitions);
+        assertEquals(matches, recorder.matches.size());
+        return recorder;
+    }
+
+    private static Recorder concat(Recorder[] partitions) {
+        Recorder recorder = new Recorder();
+        for (Recorder partition : partitions) {
+            if (partition != null) {
+                recorder.matches.addAll(partition.matches);
+            }
+        }
+        return recorder;
+    }
+
+    private static String text(Random random, int tokens, List<String> planted) {
+        String[] delimiters = { " ", " ", " ", ",", "=", ":", "-", ".", "\n", "", "x", "0", "ä" };
+        String[] noise = { "failed", "12:30:45", "10.0.0.1", "fe80::1", "0a:0b", "cafe.babe", "ab-cd-ef", "DEADBEEF" };
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < tokens; ++n) {
+            String delimiter = delimiters[random.nextInt(delimiters.length)];
+            sb.append(delimiter);
+            if (random.nextInt(3) == 0) {
+                sb.append(noise[random.nextInt(noise.length)]);
+            }
+            else {
+                boolean eui64 = random.nextBoolean();
+                long bits = eui64 ? random.nextLong() : random.nextLong() >>> 16;
+                int octets = eui64 ? 8 : 6;
+                int group = random.nextBoolean() ? 2 : 4;
+                char sep = (group == 4) ? '.' : random.nextBoolean() ? ':' : '-';
+                String name = format(bits, octets, group, sep, random.nextBoolean());
+                int offset = sb.length();
+                sb.append(name);
+                if (delimiter.equals(" ") && random.nextBoolean()) {
+                    sb.append(' ');
+                    planted.add((eui64 ? "EUI64 " : "EUI48 ") + Long.toHexString(bits) + " " + offset + " " + name.length());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String format(long bits, int octets, int group, char sep, boolean upper) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 2 * octets - 1; n >= 0; --n) {
+            sb.append(Character.forDigit((int) (bits >>> (4 * n)) & 15, 16));
+            if (n > 0 && n % group == 0) {
+                sb.append(sep);
+            }
+        }
+        return upper ? sb.toString().toUpperCase() : sb.toString();
+    }
+
+    private static final class Recorder implements ScanListener {
+        final List<String> matches = new ArrayList<String>();
+
+        @Override
+        public void found(EUIType type, long bits, long offset, int length) {
+            this.matches.add(type + " " + Long.toHexString(bits) + " " + offset + " " + length);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.shard;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link EUIShardRouter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIShardRouter
+ */
+public class EUIShardRouterTest {
+    private static final long BASE = 0x001b21000000L;
+
+    @DataProvider(name = "routers")
+    public Object[][] dataProviderRouters() {
+        return new Object[][] {
+                { EUIShardRouter.jump(1) },
+                { EUIShardRouter.jump(10) },
+                { EUIShardRouter.jump(97) },
+                { EUIShardRouter.rendezvous(1) },
+                { EUIShardRouter.rendezvous(1, 1, 1, 1, 1, 1, 1) },
+                { EUIShardRouter.rendezvous(1, 2, 3, 4) },
+                { EUIShardRouter.rendezvous(new long[] { 17, 4711, -3 }, new double[] { 0.5, 0.25, 0.25 }) }
+        };
+    }
+
+    @Test(dataProvider = "routers")
+    public void testBalance(EUIShardRouter router) {
+        // Sequential NICs under a single OUI, for which hashCode() % n used to be skewed
+        ShardBalance balance = ShardBalance.of(router, sequential(400000));
+        double shares = 0;
+        for (int shard = 0; shard < router.getShardCount(); ++shard) {
+            shares += router.getShare(shard);
+        }
+        assertEquals(shares, 1.0, 1e-9);
+        assertTrue(balance.getMaxLoad() < 1.06, balance.toString());
+        assertTrue(balance.getMinLoad() > 0.94, balance.toString());
+        assertTrue(balance.getCoefficientOfVariation() < 0.03, balance.toString());
+    }
+
+    @Test(dataProvider = "routers")
+    public void testRoute(EUIShardRouter router) {
+        long[] bits = sequential(1000);
+        int[] shards = router.route(bits);
+        int[] partial = new int[bits.length + 2];
+        router.route(bits, 10, 500, partial, 2);
+        for (int n = 0; n < bits.length; ++n) {
+            assertTrue(shards[n] >= 0 && shards[n] < router.getShardCount());
+            assertEquals(router.route(bits[n]), shards[n]);
+            assertEquals(router.route(new EUI48(bits[n])), shards[n]);
+            assertEquals(router.route(new EUI64(bits[n])), shards[n]);
+            if (n >= 10 && n < 500) {
+                assertEquals(partial[n - 8], shards[n]);
+            }
+        }
+    }
+
+    @Test
+    public void testJumpGrow() {
+        long[] bits = sequential(100000);
+        for (int n = 1; n < 20; ++n) {
+            EUIShardRouter from = EUIShardRouter.jump(n);
+            EUIShardRouter to = EUIShardRouter.jump(n + 1);
+            for (long b : bits) {
+                int shard = to.route(b);
+                assertTrue(shard == from.route(b) || shard == n);
+            }
+            assertEquals(ShardBalance.movedFraction(from, to, bits), 1.0 / (n + 1), 0.01);
+        }
+    }
+
+    @Test
+    public void testRendezvousRemove() {
+        long[] bits = sequential(100000);
+        EUIShardRouter from = EUIShardRouter.rendezvous(new long[] { 10, 20, 30, 40 }, new double[] { 1, 2, 1, 1 });
+        EUIShardRouter to = EUIShardRouter.rendezvous(new long[] { 10, 30, 40 }, new double[] { 1, 1, 1 });
+        for (long b : bits) {
+            long before = from.getNodeId(from.route(b));
+            long after = to.getNodeId(to.route(b));
+            assertTrue(before == after || before == 20);
+        }
+        assertEquals(ShardBalance.movedFraction(from, to, bits), 0.4, 0.01);
+    }
+
+    @Test
+    public void testRendezvousReweight() {
+        long[] bits = sequential(100000);
+        EUIShardRouter from = EUIShardRouter.rendezvous(1, 1, 1, 1);
+        EUIShardRouter to = EUIShardRouter.rendezvous(1, 1, 3, 1);
+        for (long b : bits) {
+            int shard = to.route(b);
+            assertTrue(shard == from.route(b) || shard == 2);
+        }
+        assertEquals(ShardBalance.movedFraction(from, to, bits), 0.5 - 0.25, 0.01);
+    }
+
+    @Test
+    public void testRendezvousOrderIndependent() {
+        long[] bits = sequential(10000);
+        long[] ids = { 5, 6, 7 };
+        long[] permuted = { 7, 5, 6 };
+        EUIShardRouter router = EUIShardRouter.rendezvous(ids, new double[] { 1, 2, 3 });
+        EUIShardRouter other = EUIShardRouter.rendezvous(permuted, new double[] { 3, 1, 2 });
+        for (long b : bits) {
+            assertEquals(ids[router.route(b)], permuted[other.route(b)]);
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testJumpInvalid() {
+        EUIShardRouter.jump(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRendezvousEmpty() {
+        EUIShardRouter.rendezvous();
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRendezvousInvalidWeight() {
+        EUIShardRouter.rendezvous(1, 0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testRendezvousDuplicateNodeId() {
+        EUIShardRouter.rendezvous(new long[] { 1, 1 }, new double[] { 1, 1 });
+    }
+
+    @Test(expectedExceptions = IndexOutOfBoundsException.class)
+    public void testGetShareOutOfRange() {
+        EUIShardRouter.jump(3).getShare(3);
+    }
+
+    private static long[] sequential(int count) {
+        long[] bits = new long[count];
+        for (int n = 0; n < count; ++n) {
+            bits[n] = BASE + n;
+        }
+        return bits;
+    }
+}
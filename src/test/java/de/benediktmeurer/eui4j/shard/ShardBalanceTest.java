@@ -0,0 +1,73 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.shard;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Unit tests for the {@link ShardBalance} class.
+ * 
+ * @author Benedikt Meurer
+ * @see ShardBalance
+ */
+public class ShardBalanceTest {
+    @Test
+    public void testCounts() {
+        long[] bits = new long[10000];
+        for (int n = 0; n < bits.length; ++n) {
+            bits[n] = 0x001b21000000L + 7 * n;
+        }
+        EUIShardRouter router = EUIShardRouter.rendezvous(1, 3);
+        ShardBalance balance = ShardBalance.of(router, bits);
+        assertEquals(balance.getShardCount(), 2);
+        assertEquals(balance.getTotal(), 10000L);
+        assertEquals(balance.getCount(0) + balance.getCount(1), 10000L);
+        assertEquals(balance.getExpected(0), 2500.0, 1e-9);
+        assertEquals(balance.getExpected(1), 7500.0, 1e-9);
+        int[] shards = router.route(bits);
+        long count = 0;
+        for (int shard : shards) {
+            count += 1 - shard;
+        }
+        assertEquals(balance.getCount(0), count);
+        assertEquals(balance.getMaxLoad(), Math.max(count / 2500.0, (10000 - count) / 7500.0), 1e-9);
+        assertEquals(balance.getMinLoad(), Math.min(count / 2500.0, (10000 - count) / 7500.0), 1e-9);
+        assertTrue(balance.getCoefficientOfVariation() > 0);
+        assertTrue(balance.toString().startsWith("10000 EUIs on 2 shards"));
+        assertEquals(balance.toString().split("\n").length, 3);
+    }
+
+    @Test
+    public void testEmpty() {
+        ShardBalance balance = ShardBalance.of(EUIShardRouter.jump(4), new long[0]);
+        assertEquals(balance.getTotal(), 0L);
+        assertEquals(balance.getMaxLoad(), 1.0);
+        assertEquals(balance.getMinLoad(), 1.0);
+        assertEquals(balance.getCoefficientOfVariation(), 0.0);
+    }
+
+    @Test
+    public void testMovedFraction() {
+        long[] bits = { 1, 2, 3, 4, 5 };
+        assertEquals(ShardBalance.movedFraction(EUIShardRouter.jump(5), EUIShardRouter.jump(5), bits), 0.0);
+        assertEquals(ShardBalance.movedFraction(EUIShardRouter.jump(1), EUIShardRouter.jump(5), new long[0]), 0.0);
+        assertEquals(ShardBalance.movedFraction(EUIShardRouter.jump(1), EUIShardRouter.jump(1000000), bits), 1.0);
+    }
+}
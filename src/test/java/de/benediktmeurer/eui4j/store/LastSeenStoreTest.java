@@ -0,0 +1,373 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.store;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+
+/**
+ * Unit tests for the {@link LastSeenStore} class.
+ * 
+ * @author Benedikt Meurer
+ * @see LastSeenStore
+ */
+public class LastSeenStoreTest {
+    private File directory;
+
+    @BeforeMethod
+    public void createDirectory() throws IOException {
+        this.directory = File.createTempFile("eui4j", "store");
+        this.directory.delete();
+        this.directory.mkdir();
+    }
+
+    @AfterMethod
+    public void deleteDirectory() {
+        delete(this.directory);
+    }
+
+    @Test
+    public void testKeyEUI48() {
+        EUI48 val = EUI48.fromString("00:1b:21:3a:4b:5c");
+        assertEquals(LastSeenStore.key(val), EUI64.fromString("00:1b:21:ff:fe:3a:4b:5c").getBits());
+        assertEquals(LastSeenStore.toEUI48(LastSeenStore.key(val)), val);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testToEUI48WithEUI64Key() {
+        LastSeenStore.toEUI48(EUI64.fromString("00:1b:21:00:00:3a:4b:5c").getBits());
+    }
+
+    @Test
+    public void testPutGet() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        try {
+            EUI48 val = EUI48.fromString("00:1b:21:3a:4b:5c");
+            assertNull(store.get(val));
+            store.put(val, 1000, 7);
+            assertEquals(store.get(val), new LastSeen(1000, 7));
+            store.put(val, 2000, 8);
+            assertEquals(store.get(val), new LastSeen(2000, 8));
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testPutGetAcrossSegments() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        try {
+            for (int n = 0; n < 1000; ++n) {
+                store.put(n, n, n % 3);
+            }
+            for (int n = 0; n < 1000; n += 2) {
+                store.put(n, 10000 + n, 3);
+            }
+            for (int n = 0; n < 1000; n += 5) {
+                store.remove(n);
+            }
+            assertTrue(store.getSegmentCount() > 1);
+            for (int n = 0; n < 1000; ++n) {
+                assertEquals(store.get(n), expected(n));
+            }
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testCompact() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        try {
+            for (int n = 0; n < 1000; ++n) {
+                store.put(n, n, n % 3);
+            }
+            for (int n = 0; n < 1000; n += 2) {
+                store.put(n, 10000 + n, 3);
+            }
+            for (int n = 0; n < 1000; n += 5) {
+                store.remove(n);
+            }
+            store.flush();
+            store.compact();
+            assertEquals(store.getSegmentCount(), 1);
+            for (int n = 0; n < 1000; ++n) {
+                assertEquals(store.get(n), expected(n));
+            }
+            LastSeenCursor cursor = store.scan(0, -1);
+            for (int n = 0; n < 1000; ++n) {
+                if (n % 5 != 0) {
+                    assertTrue(cursor.next());
+                    assertEquals(cursor.getKey(), n);
+                    assertEquals(new LastSeen(cursor.getTimestamp(), cursor.getLocation()), expected(n));
+                }
+            }
+            assertFalse(cursor.next());
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testBackgroundCompaction() throws Exception {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 4);
+        try {
+            for (int n = 0; n < 1000; ++n) {
+                store.put(n, n, 0);
+            }
+            store.flush();
+            for (int i = 0; i < 100 && store.getSegmentCount() >= 4; ++i) {
+                Thread.sleep(50);
+            }
+            assertTrue(store.getSegmentCount() < 4);
+            for (int n = 0; n < 1000; ++n) {
+                assertEquals(store.get(n), new LastSeen(n, 0));
+            }
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testScanOUI() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 4, 100);
+        try {
+            store.put(EUI64.fromString("00:1b:21:00:00:00:00:01"), 1, 0);
+            store.put(EUI48.fromString("00:1b:21:00:00:02"), 2, 0);
+            store.put(EUI48.fromString("00:1b:20:ff:ff:ff"), 3, 0);
+            store.put(EUI48.fromString("00:1b:22:00:00:00"), 4, 0);
+            store.put(EUI48.fromString("00:1b:21:ff:ff:ff"), 5, 0);
+            store.put(EUI64.fromString("00:1b:21:ff:ff:ff:ff:ff"), 6, 0);
+            store.put(EUI48.fromString("00:1b:21:00:00:01"), 7, 0);
+
+            LastSeenCursor cursor = store.scanOUI(0x001b21);
+            long[] timestamps = { 1, 7, 2, 5, 6 };
+            long previous = 0;
+            for (long timestamp : timestamps) {
+                assertTrue(cursor.next());
+                assertEquals(cursor.getTimestamp(), timestamp);
+                assertTrue(Run.compareUnsigned(previous, cursor.getKey()) < 0);
+                previous = cursor.getKey();
+            }
+            assertFalse(cursor.next());
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testReopen() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        for (int n = 0; n < 100; ++n) {
+            store.put(n, n, n % 3);
+        }
+        store.remove(50);
+        store.close();
+
+        store = new LastSeenStore(this.directory, 16, 100);
+        try {
+            for (int n = 0; n < 100; ++n) {
+                assertEquals(store.get(n), n == 50 ? null : new LastSeen(n, n % 3));
+            }
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test
+    public void testRecoverFromLog() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 1000, 100);
+        File copy = new File(this.directory, "copy");
+        try {
+            for (int n = 0; n < 50; ++n) {
+                store.put(n, n, n % 3);
+            }
+            store.flush();
+            for (int n = 50; n < 100; ++n) {
+                store.put(n, n, n % 3);
+            }
+            store.sync();
+
+            // Copy the directory while the store is still open, as if the process had crashed.
+            copy.mkdir();
+            for (File file : this.directory.listFiles()) {
+                if (file.isFile()) {
+                    copy(file, new File(copy, file.getName()));
+                }
+            }
+        }
+        finally {
+            store.close();
+        }
+
+        store = new LastSeenStore(copy, 16, 100);
+        try {
+            for (int n = 0; n < 100; ++n) {
+                assertEquals(store.get(n), new LastSeen(n, n % 3));
+            }
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPutWithReservedTimestamp() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        try {
+            store.put(0, Long.MIN_VALUE, 0);
+        }
+        finally {
+            store.close();
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testGetAfterClose() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        store.close();
+        store.get(0);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testPutAfterClose() throws IOException {
+        LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        store.close();
+        store.put(0, 1000, 7);
+    }
+
+    @Test(timeOut = 60000)
+    public void testConcurrentClose() throws Exception {
+        final LastSeenStore store = new LastSeenStore(this.directory, 16, 100);
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread writer = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    start.await();
+                    for (int n = 0;; ++n) {
+                        store.put(n, n + 1, 0);
+                        written.set(n + 1);
+                    }
+                }
+                catch (IllegalStateException e) {
+                    // The store is closing.
+                }
+                catch (Throwable t) {
+                    failure.set(t);
+                }
+            }
+        };
+        Thread[] closers = new Thread[4];
+        for (int n = 0; n < closers.length; ++n) {
+            closers[n] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        store.close();
+                    }
+                    catch (Throwable t) {
+                        failure.set(t);
+                    }
+                }
+            };
+        }
+        writer.start();
+        for (Thread closer : closers) {
+            closer.start();
+        }
+        start.countDown();
+        writer.join();
+        for (Thread closer : closers) {
+            closer.join();
+        }
+        assertNull(failure.get());
+        LastSeenStore reopened = new LastSeenStore(this.directory, 16, 100);
+        try {
+            for (int n = 0; n < written.get(); ++n) {
+                assertEquals(reopened.get(n), new LastSeen(n + 1, 0));
+            }
+        }
+        finally {
+            reopened.close();
+        }
+    }
+
+    private static LastSeen expected(int n) {
+        if (n % 5 == 0) {
+            return null;
+        }
+        else if (n % 2 == 0) {
+            return new LastSeen(10000 + n, 3);
+        }
+        else {
+            return new LastSeen(n, n % 3);
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        FileInputStream in = new FileInputStream(from);
+        try {
+            FileOutputStream out = new FileOutputStream(to);
+            try {
+                in.getChannel().transferTo(0, from.length(), out.getChannel());
+            }
+            finally {
+                out.close();
+            }
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    private static void delete(File file) {
+        File[] files = file.listFiles();
+        if (files != null) {
+            for (File child : files) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,118 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.collect.EUI48BitmapSet;
+
+/**
+ * Unit tests for the {@link EUICollectors} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUICollectors
+ */
+public class EUICollectorsTest {
+    @DataProvider(name = "datasets")
+    public Object[][] dataProviderDatasets() {
+        Random random = new Random(0x5eed);
+        return new Object[][] {
+                { "empty", new long[0] },
+                { "single", new long[] { 0x001b213a4b5cL } },
+                { "signBits", new long[] { 0xffffffffffffL, 0x800000000000L, 0x7fffffff7fffL, 0x000000008000L, 0L, 0x000000008000L } },
+                { "random", random(random, 20000, 0xffffffffffffL) },
+                { "duplicates", random(random, 100000, 0xfffL) },
+                { "oneOUI", random(random, 200000, 0xffffffL) }
+        };
+    }
+
+    @Test(dataProvider = "datasets")
+    public void testToEUI48BitmapSet(String name, long[] bits) {
+        TreeSet<EUI48> expected = eui48s(bits).collect(Collectors.toCollection(TreeSet::new));
+        for (boolean parallel : new boolean[] { false, true }) {
+            EUI48BitmapSet set = stream(eui48s(bits), parallel).collect(EUICollectors.toEUI48BitmapSet());
+            assertEquals(set.size(), expected.size());
+            assertEquals(set, expected);
+        }
+    }
+
+    @Test(dataProvider = "datasets")
+    public void testToSortedEUI48Bits(String name, long[] bits) {
+        long[] expected = eui48s(bits).sorted().distinct().mapToLong(EUI48::getBits).toArray();
+        for (boolean parallel : new boolean[] { false, true }) {
+            long[] sorted = stream(eui48s(bits), parallel).collect(EUICollectors.toSortedEUI48Bits());
+            assertEquals(sorted, expected);
+        }
+    }
+
+    @Test(dataProvider = "datasets")
+    public void testToSortedEUI64Bits(String name, long[] bits) {
+        long[] expected = Arrays.stream(bits).map(b -> b * 0x10001L).sorted().distinct().toArray();
+        for (boolean parallel : new boolean[] { false, true }) {
+            long[] sorted = stream(Arrays.stream(expected).mapToObj(EUI64::new), parallel).collect(EUICollectors.toSortedEUI64Bits());
+            assertEquals(sorted, expected);
+            sorted = stream(Arrays.stream(bits).map(b -> b * 0x10001L).mapToObj(EUI64::new), parallel).collect(EUICollectors.toSortedEUI64Bits());
+            assertEquals(sorted, expected);
+        }
+    }
+
+    @Test(dataProvider = "datasets")
+    public void testCountingEUI48s(String name, long[] bits) {
+        Map<EUI48, Long> expected = eui48s(bits).collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(stream(eui48s(bits), parallel).collect(EUICollectors.countingEUI48s()), expected);
+        }
+    }
+
+    @Test(dataProvider = "datasets")
+    public void testCountingEUI64s(String name, long[] bits) {
+        Map<EUI64, Long> expected = Arrays.stream(bits).mapToObj(EUI64::new).collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+        for (boolean parallel : new boolean[] { false, true }) {
+            assertEquals(stream(Arrays.stream(bits).mapToObj(EUI64::new), parallel).collect(EUICollectors.countingEUI64s()), expected);
+        }
+    }
+
+    private static Stream<EUI48> eui48s(long[] bits) {
+        return Arrays.stream(bits).mapToObj(EUI48::new);
+    }
+
+    private static <T> Stream<T> stream(Stream<T> stream, boolean parallel) {
+        return parallel ? stream.parallel() : stream.sequential();
+    }
+
+    private static long[] random(Random random, int count, long mask) {
+        long[] bits = new long[count];
+        long oui = (random.nextLong() & 0xffffff000000L);
+        for (int n = 0; n < count; ++n) {
+            bits[n] = (mask == 0xffffffffffffL) ? random.nextLong() & mask : oui | (random.nextLong() & mask);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,135 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.stream;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.collect.EUI48BitmapSet;
+
+/**
+ * Unit tests for the {@link EUIStreams} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIStreams
+ */
+public class EUIStreamsTest {
+    @DataProvider(name = "sortedBits")
+    public Object[][] dataProviderSortedBits() {
+        Random random = new Random(0x5eed);
+        long[] bits = new long[50000];
+        for (int n = 0; n < bits.length; ++n) {
+            bits[n] = random.nextLong() & 0xffffffffffffL;
+        }
+        return new Object[][] {
+                { new long[0] },
+                { new long[] { 0x001b213a4b5cL } },
+                { Arrays.stream(bits).mapToObj(EUI48::new).collect(EUICollectors.toSortedEUI48Bits()) }
+        };
+    }
+
+    @DataProvider(name = "unsortedBits")
+    public Object[][] dataProviderUnsortedBits() {
+        return new Object[][] {
+                { new long[] { 2L, 1L } },
+                { new long[] { 1L, 1L } },
+                { new long[] { 0x000000007fffL, 0x000000008000L } },
+                { new long[] { 0x000000000000L, 0x800000000000L } }
+        };
+    }
+
+    @Test(dataProvider = "sortedBits")
+    public void testSortedEUI48s(long[] bits) {
+        List<EUI48> expected = Arrays.stream(bits).mapToObj(EUI48::new).collect(Collectors.toList());
+        assertEquals(EUIStreams.sortedEUI48s(bits).collect(Collectors.toList()), expected);
+        assertEquals(EUIStreams.sortedEUI48s(bits).parallel().sorted().distinct().collect(Collectors.toList()), expected);
+        assertEquals(EUIStreams.eui48s(bits).parallel().collect(Collectors.toList()), expected);
+        assertEquals(EUIStreams.sortedEUI48s(bits).parallel().count(), (long) bits.length);
+
+        Spliterator<EUI48> spliterator = EUIStreams.sortedEUI48s(bits).spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.SIZED | Spliterator.SUBSIZED));
+        assertNull(spliterator.getComparator());
+    }
+
+    @Test(dataProvider = "unsortedBits", expectedExceptions = IllegalArgumentException.class)
+    public void testSortedEUI48sUnsorted(long[] bits) {
+        EUIStreams.sortedEUI48s(bits);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testEUI48sOutOfRange() {
+        EUIStreams.eui48s(1L, 1L << 48);
+    }
+
+    @Test
+    public void testSortedEUI64s() {
+        long[] bits = { Long.MIN_VALUE, -1L, 0L, 1L, Long.MAX_VALUE };
+        List<EUI64> expected = Arrays.stream(bits).mapToObj(EUI64::new).sorted().collect(Collectors.toList());
+        assertEquals(EUIStreams.sortedEUI64s(bits).collect(Collectors.toList()), expected);
+        assertEquals(EUIStreams.eui64s(bits).parallel().sorted().collect(Collectors.toList()), expected);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testSortedEUI64sUnsorted() {
+        EUIStreams.sortedEUI64s(0L, -1L);
+    }
+
+    @Test
+    public void testSpliteratorSplitsEvenly() {
+        long[] bits = new long[1 << 16];
+        Spliterator<EUI64> spliterator = EUIStreams.eui64s(bits).spliterator();
+        Spliterator<EUI64> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(prefix.estimateSize(), 1L << 15);
+        assertEquals(spliterator.estimateSize(), 1L << 15);
+        assertEquals(prefix.getExactSizeIfKnown(), 1L << 15);
+    }
+
+    @Test
+    public void testBitmapSetBits() {
+        EUI48BitmapSet set = new EUI48BitmapSet();
+        Random random = new Random(0x5eed);
+        for (int n = 0; n < 100000; ++n) {
+            set.add(random.nextLong() & 0x0fff0000ffffL);
+        }
+        assertEquals(EUIStreams.bits(set).toArray(), set.toLongArray());
+        assertEquals(EUIStreams.bits(set).parallel().toArray(), set.toLongArray());
+        assertEquals(EUIStreams.bits(set).parallel().count(), set.cardinality());
+    }
+
+    @Test
+    public void testBitsRoundTrip() {
+        long[] bits = { 0x001b213a4b5cL, 0xffffffffffffL, 0L };
+        assertEquals(EUIStreams.eui48Bits(EUIStreams.eui48s(Arrays.stream(bits))).toArray(), bits);
+        assertEquals(EUIStreams.eui64Bits(EUIStreams.eui64s(Arrays.stream(bits))).toArray(), bits);
+        assertEquals(EUIStreams.eui48s(bits).collect(Collectors.toList()), Stream.of(bits).flatMapToLong(Arrays::stream).mapToObj(EUI48::new).collect(Collectors.toList()));
+    }
+}
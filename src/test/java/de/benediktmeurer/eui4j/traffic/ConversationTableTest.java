@@ -0,0 +1,249 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link ConversationTable} class.
+ * 
+ * @author Benedikt Meurer
+ * @see ConversationTable
+ */
+public class ConversationTableTest {
+    private static final long BASE = 0x001b21000000L;
+
+    @DataProvider(name = "capacities")
+    public Object[][] dataProviderCapacities() {
+        return new Object[][] { { 1 }, { 3 }, { 64 }, { 100 }, { 1000 } };
+    }
+
+    @DataProvider(name = "tops")
+    public Object[][] dataProviderTops() {
+        return new Object[][] { { 0 }, { 1 }, { 10 }, { 999 }, { 1000 }, { 5000 } };
+    }
+
+    @Test
+    public void testAdd() {
+        ConversationTable table = new ConversationTable(16);
+        assertTrue(table.add(new EUI48(BASE + 1), new EUI48(BASE + 2), 64));
+        assertTrue(table.add(new EUI48(BASE + 1), new EUI48(BASE + 2), 1500));
+        assertTrue(table.add(BASE + 2, BASE + 1, 3, 192));
+        assertTrue(table.add(0, 0xffffffffffffL, 1, 0));
+        assertTrue(table.add(BASE + 1, BASE + 1, 0, 0));
+        assertEquals(table.size(), 4);
+        assertEquals(table.get(new EUI48(BASE + 1), new EUI48(BASE + 2)), new Conversation(BASE + 1, BASE + 2, 2, 1564));
+        assertEquals(table.get(BASE + 2, BASE + 1), new Conversation(BASE + 2, BASE + 1, 3, 192));
+        assertEquals(table.get(0, 0xffffffffffffL), new Conversation(0, 0xffffffffffffL, 1, 0));
+        assertNull(table.get(BASE + 3, BASE + 1));
+        List<Conversation> conversations = table.conversations();
+        assertEquals(conversations.size(), 4);
+        assertEquals(conversations.get(0).getSource(), new EUI48(0));
+        assertEquals(conversations.get(1), new Conversation(BASE + 1, BASE + 1, 0, 0));
+        assertEquals(conversations.get(2).getDestination(), new EUI48(BASE + 2));
+        assertEquals(conversations.get(3).getSourceBits(), BASE + 2);
+        assertEquals(table.getDroppedFrames(), 0L);
+    }
+
+    @Test(dataProvider = "capacities")
+    public void testCapacity(int capacity) {
+        ConversationTable table = new ConversationTable(capacity);
+        assertEquals(table.getCapacity(), capacity);
+        for (int n = 0; n < capacity; ++n) {
+            assertTrue(table.add(BASE + n, BASE, 1, 100));
+        }
+        assertFalse(table.add(BASE + capacity, BASE, 2, 200));
+        assertFalse(table.add(BASE, BASE + 1, 3, 300));
+        assertTrue(table.add(BASE, BASE, 1, 100));
+        assertEquals(table.size(), capacity);
+        assertEquals(table.getDroppedFrames(), 5L);
+        assertEquals(table.getDroppedBytes(), 500L);
+        assertEquals(table.get(BASE, BASE).getFrames(), 2L);
+    }
+
+    @Test(dataProvider = "tops")
+    public void testTop(int n) {
+        Random random = new Random(n);
+        ConversationTable table = new ConversationTable(1000);
+        for (int i = 0; i < 1000; ++i) {
+            table.add(BASE + random.nextInt(1 << 20), BASE + random.nextInt(1 << 20), random.nextInt(100), random.nextInt(100000));
+        }
+        List<Conversation> byFrames = new ArrayList<Conversation>(table.conversations());
+        Collections.sort(byFrames, (x, y) -> Long.compare(y.getFrames(), x.getFrames()));
+        List<Conversation> byBytes = new ArrayList<Conversation>(table.conversations());
+        Collections.sort(byBytes, (x, y) -> Long.compare(y.getBytes(), x.getBytes()));
+        List<Conversation> top = table.topByFrames(n);
+        assertEquals(top.size(), Math.min(n, byFrames.size()));
+        for (int i = 0; i < top.size(); ++i) {
+            assertEquals(top.get(i).getFrames(), byFrames.get(i).getFrames());
+        }
+        top = table.topByBytes(n);
+        assertEquals(top.size(), Math.min(n, byBytes.size()));
+        for (int i = 0; i < top.size(); ++i) {
+            assertEquals(top.get(i).getBytes(), byBytes.get(i).getBytes());
+        }
+    }
+
+    @Test
+    public void testEndpoints() {
+        Random random = new Random(0xe9);
+        ConversationTable table = new ConversationTable(5000);
+        Map<Long, long[]> expected = new HashMap<Long, long[]>();
+        for (int i = 0; i < 5000; ++i) {
+            long source = BASE + random.nextInt(100);
+            long destination = BASE + random.nextInt(100);
+            int frames = 1 + random.nextInt(10);
+            int bytes = 64 * frames + random.nextInt(1000);
+            table.add(source, destination, frames, bytes);
+            total(expected, source)[0] += frames;
+            total(expected, source)[1] += bytes;
+            total(expected, destination)[2] += frames;
+            total(expected, destination)[3] += bytes;
+        }
+        List<Endpoint> endpoints = table.endpoints();
+        assertEquals(endpoints.size(), expected.size());
+        long previous = -1;
+        for (Endpoint endpoint : endpoints) {
+            long[] total = expected.get(endpoint.getAddressBits());
+            assertEquals(endpoint, new Endpoint(endpoint.getAddressBits(), total[0], total[1], total[2], total[3]));
+            assertEquals(endpoint.getAddress(), new EUI48(endpoint.getAddressBits()));
+            assertTrue(endpoint.getAddressBits() > previous);
+            previous = endpoint.getAddressBits();
+        }
+    }
+
+    @Test
+    public void testSnapshotAndReset() throws Exception {
+        final ConversationTable table = new ConversationTable(1 << 12);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+            for (int t = 0; t < 4; ++t) {
+                final int seed = t;
+                futures.add(executor.submit(new Callable<long[]>() {
+                    @Override
+                    public long[] call() {
+                        Random random = new Random(seed);
+                        long[] frames = new long[64];
+                        for (int n = 0; n < 200000; ++n) {
+                            int pair = random.nextInt(frames.length);
+                            assertTrue(table.add(BASE + pair, BASE + (pair >>> 2), 1, pair));
+                            ++frames[pair];
+                        }
+                        return frames;
+                    }
+                }));
+            }
+            long[] counted = new long[64];
+            long bytes = 0;
+            for (boolean done = false; !done;) {
+                done = true;
+                for (Future<long[]> future : futures) {
+                    done &= future.isDone();
+                }
+                for (Conversation conversation : table.snapshotAndReset().conversations()) {
+                    int pair = (int) (conversation.getSourceBits() - BASE);
+                    assertEquals(conversation.getDestinationBits(), BASE + (pair >>> 2));
+                    counted[pair] += conversation.getFrames();
+                    bytes += conversation.getBytes();
+                }
+            }
+            long[] expected = new long[64];
+            long expectedBytes = 0;
+            for (Future<long[]> future : futures) {
+                long[] frames = future.get();
+                for (int pair = 0; pair < frames.length; ++pair) {
+                    expected[pair] += frames[pair];
+                    expectedBytes += frames[pair] * pair;
+                }
+            }
+            for (int pair = 0; pair < expected.length; ++pair) {
+                assertEquals(counted[pair], expected[pair]);
+            }
+            assertEquals(bytes, expectedBytes);
+            assertEquals(table.size(), 0);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testConversation() {
+        Conversation conversation = new Conversation(BASE + 1, BASE + 2, 3, 4);
+        assertEquals(conversation.hashCode(), new Conversation(BASE + 1, BASE + 2, 3, 4).hashCode());
+        assertFalse(conversation.equals(new Conversation(BASE + 2, BASE + 1, 3, 4)));
+        assertEquals(conversation.toString(), "Conversation[source=00:1b:21:00:00:01, destination=00:1b:21:00:00:02, frames=3, bytes=4]");
+        Endpoint endpoint = new Endpoint(BASE, 1, 2, 3, 4);
+        assertEquals(endpoint.hashCode(), new Endpoint(BASE, 1, 2, 3, 4).hashCode());
+        assertFalse(endpoint.equals(new Endpoint(BASE, 1, 2, 4, 3)));
+        assertEquals(endpoint.toString(), "Endpoint[address=00:1b:21:00:00:00, framesSent=1, bytesSent=2, framesReceived=3, bytesReceived=4]");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidCapacity() {
+        new ConversationTable(0);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCapacityTooLarge() {
+        new ConversationTable(ConversationTable.MAX_CAPACITY + 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddInvalidBits() {
+        new ConversationTable(1).add(BASE, 1L << 48, 1, 1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testAddNegative() {
+        new ConversationTable(1).add(BASE, BASE, 1, -1);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testTopNegative() {
+        new ConversationTable(1).topByFrames(-1);
+    }
+
+    private static long[] total(Map<Long, long[]> totals, long address) {
+        long[] total = totals.get(address);
+        if (total == null) {
+            total = new long[4];
+            totals.put(address, total);
+        }
+        return total;
+    }
+}
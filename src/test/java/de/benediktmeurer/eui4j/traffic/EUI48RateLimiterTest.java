@@ -0,0 +1,239 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.traffic;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+
+/**
+ * Unit tests for the {@link EUI48RateLimiter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUI48RateLimiter
+ */
+public class EUI48RateLimiterTest {
+    private static final long MAC = 0x001b21000000L;
+
+    private static final long MILLISECOND = 1000000L;
+
+    @DataProvider(name = "invalidArguments")
+    public Object[][] dataProviderInvalidArguments() {
+        return new Object[][] {
+                { 0.0, 1, 1 },
+                { -1.0, 1, 1 },
+                { Double.NaN, 1, 1 },
+                { 2e6, 1, 1 },
+                { 1.0, 0, 1 },
+                { 1.0, EUI48RateLimiter.MAX_BURST + 1, 1 },
+                { 1.0, 1, 0 },
+                { 1.0, 1, EUI48RateLimiter.MAX_CAPACITY + 1 }
+        };
+    }
+
+    @DataProvider(name = "rates")
+    public Object[][] dataProviderRates() {
+        return new Object[][] { { 1.0, 1 }, { 10.0, 5 }, { 3.0, 7 }, { 1000.0, 100 }, { 0.5, 2 } };
+    }
+
+    @Test(dataProvider = "rates")
+    public void testBurstAndRefill(double rate, int burst) {
+        AtomicLong ticker = new AtomicLong(123456789L);
+        EUI48RateLimiter limiter = new EUI48RateLimiter(rate, burst, 1000, ticker::get);
+        for (int n = 0; n < burst; ++n) {
+            assertEquals(limiter.availablePermits(MAC), burst - n);
+            assertTrue(limiter.tryAcquire(MAC));
+        }
+        assertFalse(limiter.tryAcquire(MAC));
+        assertEquals(limiter.availablePermits(MAC), 0);
+        long interval = (long) Math.ceil(1e6 / rate) * 1000;
+        ticker.addAndGet(interval - 1000);
+        assertFalse(limiter.tryAcquire(MAC));
+        ticker.addAndGet(1000);
+        assertTrue(limiter.tryAcquire(MAC));
+        assertFalse(limiter.tryAcquire(MAC));
+        ticker.addAndGet(interval * burst * 10);
+        assertEquals(limiter.availablePermits(MAC), burst);
+    }
+
+    @Test
+    public void testNoFractionalPermitsLost() {
+        AtomicLong ticker = new AtomicLong();
+        EUI48RateLimiter limiter = new EUI48RateLimiter(10, 10, 1000, ticker::get);
+        assertTrue(limiter.tryAcquire(MAC, 10));
+        int acquired = 0;
+        for (int n = 0; n < 1000; ++n) {
+            ticker.addAndGet(30 * MILLISECOND);
+            while (limiter.tryAcquire(MAC)) {
+                ++acquired;
+            }
+        }
+        assertEquals(acquired, 300);
+    }
+
+    @Test
+    public void testAcquireMultiple() {
+        AtomicLong ticker = new AtomicLong();
+        EUI48RateLimiter limiter = new EUI48RateLimiter(100, 10, 1000, ticker::get);
+        assertTrue(limiter.tryAcquire(MAC, 7));
+        assertFalse(limiter.tryAcquire(MAC, 4));
+        assertTrue(limiter.tryAcquire(MAC, 3));
+        ticker.addAndGet(50 * MILLISECOND);
+        assertFalse(limiter.tryAcquire(MAC, 6));
+        assertTrue(limiter.tryAcquire(MAC, 5));
+    }
+
+    @Test
+    public void testIndependentAddresses() {
+        AtomicLong ticker = new AtomicLong();
+        EUI48RateLimiter limiter = new EUI48RateLimiter(1, 2, 100000, ticker::get);
+        for (long n = 0; n < 10000; ++n) {
+            assertTrue(limiter.tryAcquire(MAC + n));
+            assertTrue(limiter.tryAcquire(new EUI48(MAC + n)));
+            assertFalse(limiter.tryAcquire(MAC + n));
+        }
+        assertEquals(limiter.size(), 10000);
+        for (long n = 0; n < 10000; ++n) {
+            assertEquals(limiter.availablePermits(MAC + n), 0);
+        }
+        assertEquals(limiter.availablePermits(MAC + 10000), 2);
+        assertEquals(limiter.getOverflows(), 0L);
+    }
+
+    @Test
+    public void testClockSkew() {
+        AtomicLong ticker = new AtomicLong(10000 * MILLISECOND);
+        EUI48RateLimiter limiter = new EUI48RateLimiter(1, 1, 1000, ticker::get);
+        assertTrue(limiter.tryAcquire(MAC));
+        ticker.addAndGet(-10 * MILLISECOND);
+        assertFalse(limiter.tryAcquire(MAC));
+        ticker.addAndGet(1010 * MILLISECOND);
+        assertTrue(limiter.tryAcquire(MAC));
+    }
+
+    @Test
+    public void testOverflow() {
+        AtomicLong ticker = new AtomicLong();
+        EUI48RateLimiter limiter = new EUI48RateLimiter(10, 10, 256, ticker::get);
+        for (long n = 0; n < 256; ++n) {
+            assertTrue(limiter.tryAcquire(MAC + n));
+        }
+        assertFalse(limiter.tryAcquire(MAC + 256));
+        assertFalse(limiter.tryAcquire(MAC + 257));
+        assertEquals(limiter.getOverflows(), 2L);
+        assertTrue(limiter.tryAcquire(MAC + 255));
+        ticker.addAndGet(100 * MILLISECOND);
+        assertFalse(limiter.tryAcquire(MAC + 256));
+        assertEquals(limiter.getOverflows(), 3L);
+        ticker.addAndGet(950 * MILLISECOND);
+        assertTrue(limiter.tryAcquire(MAC + 255));
+        ticker.addAndGet(50 * MILLISECOND);
+        assertTrue(limiter.tryAcquire(MAC + 256));
+        assertEquals(limiter.size(), 2);
+        assertEquals(limiter.availablePermits(MAC + 255), 9);
+        assertEquals(limiter.getOverflows(), 3L);
+    }
+
+    @Test
+    public void testEvictIdle() {
+        AtomicLong ticker = new AtomicLong();
+        EUI48RateLimiter limiter = new EUI48RateLimiter(1, 4, 100000, ticker::get);
+        for (long n = 0; n < 1000; ++n) {
+            assertTrue(limiter.tryAcquire(MAC + n, (n % 2 == 0) ? 1 : 4));
+        }
+        assertEquals(limiter.evictIdle(), 0);
+        ticker.addAndGet(1000 * MILLISECOND);
+        assertEquals(limiter.evictIdle(), 500);
+        assertEquals(limiter.size(), 500);
+        for (long n = 0; n < 1000; ++n) {
+            assertEquals(limiter.availablePermits(MAC + n), (n % 2 == 0) ? 4 : 1);
+        }
+        ticker.addAndGet(3000 * MILLISECOND);
+        assertEquals(limiter.evictIdle(), 500);
+        assertEquals(limiter.size(), 0);
+    }
+
+    @Test
+    public void testConcurrentAcquire() throws Exception {
+        final int addresses = 50000;
+        final int burst = 3;
+        final EUI48RateLimiter limiter = new EUI48RateLimiter(1, burst, addresses, () -> 0L);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            Future<?>[] futures = new Future<?>[8];
+            for (int t = 0; t < futures.length; ++t) {
+                final int offset = t * 977;
+                futures[t] = executor.submit(new Callable<int[]>() {
+                    @Override
+                    public int[] call() {
+                        int[] acquired = new int[addresses];
+                        for (int round = 0; round < burst + 1; ++round) {
+                            for (int n = 0; n < addresses; ++n) {
+                                int index = (n + offset) % addresses;
+                                if (limiter.tryAcquire(MAC + index)) {
+                                    ++acquired[index];
+                                }
+                            }
+                        }
+                        return acquired;
+                    }
+                });
+            }
+            int[] total = new int[addresses];
+            for (Future<?> future : futures) {
+                int[] acquired = (int[]) future.get();
+                for (int n = 0; n < addresses; ++n) {
+                    total[n] += acquired[n];
+                }
+            }
+            for (int n = 0; n < addresses; ++n) {
+                assertEquals(total[n], burst);
+            }
+            assertEquals(limiter.size(), addresses);
+            assertEquals(limiter.getOverflows(), 0L);
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(dataProvider = "invalidArguments", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidArguments(double rate, int burst, int capacity) {
+        new EUI48RateLimiter(rate, burst, capacity);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidAddress() {
+        new EUI48RateLimiter(1, 1, 1).tryAcquire(1L << 48);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPermits() {
+        new EUI48RateLimiter(1, 5, 1).tryAcquire(MAC, 6);
+    }
+}
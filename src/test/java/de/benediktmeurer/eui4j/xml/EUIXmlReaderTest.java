@@ -0,0 +1,267 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import javax.xml.bind.JAXB;
+import javax.xml.bind.annotation.XmlAttribute;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.stream.XMLStreamException;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI48XmlAdapter;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIXmlReader} and {@link EUIXmlCursor} classes.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIXmlReader
+ * @see EUIXmlCursor
+ */
+public class EUIXmlReaderTest {
+    private static final String INVENTORY = "<?xml version=\"1.0\"?>\n"
+            + "<inv:inventory xmlns:inv=\"urn:inventory\">\n"
+            + "  <device mac=\"00:11:22:33:44:55\" name=\"a\">\n"
+            + "    <mac>66-77-88-99-AA-BB</mac>\n"
+            + "    <uplink><mac>cc:dd:ee:ff:00:01</mac></uplink>\n"
+            + "  </device>\n"
+            + "  <device name=\"b\">\n"
+            + "    <mac>\n      02:00:00:00:00:02\n    </mac>\n"
+            + "  </device>\n"
+            + "  <switch mac=\"02:00:00:00:00:03\"><mac><![CDATA[02:00:00:00:00:04]]></mac></switch>\n"
+            + "</inv:inventory>\n";
+
+    @DataProvider(name = "paths")
+    public Object[][] dataProviderPaths() {
+        return new Object[][] {
+                { new String[] { "inventory/device/@mac" }, new long[] { 0x001122334455L } },
+                { new String[] { "/inventory/device/mac" }, new long[] { 0x66778899aabbL, 0x020000000002L } },
+                { new String[] { "inventory/*/mac" }, new long[] { 0x66778899aabbL, 0x020000000002L, 0x020000000004L } },
+                { new String[] { "inventory/*/@mac" }, new long[] { 0x001122334455L, 0x020000000003L } },
+                { new String[] { "inventory/device/*/mac" }, new long[] { 0xccddeeff0001L } },
+                { new String[] { "inventory/device/@mac", "inventory/device/mac" }, new long[] { 0x001122334455L, 0x66778899aabbL, 0x020000000002L } },
+                { new String[] { "inventory/device/@mac", "inventory/device/@name" }, null },
+                { new String[] { "device/@mac" }, new long[0] },
+                { new String[] { "inventory/router/mac" }, new long[0] }
+        };
+    }
+
+    @DataProvider(name = "invalidPaths")
+    public Object[][] dataProviderInvalidPaths() {
+        return new Object[][] { { "" }, { "/" }, { "@mac" }, { "inventory//mac" }, { "inventory/@mac/device" }, { "inventory/@" }, { "inventory/@*" } };
+    }
+
+    @DataProvider(name = "invalidDocuments")
+    public Object[][] dataProviderInvalidDocuments() {
+        return new Object[][] {
+                { "<inventory><mac>00:11:22:33:44</mac></inventory>" },
+                { "<inventory><mac>00:11:22:33:44:5g</mac></inventory>" },
+                { "<inventory><mac>00:11:22:33:44:55<b/>66</mac></inventory>" },
+                { "<inventory><mac/></inventory>" },
+                { "<inventory><mac>00:11:22:33:44:55</mac>" },
+                { "<inventory><mac>00:11:22:33:44:55</mac></inventory><mac/>" }
+        };
+    }
+
+    @Test(dataProvider = "paths")
+    public void testRead(String[] paths, long[] expected) throws Exception {
+        EUIXmlReader reader = new EUIXmlReader(EUIType.EUI48, paths);
+        final List<Long> bits = new ArrayList<Long>();
+        try {
+            long count = reader.read(new StringReader(INVENTORY), bits::add);
+            assertEquals(count, (long) bits.size());
+            assertEquals(toArray(bits), expected);
+        }
+        catch (XMLStreamException e) {
+            assertEquals(expected, null);
+            assertTrue(e.getMessage().contains("Invalid EUI-48 string: a"), e.getMessage());
+        }
+    }
+
+    @Test(dataProvider = "paths")
+    public void testCursor(String[] paths, long[] expected) throws Exception {
+        if (expected == null) {
+            return;
+        }
+        EUIXmlCursor cursor = new EUIXmlReader(EUIType.EUI48, paths).open(new ByteArrayInputStream(INVENTORY.getBytes(StandardCharsets.UTF_8)));
+        try {
+            for (long bits : expected) {
+                assertTrue(cursor.next());
+                assertEquals(cursor.getBits(), bits);
+                assertEquals(cursor.getEUI48(), new EUI48(bits));
+            }
+            assertFalse(cursor.next());
+            assertFalse(cursor.next());
+        }
+        finally {
+            cursor.close();
+        }
+    }
+
+    @Test
+    public void testReadEUI64() throws Exception {
+        String xml = "<hosts><host id=\"00:11:22:ff:fe:33:44:55\"/><host id=\" 02-00-00-00-00-00-00-01 \"/></hosts>";
+        EUIXmlCursor cursor = new EUIXmlReader(EUIType.EUI64, "hosts/host/@id").open(new StringReader(xml));
+        assertTrue(cursor.next());
+        assertEquals(cursor.getEUI64(), EUI64.fromString("00:11:22:ff:fe:33:44:55"));
+        assertTrue(cursor.next());
+        assertEquals(cursor.getBits(), 0x0200000000000001L);
+        assertFalse(cursor.next());
+        cursor.close();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCursorWrongType() throws Exception {
+        EUIXmlCursor cursor = new EUIXmlReader(EUIType.EUI48, "inventory/device/@mac").open(new StringReader(INVENTORY));
+        assertTrue(cursor.next());
+        cursor.getEUI64();
+    }
+
+    @Test(dataProvider = "invalidPaths", expectedExceptions = IllegalArgumentException.class)
+    public void testInvalidPath(String path) {
+        new EUIXmlReader(EUIType.EUI48, path);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testNoPaths() {
+        new EUIXmlReader(EUIType.EUI48);
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullType() {
+        new EUIXmlReader(null, "inventory/mac");
+    }
+
+    @Test(dataProvider = "invalidDocuments", expectedExceptions = XMLStreamException.class)
+    public void testInvalidDocument(String xml) throws Exception {
+        new EUIXmlReader(EUIType.EUI48, "inventory/mac").read(new StringReader(xml), b -> {
+        });
+    }
+
+    @Test
+    public void testInvalidValueLocation() throws Exception {
+        String xml = "<inventory>\n<mac>00:11:22:33:44:55</mac>\n<mac>00:11:22:33:44</mac>\n</inventory>";
+        EUIXmlCursor cursor = new EUIXmlReader(EUIType.EUI48, "inventory/mac").open(new StringReader(xml));
+        assertTrue(cursor.next());
+        try {
+            cursor.next();
+            throw new AssertionError();
+        }
+        catch (XMLStreamException e) {
+            assertEquals(e.getLocation().getLineNumber(), 3);
+            assertTrue(e.getMessage().contains("Invalid EUI-48 string: 00:11:22:33:44"), e.getMessage());
+        }
+    }
+
+    @Test(expectedExceptions = XMLStreamException.class)
+    public void testExternalEntity() throws Exception {
+        File file = File.createTempFile("eui4j", "entity");
+        try {
+            writeFile(file, "00:11:22:33:44:55");
+            String xml = "<!DOCTYPE inventory [<!ENTITY mac SYSTEM \"" + file.toURI() + "\">]><inventory><mac>&mac;</mac></inventory>";
+            new EUIXmlReader(EUIType.EUI48, "inventory/mac").read(new StringReader(xml), b -> {
+                throw new AssertionError();
+            });
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReadFile() throws Exception {
+        Random random = new Random(0x5eed);
+        Inventory inventory = new Inventory();
+        inventory.devices = new ArrayList<Device>();
+        long[] expected = new long[50000];
+        for (int n = 0; n < expected.length; n += 2) {
+            Device device = new Device();
+            device.mac = new EUI48(expected[n] = random.nextLong() >>> 16);
+            device.uplink = new EUI48(expected[n + 1] = random.nextLong() >>> 16);
+            inventory.devices.add(device);
+        }
+        File file = File.createTempFile("eui4j", "inventory");
+        try {
+            StringWriter xml = new StringWriter();
+            JAXB.marshal(inventory, xml);
+            writeFile(file, xml.toString());
+            final long[] bits = new long[expected.length];
+            final int[] count = new int[1];
+            EUIXmlReader reader = new EUIXmlReader(EUIType.EUI48, "inventory/device/@mac", "inventory/device/uplink");
+            assertEquals(reader.read(file, b -> bits[count[0]++] = b), (long) expected.length);
+            assertEquals(bits, expected);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+        finally {
+            out.close();
+        }
+    }
+
+    private static long[] toArray(List<Long> list) {
+        long[] bits = new long[list.size()];
+        for (int n = 0; n < bits.length; ++n) {
+            bits[n] = list.get(n);
+        }
+        return bits;
+    }
+
+    @XmlRootElement(name = "inventory")
+    public static class Inventory {
+        @XmlElement(name = "device")
+        List<Device> devices;
+    }
+
+    public static class Device {
+        @XmlAttribute(name = "mac")
+        @XmlJavaTypeAdapter(EUI48XmlAdapter.class)
+        EUI48 mac;
+
+        @XmlElement(name = "uplink")
+        @XmlJavaTypeAdapter(EUI48XmlAdapter.class)
+        EUI48 uplink;
+    }
+}
@@ -0,0 +1,139 @@
+/*-
+ * Copyright 2012 Benedikt Meurer
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package de.benediktmeurer.eui4j.xml;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import javax.xml.bind.JAXB;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.XmlRootElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamWriter;
+
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import de.benediktmeurer.eui4j.EUI48;
+import de.benediktmeurer.eui4j.EUI64;
+import de.benediktmeurer.eui4j.EUI64XmlAdapter;
+import de.benediktmeurer.eui4j.metrics.EUIType;
+
+/**
+ * Unit tests for the {@link EUIXmlWriter} class.
+ * 
+ * @author Benedikt Meurer
+ * @see EUIXmlWriter
+ */
+public class EUIXmlWriterTest {
+    @DataProvider(name = "documents")
+    public Object[][] dataProviderDocuments() {
+        return new Object[][] {
+                { EUIType.EUI48, "inventory/device/@mac", new long[0], "<inventory></inventory>" },
+                { EUIType.EUI48, "inventory/device/@mac", new long[] { 0x001122334455L, 0xffffffffffffL },
+                        "<inventory><device mac=\"00:11:22:33:44:55\"/><device mac=\"ff:ff:ff:ff:ff:ff\"/></inventory>" },
+                { EUIType.EUI48, "/inventory/devices/mac", new long[] { 0x0000000000abL },
+                        "<inventory><devices><mac>00:00:00:00:00:ab</mac></devices></inventory>" },
+                { EUIType.EUI48, "macs/mac", new long[] { 0x0000000000abL, 0x0000000000cdL },
+                        "<macs><mac>00:00:00:00:00:ab</mac><mac>00:00:00:00:00:cd</mac></macs>" },
+                { EUIType.EUI64, "hosts/host/@id", new long[] { 0x001122fffe334455L, -1L },
+                        "<hosts><host id=\"00:11:22:ff:fe:33:44:55\"/><host id=\"ff:ff:ff:ff:ff:ff:ff:ff\"/></hosts>" }
+        };
+    }
+
+    @DataProvider(name = "invalidPaths")
+    public Object[][] dataProviderInvalidPaths() {
+        return new Object[][] { { "" }, { "inventory/*/@mac" }, { "*" }, { "@mac" }, { "mac" }, { "/mac" },
+                { "mac/@id" } };
+    }
+
+    @Test(dataProvider = "documents")
+    public void testWriteDocument(EUIType type, String path, long[] bits, String expected) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        EUIXmlWriter writer = new EUIXmlWriter(type, out);
+        assertEquals(writer.writeDocument(path, LongStream.of(bits).iterator()), (long) bits.length);
+        writer.close();
+        String xml = new String(out.toByteArray(), "UTF-8");
+        assertEquals(xml.substring(xml.indexOf("?>") + 2), expected);
+        final List<Long> read = new ArrayList<Long>();
+        new EUIXmlReader(type, path).read(new ByteArrayInputStream(out.toByteArray()), read::add);
+        assertEquals(read.size(), bits.length);
+        for (int n = 0; n < bits.length; ++n) {
+            assertEquals(read.get(n).longValue(), bits[n]);
+        }
+    }
+
+    @Test(dataProvider = "invalidPaths", expectedExceptions = IllegalArgumentException.class)
+    public void testWriteDocumentInvalidPath(String path) throws Exception {
+        new EUIXmlWriter(EUIType.EUI48, new ByteArrayOutputStream()).writeDocument(path, LongStream.empty().iterator());
+    }
+
+    @Test
+    public void testWriteLikeAdapter() throws Exception {
+        Hosts hosts = new Hosts();
+        hosts.ids = new ArrayList<EUI64>();
+        hosts.ids.add(EUI64.fromString("00-11-22-FF-FE-33-44-55"));
+        hosts.ids.add(EUI64.fromString("02:00:00:00:00:00:00:01"));
+        StringWriter out = new StringWriter();
+        XMLStreamWriter stream = XMLOutputFactory.newInstance().createXMLStreamWriter(out);
+        EUIXmlWriter writer = new EUIXmlWriter(EUIType.EUI64, stream);
+        stream.writeStartDocument();
+        stream.writeStartElement("hosts");
+        for (EUI64 id : hosts.ids) {
+            writer.writeElement("id", id.getBits());
+        }
+        stream.writeEndElement();
+        stream.writeEndDocument();
+        writer.close();
+        assertEquals(JAXB.unmarshal(new StringReader(out.toString()), Hosts.class).ids, hosts.ids);
+        StringWriter jaxb = new StringWriter();
+        JAXB.marshal(hosts, jaxb);
+        assertEquals(out.toString().replaceAll("<\\?.*\\?>", ""), jaxb.toString().replaceAll("<\\?.*\\?>|\\s", ""));
+    }
+
+    @Test
+    public void testWriteAttributeAndCharacters() throws Exception {
+        StringWriter out = new StringWriter();
+        EUIXmlWriter writer = new EUIXmlWriter(EUIType.EUI48, XMLOutputFactory.newInstance().createXMLStreamWriter(out));
+        writer.getWriter().writeStartElement("link");
+        writer.writeAttribute("from", new EUI48(0x00000000000aL).getBits());
+        writer.writeCharacters(0x0000000000bbL);
+        writer.getWriter().writeEndElement();
+        writer.flush();
+        assertEquals(out.toString(), "<link from=\"00:00:00:00:00:0a\">00:00:00:00:00:bb</link>");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void testNullType() {
+        new EUIXmlWriter(null, (XMLStreamWriter) null);
+    }
+
+    @XmlRootElement(name = "hosts")
+    public static class Hosts {
+        @XmlElement(name = "id")
+        @XmlJavaTypeAdapter(EUI64XmlAdapter.class)
+        List<EUI64> ids;
+    }
+}